@@ -0,0 +1,152 @@
+/*
+ * JMH benchmarks for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the pieces of one animation frame of LotsOfMovingShapesPanel: the collision
+ * test between two balls, the wall checks, a full simulation tick and painting the
+ * panel into an off-screen image. Each is measured for several ball counts and for
+ * evenly spread, clustered and banded worlds.
+ *
+ * <p>The simulated world is sized so every ball has about four times its bounding box
+ * of room; clustered and banded worlds crowd the same balls into less of it. The paint
+ * benchmark always draws into a PREFERRED_SIZE image.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationBenchmark {
+
+    /** The area (in square pixels) given to each ball. */
+    private static final double AREA_PER_BALL = 4.0 * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE
+            * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The number of balls in the world. */
+    @Param({"1000", "10000", "100000"})
+    private int myBallCount;
+
+    /** The name of the BallDistribution that scatters the balls over the world. */
+    @Param({"UNIFORM", "CLUSTERED", "BAND"})
+    private String myDistribution;
+
+    /** The simulation that is ticked. */
+    private BallSimulation mySimulation;
+
+    /** Handles to every ball of mySimulation. */
+    private LotsOfMovingShapesPanel.Ball[] myHandles;
+
+    /** The panel that is painted. */
+    private LotsOfMovingShapesPanel myPanel;
+
+    /** The image the panel is painted into. */
+    private BufferedImage myImage;
+
+    /** The graphics of myImage. */
+    private Graphics2D myGraphics;
+
+    /** Builds the worlds and the off-screen image. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final double side = Math.sqrt(myBallCount * AREA_PER_BALL);
+        final BallDistribution distribution = BallDistribution.valueOf(myDistribution);
+        mySimulation = new BallSimulation(side, side);
+        distribution.fill(mySimulation.getBalls(), myBallCount, side, side,
+                            new Random(SEED));
+        myHandles = new LotsOfMovingShapesPanel.Ball[myBallCount];
+        for (int i = 0; i < myBallCount; i++) {
+            myHandles[i] = mySimulation.getBalls().getBall(i);
+        }
+
+        myPanel = new LotsOfMovingShapesPanel();
+        myPanel.setSize(LotsOfMovingShapesPanel.PREFERRED_SIZE);
+        myPanel.getQualityGovernor().setEnabled(false);
+        distribution.fill(myPanel.getSimulation().getBalls(), myBallCount,
+                            myPanel.getWidth(), myPanel.getHeight(), new Random(SEED));
+        myPanel.publish();
+        myImage = new BufferedImage(myPanel.getWidth(), myPanel.getHeight(),
+                                    BufferedImage.TYPE_INT_ARGB);
+        myGraphics = myImage.createGraphics();
+    }
+
+    /** Releases the image graphics and any broad phase threads. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        myGraphics.dispose();
+        mySimulation.shutdown();
+    }
+
+    /**
+     * Tests every ball for a collision with the next ball using Ball.collide.
+     *
+     * @return the number of collisions found, so the work is not optimized away
+     */
+    @Benchmark
+    public int collide() {
+        int collisions = 0;
+        for (int i = 1; i < myHandles.length; i++) {
+            if (myHandles[i - 1].collide(myHandles[i])) {
+                collisions++;
+            }
+        }
+        return collisions;
+    }
+
+    /** Runs updateHorizontalMove and updateVerticalMove for every ball. */
+    @Benchmark
+    public void boundaryUpdate() {
+        final BallStore balls = mySimulation.getBalls();
+        final double width = mySimulation.getWidth();
+        final double height = mySimulation.getHeight();
+        for (int i = 0; i < balls.size(); i++) {
+            balls.updateHorizontalMove(i, width);
+            balls.updateVerticalMove(i, height);
+        }
+    }
+
+    /**
+     * Runs one full simulation tick: move, wall checks, broad phase and bounces.
+     *
+     * @return the number of collisions, so the work is not optimized away
+     */
+    @Benchmark
+    public int tick() {
+        return mySimulation.tick();
+    }
+
+    /** Paints the panel into an off-screen image. */
+    @Benchmark
+    public void paintComponent() {
+        myPanel.paintComponent(myGraphics);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Memory and speed benchmark for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.awt.geom.Ellipse2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the original one-object-per-ball layout (a List of balls that each own an
+ * Ellipse2D and a Color) with the structure-of-arrays BallStore. For each ball count it
+ * reports the heap bytes used per ball and the average time of one move step.
+ *
+ * <p>Run with a large heap, for example {@code java -Xmx4g}, so that a million
+ * object-per-ball balls fit.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+public final class BallStoreBenchmark {
+
+    /** The ball counts to measure. */
+    private static final int[] BALL_COUNTS = {100_000, 1_000_000};
+
+    /** The number of move steps timed for each layout. */
+    private static final int STEPS = 200;
+
+    /** The number of untimed move steps run first so the JIT compiles the loops. */
+    private static final int WARM_UP_STEPS = 100;
+
+    /** The width of the simulated panel. */
+    private static final int WIDTH = 4000;
+
+    /** The height of the simulated panel. */
+    private static final int HEIGHT = 4000;
+
+    /** The number of times to ask for a garbage collection before measuring the heap. */
+    private static final int GC_RUNS = 5;
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** The seed for the random positions so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** Keeps the measured world reachable while the heap is measured. */
+    private static Object sRetained;
+
+    private BallStoreBenchmark() {
+        super();
+    }
+
+    /**
+     * Runs the benchmark and prints one line per layout and ball count.
+     *
+     * @param theArgs Command line parameters - ignored in this program
+     */
+    public static void main(final String[] theArgs) {
+        System.out.printf("%-16s %10s %14s %14s%n", "layout", "balls", "bytes/ball",
+                          "ms/step");
+        for (final int count : BALL_COUNTS) {
+            report("objects", count, measureObjects(count));
+            report("BallStore", count, measureStore(count));
+        }
+    }
+
+    /**
+     * Prints one result line.
+     *
+     * @param theLayout the name of the layout
+     * @param theCount the number of balls
+     * @param theResult the bytes per ball and milliseconds per step
+     */
+    private static void report(final String theLayout, final int theCount,
+                               final double[] theResult) {
+        System.out.printf("%-16s %10d %14.1f %14.3f%n", theLayout, theCount,
+                          theResult[0], theResult[1]);
+    }
+
+    /**
+     * Measures the original object-per-ball layout.
+     *
+     * @param theCount the number of balls
+     * @return the bytes per ball and milliseconds per step
+     */
+    private static double[] measureObjects(final int theCount) {
+        final long before = usedHeap();
+        final Random random = new Random(SEED);
+        final List<LegacyBall> balls = new ArrayList<>();
+        for (int i = 0; i < theCount; i++) {
+            balls.add(new LegacyBall(new Ellipse2D.Double(
+                    random.nextInt(WIDTH), random.nextInt(HEIGHT),
+                    LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE,
+                    LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE),
+                    new Color(random.nextInt())));
+        }
+        sRetained = balls;
+        final double bytes = (usedHeap() - before) / (double) theCount;
+        for (int step = 0; step < WARM_UP_STEPS; step++) {
+            LegacyBall.moveAll(balls);
+        }
+        final long start = System.nanoTime();
+        for (int step = 0; step < STEPS; step++) {
+            LegacyBall.moveAll(balls);
+        }
+        final double millis = (System.nanoTime() - start) / NANOS_PER_MILLI / STEPS;
+        sRetained = null;
+        return new double[] {bytes, millis};
+    }
+
+    /**
+     * Measures the BallStore layout.
+     *
+     * @param theCount the number of balls
+     * @return the bytes per ball and milliseconds per step
+     */
+    private static double[] measureStore(final int theCount) {
+        final long before = usedHeap();
+        final Random random = new Random(SEED);
+        final BallStore balls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE);
+        final Color color = Color.decode("#4B2E83");
+        for (int i = 0; i < theCount; i++) {
+            balls.add(random.nextInt(WIDTH), random.nextInt(HEIGHT), 1, 1, color);
+        }
+        sRetained = balls;
+        final double bytes = (usedHeap() - before) / (double) theCount;
+        for (int step = 0; step < WARM_UP_STEPS; step++) {
+            balls.move(WIDTH, HEIGHT);
+        }
+        final long start = System.nanoTime();
+        for (int step = 0; step < STEPS; step++) {
+            balls.move(WIDTH, HEIGHT);
+        }
+        final double millis = (System.nanoTime() - start) / NANOS_PER_MILLI / STEPS;
+        sRetained = null;
+        return new double[] {bytes, millis};
+    }
+
+    /**
+     * Returns the number of bytes in use on the heap after collecting garbage.
+     *
+     * @return the used heap in bytes
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_RUNS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * A copy of the ball as it was stored before BallStore: one object per ball that
+     * owns its shape and its color.
+     */
+    private static final class LegacyBall {
+
+        /** The moving shape. */
+        private final Ellipse2D myMovingShape;
+
+        /** A Color for the ball. */
+        private final Color myColor;
+
+        /** An integer that determines the horizontal movement at each animation step. */
+        private int myHorizontalMove = 1;
+
+        /** An integer that determines the vertical movement at each animation step. */
+        private int myVerticalMove = 1;
+
+        /**
+         * Initialize the fields.
+         *
+         * @param theMovingShape the shape to move
+         * @param theColor the color of this ball
+         */
+        LegacyBall(final Ellipse2D theMovingShape, final Color theColor) {
+            super();
+            myMovingShape = theMovingShape;
+            myColor = theColor;
+        }
+
+        /**
+         * Moves every ball one step the way the original MoveListener did.
+         *
+         * @param theBalls the balls to move
+         */
+        static void moveAll(final List<LegacyBall> theBalls) {
+            for (final LegacyBall ball : theBalls) {
+                if (ball.myMovingShape.getFrame().getMinX() < 0) {
+                    ball.myHorizontalMove = 1;
+                } else if (ball.myMovingShape.getFrame().getMaxX() > WIDTH) {
+                    ball.myHorizontalMove = -1;
+                }
+                if (ball.myMovingShape.getFrame().getMinY() < 0) {
+                    ball.myVerticalMove = 1;
+                } else if (ball.myMovingShape.getFrame().getMaxY() > HEIGHT) {
+                    ball.myVerticalMove = -1;
+                }
+                ball.myMovingShape.setFrame(ball.myMovingShape.getX() + ball.myHorizontalMove,
+                                            ball.myMovingShape.getY() + ball.myVerticalMove,
+                                            LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE,
+                                            LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return myColor + " " + myMovingShape.getFrame();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Runs the JMH benchmarks for the animation package.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Runs the JMH benchmarks of the animation package from the IDE. The benchmark classes
+ * are generated by the JMH annotation processor, so annotation processing must be
+ * enabled (it is in this project's settings).
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        super();
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param theArgs Command line parameters - passed on to JMH, for example
+     *                {@code AnimationBenchmark.tick -p myBallCount=10000}; with no
+     *                parameters every benchmark in this package runs
+     * @throws RunnerException when JMH cannot run the benchmarks
+     */
+    public static void main(final String[] theArgs) throws RunnerException {
+        String[] args = theArgs;
+        if (args.length == 0) {
+            args = new String[] {BenchmarkRunner.class.getPackageName() + ".*Benchmark"};
+        }
+        try {
+            org.openjdk.jmh.Main.main(args);
+        } catch (final java.io.IOException exception) {
+            throw new RunnerException(exception);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * JMH benchmarks for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the broad phases on a heavily clustered world, like the one a user builds by
+ * clicking over and over in the same few spots. Each invocation of clickBurst spawns a
+ * burst of balls around one hot spot, checking each against the existing balls the way
+ * MouseClickListener does, and then runs a tick. The tick benchmark runs the tick alone.
+ *
+ * <p>The world is rebuilt for every iteration so the balls added by the bursts do not
+ * pile up from one iteration to the next.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClusteredSpawnBenchmark {
+
+    /** The area (in square pixels) given to each ball. */
+    private static final double AREA_PER_BALL = 4.0 * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE
+            * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The number of clicks in a burst. */
+    private static final int CLICKS = 500;
+
+    /** How far (in pixels) a click may land from the hot spot. */
+    private static final int CLICK_JITTER = 200;
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The number of balls in the world before any clicks. */
+    @Param({"10000", "100000"})
+    private int myBallCount;
+
+    /** The name of the BroadPhaseType to use. */
+    @Param({"UNIFORM_GRID", "SWEEP_AND_PRUNE", "QUADTREE"})
+    private String myBroadPhase;
+
+    /** The simulation being clicked on. */
+    private BallSimulation mySimulation;
+
+    /** Picks where each click lands. */
+    private Random myRandom;
+
+    /** The x coordinate of the hot spot. */
+    private double myHotSpotX;
+
+    /** The y coordinate of the hot spot. */
+    private double myHotSpotY;
+
+    /** Builds a clustered world and picks a hot spot in it. */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final double side = Math.sqrt(myBallCount * AREA_PER_BALL);
+        mySimulation = new BallSimulation(side, side);
+        mySimulation.setBroadPhase(BroadPhaseType.valueOf(myBroadPhase));
+        myRandom = new Random(SEED);
+        BallDistribution.CLUSTERED.fill(mySimulation.getBalls(), myBallCount, side, side,
+                                        myRandom);
+        // the first ball sits in the middle of a cluster; click around it
+        myHotSpotX = mySimulation.getBalls().getX(0);
+        myHotSpotY = mySimulation.getBalls().getY(0);
+        mySimulation.tick();
+    }
+
+    /** Releases any broad phase threads. */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        mySimulation.shutdown();
+    }
+
+    /**
+     * Clicks CLICKS times around the hot spot and then runs a tick.
+     *
+     * @return the number of balls, so the work is not optimized away
+     */
+    @Benchmark
+    public int clickBurst() {
+        for (int click = 0; click < CLICKS; click++) {
+            mySimulation.spawn(myHotSpotX + myRandom.nextInt(2 * CLICK_JITTER) - CLICK_JITTER,
+                               myHotSpotY + myRandom.nextInt(2 * CLICK_JITTER) - CLICK_JITTER,
+                               1, 1, Color.BLUE);
+        }
+        mySimulation.tick();
+        return mySimulation.getBalls().size();
+    }
+
+    /**
+     * Runs one tick of the clustered world.
+     *
+     * @return the number of collisions, so the work is not optimized away
+     */
+    @Benchmark
+    public int tick() {
+        return mySimulation.tick();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * JMH benchmarks for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the broad phases on a world of default sized balls with a few large balls
+ * among them, from LARGE_MIN_DIAMETER to LARGE_MAX_DIAMETER pixels across. The uniform
+ * grid has to size every cell for the largest ball and the quadtree has to search as far
+ * around every leaf, so a handful of large balls makes every small ball test dozens of
+ * others; the hierarchical grid gives the large balls a level of their own.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixedSizeBroadPhaseBenchmark {
+
+    /** The area (in square pixels) given to each ball. */
+    private static final double AREA_PER_BALL = 4.0 * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE
+            * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The number of default sized balls per large ball. */
+    private static final int SMALL_PER_LARGE = 100;
+
+    /** The diameter of the smallest large balls. */
+    private static final double LARGE_MIN_DIAMETER = 80;
+
+    /** The diameter of the largest large balls. */
+    private static final double LARGE_MAX_DIAMETER = 320;
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The number of balls in the world. */
+    @Param({"10000", "100000"})
+    private int myBallCount;
+
+    /** The name of the BroadPhaseType that finds the collisions. */
+    @Param({"UNIFORM_GRID", "SWEEP_AND_PRUNE", "QUADTREE", "HIERARCHICAL_GRID"})
+    private String myBroadPhase;
+
+    /** The simulation that is ticked. */
+    private BallSimulation mySimulation;
+
+    /** Builds the world. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final double side = Math.sqrt(myBallCount * AREA_PER_BALL);
+        final Random random = new Random(SEED);
+        final int large = myBallCount / SMALL_PER_LARGE;
+        mySimulation = new BallSimulation(side, side);
+        mySimulation.setBroadPhase(BroadPhaseType.valueOf(myBroadPhase));
+        BallDistribution.UNIFORM.fill(mySimulation.getBalls(), myBallCount - large, side,
+                                      side, random);
+        BallDistribution.UNIFORM.fill(mySimulation.getBalls(), large, side, side,
+                                      LARGE_MIN_DIAMETER, LARGE_MAX_DIAMETER, random);
+    }
+
+    /** Releases any broad phase threads. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mySimulation.shutdown();
+    }
+
+    /**
+     * Runs one full simulation tick.
+     *
+     * @return the number of collisions, so the work is not optimized away
+     */
+    @Benchmark
+    public int tick() {
+        return mySimulation.tick();
+    }
+}
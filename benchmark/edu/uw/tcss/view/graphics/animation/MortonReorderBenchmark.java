@@ -0,0 +1,91 @@
+/*
+ * JMH benchmarks for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full simulation tick with and without putting the balls into Z-order
+ * every few hundred ticks. A UNIFORM world is filled in random order, which is what a
+ * world that has been bouncing for a few minutes looks like in memory, so without
+ * reordering every collision search reads balls scattered over the whole store. The
+ * time of the reorders is included in the ticks that run them.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MortonReorderBenchmark {
+
+    /** The area (in square pixels) given to each ball. */
+    private static final double AREA_PER_BALL = 4.0 * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE
+            * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The number of balls in the world. */
+    @Param({"10000", "100000", "1000000"})
+    private int myBallCount;
+
+    /** The number of ticks between reorders; 0 never reorders. */
+    @Param({"0", "256"})
+    private int myReorderInterval;
+
+    /** The name of the BroadPhaseType that finds the collisions. */
+    @Param({"UNIFORM_GRID", "SWEEP_AND_PRUNE"})
+    private String myBroadPhase;
+
+    /** The simulation that is ticked. */
+    private BallSimulation mySimulation;
+
+    /** Builds the world. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final double side = Math.sqrt(myBallCount * AREA_PER_BALL);
+        mySimulation = new BallSimulation(side, side);
+        mySimulation.setBroadPhase(BroadPhaseType.valueOf(myBroadPhase));
+        mySimulation.setReorderInterval(myReorderInterval);
+        BallDistribution.UNIFORM.fill(mySimulation.getBalls(), myBallCount, side, side,
+                                      new Random(SEED));
+    }
+
+    /** Releases any broad phase threads. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mySimulation.shutdown();
+    }
+
+    /**
+     * Runs one full simulation tick.
+     *
+     * @return the number of collisions, so the work is not optimized away
+     */
+    @Benchmark
+    public int tick() {
+        return mySimulation.tick();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * JMH benchmarks for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar and the vector MoveKernel on the move step of the simulation
+ * alone, for several ball counts. The fork is started with the jdk.incubator.vector
+ * module so the VECTOR kernel is available.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MoveKernelBenchmark {
+
+    /** The area (in square pixels) given to each ball. */
+    private static final double AREA_PER_BALL = 4.0 * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE
+            * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The number of balls in the world. */
+    @Param({"1000", "100000", "1000000"})
+    private int myBallCount;
+
+    /** The name of the MoveKernelType that moves the balls. */
+    @Param({"SCALAR", "VECTOR"})
+    private String myKernel;
+
+    /** The balls that are moved. */
+    private BallStore myBalls;
+
+    /** The side length of the square world. */
+    private double mySide;
+
+    /** Builds the world and picks the kernel. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        mySide = Math.sqrt(myBallCount * AREA_PER_BALL);
+        myBalls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE);
+        BallDistribution.UNIFORM.fill(myBalls, myBallCount, mySide, mySide,
+                                      new Random(SEED));
+        myBalls.setMoveKernel(MoveKernelType.valueOf(myKernel));
+    }
+
+    /** Moves every ball one step. */
+    @Benchmark
+    public void move() {
+        myBalls.move(mySide, mySide);
+    }
+}
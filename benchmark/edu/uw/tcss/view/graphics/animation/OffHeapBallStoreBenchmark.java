@@ -0,0 +1,195 @@
+/*
+ * Garbage collection benchmark for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the garbage collector's work with a huge world kept in heap arrays
+ * (ArrayBallLayout) and off the heap (OffHeapBallLayout). For each layout it fills a
+ * store, then times move steps while allocating short lived garbage the way a running
+ * user interface does, and finally times full collections with the world still alive.
+ * It reports the heap bytes used per ball, the average and worst step, and the number
+ * and total pause time of the collections.
+ *
+ * <p>Run with a heap large enough for the array layout, for example
+ * {@code java -Xmx2g}; the optional argument is the number of balls, ten million when
+ * missing.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+public final class OffHeapBallStoreBenchmark {
+
+    /** The default number of balls. */
+    private static final int DEFAULT_BALLS = 10_000_000;
+
+    /** The number of move steps timed for each layout. */
+    private static final int STEPS = 60;
+
+    /** The number of untimed move steps run first so the JIT compiles the loops. */
+    private static final int WARM_UP_STEPS = 10;
+
+    /** The number of garbage arrays allocated during each step. */
+    private static final int GARBAGE_PER_STEP = 4_096;
+
+    /** The size of each garbage array in bytes. */
+    private static final int GARBAGE_BYTES = 1_024;
+
+    /** The number of full collections timed for each layout. */
+    private static final int FULL_GCS = 5;
+
+    /** The area (in square pixels) given to each ball. */
+    private static final double AREA_PER_BALL = 4.0 * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE
+            * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** The seed for the random positions so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** Keeps the latest garbage reachable so the allocations are not optimized away. */
+    private static volatile Object sGarbage;
+
+    private OffHeapBallStoreBenchmark() {
+        super();
+    }
+
+    /**
+     * Runs the benchmark and prints one line per layout.
+     *
+     * @param theArgs Command line parameters - [balls]
+     */
+    public static void main(final String[] theArgs) {
+        int balls = DEFAULT_BALLS;
+        if (theArgs.length > 0) {
+            balls = Integer.parseInt(theArgs[0]);
+        }
+        System.out.printf("%-9s %10s %11s %9s %9s %5s %10s %10s%n", "layout", "balls",
+                          "heap B/ball", "ms/step", "worst ms", "GCs", "GC ms",
+                          "ms/full GC");
+        measure("arrays", ArrayBallLayout::new, balls);
+        measure("off-heap", OffHeapBallLayout::new, balls);
+    }
+
+    /**
+     * Measures one layout and prints its line.
+     *
+     * @param theName the name of the layout
+     * @param theLayout creates the layout with room for a number of balls
+     * @param theCount the number of balls
+     */
+    private static void measure(final String theName,
+                                final IntFunction<BallLayout> theLayout,
+                                final int theCount) {
+        final long before = usedHeap();
+        final double side = Math.sqrt(theCount * AREA_PER_BALL);
+        final Random random = new Random(SEED);
+        final Color color = Color.decode("#4B2E83");
+        try (BallStore store = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE,
+                                             theLayout.apply(theCount))) {
+            for (int i = 0; i < theCount; i++) {
+                store.add(random.nextDouble() * side, random.nextDouble() * side,
+                          direction(random), direction(random), color);
+            }
+            final double bytes = (usedHeap() - before) / (double) theCount;
+            for (int step = 0; step < WARM_UP_STEPS; step++) {
+                store.move(side, side);
+            }
+            final long collections = collectionCount();
+            final long pauses = collectionMillis();
+            long worst = 0;
+            final long start = System.nanoTime();
+            for (int step = 0; step < STEPS; step++) {
+                final long stepStart = System.nanoTime();
+                store.move(side, side);
+                makeGarbage();
+                worst = Math.max(worst, System.nanoTime() - stepStart);
+            }
+            final double millis = (System.nanoTime() - start) / NANOS_PER_MILLI / STEPS;
+            final long stepCollections = collectionCount() - collections;
+            final long stepPauses = collectionMillis() - pauses;
+            final long fullPauses = collectionMillis();
+            for (int gc = 0; gc < FULL_GCS; gc++) {
+                System.gc();
+            }
+            final double fullMillis = (collectionMillis() - fullPauses) / (double) FULL_GCS;
+            System.out.printf("%-9s %10d %11.1f %9.2f %9.2f %5d %10d %10.1f%n", theName,
+                              store.size(), bytes, millis, worst / NANOS_PER_MILLI,
+                              stepCollections, stepPauses, fullMillis);
+        }
+    }
+
+    /**
+     * Allocates GARBAGE_PER_STEP short lived arrays.
+     */
+    private static void makeGarbage() {
+        for (int i = 0; i < GARBAGE_PER_STEP; i++) {
+            sGarbage = new byte[GARBAGE_BYTES];
+        }
+    }
+
+    /**
+     * Returns 1 or -1 at random.
+     *
+     * @param theRandom the random numbers
+     * @return a direction
+     */
+    private static int direction(final Random theRandom) {
+        int result = 1;
+        if (theRandom.nextBoolean()) {
+            result = -1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of collections so far, over every collector.
+     *
+     * @return the number of collections
+     */
+    private static long collectionCount() {
+        long result = 0;
+        for (final GarbageCollectorMXBean collector
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += collector.getCollectionCount();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the milliseconds the collectors have paused the application so far.
+     *
+     * @return the pause time in milliseconds
+     */
+    private static long collectionMillis() {
+        long result = 0;
+        for (final GarbageCollectorMXBean collector
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += collector.getCollectionTime();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes in use on the heap after collecting garbage.
+     *
+     * @return the used heap in bytes
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < FULL_GCS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * JMH benchmarks for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the render modes by painting the panel into an off-screen image. The balls
+ * are scattered over the panel in the two colors the panel uses, in random order, so
+ * drawing each ball on its own changes the paint about every other ball. With level of
+ * detail on, the 10,000 and 100,000 ball fields are crowded enough to be drawn as a
+ * density map whatever the mode.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    /** The colors the balls are drawn in. */
+    private static final Color[] COLORS = {Color.decode("#4B2E83"), Color.decode("#B7A57A")};
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The number of balls on the panel. */
+    @Param({"1000", "10000", "100000"})
+    private int myBallCount;
+
+    /** The name of the RenderMode to draw with. */
+    @Param({"PER_BALL", "BATCHED", "SPRITES", "TILED"})
+    private String myRenderMode;
+
+    /** True to draw crowded balls as a density map, false to always draw each ball. */
+    @Param({"false", "true"})
+    private boolean myLevelOfDetail;
+
+    /** The panel that is painted. */
+    private LotsOfMovingShapesPanel myPanel;
+
+    /** The image the panel is painted into. */
+    private BufferedImage myImage;
+
+    /** The graphics of myImage. */
+    private Graphics2D myGraphics;
+
+    /** Builds the panel and the off-screen image. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        myPanel = new LotsOfMovingShapesPanel();
+        myPanel.setSize(LotsOfMovingShapesPanel.PREFERRED_SIZE);
+        myPanel.getQualityGovernor().setEnabled(false);
+        myPanel.setRenderMode(RenderMode.valueOf(myRenderMode));
+        if (!myLevelOfDetail) {
+            myPanel.setDetailThreshold(Double.POSITIVE_INFINITY);
+        }
+        final BallStore balls = myPanel.getSimulation().getBalls();
+        final Random random = new Random(SEED);
+        final int right = myPanel.getWidth() - LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+        final int bottom = myPanel.getHeight() - LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+        for (int i = 1; i < myBallCount; i++) {
+            balls.add(random.nextInt(right), random.nextInt(bottom), 1, 1,
+                      COLORS[random.nextInt(COLORS.length)]);
+        }
+        myPanel.publish();
+        myImage = new BufferedImage(myPanel.getWidth(), myPanel.getHeight(),
+                                    BufferedImage.TYPE_INT_ARGB);
+        myGraphics = myImage.createGraphics();
+    }
+
+    /** Releases the image graphics. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        myGraphics.dispose();
+    }
+
+    /** Paints the panel into an off-screen image. */
+    @Benchmark
+    public void paintComponent() {
+        myPanel.paintComponent(myGraphics);
+    }
+}
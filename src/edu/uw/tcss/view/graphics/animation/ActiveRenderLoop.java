@@ -0,0 +1,163 @@
+/*
+ * An active rendering loop for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Draws frames into a Canvas's BufferStrategy on its own thread, instead of asking
+ * Swing to repaint. Each frame is drawn, shown and flushed to the screen as soon as it
+ * is due, so frames are not merged or delayed by the RepaintManager.
+ *
+ * <p>Frames are capped at a maximum rate. Frame deadlines advance by exactly one frame
+ * period, so the rate does not drift; after a stall longer than a frame the loop starts
+ * counting again from the present instead of rushing out the missed frames. Each frame
+ * is redrawn until it reaches the screen with its contents intact, as the
+ * BufferStrategy documentation prescribes, since the buffers can be lost at any time,
+ * for example when the display mode changes. The time between shown frames is kept in a
+ * FrameStats.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class ActiveRenderLoop implements Runnable {
+
+    /** The number of buffers in the strategy: one shown and one drawn into. */
+    private static final int BUFFERS = 2;
+
+    /** The number of nanoseconds in a second. */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /** The canvas the frames are drawn on. */
+    private final Canvas myCanvas;
+
+    /** Draws one frame. */
+    private final Consumer<Graphics2D> myRenderer;
+
+    /** The shortest time between frames in nanoseconds; 0 for no cap. */
+    private final long myFrameNanos;
+
+    /** The time between the frames shown. */
+    private final FrameStats myStats = new FrameStats();
+
+    /** The thread running this loop, or null when stopped. */
+    private Thread myThread;
+
+    /** True while the loop should keep running. */
+    private volatile boolean myRunning;
+
+    /**
+     * Constructs a loop that is not yet running.
+     *
+     * @param theCanvas the canvas to draw on
+     * @param theRenderer draws one frame into the graphics it is given
+     * @param theMaxFramesPerSecond the frame cap; 0 to draw frames as fast as possible
+     * @throws IllegalArgumentException when theMaxFramesPerSecond is negative
+     */
+    ActiveRenderLoop(final Canvas theCanvas, final Consumer<Graphics2D> theRenderer,
+                     final int theMaxFramesPerSecond) {
+        super();
+        if (theMaxFramesPerSecond < 0) {
+            throw new IllegalArgumentException(
+                    "Frame cap must not be negative. Was: " + theMaxFramesPerSecond);
+        }
+        myCanvas = theCanvas;
+        myRenderer = theRenderer;
+        long frameNanos = 0;
+        if (theMaxFramesPerSecond > 0) {
+            frameNanos = NANOS_PER_SECOND / theMaxFramesPerSecond;
+        }
+        myFrameNanos = frameNanos;
+        myCanvas.setIgnoreRepaint(true);
+    }
+
+    /**
+     * Returns the time between the frames shown.
+     *
+     * @return the frame statistics
+     */
+    FrameStats getStats() {
+        return myStats;
+    }
+
+    /**
+     * Creates the buffers and starts the render thread. The canvas must be displayable,
+     * so call this after its window is shown. Does nothing if it is already running.
+     */
+    synchronized void start() {
+        if (myThread == null) {
+            myCanvas.createBufferStrategy(BUFFERS);
+            myRunning = true;
+            myThread = new Thread(this, "ball-render");
+            myThread.setDaemon(true);
+            myThread.start();
+        }
+    }
+
+    /** Stops the render thread and waits for it to finish its current frame. */
+    synchronized void stop() {
+        if (myThread != null) {
+            myRunning = false;
+            LockSupport.unpark(myThread);
+            try {
+                myThread.join();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            myThread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        final BufferStrategy strategy = myCanvas.getBufferStrategy();
+        long deadline = System.nanoTime();
+        long previous = deadline;
+        while (myRunning) {
+            showFrame(strategy);
+            final long shown = System.nanoTime();
+            myStats.record(shown - previous);
+            previous = shown;
+
+            deadline += myFrameNanos;
+            if (shown - deadline > myFrameNanos) {
+                // too far behind to catch up; pace from now on
+                deadline = shown;
+            }
+            while (myRunning && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(deadline - System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Draws a frame and shows it, drawing it again whenever the buffers are restored or
+     * lost before it reaches the screen.
+     *
+     * @param theStrategy the canvas's buffer strategy
+     */
+    private void showFrame(final BufferStrategy theStrategy) {
+        do {
+            do {
+                final Graphics2D graphics = (Graphics2D) theStrategy.getDrawGraphics();
+                try {
+                    myRenderer.accept(graphics);
+                } finally {
+                    graphics.dispose();
+                }
+            } while (theStrategy.contentsRestored());
+            theStrategy.show();
+        } while (theStrategy.contentsLost());
+        // flush the window system's queue so the frame is on screen now, not later
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
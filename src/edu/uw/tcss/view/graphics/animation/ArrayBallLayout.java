@@ -0,0 +1,256 @@
+/*
+ * Ball storage for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the fields of the balls in parallel primitive arrays on the heap: ball i is the
+ * i-th element of each array, and a ball costs 51 bytes.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class ArrayBallLayout implements BallLayout {
+
+    /** The mask that turns a stored color byte back into a palette index. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** The x coordinate of the upper left corner of each ball. */
+    private double[] myX = new double[0];
+
+    /** The y coordinate of the upper left corner of each ball. */
+    private double[] myY = new double[0];
+
+    /** The x coordinate of each ball before the latest move. */
+    private double[] myPreviousX = new double[0];
+
+    /** The y coordinate of each ball before the latest move. */
+    private double[] myPreviousY = new double[0];
+
+    /** The horizontal direction (1 or -1) of each ball. */
+    private byte[] myHorizontalMove = new byte[0];
+
+    /** The vertical direction (1 or -1) of each ball. */
+    private byte[] myVerticalMove = new byte[0];
+
+    /** The palette index of the color of each ball. */
+    private byte[] myColorIndex = new byte[0];
+
+    /** The diameter of each ball. */
+    private double[] myDiameter = new double[0];
+
+    /** The id of each ball. */
+    private int[] myId = new int[0];
+
+    /** The index of the ball with each id. */
+    private int[] myIndexOf = new int[0];
+
+    /**
+     * Constructs a layout with room for theCapacity balls.
+     *
+     * @param theCapacity the initial capacity
+     */
+    ArrayBallLayout(final int theCapacity) {
+        super();
+        resize(theCapacity);
+    }
+
+    /**
+     * Returns the array of the x coordinates, for kernels that work on
+     * whole arrays. The array is replaced when the layout is resized.
+     *
+     * @return the array, ball i at index i
+     */
+    double[] getXArray() {
+        return myX;
+    }
+
+    /**
+     * Returns the array of the y coordinates, for kernels that work on
+     * whole arrays. The array is replaced when the layout is resized.
+     *
+     * @return the array, ball i at index i
+     */
+    double[] getYArray() {
+        return myY;
+    }
+
+    /**
+     * Returns the array of the previous x coordinates, for kernels that work on
+     * whole arrays. The array is replaced when the layout is resized.
+     *
+     * @return the array, ball i at index i
+     */
+    double[] getPreviousXArray() {
+        return myPreviousX;
+    }
+
+    /**
+     * Returns the array of the previous y coordinates, for kernels that work on
+     * whole arrays. The array is replaced when the layout is resized.
+     *
+     * @return the array, ball i at index i
+     */
+    double[] getPreviousYArray() {
+        return myPreviousY;
+    }
+
+    /**
+     * Returns the array of the horizontal directions, for kernels that work on
+     * whole arrays. The array is replaced when the layout is resized.
+     *
+     * @return the array, ball i at index i
+     */
+    byte[] getHorizontalMoveArray() {
+        return myHorizontalMove;
+    }
+
+    /**
+     * Returns the array of the vertical directions, for kernels that work on
+     * whole arrays. The array is replaced when the layout is resized.
+     *
+     * @return the array, ball i at index i
+     */
+    byte[] getVerticalMoveArray() {
+        return myVerticalMove;
+    }
+
+    /**
+     * Returns the array of the diameters, for kernels that work on whole arrays. The
+     * array is replaced when the layout is resized.
+     *
+     * @return the array, ball i at index i
+     */
+    double[] getDiameterArray() {
+        return myDiameter;
+    }
+
+    @Override
+    public int capacity() {
+        return myX.length;
+    }
+
+    @Override
+    public void resize(final int theCapacity) {
+        myX = Arrays.copyOf(myX, theCapacity);
+        myY = Arrays.copyOf(myY, theCapacity);
+        myPreviousX = Arrays.copyOf(myPreviousX, theCapacity);
+        myPreviousY = Arrays.copyOf(myPreviousY, theCapacity);
+        myHorizontalMove = Arrays.copyOf(myHorizontalMove, theCapacity);
+        myVerticalMove = Arrays.copyOf(myVerticalMove, theCapacity);
+        myColorIndex = Arrays.copyOf(myColorIndex, theCapacity);
+        myDiameter = Arrays.copyOf(myDiameter, theCapacity);
+        myId = Arrays.copyOf(myId, theCapacity);
+        myIndexOf = Arrays.copyOf(myIndexOf, theCapacity);
+    }
+
+    @Override
+    public void release() {
+        resize(0);
+    }
+
+    @Override
+    public double getX(final int theIndex) {
+        return myX[theIndex];
+    }
+
+    @Override
+    public void setX(final int theIndex, final double theX) {
+        myX[theIndex] = theX;
+    }
+
+    @Override
+    public double getY(final int theIndex) {
+        return myY[theIndex];
+    }
+
+    @Override
+    public void setY(final int theIndex, final double theY) {
+        myY[theIndex] = theY;
+    }
+
+    @Override
+    public double getPreviousX(final int theIndex) {
+        return myPreviousX[theIndex];
+    }
+
+    @Override
+    public void setPreviousX(final int theIndex, final double theX) {
+        myPreviousX[theIndex] = theX;
+    }
+
+    @Override
+    public double getPreviousY(final int theIndex) {
+        return myPreviousY[theIndex];
+    }
+
+    @Override
+    public void setPreviousY(final int theIndex, final double theY) {
+        myPreviousY[theIndex] = theY;
+    }
+
+    @Override
+    public int getHorizontalMove(final int theIndex) {
+        return myHorizontalMove[theIndex];
+    }
+
+    @Override
+    public void setHorizontalMove(final int theIndex, final int theMove) {
+        myHorizontalMove[theIndex] = (byte) theMove;
+    }
+
+    @Override
+    public int getVerticalMove(final int theIndex) {
+        return myVerticalMove[theIndex];
+    }
+
+    @Override
+    public void setVerticalMove(final int theIndex, final int theMove) {
+        myVerticalMove[theIndex] = (byte) theMove;
+    }
+
+    @Override
+    public int getColorIndex(final int theIndex) {
+        return myColorIndex[theIndex] & BYTE_MASK;
+    }
+
+    @Override
+    public void setColorIndex(final int theIndex, final int theColorIndex) {
+        myColorIndex[theIndex] = (byte) theColorIndex;
+    }
+
+    @Override
+    public double getDiameter(final int theIndex) {
+        return myDiameter[theIndex];
+    }
+
+    @Override
+    public void setDiameter(final int theIndex, final double theDiameter) {
+        myDiameter[theIndex] = theDiameter;
+    }
+
+    @Override
+    public int getId(final int theIndex) {
+        return myId[theIndex];
+    }
+
+    @Override
+    public void setId(final int theIndex, final int theId) {
+        myId[theIndex] = theId;
+    }
+
+    @Override
+    public int getIndexOf(final int theId) {
+        return myIndexOf[theId];
+    }
+
+    @Override
+    public void setIndexOf(final int theId, final int theIndex) {
+        myIndexOf[theId] = theIndex;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Commands passed to the simulation for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * A change to the balls of a BallSimulation, such as adding the balls for a mouse click,
+ * that any thread may submit and that runs on the thread that steps the simulation,
+ * between two ticks.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+interface BallCommand {
+
+    /**
+     * Makes the change. Called on the thread that steps theSimulation, before a tick.
+     *
+     * @param theSimulation the simulation to change
+     */
+    void apply(BallSimulation theSimulation);
+}
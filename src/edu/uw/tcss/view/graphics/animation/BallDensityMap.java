@@ -0,0 +1,232 @@
+/*
+ * A level of detail image for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Draws the balls of a BallSnapshot as a coarse image of how densely they cover the
+ * screen, for fields so crowded, or zoomed so far out, that a single ball can no longer
+ * be made out. The device pixels are grouped into square cells half a typical ball
+ * across, and each ball is counted in the cell its center falls in, so a frame costs one
+ * pass over the balls and one over the cells, whatever the size of the balls.
+ *
+ * <p>A cell's color is the mean color of its balls. Its alpha is the chance that a pixel
+ * of the cell is under at least one ball, 1 - e^-c for balls whose areas add up to c
+ * cells, so a cell with one ball is nearly opaque and an empty cell is clear. The image
+ * has one pixel per cell; the caller scales it up to the screen.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class BallDensityMap {
+
+    /** The number of cells across a ball. */
+    private static final double CELLS_PER_BALL = 2.0;
+
+    /** The area of a circle one unit across. */
+    private static final double CIRCLE_AREA = Math.PI / 4;
+
+    /** The largest value of a color or alpha channel. */
+    private static final int OPAQUE = 255;
+
+    /** The number of bits the alpha channel is shifted by in a pixel. */
+    private static final int ALPHA_SHIFT = 24;
+
+    /** The number of bits the red channel is shifted by in a pixel. */
+    private static final int RED_SHIFT = 16;
+
+    /** The number of bits the green channel is shifted by in a pixel. */
+    private static final int GREEN_SHIFT = 8;
+
+    /** The mask that keeps the lowest channel of a pixel. */
+    private static final int CHANNEL_MASK = 0xFF;
+
+    /** Half a pixel. */
+    private static final double HALF = 0.5;
+
+    /** The image drawn into; it only grows, and a frame uses its upper left corner. */
+    private BufferedImage myImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+
+    /** The number of balls centered in each cell. */
+    private int[] myCounts = new int[0];
+
+    /** The areas of the balls centered in each cell added up, in cells. */
+    private double[] myCovered = new double[0];
+
+    /** The sum of the alpha channels of the balls in each cell. */
+    private int[] myAlphas = new int[0];
+
+    /** The sum of the red channels of the balls in each cell. */
+    private int[] myReds = new int[0];
+
+    /** The sum of the green channels of the balls in each cell. */
+    private int[] myGreens = new int[0];
+
+    /** The sum of the blue channels of the balls in each cell. */
+    private int[] myBlues = new int[0];
+
+    /** The side length of a cell in device pixels of the latest frame. */
+    private int myCellSize = 1;
+
+    /** The number of columns of cells of the latest frame. */
+    private int myColumns;
+
+    /** The number of rows of cells of the latest frame. */
+    private int myRows;
+
+    /**
+     * Draws the balls of theSnapshot whose centers are in theRegion of device space, or
+     * within a cell of it, as one pixel per cell. Pixel (1, 1) of the image is the cell
+     * whose upper left corner is the upper left corner of theRegion, so the image
+     * starts one cell above and left of theRegion. The image is reused by the next call.
+     *
+     * @param theSnapshot the balls to draw
+     * @param theDiameter the diameter of a typical ball in user space, which sets the
+     *                    size of the cells
+     * @param theTransform the transform from user space to device space, which must only
+     *                     translate and scale uniformly
+     * @param theRegion the part of device space to draw
+     * @return the image
+     */
+    BufferedImage render(final BallSnapshot theSnapshot, final double theDiameter,
+                         final AffineTransform theTransform, final Rectangle theRegion) {
+        final double scale = theTransform.getScaleX();
+        myCellSize = Math.max(1, (int) (theDiameter * scale / CELLS_PER_BALL));
+        // a cell of margin on every side catches the balls centered just outside
+        myColumns = (theRegion.width + myCellSize - 1) / myCellSize + 2;
+        myRows = (theRegion.height + myCellSize - 1) / myCellSize + 2;
+        prepare();
+        final double left = theTransform.getTranslateX() - theRegion.x + myCellSize;
+        final double top = theTransform.getTranslateY() - theRegion.y + myCellSize;
+        final double cellArea = (double) myCellSize * myCellSize;
+        for (int k = 0; k < theSnapshot.getVisibleCount(); k++) {
+            final int i = theSnapshot.getVisible(k);
+            final double side = theSnapshot.getDiameter(i) * scale;
+            final int column = (int) Math.floor(
+                    (left + theSnapshot.getX(i) * scale + side * HALF) / myCellSize);
+            final int row = (int) Math.floor(
+                    (top + theSnapshot.getY(i) * scale + side * HALF) / myCellSize);
+            if (column >= 0 && column < myColumns && row >= 0 && row < myRows) {
+                add(row * myColumns + column,
+                    theSnapshot.getPaletteColor(theSnapshot.getColorIndex(i)).getRGB(),
+                    CIRCLE_AREA * side * side / cellArea);
+            }
+        }
+        writePixels();
+        return myImage;
+    }
+
+    /**
+     * Returns the side length of a cell in device pixels of the latest frame.
+     *
+     * @return the cell size
+     */
+    int getCellSize() {
+        return myCellSize;
+    }
+
+    /**
+     * Returns the number of columns of cells of the latest frame, which is the width of
+     * the part of the image it uses.
+     *
+     * @return the number of columns
+     */
+    int getColumns() {
+        return myColumns;
+    }
+
+    /**
+     * Returns the number of rows of cells of the latest frame, which is the height of
+     * the part of the image it uses.
+     *
+     * @return the number of rows
+     */
+    int getRows() {
+        return myRows;
+    }
+
+    /**
+     * Grows the image and the sums to fit the cells of this frame and clears the sums.
+     */
+    private void prepare() {
+        final int cells = myColumns * myRows;
+        if (myCounts.length < cells) {
+            myCounts = new int[cells];
+            myCovered = new double[cells];
+            myAlphas = new int[cells];
+            myReds = new int[cells];
+            myGreens = new int[cells];
+            myBlues = new int[cells];
+        }
+        Arrays.fill(myCounts, 0, cells, 0);
+        Arrays.fill(myCovered, 0, cells, 0);
+        Arrays.fill(myAlphas, 0, cells, 0);
+        Arrays.fill(myReds, 0, cells, 0);
+        Arrays.fill(myGreens, 0, cells, 0);
+        Arrays.fill(myBlues, 0, cells, 0);
+        if (myImage.getWidth() < myColumns || myImage.getHeight() < myRows) {
+            myImage = new BufferedImage(Math.max(myImage.getWidth(), myColumns),
+                                        Math.max(myImage.getHeight(), myRows),
+                                        BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+    }
+
+    /**
+     * Counts a ball of theColor covering theArea in theCell.
+     *
+     * @param theCell the index of the cell
+     * @param theColor the color of the ball, not premultiplied
+     * @param theArea the area of the ball in cells
+     */
+    private void add(final int theCell, final int theColor, final double theArea) {
+        myCounts[theCell]++;
+        myCovered[theCell] += theArea;
+        myAlphas[theCell] += theColor >>> ALPHA_SHIFT;
+        myReds[theCell] += theColor >>> RED_SHIFT & CHANNEL_MASK;
+        myGreens[theCell] += theColor >>> GREEN_SHIFT & CHANNEL_MASK;
+        myBlues[theCell] += theColor & CHANNEL_MASK;
+    }
+
+    /** Turns the sums of each cell into a premultiplied pixel of the image. */
+    private void writePixels() {
+        final int[] pixels = ((DataBufferInt) myImage.getRaster().getDataBuffer()).getData();
+        final int stride = myImage.getWidth();
+        for (int row = 0; row < myRows; row++) {
+            for (int column = 0; column < myColumns; column++) {
+                final int cell = row * myColumns + column;
+                final int count = myCounts[cell];
+                int pixel = 0;
+                if (count > 0) {
+                    final double coverage = 1 - Math.exp(-myCovered[cell]);
+                    final double alpha = coverage * myAlphas[cell] / count / OPAQUE;
+                    pixel = (int) (alpha * OPAQUE + HALF) << ALPHA_SHIFT
+                            | channel(myReds[cell], count, alpha) << RED_SHIFT
+                            | channel(myGreens[cell], count, alpha) << GREEN_SHIFT
+                            | channel(myBlues[cell], count, alpha);
+                }
+                pixels[row * stride + column] = pixel;
+            }
+        }
+    }
+
+    /**
+     * Returns the mean of a channel premultiplied by theAlpha.
+     *
+     * @param theSum the sum of the channel over the balls of a cell
+     * @param theCount the number of balls in the cell
+     * @param theAlpha the alpha of the cell, from 0 to 1
+     * @return the premultiplied channel, from 0 to 255
+     */
+    private static int channel(final int theSum, final int theCount, final double theAlpha) {
+        return (int) (theSum * theAlpha / theCount + HALF);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Starting layouts for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Ways to scatter balls over a world when setting up a simulation for the command line,
+ * benchmarks and tests. Balls are always placed on whole pixels with random directions,
+ * and are either all the default size or sized at random in whole pixels.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+enum BallDistribution {
+
+    /** Spread evenly over the whole world. */
+    UNIFORM,
+
+    /** Bunched into a few tight clusters, like many clicks in the same few spots. */
+    CLUSTERED,
+
+    /** Spread along a horizontal band one tenth of the world's height. */
+    BAND;
+
+    /** The number of clusters used by CLUSTERED. */
+    private static final int CLUSTERS = 8;
+
+    /** The spread of a cluster as a fraction of the world's smaller side. */
+    private static final double CLUSTER_SPREAD = 0.03;
+
+    /** The height of the band as a fraction of the world's height. */
+    private static final double BAND_FRACTION = 0.1;
+
+    /** The middle of the world as a fraction of its size. */
+    private static final double MIDDLE = 0.5;
+
+    /**
+     * Adds theCount balls of theColor to theBalls, scattered over a theWidth by
+     * theHeight world the way this distribution describes.
+     *
+     * @param theBalls the store to add the balls to
+     * @param theCount the number of balls to add
+     * @param theWidth the width of the world
+     * @param theHeight the height of the world
+     * @param theRandom the random number generator
+     */
+    void fill(final BallStore theBalls, final int theCount, final double theWidth,
+              final double theHeight, final Random theRandom) {
+        fill(theBalls, theCount, theWidth, theHeight, theBalls.getDefaultDiameter(),
+             theBalls.getDefaultDiameter(), theRandom);
+    }
+
+    /**
+     * Adds theCount balls of theColor to theBalls, scattered over a theWidth by
+     * theHeight world the way this distribution describes. Each ball is a whole number
+     * of pixels from theMinDiameter to theMaxDiameter across, drawn so that every
+     * doubling of the size is equally likely; small balls therefore far outnumber large
+     * ones. When the two are equal no random numbers are spent on sizes, so the balls
+     * are placed exactly as by the fill without sizes.
+     *
+     * @param theBalls the store to add the balls to
+     * @param theCount the number of balls to add
+     * @param theWidth the width of the world
+     * @param theHeight the height of the world
+     * @param theMinDiameter the diameter of the smallest balls
+     * @param theMaxDiameter the diameter of the largest balls
+     * @param theRandom the random number generator
+     * @throws IllegalArgumentException when theMinDiameter is not positive or is larger
+     *         than theMaxDiameter
+     */
+    void fill(final BallStore theBalls, final int theCount, final double theWidth,
+              final double theHeight, final double theMinDiameter,
+              final double theMaxDiameter, final Random theRandom) {
+        if (!(theMinDiameter > 0) || theMinDiameter > theMaxDiameter) {
+            throw new IllegalArgumentException("Diameters must be positive and in order. Was: "
+                    + theMinDiameter + ", " + theMaxDiameter);
+        }
+        final double[] clusterX = new double[CLUSTERS];
+        final double[] clusterY = new double[CLUSTERS];
+        for (int c = 0; c < CLUSTERS; c++) {
+            clusterX[c] = theRandom.nextDouble() * theWidth;
+            clusterY[c] = theRandom.nextDouble() * theHeight;
+        }
+        final double spread = CLUSTER_SPREAD * Math.min(theWidth, theHeight);
+        final double maxX = Math.max(1, theWidth - theMaxDiameter);
+        final double maxY = Math.max(1, theHeight - theMaxDiameter);
+        final double ratio = theMaxDiameter / theMinDiameter;
+        for (int i = 0; i < theCount; i++) {
+            double x = theRandom.nextDouble() * maxX;
+            double y = theRandom.nextDouble() * maxY;
+            if (this == CLUSTERED) {
+                final int cluster = theRandom.nextInt(CLUSTERS);
+                x = clusterX[cluster] + theRandom.nextGaussian() * spread;
+                y = clusterY[cluster] + theRandom.nextGaussian() * spread;
+            } else if (this == BAND) {
+                y = (MIDDLE + (theRandom.nextDouble() - MIDDLE) * BAND_FRACTION) * maxY;
+            }
+            final double px = Math.floor(clamp(x, maxX));
+            final double py = Math.floor(clamp(y, maxY));
+            final int horizontal = direction(theRandom);
+            final int vertical = direction(theRandom);
+            double diameter = theMinDiameter;
+            if (ratio > 1) {
+                final double size = theMinDiameter * Math.pow(ratio, theRandom.nextDouble());
+                diameter = Math.max(1, Math.round(size));
+            }
+            theBalls.add(px, py, horizontal, vertical, Color.BLUE, diameter);
+        }
+    }
+
+    /**
+     * Keeps thePosition between 0 and theMax.
+     *
+     * @param thePosition the position to clamp
+     * @param theMax the largest allowed position
+     * @return the clamped position
+     */
+    private static double clamp(final double thePosition, final double theMax) {
+        return Math.max(0, Math.min(theMax, thePosition));
+    }
+
+    /**
+     * Provides a 1 or -1 randomly.
+     *
+     * @param theRandom the random number generator
+     * @return a 1 or -1, randomly
+     */
+    private static int direction(final Random theRandom) {
+        int result = 1;
+        if (theRandom.nextBoolean()) {
+            result = -1;
+        }
+        return result;
+    }
+}
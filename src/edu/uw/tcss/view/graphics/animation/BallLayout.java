@@ -0,0 +1,221 @@
+/*
+ * Ball storage for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * Where a BallStore keeps the fields of its balls. A layout only reads and writes the
+ * fields of ball i; the BallStore decides what they mean. Directions are 1 or -1 and
+ * color indices are from 0 to 255, so a layout may store each in a byte. Diameters are
+ * always float values, so a layout may store them as floats. Next to the
+ * fields of ball i a layout keeps the index of the ball whose id is i, which the store
+ * uses to find a ball again after it has been moved to another index.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+interface BallLayout {
+
+    /**
+     * Returns the number of balls the layout has room for.
+     *
+     * @return the capacity
+     */
+    int capacity();
+
+    /**
+     * Changes the number of balls the layout has room for, keeping the fields of the
+     * balls that still fit.
+     *
+     * @param theCapacity the new capacity
+     */
+    void resize(int theCapacity);
+
+    /**
+     * Gives back the memory of the layout. The layout has no room for any ball
+     * afterwards.
+     */
+    void release();
+
+    /**
+     * Copies every field of ball theFrom, including its id, over the fields of ball
+     * theTo. The index kept for id theTo is not a field of the ball and is not copied.
+     *
+     * @param theFrom the index of the ball to copy
+     * @param theTo the index of the ball to overwrite
+     */
+    default void copy(final int theFrom, final int theTo) {
+        setX(theTo, getX(theFrom));
+        setY(theTo, getY(theFrom));
+        setPreviousX(theTo, getPreviousX(theFrom));
+        setPreviousY(theTo, getPreviousY(theFrom));
+        setHorizontalMove(theTo, getHorizontalMove(theFrom));
+        setVerticalMove(theTo, getVerticalMove(theFrom));
+        setColorIndex(theTo, getColorIndex(theFrom));
+        setDiameter(theTo, getDiameter(theFrom));
+        setId(theTo, getId(theFrom));
+    }
+
+    /**
+     * Returns the x coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the x coordinate
+     */
+    double getX(int theIndex);
+
+    /**
+     * Sets the x coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theX the x coordinate
+     */
+    void setX(int theIndex, double theX);
+
+    /**
+     * Returns the y coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the y coordinate
+     */
+    double getY(int theIndex);
+
+    /**
+     * Sets the y coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theY the y coordinate
+     */
+    void setY(int theIndex, double theY);
+
+    /**
+     * Returns the x coordinate of ball theIndex before the latest move.
+     *
+     * @param theIndex the index of the ball
+     * @return the previous x coordinate
+     */
+    double getPreviousX(int theIndex);
+
+    /**
+     * Sets the x coordinate of ball theIndex before the latest move.
+     *
+     * @param theIndex the index of the ball
+     * @param theX the previous x coordinate
+     */
+    void setPreviousX(int theIndex, double theX);
+
+    /**
+     * Returns the y coordinate of ball theIndex before the latest move.
+     *
+     * @param theIndex the index of the ball
+     * @return the previous y coordinate
+     */
+    double getPreviousY(int theIndex);
+
+    /**
+     * Sets the y coordinate of ball theIndex before the latest move.
+     *
+     * @param theIndex the index of the ball
+     * @param theY the previous y coordinate
+     */
+    void setPreviousY(int theIndex, double theY);
+
+    /**
+     * Returns the horizontal direction of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return 1 or -1
+     */
+    int getHorizontalMove(int theIndex);
+
+    /**
+     * Sets the horizontal direction of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theMove 1 or -1
+     */
+    void setHorizontalMove(int theIndex, int theMove);
+
+    /**
+     * Returns the vertical direction of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return 1 or -1
+     */
+    int getVerticalMove(int theIndex);
+
+    /**
+     * Sets the vertical direction of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theMove 1 or -1
+     */
+    void setVerticalMove(int theIndex, int theMove);
+
+    /**
+     * Returns the palette index of the color of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the palette index, from 0 to 255
+     */
+    int getColorIndex(int theIndex);
+
+    /**
+     * Sets the palette index of the color of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theColorIndex the palette index, from 0 to 255
+     */
+    void setColorIndex(int theIndex, int theColorIndex);
+
+    /**
+     * Returns the diameter of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the diameter
+     */
+    double getDiameter(int theIndex);
+
+    /**
+     * Sets the diameter of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theDiameter the diameter, a float value
+     */
+    void setDiameter(int theIndex, double theDiameter);
+
+    /**
+     * Returns the id of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the id
+     */
+    int getId(int theIndex);
+
+    /**
+     * Sets the id of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theId the id
+     */
+    void setId(int theIndex, int theId);
+
+    /**
+     * Returns the index of the ball whose id is theId.
+     *
+     * @param theId the id of the ball
+     * @return the index
+     */
+    int getIndexOf(int theId);
+
+    /**
+     * Sets the index of the ball whose id is theId.
+     *
+     * @param theId the id of the ball
+     * @param theIndex the index
+     */
+    void setIndexOf(int theId, int theIndex);
+}
@@ -0,0 +1,492 @@
+/*
+ * Drawing the balls for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Draws the visible balls of a BallSnapshot. In BATCHED mode the balls of each color are
+ * gathered into one path, so a frame needs one paint change and one fill per color
+ * instead of one per ball. The paths are reset rather than replaced, so once they have
+ * grown to fit the balls a frame allocates nothing.
+ *
+ * <p>Each ball is added to its path as the same four curves Ellipse2D draws, so a ball
+ * drawn in BATCHED mode covers exactly the pixels it covers in PER_BALL mode.
+ *
+ * <p>In SPRITES mode each ball is copied from an image in a BallSpriteCache. The images
+ * a frame uses are looked up once per frame and kept in an array indexed by size, color
+ * and subpixel offset; the sizes are numbered in the order the frame first meets them.
+ *
+ * <p>In TILED mode a TileRasterizer draws the balls into an image on several threads,
+ * and the image is copied to the screen in one drawImage.
+ *
+ * <p>In any mode, balls too crowded or too small to make out are drawn as a
+ * BallDensityMap instead, one pixel per cell scaled up to the screen. The balls are too
+ * crowded when their areas add up to more than the threshold times the area drawn, and
+ * too small when most of them are less than MIN_DETAIL_DIAMETER device pixels across.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class BallRenderer {
+
+    /**
+     * The default number of balls that cover an average pixel above which the balls are
+     * drawn as a density map.
+     */
+    static final double DEFAULT_DETAIL_THRESHOLD = 16.0;
+
+    /**
+     * The diameter in device pixels below which a ball is too small to make out; when
+     * most visible balls are, the balls are drawn as a density map.
+     */
+    static final double MIN_DETAIL_DIAMETER = 4.0;
+
+    /** How far along a quarter circle's tangent its control points lie. */
+    private static final double CONTROL = 0.5522847498307933;
+
+    /** The middle of the unit square. */
+    private static final double HALF = 0.5;
+
+    /** The unit square coordinate of the control points near the edge. */
+    private static final double NEAR = HALF - CONTROL * HALF;
+
+    /** The unit square coordinate of the control points far from the edge. */
+    private static final double FAR = HALF + CONTROL * HALF;
+
+    /**
+     * The x coordinates of the control and end points of the four cubic curves of a
+     * circle in the unit square, three points per curve. The circle starts where the
+     * last curve ends.
+     */
+    private static final double[] CURVE_X = {
+        1, FAR, HALF, NEAR, 0, 0, 0, NEAR, HALF, FAR, 1, 1,
+    };
+
+    /** The y coordinates of the points of CURVE_X. */
+    private static final double[] CURVE_Y = {
+        FAR, 1, 1, 1, FAR, HALF, NEAR, 0, 0, 0, NEAR, HALF,
+    };
+
+    /** The number of points of one cubic curve. */
+    private static final int CURVE_POINTS = 3;
+
+    /**
+     * The transform types SPRITES and TILED mode and the density map can draw under;
+     * others fall back to PER_BALL.
+     */
+    private static final int DEVICE_TRANSFORMS = AffineTransform.TYPE_TRANSLATION
+            | AffineTransform.TYPE_UNIFORM_SCALE;
+
+    /** The area of a circle one unit across. */
+    private static final double CIRCLE_AREA = Math.PI / 4;
+
+    /** The number of images per color in SPRITES mode. */
+    private static final int SPRITES_PER_COLOR =
+            BallSpriteCache.SUBPIXEL_STEPS * BallSpriteCache.SUBPIXEL_STEPS;
+
+    /** The shape reused to draw each ball in PER_BALL mode. */
+    private final Ellipse2D myShape = new Ellipse2D.Double();
+
+    /** The path of each palette color in BATCHED mode. */
+    private Path2D.Double[] myPaths = new Path2D.Double[0];
+
+    /** The ball images used in SPRITES mode. */
+    private final BallSpriteCache mySprites =
+            new BallSpriteCache(BallSpriteCache.DEFAULT_BUDGET);
+
+    /** Draws the balls into an image on several threads in TILED mode. */
+    private final TileRasterizer myTiles =
+            new TileRasterizer(Runtime.getRuntime().availableProcessors());
+
+    /** Draws crowded or tiny balls as a density map. */
+    private final BallDensityMap myDensityMap = new BallDensityMap();
+
+    /** The transform sprites are drawn under, which maps user space to device pixels. */
+    private final AffineTransform myDeviceTransform = new AffineTransform();
+
+    /**
+     * The sprite of each size, color and offset used this frame, or null when not looked
+     * up.
+     */
+    private BufferedImage[] myFrameSprites = new BufferedImage[0];
+
+    /** The number this frame gave each sprite size, or -1 when the frame has not met it. */
+    private int[] myFrameSizes = new int[0];
+
+    /** The number of sprite sizes this frame has met. */
+    private int myFrameSizeCount;
+
+    /** How the balls are drawn. */
+    private RenderMode myMode = RenderMode.SPRITES;
+
+    /**
+     * The number of balls covering an average pixel above which a density map is drawn;
+     * may be set from another thread than the one that paints.
+     */
+    private volatile double myDetailThreshold = DEFAULT_DETAIL_THRESHOLD;
+
+    /**
+     * Returns how the balls are drawn.
+     *
+     * @return the render mode
+     */
+    RenderMode getMode() {
+        return myMode;
+    }
+
+    /**
+     * Selects how the balls are drawn.
+     *
+     * @param theMode the render mode
+     * @throws NullPointerException when theMode is null
+     */
+    void setMode(final RenderMode theMode) {
+        myMode = Objects.requireNonNull(theMode);
+    }
+
+    /**
+     * Returns how crowded the balls may get before they are drawn as a density map.
+     *
+     * @return the number of balls covering an average pixel of the clip
+     */
+    double getDetailThreshold() {
+        return myDetailThreshold;
+    }
+
+    /**
+     * Sets how crowded the balls may get before they are drawn as a density map, which
+     * shows where the balls are and in what colors but not the single balls. Balls most
+     * of which are less than MIN_DETAIL_DIAMETER device pixels across are drawn as a
+     * density map however few there are. Double.POSITIVE_INFINITY only uses the density
+     * map for such tiny balls.
+     *
+     * @param theThreshold the number of balls covering an average pixel of the clip
+     * @throws IllegalArgumentException when theThreshold is not positive
+     */
+    void setDetailThreshold(final double theThreshold) {
+        if (!(theThreshold > 0)) {
+            throw new IllegalArgumentException(
+                    "Threshold must be positive. Was: " + theThreshold);
+        }
+        myDetailThreshold = theThreshold;
+    }
+
+    /**
+     * Fills every visible ball of theSnapshot as a circle of its diameter, or draws a
+     * density map of the balls when they are too crowded or too small to make out.
+     *
+     * @param theGraphics the graphics to draw with
+     * @param theSnapshot the balls to draw
+     */
+    void paint(final Graphics2D theGraphics, final BallSnapshot theSnapshot) {
+        final double diameter = theSnapshot.getMaxDiameter();
+        final AffineTransform user = theGraphics.getTransform();
+        final boolean device = (user.getType() & ~DEVICE_TRANSFORMS) == 0;
+        Rectangle region = null;
+        if (device) {
+            region = deviceRegion(theGraphics, user, theSnapshot);
+        }
+        if (device && isCrowded(region, theSnapshot, user.getScaleX())) {
+            paintDensityMap(theGraphics, user, theSnapshot, region);
+        } else if (myMode == RenderMode.BATCHED) {
+            paintBatched(theGraphics, theSnapshot);
+        } else if (!device) {
+            paintEach(theGraphics, theSnapshot);
+        } else if (myMode == RenderMode.SPRITES && BallSpriteCache.sizeOf(
+                diameter * user.getScaleX()) <= BallSpriteCache.MAX_SIZE) {
+            paintSprites(theGraphics, user, theSnapshot);
+        } else if (myMode == RenderMode.TILED) {
+            paintTiled(theGraphics, user, theSnapshot, region);
+        } else {
+            paintEach(theGraphics, theSnapshot);
+        }
+    }
+
+    /**
+     * Fills the balls one at a time, changing the paint only between balls of
+     * different colors.
+     *
+     * @param theGraphics the graphics to draw with
+     * @param theSnapshot the balls to draw
+     */
+    private void paintEach(final Graphics2D theGraphics, final BallSnapshot theSnapshot) {
+        int color = -1;
+        for (int k = 0; k < theSnapshot.getVisibleCount(); k++) {
+            final int i = theSnapshot.getVisible(k);
+            if (theSnapshot.getColorIndex(i) != color) {
+                color = theSnapshot.getColorIndex(i);
+                theGraphics.setPaint(theSnapshot.getPaletteColor(color));
+            }
+            myShape.setFrame(theSnapshot.getX(i), theSnapshot.getY(i),
+                             theSnapshot.getDiameter(i), theSnapshot.getDiameter(i));
+            theGraphics.fill(myShape);
+        }
+    }
+
+    /**
+     * Gathers the balls into one path per color and fills each path.
+     *
+     * @param theGraphics the graphics to draw with
+     * @param theSnapshot the balls to draw
+     */
+    private void paintBatched(final Graphics2D theGraphics, final BallSnapshot theSnapshot) {
+        final int colors = theSnapshot.getPaletteSize();
+        if (myPaths.length < colors) {
+            final Path2D.Double[] paths = new Path2D.Double[colors];
+            System.arraycopy(myPaths, 0, paths, 0, myPaths.length);
+            for (int color = myPaths.length; color < colors; color++) {
+                paths[color] = new Path2D.Double();
+            }
+            myPaths = paths;
+        }
+        for (int color = 0; color < colors; color++) {
+            myPaths[color].reset();
+        }
+        for (int k = 0; k < theSnapshot.getVisibleCount(); k++) {
+            final int i = theSnapshot.getVisible(k);
+            appendCircle(myPaths[theSnapshot.getColorIndex(i)], theSnapshot.getX(i),
+                         theSnapshot.getY(i), theSnapshot.getDiameter(i));
+        }
+        for (int color = 0; color < colors; color++) {
+            theGraphics.setPaint(theSnapshot.getPaletteColor(color));
+            theGraphics.fill(myPaths[color]);
+        }
+    }
+
+    /**
+     * Copies each ball from the sprite for its size, color and subpixel offset. The
+     * sprites are drawn in device pixels, so they are copied with only a translation to
+     * whole device pixels in effect.
+     *
+     * @param theGraphics the graphics to draw with
+     * @param theUser the transform of theGraphics, which must only translate and scale
+     *                uniformly
+     * @param theSnapshot the balls to draw
+     */
+    private void paintSprites(final Graphics2D theGraphics, final AffineTransform theUser,
+                              final BallSnapshot theSnapshot) {
+        final double scale = theUser.getScaleX();
+        mySprites.setScale(scale);
+        final int colors = theSnapshot.getPaletteSize();
+        final int sizes = BallSpriteCache.sizeOf(theSnapshot.getMaxDiameter() * scale) + 1;
+        if (myFrameSizes.length < sizes) {
+            myFrameSizes = new int[sizes];
+        }
+        Arrays.fill(myFrameSizes, 0, sizes, -1);
+        myFrameSizeCount = 0;
+        Arrays.fill(myFrameSprites, null);
+
+        theGraphics.setTransform(myDeviceTransform);
+        for (int k = 0; k < theSnapshot.getVisibleCount(); k++) {
+            final int i = theSnapshot.getVisible(k);
+            final double x = theUser.getTranslateX() + theSnapshot.getX(i) * scale;
+            final double y = theUser.getTranslateY() + theSnapshot.getY(i) * scale;
+            final int pixelX = (int) Math.floor(x);
+            final int pixelY = (int) Math.floor(y);
+            final int offsetX = (int) ((x - pixelX) * BallSpriteCache.SUBPIXEL_STEPS);
+            final int offsetY = (int) ((y - pixelY) * BallSpriteCache.SUBPIXEL_STEPS);
+            final int size = BallSpriteCache.sizeOf(theSnapshot.getDiameter(i) * scale);
+            final int color = theSnapshot.getColorIndex(i);
+            final int slot = (frameSize(size, colors) * colors + color) * SPRITES_PER_COLOR
+                    + offsetY * BallSpriteCache.SUBPIXEL_STEPS + offsetX;
+            if (myFrameSprites[slot] == null) {
+                myFrameSprites[slot] = mySprites.getSprite(
+                        theGraphics.getDeviceConfiguration(),
+                        theSnapshot.getPaletteColor(color), size, offsetX, offsetY);
+            }
+            theGraphics.drawImage(myFrameSprites[slot], pixelX, pixelY, null);
+        }
+        theGraphics.setTransform(theUser);
+    }
+
+    /**
+     * Returns the number this frame gives sprite size theSize, numbering it and making
+     * room for its sprites when the frame meets it for the first time.
+     *
+     * @param theSize a sprite size, as returned by BallSpriteCache.sizeOf
+     * @param theColors the number of colors in the palette
+     * @return the number of the size
+     */
+    private int frameSize(final int theSize, final int theColors) {
+        if (myFrameSizes[theSize] < 0) {
+            myFrameSizes[theSize] = myFrameSizeCount;
+            myFrameSizeCount++;
+            final int sprites = myFrameSizeCount * theColors * SPRITES_PER_COLOR;
+            if (myFrameSprites.length < sprites) {
+                myFrameSprites = Arrays.copyOf(myFrameSprites, sprites);
+            }
+        }
+        return myFrameSizes[theSize];
+    }
+
+    /**
+     * Returns whether the balls are too crowded or too small to draw one by one.
+     *
+     * @param theRegion the part of device space drawn
+     * @param theSnapshot the balls to draw
+     * @param theScale the scale from user space to device space
+     * @return true to draw a density map
+     */
+    private boolean isCrowded(final Rectangle theRegion, final BallSnapshot theSnapshot,
+                              final double theScale) {
+        final int visible = theSnapshot.getVisibleCount();
+        final double covered = theSnapshot.getVisibleArea() * theScale * theScale;
+        final double area = (double) theRegion.width * theRegion.height;
+        return visible > 0 && (covered > myDetailThreshold * area
+                || 2 * countSmaller(theSnapshot, MIN_DETAIL_DIAMETER / theScale) > visible);
+    }
+
+    /**
+     * Returns the number of visible balls of theSnapshot less than theDiameter across.
+     *
+     * @param theSnapshot the balls
+     * @param theDiameter a diameter in user space
+     * @return the number of smaller balls
+     */
+    private static int countSmaller(final BallSnapshot theSnapshot,
+                                    final double theDiameter) {
+        int result = 0;
+        for (int k = 0; k < theSnapshot.getVisibleCount(); k++) {
+            if (theSnapshot.getDiameter(theSnapshot.getVisible(k)) < theDiameter) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the part of device space that is drawn: the clip, or the area the balls
+     * cover when there is no clip.
+     *
+     * @param theGraphics the graphics to draw with
+     * @param theUser the transform of theGraphics, which must only translate and scale
+     *                uniformly
+     * @param theSnapshot the balls to draw
+     * @return the region in device pixels
+     */
+    private static Rectangle deviceRegion(final Graphics2D theGraphics,
+                                          final AffineTransform theUser,
+                                          final BallSnapshot theSnapshot) {
+        Rectangle clip = theGraphics.getClipBounds();
+        if (clip == null) {
+            // without a clip, draw just the area the balls cover
+            clip = boundsOf(theSnapshot);
+        }
+        return theUser.createTransformedShape(clip).getBounds();
+    }
+
+    /**
+     * Draws the balls as a BallDensityMap, one pixel per cell, and scales the map up over
+     * theRegion with bilinear interpolation, so the cells blend into each other. The
+     * cells are sized for a ball of the mean area of the visible balls.
+     *
+     * @param theGraphics the graphics to draw with
+     * @param theUser the transform of theGraphics, which must only translate and scale
+     *                uniformly
+     * @param theSnapshot the balls to draw, at least one of them visible
+     * @param theRegion the part of device space drawn
+     */
+    private void paintDensityMap(final Graphics2D theGraphics, final AffineTransform theUser,
+                                 final BallSnapshot theSnapshot, final Rectangle theRegion) {
+        final double diameter = Math.sqrt(theSnapshot.getVisibleArea() / CIRCLE_AREA
+                                          / theSnapshot.getVisibleCount());
+        final BufferedImage image =
+                myDensityMap.render(theSnapshot, diameter, theUser, theRegion);
+        final int cell = myDensityMap.getCellSize();
+        final int left = theRegion.x - cell;
+        final int top = theRegion.y - cell;
+        final Object interpolation =
+                theGraphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        theGraphics.setTransform(myDeviceTransform);
+        theGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                     RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        theGraphics.drawImage(image, left, top,
+                              left + myDensityMap.getColumns() * cell,
+                              top + myDensityMap.getRows() * cell,
+                              0, 0, myDensityMap.getColumns(), myDensityMap.getRows(),
+                              null);
+        if (interpolation != null) {
+            theGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+        theGraphics.setTransform(theUser);
+    }
+
+    /**
+     * Draws the balls that reach into theRegion into an image with the TileRasterizer,
+     * in device pixels, and copies the image over theRegion.
+     *
+     * @param theGraphics the graphics to draw with
+     * @param theUser the transform of theGraphics, which must only translate and scale
+     *                uniformly
+     * @param theSnapshot the balls to draw
+     * @param theRegion the part of device space drawn
+     */
+    private void paintTiled(final Graphics2D theGraphics, final AffineTransform theUser,
+                            final BallSnapshot theSnapshot, final Rectangle theRegion) {
+        final BufferedImage image = myTiles.render(theSnapshot, theUser, theRegion);
+        theGraphics.setTransform(myDeviceTransform);
+        theGraphics.drawImage(image, theRegion.x, theRegion.y,
+                              theRegion.x + theRegion.width, theRegion.y + theRegion.height,
+                              0, 0, theRegion.width, theRegion.height, null);
+        theGraphics.setTransform(theUser);
+    }
+
+    /**
+     * Returns the smallest rectangle that holds every visible ball of theSnapshot.
+     *
+     * @param theSnapshot the balls
+     * @return the bounds of the balls
+     */
+    private static Rectangle boundsOf(final BallSnapshot theSnapshot) {
+        final Rectangle result = new Rectangle();
+        for (int k = 0; k < theSnapshot.getVisibleCount(); k++) {
+            final int i = theSnapshot.getVisible(k);
+            final int side = (int) Math.ceil(theSnapshot.getDiameter(i)) + 1;
+            final Rectangle ball = new Rectangle((int) Math.floor(theSnapshot.getX(i)),
+                                                 (int) Math.floor(theSnapshot.getY(i)),
+                                                 side, side);
+            if (k == 0) {
+                result.setBounds(ball);
+            } else {
+                result.add(ball);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a circle theDiameter across with its upper left corner at theX, theY to
+     * thePath.
+     *
+     * @param thePath the path to add to
+     * @param theX the x coordinate of the upper left corner
+     * @param theY the y coordinate of the upper left corner
+     * @param theDiameter the diameter of the circle
+     */
+    private static void appendCircle(final Path2D.Double thePath, final double theX,
+                                     final double theY, final double theDiameter) {
+        thePath.moveTo(theX + theDiameter, theY + HALF * theDiameter);
+        for (int k = 0; k < CURVE_X.length; k += CURVE_POINTS) {
+            thePath.curveTo(theX + CURVE_X[k] * theDiameter,
+                            theY + CURVE_Y[k] * theDiameter,
+                            theX + CURVE_X[k + 1] * theDiameter,
+                            theY + CURVE_Y[k + 1] * theDiameter,
+                            theX + CURVE_X[k + 2] * theDiameter,
+                            theY + CURVE_Y[k + 2] * theDiameter);
+        }
+        thePath.closePath();
+    }
+}
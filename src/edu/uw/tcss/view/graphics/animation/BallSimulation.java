@@ -0,0 +1,539 @@
+/*
+ * The simulation behind the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * The bouncing balls simulation without any Swing. It owns the balls and the area they
+ * bounce around in, and each tick moves every ball, bounces it off the walls and bounces
+ * the balls that collide. LotsOfMovingShapesPanel delegates to it, and it can also be run
+ * from the command line to measure how fast it is.
+ *
+ * <p>A simulation is not thread safe. Callers that step it on one thread and read it on
+ * another must synchronize on it. The exception is submit: any thread may submit a
+ * BallCommand at any time without locking, and the thread that steps runs it at the
+ * start of the next tick. Input handlers add and remove balls that way, so they never
+ * wait for a tick to finish.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+public final class BallSimulation {
+
+    /** The default number of balls for the command line. */
+    private static final int DEFAULT_BALLS = 10_000;
+
+    /** The default number of ticks for the command line. */
+    private static final int DEFAULT_TICKS = 1_000;
+
+    /** The area (in square pixels) the command line gives each ball. */
+    private static final double AREA_PER_BALL = 4.0 * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE
+            * LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The number of nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /** The index of the broad phase argument on the command line. */
+    private static final int BROAD_PHASE_ARG = 2;
+
+    /** The index of the parallelism argument on the command line. */
+    private static final int PARALLELISM_ARG = 3;
+
+    /** The index of the ball distribution argument on the command line. */
+    private static final int DISTRIBUTION_ARG = 4;
+
+    /** The index of the argument that selects event driven stepping. */
+    private static final int STEPPING_ARG = 5;
+
+    /** The stepping argument that selects event driven stepping. */
+    private static final String EVENT_DRIVEN = "EVENT_DRIVEN";
+
+    /** The seed for the command line world so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The default number of ticks between two reorders of the balls. */
+    private static final int DEFAULT_REORDER_INTERVAL = 256;
+
+    /** The balls. */
+    private final BallStore myBalls;
+
+    /** The commands submitted since the latest tick. */
+    private final CommandQueue myCommands = new CommandQueue();
+
+    /** The pairs of balls that collided during the current tick. */
+    private final CollisionPairs myCollisions = new CollisionPairs();
+
+    /** The reference pairs found by brute force when comparing broad phases. */
+    private final CollisionPairs myReferenceCollisions = new CollisionPairs();
+
+    /** The brute force broad phase used as the reference when comparing. */
+    private final BroadPhase myReferenceBroadPhase = BroadPhaseType.BRUTE_FORCE.create();
+
+    /** Finds the balls that collide during each tick. */
+    private BroadPhase myBroadPhase = BroadPhaseType.UNIFORM_GRID.create();
+
+    /** The kind of broad phase in use. */
+    private BroadPhaseType myBroadPhaseType = BroadPhaseType.UNIFORM_GRID;
+
+    /** The number of threads the broad phase searches with. */
+    private int myParallelism = 1;
+
+    /** True when every tick also runs brute force and checks both agree. */
+    private boolean myCompareBroadPhases;
+
+    /** Works out the Z-order the balls are reordered into. */
+    private final MortonOrder myMortonOrder = new MortonOrder();
+
+    /** The number of ticks between two reorders of the balls; 0 never reorders. */
+    private int myReorderInterval = DEFAULT_REORDER_INTERVAL;
+
+    /** The number of ticks since the balls were last reordered. */
+    private int myTicksSinceReorder;
+
+    /** The number of times the balls have been reordered. */
+    private long myReorderCount;
+
+    /** The width of the area the balls bounce around in. */
+    private volatile double myWidth;
+
+    /** The height of the area the balls bounce around in. */
+    private volatile double myHeight;
+
+    /**
+     * Constructs a simulation with no balls in a theWidth by theHeight area.
+     *
+     * @param theWidth the width of the area the balls bounce around in
+     * @param theHeight the height of the area the balls bounce around in
+     */
+    BallSimulation(final double theWidth, final double theHeight) {
+        this(theWidth, theHeight, new ArrayBallLayout(0));
+    }
+
+    /**
+     * Constructs a simulation with no balls in a theWidth by theHeight area whose balls
+     * are kept in theLayout, for example an OffHeapBallLayout sized for millions of
+     * balls. Ticking and drawing work the same whatever the layout. Closing getBalls()
+     * gives the memory of the layout back.
+     *
+     * @param theWidth the width of the area the balls bounce around in
+     * @param theHeight the height of the area the balls bounce around in
+     * @param theLayout where the fields of the balls are kept
+     */
+    BallSimulation(final double theWidth, final double theHeight,
+                   final BallLayout theLayout) {
+        super();
+        myBalls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE, theLayout);
+        setBounds(theWidth, theHeight);
+    }
+
+    /**
+     * Returns the balls. Changing them between ticks is allowed.
+     *
+     * @return the balls
+     */
+    BallStore getBalls() {
+        return myBalls;
+    }
+
+    /**
+     * Changes the size of the area the balls bounce around in. May be called from any
+     * thread; the new size is used from the next tick on.
+     *
+     * @param theWidth the new width
+     * @param theHeight the new height
+     */
+    void setBounds(final double theWidth, final double theHeight) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+    }
+
+    /**
+     * Returns the width of the area the balls bounce around in.
+     *
+     * @return the width
+     */
+    double getWidth() {
+        return myWidth;
+    }
+
+    /**
+     * Returns the height of the area the balls bounce around in.
+     *
+     * @return the height
+     */
+    double getHeight() {
+        return myHeight;
+    }
+
+    /**
+     * Adds a ball of the default diameter unless it would be on top of an existing ball.
+     *
+     * @param theX the x coordinate of the upper left corner of the ball
+     * @param theY the y coordinate of the upper left corner of the ball
+     * @param theHorizontalMove the initial horizontal direction, 1 or -1
+     * @param theVerticalMove the initial vertical direction, 1 or -1
+     * @param theColor the color of the ball
+     * @return true if the ball was added
+     */
+    boolean spawn(final double theX, final double theY, final int theHorizontalMove,
+                  final int theVerticalMove, final Color theColor) {
+        return spawn(theX, theY, theHorizontalMove, theVerticalMove, theColor,
+                     myBalls.getDefaultDiameter());
+    }
+
+    /**
+     * Adds a ball theDiameter pixels across unless it would be on top of an existing
+     * ball.
+     *
+     * @param theX the x coordinate of the upper left corner of the ball
+     * @param theY the y coordinate of the upper left corner of the ball
+     * @param theHorizontalMove the initial horizontal direction, 1 or -1
+     * @param theVerticalMove the initial vertical direction, 1 or -1
+     * @param theColor the color of the ball
+     * @param theDiameter the diameter of the ball
+     * @return true if the ball was added
+     * @throws IllegalArgumentException when theDiameter is not positive
+     */
+    boolean spawn(final double theX, final double theY, final int theHorizontalMove,
+                  final int theVerticalMove, final Color theColor,
+                  final double theDiameter) {
+        //look to see if this new ball is on top of an existing ball
+        final boolean collide = myBroadPhase.overlapsAny(myBalls, theX, theY,
+                                                         (float) theDiameter);
+        if (!collide) {
+            myBalls.add(theX, theY, theHorizontalMove, theVerticalMove, theColor,
+                        theDiameter);
+        }
+        return !collide;
+    }
+
+    /**
+     * Adds up to theCount balls of the default diameter at random places in a disc
+     * around theCenterX and theCenterY, each heading in a random direction. The disc is
+     * large enough for the balls to cover a quarter of it. A ball that would not be
+     * wholly inside the area, or as with spawn would be on top of another ball, is not
+     * added.
+     *
+     * @param theCenterX the x coordinate of the center of the disc
+     * @param theCenterY the y coordinate of the center of the disc
+     * @param theCount the number of balls to try to add
+     * @param theColor the color of the balls
+     * @param theRandom picks the places and directions
+     * @return the number of balls added
+     * @throws IllegalArgumentException when theCount is negative
+     */
+    int spawnBurst(final double theCenterX, final double theCenterY, final int theCount,
+                   final Color theColor, final Random theRandom) {
+        if (theCount < 0) {
+            throw new IllegalArgumentException(
+                    "Count must not be negative. Was: " + theCount);
+        }
+        final double diameter = myBalls.getDefaultDiameter();
+        final double radius = diameter * Math.sqrt(theCount);
+        int result = 0;
+        for (int k = 0; k < theCount; k++) {
+            // the square root spreads the balls evenly over the area of the disc
+            final double distance = radius * Math.sqrt(theRandom.nextDouble());
+            final double angle = 2 * Math.PI * theRandom.nextDouble();
+            final double x = Math.rint(theCenterX + distance * Math.cos(angle) - diameter / 2);
+            final double y = Math.rint(theCenterY + distance * Math.sin(angle) - diameter / 2);
+            if (x >= 0 && y >= 0 && x + diameter <= myWidth && y + diameter <= myHeight
+                    && spawn(x, y, randomMove(theRandom), randomMove(theRandom), theColor)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes every ball that covers the point at theX and theY.
+     *
+     * @param theX the x coordinate of the point
+     * @param theY the y coordinate of the point
+     * @return the number of balls removed
+     */
+    int despawnAt(final double theX, final double theY) {
+        int result = 0;
+        // walking down, the ball moved into a removed ball's index was checked already
+        for (int i = myBalls.size() - 1; i >= 0; i--) {
+            final double dx = myBalls.getCenterX(i) - theX;
+            final double dy = myBalls.getCenterY(i) - theY;
+            final double radius = myBalls.getDiameter(i) / 2;
+            if (dx * dx + dy * dy <= radius * radius) {
+                myBalls.remove(i);
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Queues theCommand to run on the thread that steps the simulation, at the start of
+     * the next tick. May be called from any thread without synchronizing on the
+     * simulation, and returns without waiting.
+     *
+     * @param theCommand the command
+     * @throws NullPointerException when theCommand is null
+     */
+    void submit(final BallCommand theCommand) {
+        myCommands.offer(theCommand);
+    }
+
+    /**
+     * Runs the commands submitted so far, oldest first. tick calls it before moving the
+     * balls; call it directly to apply the commands without a tick.
+     *
+     * @return the number of commands run
+     */
+    int applyCommands() {
+        return myCommands.drain(this);
+    }
+
+    /**
+     * Selects the algorithm used to find colliding balls.
+     *
+     * @param theType the broad phase to use
+     */
+    void setBroadPhase(final BroadPhaseType theType) {
+        myBroadPhaseType = theType;
+        replaceBroadPhase();
+    }
+
+    /**
+     * Sets the number of threads used to find colliding balls. The result of every
+     * tick is the same whatever the number of threads.
+     *
+     * @param theParallelism the number of threads; 1 searches on the ticking thread
+     * @throws IllegalArgumentException when theParallelism is not positive
+     */
+    void setParallelism(final int theParallelism) {
+        if (theParallelism <= 0) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be positive. Was: " + theParallelism);
+        }
+        myParallelism = theParallelism;
+        replaceBroadPhase();
+    }
+
+    /**
+     * Turns comparison mode on or off. In comparison mode every tick finds the
+     * collisions with both the selected broad phase and brute force, and throws
+     * an IllegalStateException if the two ever disagree.
+     *
+     * @param theCompare true to compare against brute force each tick
+     */
+    void setCompareBroadPhases(final boolean theCompare) {
+        myCompareBroadPhases = theCompare;
+    }
+
+    /**
+     * Sets how often the balls are put back into Z-order in memory, so that balls that
+     * are close on screen are close in memory and a collision search touches less
+     * memory. The ids of the balls, and so any Ball handles, are not affected, and
+     * neither are the results of the ticks.
+     *
+     * @param theInterval the number of ticks between reorders; 0 never reorders
+     * @throws IllegalArgumentException when theInterval is negative
+     */
+    void setReorderInterval(final int theInterval) {
+        if (theInterval < 0) {
+            throw new IllegalArgumentException(
+                    "Reorder interval must not be negative. Was: " + theInterval);
+        }
+        myReorderInterval = theInterval;
+    }
+
+    /**
+     * Returns the number of times the balls have been reordered. Ball indices kept
+     * from before a reorder no longer refer to the same balls; ids do.
+     *
+     * @return the number of reorders so far
+     */
+    long getReorderCount() {
+        return myReorderCount;
+    }
+
+    /**
+     * Puts the balls into Z-order in memory now and tells the broad phase where they
+     * went.
+     */
+    void reorder() {
+        final int[] newIndex = myBalls.reorder(myMortonOrder.order(myBalls));
+        myBroadPhase.renumber(newIndex, myBalls.size());
+        myTicksSinceReorder = 0;
+        myReorderCount++;
+    }
+
+    /**
+     * Runs the submitted commands, then moves every ball one step and bounces the balls
+     * that collide. Every reorder interval ticks the balls are put into Z-order first.
+     *
+     * @return the number of colliding pairs found this tick
+     */
+    int tick() {
+        applyCommands();
+        return tickWithoutCommands();
+    }
+
+    /**
+     * Ticks like tick but leaves the submitted commands queued, for callers that run
+     * them at a time of their own choosing.
+     *
+     * @return the number of colliding pairs found this tick
+     */
+    int tickWithoutCommands() {
+        myTicksSinceReorder++;
+        if (myReorderInterval > 0 && myTicksSinceReorder >= myReorderInterval) {
+            reorder();
+        }
+
+        // if the shape bounds touch the window bounds, we need to change
+        // direction
+        myBalls.move(myWidth, myHeight);
+
+        myCollisions.clear();
+        myBroadPhase.findCollisions(myBalls, myCollisions);
+        myCollisions.toIds(myBalls);
+        myCollisions.sortUnique();
+        if (myCompareBroadPhases) {
+            checkAgainstBruteForce();
+        }
+
+        // respond in nested loop order of the ids so every broad phase, and every
+        // order of the balls in memory, gives the same result
+        for (int k = 0; k < myCollisions.size(); k++) {
+            myBalls.bounce(myBalls.indexOf(myCollisions.first(k)),
+                           myBalls.indexOf(myCollisions.second(k)));
+        }
+        return myCollisions.size();
+    }
+
+    /**
+     * Returns the pairs of balls that collided during the latest tick, as pairs of ball
+     * ids in nested loop order. The pairs are replaced by the next tick.
+     *
+     * @return the colliding pairs
+     */
+    CollisionPairs getCollisions() {
+        return myCollisions;
+    }
+
+    /** Releases any threads held by the broad phase. */
+    void shutdown() {
+        myBroadPhase.shutdown();
+    }
+
+    /** Swaps in a new broad phase built from the current settings. */
+    private void replaceBroadPhase() {
+        myBroadPhase.shutdown();
+        myBroadPhase = myBroadPhaseType.create(myParallelism);
+    }
+
+    /**
+     * Finds this tick's collisions again with brute force and checks that the
+     * selected broad phase found exactly the same pairs.
+     *
+     * @throws IllegalStateException when the broad phases disagree
+     */
+    private void checkAgainstBruteForce() {
+        myReferenceCollisions.clear();
+        myReferenceBroadPhase.findCollisions(myBalls, myReferenceCollisions);
+        myReferenceCollisions.toIds(myBalls);
+        myReferenceCollisions.sortUnique();
+        if (!myCollisions.sameAs(myReferenceCollisions)) {
+            throw new IllegalStateException("Broad phase found " + myCollisions
+                    + " but brute force found " + myReferenceCollisions);
+        }
+    }
+
+    // ************* MAIN ************************************************
+
+    /**
+     * Runs the simulation without a display as fast as possible and reports ticks per
+     * second and collisions per second. The square world is sized so that every ball
+     * has about four times its own bounding box to move in.
+     *
+     * @param theArgs Command line parameters - [balls] [ticks] [broad phase] [threads]
+     *                [distribution] [stepping], for example
+     *                {@code 10000 1000 UNIFORM_GRID 4 BAND}; a stepping of EVENT_DRIVEN
+     *                jumps between events instead of running every tick
+     */
+    public static void main(final String[] theArgs) {
+        final int balls = intArgument(theArgs, 0, DEFAULT_BALLS);
+        final int ticks = intArgument(theArgs, 1, DEFAULT_TICKS);
+        final double side = Math.sqrt(balls * AREA_PER_BALL);
+
+        final BallSimulation simulation = new BallSimulation(side, side);
+        if (theArgs.length > BROAD_PHASE_ARG) {
+            simulation.setBroadPhase(BroadPhaseType.valueOf(theArgs[BROAD_PHASE_ARG]));
+        }
+        simulation.setParallelism(intArgument(theArgs, PARALLELISM_ARG, 1));
+        BallDistribution distribution = BallDistribution.UNIFORM;
+        if (theArgs.length > DISTRIBUTION_ARG) {
+            distribution = BallDistribution.valueOf(theArgs[DISTRIBUTION_ARG]);
+        }
+        distribution.fill(simulation.getBalls(), balls, side, side, new Random(SEED));
+
+        final boolean eventDriven = theArgs.length > STEPPING_ARG
+                && EVENT_DRIVEN.equals(theArgs[STEPPING_ARG]);
+        long collisions = 0;
+        final long start = System.nanoTime();
+        if (eventDriven) {
+            final EventDrivenSimulation events = new EventDrivenSimulation(simulation);
+            events.advance(ticks);
+            collisions = events.getCollisionCount();
+            System.out.printf("%d of %d ticks held an event%n", events.getNormalTicks(),
+                              ticks);
+        } else {
+            for (int tick = 0; tick < ticks; tick++) {
+                collisions += simulation.tick();
+            }
+        }
+        final double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        simulation.shutdown();
+
+        System.out.printf("%d %s balls, %d ticks in %.3f s (%s, %d threads)%n", balls,
+                          distribution, ticks, seconds, simulation.myBroadPhaseType,
+                          simulation.myParallelism);
+        System.out.printf("%.1f ticks/sec, %.1f collisions/sec%n", ticks / seconds,
+                          collisions / seconds);
+    }
+
+    /**
+     * Returns the command line argument at theIndex as an int, or theDefault when there
+     * is no such argument.
+     *
+     * @param theArgs the command line arguments
+     * @param theIndex the index of the argument
+     * @param theDefault the value to use when the argument is missing
+     * @return the argument's value
+     */
+    private static int intArgument(final String[] theArgs, final int theIndex,
+                                   final int theDefault) {
+        int result = theDefault;
+        if (theArgs.length > theIndex) {
+            result = Integer.parseInt(theArgs[theIndex]);
+        }
+        return result;
+    }
+
+    /**
+     * Provides a 1 or -1 randomly.
+     *
+     * @param theRandom the source of randomness
+     * @return a 1 or -1
+     */
+    private static int randomMove(final Random theRandom) {
+        int result = 1;
+        if (theRandom.nextBoolean()) {
+            result = -1;
+        }
+        return result;
+    }
+}
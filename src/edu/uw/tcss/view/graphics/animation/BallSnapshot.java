@@ -0,0 +1,422 @@
+/*
+ * A copy of the ball positions for painting.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * A copy of where every ball should be drawn. The copy is taken while the simulation is
+ * not stepping, so painting from it never sees a half finished step, and the arrays are
+ * reused from frame to frame. The copy keeps each ball's previous and current position,
+ * and interpolate places the balls between the two for the moment a frame is drawn.
+ *
+ * <p>The copy also sorts the balls into horizontal bands about a ball high, so cull
+ * can find the balls that overlap a clip rectangle by looking only at the bands the
+ * rectangle crosses. After a cull only those balls are visible, still in the order they
+ * are stored so overlapping balls are drawn the same way.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class BallSnapshot {
+
+    /** The area of a circle one unit across. */
+    private static final double CIRCLE_AREA = Math.PI / 4;
+
+    /** The x coordinate of the upper left corner of each ball before the latest step. */
+    private double[] myPreviousX = new double[0];
+
+    /** The y coordinate of the upper left corner of each ball before the latest step. */
+    private double[] myPreviousY = new double[0];
+
+    /** The x coordinate of the upper left corner of each ball after the latest step. */
+    private double[] myCurrentX = new double[0];
+
+    /** The y coordinate of the upper left corner of each ball after the latest step. */
+    private double[] myCurrentY = new double[0];
+
+    /** The x coordinate of the upper left corner of each ball where it is drawn. */
+    private double[] myX = new double[0];
+
+    /** The y coordinate of the upper left corner of each ball where it is drawn. */
+    private double[] myY = new double[0];
+
+    /** The palette index of the color of each ball. */
+    private int[] myColorIndex = new int[0];
+
+    /** The diameter of each ball. */
+    private double[] myDiameter = new double[0];
+
+    /** The palette of the store the snapshot was taken from. */
+    private Color[] myPalette = new Color[0];
+
+    /** The number of balls in the snapshot. */
+    private int mySize;
+
+    /** The diameter of the largest ball, or the default diameter when there are none. */
+    private double myMaxDiameter;
+
+    /** The areas of all the balls added up. */
+    private double myArea;
+
+    /** The areas of the visible balls added up, once culled. */
+    private double myVisibleArea;
+
+    /** The move count of the store the snapshot was taken of. */
+    private long myMoveCount;
+
+    /** The y coordinate of the top of the first band. */
+    private double myBandTop;
+
+    /** The height of a band. */
+    private double myBandHeight;
+
+    /** The number of bands. */
+    private int myBandCount;
+
+    /** Where the balls of each band start in myBandBalls, and where the last one ends. */
+    private int[] myBandStart = new int[1];
+
+    /** The indices of the balls sorted by band, in index order within a band. */
+    private int[] myBandBalls = new int[0];
+
+    /** The indices of the visible balls in index order, once culled. */
+    private int[] myVisible = new int[0];
+
+    /** The number of visible balls, once culled. */
+    private int myVisibleCount;
+
+    /** True when only the balls in myVisible are visible, false when all are. */
+    private boolean myCulled;
+
+    /**
+     * Copies every ball in theStore, placing each one theAlpha of the way from its
+     * previous position to its current position. The caller must make sure theStore is
+     * not being stepped while this runs.
+     *
+     * @param theStore the balls to copy
+     * @param theAlpha 0 for the previous positions, 1 for the current positions
+     */
+    void capture(final BallStore theStore, final double theAlpha) {
+        capture(theStore);
+        interpolate(theAlpha);
+    }
+
+    /**
+     * Copies the previous and current position, the diameter and the color of every
+     * ball in theStore.
+     * The balls cannot be drawn until interpolate places them. The caller must make sure
+     * theStore is not being stepped while this runs.
+     *
+     * @param theStore the balls to copy
+     */
+    void capture(final BallStore theStore) {
+        mySize = theStore.size();
+        if (myX.length < mySize) {
+            myPreviousX = new double[theStore.capacity()];
+            myPreviousY = new double[theStore.capacity()];
+            myCurrentX = new double[theStore.capacity()];
+            myCurrentY = new double[theStore.capacity()];
+            myX = new double[theStore.capacity()];
+            myY = new double[theStore.capacity()];
+            myColorIndex = new int[theStore.capacity()];
+            myDiameter = new double[theStore.capacity()];
+            myBandBalls = new int[theStore.capacity()];
+            myVisible = new int[theStore.capacity()];
+        }
+        for (int i = 0; i < mySize; i++) {
+            myPreviousX[i] = theStore.getPreviousX(i);
+            myPreviousY[i] = theStore.getPreviousY(i);
+            myCurrentX[i] = theStore.getX(i);
+            myCurrentY[i] = theStore.getY(i);
+            myColorIndex[i] = theStore.getColorIndex(i);
+            myDiameter[i] = theStore.getDiameter(i);
+        }
+        myMoveCount = theStore.getMoveCount();
+        // worked out from the copied diameters, so they always describe this frame
+        myMaxDiameter = theStore.getDefaultDiameter();
+        if (mySize > 0) {
+            myMaxDiameter = myDiameter[0];
+        }
+        myArea = 0;
+        for (int i = 0; i < mySize; i++) {
+            myMaxDiameter = Math.max(myMaxDiameter, myDiameter[i]);
+            myArea += CIRCLE_AREA * myDiameter[i] * myDiameter[i];
+        }
+        if (myPalette.length != theStore.getPaletteSize()) {
+            myPalette = new Color[theStore.getPaletteSize()];
+        }
+        for (int color = 0; color < myPalette.length; color++) {
+            myPalette[color] = theStore.getPaletteColor(color);
+        }
+    }
+
+    /**
+     * Places each ball theAlpha of the way from its previous position to its current
+     * position and makes every ball visible. May be called again for a later moment
+     * without capturing again.
+     *
+     * @param theAlpha 0 for the previous positions, 1 for the current positions
+     */
+    void interpolate(final double theAlpha) {
+        double top = Double.POSITIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < mySize; i++) {
+            myX[i] = myPreviousX[i] + (myCurrentX[i] - myPreviousX[i]) * theAlpha;
+            myY[i] = myPreviousY[i] + (myCurrentY[i] - myPreviousY[i]) * theAlpha;
+            top = Math.min(top, myY[i]);
+            bottom = Math.max(bottom, myY[i]);
+        }
+        sortIntoBands(top, bottom);
+        myCulled = false;
+    }
+
+    /**
+     * Sorts the balls into bands with a counting sort, which keeps them in index order
+     * within each band. There are at most as many bands as balls, each at least as high
+     * as the largest ball.
+     *
+     * @param theTop the smallest y coordinate of a ball
+     * @param theBottom the largest y coordinate of a ball
+     */
+    private void sortIntoBands(final double theTop, final double theBottom) {
+        myBandTop = 0;
+        myBandCount = 1;
+        if (mySize > 0) {
+            final double bands = Math.floor((theBottom - theTop) / myMaxDiameter) + 1;
+            myBandTop = theTop;
+            myBandCount = (int) Math.min(mySize, bands);
+        }
+        myBandHeight = Math.max(myMaxDiameter, (theBottom - theTop) / myBandCount);
+        if (myBandStart.length < myBandCount + 1) {
+            myBandStart = new int[myBandCount + 1];
+        }
+        Arrays.fill(myBandStart, 0, myBandCount + 1, 0);
+        for (int i = 0; i < mySize; i++) {
+            myBandStart[bandOf(myY[i]) + 1]++;
+        }
+        for (int band = 0; band < myBandCount; band++) {
+            myBandStart[band + 1] += myBandStart[band];
+        }
+        for (int i = 0; i < mySize; i++) {
+            // myBandStart[band] is used as the next free slot and ends up at the band's end
+            myBandBalls[myBandStart[bandOf(myY[i])]++] = i;
+        }
+        for (int band = myBandCount; band > 0; band--) {
+            myBandStart[band] = myBandStart[band - 1];
+        }
+        myBandStart[0] = 0;
+    }
+
+    /**
+     * Returns the band that holds the y coordinate theY, clamped to the first and the
+     * last band.
+     *
+     * @param theY a y coordinate
+     * @return the band
+     */
+    private int bandOf(final double theY) {
+        final double band = Math.floor((theY - myBandTop) / myBandHeight);
+        return (int) Math.max(0, Math.min(myBandCount - 1, band));
+    }
+
+    /**
+     * Makes only the balls that overlap a rectangle visible, for example the clip of a
+     * partial repaint. A ball overlaps when the square it is drawn in, grown by a pixel
+     * for antialiasing, touches the rectangle. Only the bands the rectangle crosses are
+     * searched.
+     *
+     * @param theX the x coordinate of the upper left corner of the rectangle
+     * @param theY the y coordinate of the upper left corner of the rectangle
+     * @param theWidth the width of the rectangle
+     * @param theHeight the height of the rectangle
+     */
+    void cull(final double theX, final double theY, final double theWidth,
+              final double theHeight) {
+        final double left = theX - 1;
+        final double right = theX + theWidth + 1;
+        final int rows = findRows(theY - myMaxDiameter - 1, theY + theHeight + 1, myVisible);
+        myVisibleCount = 0;
+        myVisibleArea = 0;
+        for (int k = 0; k < rows; k++) {
+            final int i = myVisible[k];
+            if (myX[i] + myDiameter[i] >= left && myX[i] <= right
+                    && myY[i] + myDiameter[i] >= theY - 1) {
+                myVisible[myVisibleCount] = i;
+                myVisibleCount++;
+                myVisibleArea += CIRCLE_AREA * myDiameter[i] * myDiameter[i];
+            }
+        }
+        myCulled = true;
+    }
+
+    /**
+     * Writes the indices of the balls whose top edge is from theTop to theBottom into
+     * theOut, in index order. Only reads the snapshot, so several threads may call it at
+     * once with arrays of their own.
+     *
+     * @param theTop the smallest y coordinate of a ball's top edge to include
+     * @param theBottom the largest y coordinate of a ball's top edge to include
+     * @param theOut receives the indices; must have room for every ball
+     * @return the number of indices written
+     */
+    int findRows(final double theTop, final double theBottom, final int[] theOut) {
+        final int firstBand = bandOf(theTop);
+        final int lastBand = bandOf(theBottom);
+        int count = 0;
+        for (int k = myBandStart[firstBand]; k < myBandStart[lastBand + 1]; k++) {
+            final int i = myBandBalls[k];
+            if (myY[i] >= theTop && myY[i] <= theBottom) {
+                theOut[count] = i;
+                count++;
+            }
+        }
+        if (firstBand != lastBand) {
+            Arrays.sort(theOut, 0, count);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of visible balls: all of them until cull is called.
+     *
+     * @return the number of visible balls
+     */
+    int getVisibleCount() {
+        int result = mySize;
+        if (myCulled) {
+            result = myVisibleCount;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the areas of the visible balls added up, in square pixels of user space;
+     * where balls overlap, the overlap is counted once for each ball.
+     *
+     * @return the area the visible balls cover
+     */
+    double getVisibleArea() {
+        double result = myArea;
+        if (myCulled) {
+            result = myVisibleArea;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the visible ball theRank, counting in index order.
+     *
+     * @param theRank from 0 to getVisibleCount() - 1
+     * @return the index of the ball
+     */
+    int getVisible(final int theRank) {
+        int result = theRank;
+        if (myCulled) {
+            result = myVisible[theRank];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of balls in the snapshot.
+     *
+     * @return the number of balls
+     */
+    int size() {
+        return mySize;
+    }
+
+    /**
+     * Returns the largest number of balls the snapshot has room for without growing.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return myX.length;
+    }
+
+    /**
+     * Returns the x coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the x coordinate
+     */
+    double getX(final int theIndex) {
+        return myX[theIndex];
+    }
+
+    /**
+     * Returns the y coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the y coordinate
+     */
+    double getY(final int theIndex) {
+        return myY[theIndex];
+    }
+
+    /**
+     * Returns the diameter of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the diameter
+     */
+    double getDiameter(final int theIndex) {
+        return myDiameter[theIndex];
+    }
+
+    /**
+     * Returns the number of times the balls had been moved when the snapshot was taken.
+     * Two snapshots with the same count show the balls after the same step.
+     *
+     * @return the move count
+     */
+    long getMoveCount() {
+        return myMoveCount;
+    }
+
+    /**
+     * Returns the diameter of the largest ball the snapshot was taken with, or the
+     * default diameter of the store when it held no balls.
+     *
+     * @return the largest diameter
+     */
+    double getMaxDiameter() {
+        return myMaxDiameter;
+    }
+
+    /**
+     * Returns the palette index of the color of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the palette index
+     */
+    int getColorIndex(final int theIndex) {
+        return myColorIndex[theIndex];
+    }
+
+    /**
+     * Returns the number of colors in the palette.
+     *
+     * @return the palette size
+     */
+    int getPaletteSize() {
+        return myPalette.length;
+    }
+
+    /**
+     * Returns the color at thePaletteIndex.
+     *
+     * @param thePaletteIndex an index returned by getColorIndex
+     * @return the color
+     */
+    Color getPaletteColor(final int thePaletteIndex) {
+        return myPalette[thePaletteIndex];
+    }
+}
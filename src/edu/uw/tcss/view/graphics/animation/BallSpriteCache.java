@@ -0,0 +1,222 @@
+/*
+ * Pre-rendered ball images for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Antialiased images of a ball, one for each color, size and subpixel offset, so a ball
+ * can be drawn with drawImage instead of being rasterized again every frame.
+ *
+ * <p>The images are drawn in device pixels for one scale from user space to device
+ * space. Changing it, for example when the window moves to a screen with a different
+ * DPI, empties the cache. A ball's size is its diameter in device pixels rounded to a
+ * subpixel step, so a ball a whole number of pixels across gets an image of exactly its
+ * size and balls that differ by less than a step share their images. The cache holds
+ * at most a fixed number of bytes of images and drops the least recently used images
+ * to stay under it.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class BallSpriteCache {
+
+    /** The number of subpixel offsets an image is drawn at along each axis. */
+    static final int SUBPIXEL_STEPS = 4;
+
+    /** The default memory budget (in bytes) of the cache. */
+    static final long DEFAULT_BUDGET = 4L * 1024 * 1024;
+
+    /** The largest size (in subpixel steps) of a ball the cache can draw. */
+    static final int MAX_SIZE = 0xFFFF;
+
+    /** The number of bytes one pixel of an image takes. */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /** The mask that keeps a color's 32 ARGB bits in a key. */
+    private static final long RGB_MASK = 0xFFFFFFFFL;
+
+    /** The initial capacity of the map of images. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The load factor of the map of images. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** The number of bits the x offset is shifted by in a key. */
+    private static final int X_OFFSET_SHIFT = 32;
+
+    /** The number of bits the y offset is shifted by in a key. */
+    private static final int Y_OFFSET_SHIFT = 40;
+
+    /** The number of bits the size is shifted by in a key. */
+    private static final int SIZE_SHIFT = 48;
+
+    /** The images by key, least recently used first. */
+    private final Map<Long, BufferedImage> mySprites =
+            new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /** The largest number of bytes the images may take. */
+    private final long myBudget;
+
+    /** The number of bytes the images take. */
+    private long myBytes;
+
+    /** The scale from user space to device space the images are drawn for. */
+    private double myScale;
+
+    /**
+     * Constructs an empty cache that holds at most theBudget bytes of images.
+     *
+     * @param theBudget the memory budget in bytes
+     * @throws IllegalArgumentException when theBudget is not positive
+     */
+    BallSpriteCache(final long theBudget) {
+        super();
+        if (theBudget <= 0) {
+            throw new IllegalArgumentException("Budget must be positive. Was: " + theBudget);
+        }
+        myBudget = theBudget;
+    }
+
+    /**
+     * Returns the size of a ball theDiameter device pixels across: its diameter in
+     * subpixel steps, at least 1.
+     *
+     * @param theDiameter the diameter in device pixels
+     * @return the size
+     */
+    static int sizeOf(final double theDiameter) {
+        return (int) Math.max(1, Math.round(theDiameter * SUBPIXEL_STEPS));
+    }
+
+    /**
+     * Sets the scale the images are drawn for, emptying the cache when it changes.
+     *
+     * @param theScale the scale from user space to device space
+     */
+    void setScale(final double theScale) {
+        if (theScale != myScale) {
+            clear();
+            myScale = theScale;
+        }
+    }
+
+    /** Drops every image. */
+    void clear() {
+        mySprites.clear();
+        myBytes = 0;
+    }
+
+    /**
+     * Returns the image of a ball of theColor and theSize whose upper left corner is
+     * theOffsetX and theOffsetY subpixel steps right of and below the image's upper left
+     * corner, drawing it when it is not cached.
+     *
+     * @param theConfiguration the configuration of the device the image is drawn on,
+     *                         or null for a plain ARGB image
+     * @param theColor the color of the ball
+     * @param theSize the size of the ball, as returned by sizeOf, at most MAX_SIZE
+     * @param theOffsetX the horizontal offset, from 0 to SUBPIXEL_STEPS - 1
+     * @param theOffsetY the vertical offset, from 0 to SUBPIXEL_STEPS - 1
+     * @return the image
+     */
+    BufferedImage getSprite(final GraphicsConfiguration theConfiguration,
+                            final Color theColor, final int theSize, final int theOffsetX,
+                            final int theOffsetY) {
+        final Long key = theColor.getRGB() & RGB_MASK
+                | (long) theOffsetX << X_OFFSET_SHIFT
+                | (long) theOffsetY << Y_OFFSET_SHIFT
+                | (long) theSize << SIZE_SHIFT;
+        BufferedImage sprite = mySprites.get(key);
+        if (sprite == null) {
+            sprite = draw(theConfiguration, theColor, theSize, theOffsetX, theOffsetY);
+            mySprites.put(key, sprite);
+            myBytes += bytesOf(sprite);
+            evict();
+        }
+        return sprite;
+    }
+
+    /**
+     * Returns the number of images in the cache.
+     *
+     * @return the number of images
+     */
+    int size() {
+        return mySprites.size();
+    }
+
+    /**
+     * Returns the number of bytes the images in the cache take.
+     *
+     * @return the number of bytes
+     */
+    long getBytes() {
+        return myBytes;
+    }
+
+    /**
+     * Draws the image of a ball.
+     *
+     * @param theConfiguration the device configuration, or null
+     * @param theColor the color of the ball
+     * @param theSize the size of the ball in subpixel steps
+     * @param theOffsetX the horizontal offset in subpixel steps
+     * @param theOffsetY the vertical offset in subpixel steps
+     * @return the new image
+     */
+    private static BufferedImage draw(final GraphicsConfiguration theConfiguration,
+                                      final Color theColor, final int theSize,
+                                      final int theOffsetX, final int theOffsetY) {
+        final double side = (double) theSize / SUBPIXEL_STEPS;
+        final int pixels = (int) Math.ceil(side) + 1;
+        final BufferedImage sprite;
+        if (theConfiguration == null) {
+            sprite = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+        } else {
+            sprite = theConfiguration.createCompatibleImage(pixels, pixels,
+                                                            Transparency.TRANSLUCENT);
+        }
+        final Graphics2D graphics = sprite.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                  RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setPaint(theColor);
+        graphics.fill(new Ellipse2D.Double((double) theOffsetX / SUBPIXEL_STEPS,
+                                           (double) theOffsetY / SUBPIXEL_STEPS,
+                                           side, side));
+        graphics.dispose();
+        return sprite;
+    }
+
+    /** Drops the least recently used images until the cache is within its budget. */
+    private void evict() {
+        final Iterator<BufferedImage> oldest = mySprites.values().iterator();
+        while (myBytes > myBudget && oldest.hasNext()) {
+            myBytes -= bytesOf(oldest.next());
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Returns the number of bytes theSprite takes.
+     *
+     * @param theSprite an image
+     * @return its size in bytes
+     */
+    private static long bytesOf(final BufferedImage theSprite) {
+        return (long) theSprite.getWidth() * theSprite.getHeight() * BYTES_PER_PIXEL;
+    }
+}
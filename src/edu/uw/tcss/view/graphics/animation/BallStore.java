@@ -0,0 +1,739 @@
+/*
+ * Ball storage for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Stores every ball of the bouncing balls example as primitive fields instead of one
+ * object per ball. Ball i is described by the upper left corner of its bounding box, its
+ * horizontal and vertical direction, its diameter, and the index of its color in a
+ * small palette. By default the fields are kept in parallel primitive arrays, so walking
+ * the balls in order touches memory sequentially and a ball costs 27 bytes instead of a
+ * Ball, an Ellipse2D and a Color. The position of each ball before the latest move is kept as
+ * well (16 more bytes) so that a renderer can interpolate between the last two steps.
+ *
+ * <p>Every ball also has an id, which never changes while the ball is in the store. The
+ * balls can be reordered in memory, which changes their indices; a Ball handle and
+ * anything else that must follow a ball across a reorder keeps its id (8 more bytes per
+ * ball hold the id and the way back from an id to the current index). A removed ball's
+ * place is taken by the last ball, and its id is given to the next ball added, so the
+ * ids always stay below the capacity.
+ *
+ * <p>A store can instead keep its fields in any BallLayout, for example off the heap in
+ * an OffHeapBallLayout for worlds of millions of balls; close gives that memory back.
+ * The layout grows as balls are added. Balls added without a diameter get the default
+ * diameter the store was constructed with.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class BallStore implements AutoCloseable {
+
+    /** The initial number of balls the store can hold. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The largest number of colors the palette can hold. */
+    private static final int MAX_COLORS = 256;
+
+    /** The diameter (in pixels) of a ball added without one. */
+    private final double myDefaultDiameter;
+
+    /** Where the fields of the balls are kept. */
+    private final BallLayout myLayout;
+
+    /** The distinct colors used by the balls. */
+    private Color[] myPalette = new Color[1];
+
+    /** The number of colors in the palette. */
+    private int myColorCount;
+
+    /** The number of balls in the store. */
+    private int mySize;
+
+    /** The ids of removed balls, waiting to be given to new balls. */
+    private int[] myFreeIds = new int[0];
+
+    /** The number of ids in myFreeIds. */
+    private int myFreeIdCount;
+
+    /** The number of balls removed so far. */
+    private long myRemovalCount;
+
+    /** The number of times the balls were moved so far. */
+    private long myMoveCount;
+
+    /** True once the store is closed. */
+    private boolean myClosed;
+
+    /** The diameter of the largest ball in the store, or 0 when it is empty. */
+    private double myMaxDiameter;
+
+    /** The number of balls whose diameter is myMaxDiameter. */
+    private int myMaxDiameterCount;
+
+    /** The new index of each ball after the latest reorder, by its old index. */
+    private int[] myNewIndex = new int[0];
+
+    /** Marks the indices that already hold their ball during a reorder. */
+    private boolean[] myPlaced = new boolean[0];
+
+    /** The kind of kernel that moves the balls. */
+    private MoveKernelType myKernelType = MoveKernelType.fastest();
+
+    /** The kernel that moves the balls. */
+    private MoveKernel myKernel = myKernelType.create();
+
+    /**
+     * Constructs an empty store whose balls are theDiameter pixels across by default.
+     *
+     * @param theDiameter the default diameter
+     * @throws IllegalArgumentException when theDiameter is not positive
+     */
+    BallStore(final double theDiameter) {
+        this(theDiameter, new ArrayBallLayout(INITIAL_CAPACITY));
+    }
+
+    /**
+     * Constructs an empty store whose balls are theDiameter pixels across by default and
+     * whose fields are kept in theLayout. The store owns the layout from now on.
+     *
+     * @param theDiameter the default diameter
+     * @param theLayout where the fields of the balls are kept
+     * @throws IllegalArgumentException when theDiameter is not positive
+     * @throws NullPointerException when theLayout is null
+     */
+    BallStore(final double theDiameter, final BallLayout theLayout) {
+        super();
+        myDefaultDiameter = roundDiameter(theDiameter);
+        myLayout = Objects.requireNonNull(theLayout);
+    }
+
+    /**
+     * Adds a ball of the default diameter to the store.
+     *
+     * @param theX the x coordinate of the upper left corner of the ball
+     * @param theY the y coordinate of the upper left corner of the ball
+     * @param theHorizontalMove the initial horizontal direction, 1 or -1
+     * @param theVerticalMove the initial vertical direction, 1 or -1
+     * @param theColor the color of the ball
+     * @return the index of the new ball
+     * @throws IllegalArgumentException when a direction is not 1 or -1 or the palette
+     *         is full
+     * @throws IllegalStateException when the store is closed
+     */
+    int add(final double theX, final double theY, final int theHorizontalMove,
+            final int theVerticalMove, final Color theColor) {
+        return add(theX, theY, theHorizontalMove, theVerticalMove, theColor,
+                   myDefaultDiameter);
+    }
+
+    /**
+     * Adds a ball theDiameter pixels across to the store. The diameter is rounded to the
+     * nearest float, so every layout holds exactly the same value.
+     *
+     * @param theX the x coordinate of the upper left corner of the ball
+     * @param theY the y coordinate of the upper left corner of the ball
+     * @param theHorizontalMove the initial horizontal direction, 1 or -1
+     * @param theVerticalMove the initial vertical direction, 1 or -1
+     * @param theColor the color of the ball
+     * @param theDiameter the diameter of the ball
+     * @return the index of the new ball
+     * @throws IllegalArgumentException when a direction is not 1 or -1, the palette is
+     *         full or theDiameter is not positive
+     * @throws IllegalStateException when the store is closed
+     */
+    int add(final double theX, final double theY, final int theHorizontalMove,
+            final int theVerticalMove, final Color theColor, final double theDiameter) {
+        if (myClosed) {
+            throw new IllegalStateException("Cannot add to a closed store.");
+        }
+        checkDirection(theHorizontalMove);
+        checkDirection(theVerticalMove);
+        final double diameter = roundDiameter(theDiameter);
+        final int color = colorIndex(theColor);
+        if (mySize == myLayout.capacity()) {
+            myLayout.resize(Math.max(INITIAL_CAPACITY, mySize * 2));
+        }
+        myLayout.setX(mySize, theX);
+        myLayout.setY(mySize, theY);
+        myLayout.setPreviousX(mySize, theX);
+        myLayout.setPreviousY(mySize, theY);
+        myLayout.setHorizontalMove(mySize, theHorizontalMove);
+        myLayout.setVerticalMove(mySize, theVerticalMove);
+        myLayout.setColorIndex(mySize, color);
+        myLayout.setDiameter(mySize, diameter);
+        countDiameter(diameter);
+        final int id = takeId();
+        myLayout.setId(mySize, id);
+        myLayout.setIndexOf(id, mySize);
+        mySize++;
+        return mySize - 1;
+    }
+
+    /**
+     * Removes ball theIndex. The last ball is moved to theIndex, so an index kept from
+     * before a removal may no longer refer to the same ball; the ids of the balls that
+     * stay do. The removed ball's id is given to the next ball added, so a Ball handle
+     * must not be used once its ball is removed. Removing the last of the largest balls
+     * looks through the rest for the new largest diameter.
+     *
+     * @param theIndex the index of the ball to remove
+     * @throws IndexOutOfBoundsException when theIndex is not the index of a ball
+     */
+    void remove(final int theIndex) {
+        Objects.checkIndex(theIndex, mySize);
+        final int last = mySize - 1;
+        final int id = myLayout.getId(theIndex);
+        final double diameter = myLayout.getDiameter(theIndex);
+        if (theIndex != last) {
+            myLayout.copy(last, theIndex);
+            myLayout.setIndexOf(myLayout.getId(theIndex), theIndex);
+        }
+        if (myFreeIdCount == myFreeIds.length) {
+            myFreeIds = Arrays.copyOf(myFreeIds, Math.max(INITIAL_CAPACITY, last * 2));
+        }
+        myFreeIds[myFreeIdCount] = id;
+        myFreeIdCount++;
+        mySize = last;
+        myRemovalCount++;
+        if (diameter == myMaxDiameter) {
+            myMaxDiameterCount--;
+            if (myMaxDiameterCount == 0) {
+                findMaxDiameter();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of balls removed so far. Anything that keeps ball indices
+     * from one call to the next can compare it to know when they were shuffled.
+     *
+     * @return the number of removals
+     */
+    long getRemovalCount() {
+        return myRemovalCount;
+    }
+
+    /**
+     * Returns a handle to ball theIndex. The handle stays attached to the ball when the
+     * balls are reordered.
+     *
+     * @param theIndex the index of the ball
+     * @return a Ball that reads and writes this store
+     */
+    LotsOfMovingShapesPanel.Ball getBall(final int theIndex) {
+        return new LotsOfMovingShapesPanel.Ball(this, getId(theIndex));
+    }
+
+    /**
+     * Returns the id of ball theIndex, which stays the same when the balls are
+     * reordered.
+     *
+     * @param theIndex the index of the ball
+     * @return the id
+     */
+    int getId(final int theIndex) {
+        return myLayout.getId(theIndex);
+    }
+
+    /**
+     * Returns the current index of the ball whose id is theId.
+     *
+     * @param theId the id of the ball
+     * @return the index
+     */
+    int indexOf(final int theId) {
+        return myLayout.getIndexOf(theId);
+    }
+
+    /**
+     * Returns the number of balls in the store.
+     *
+     * @return the number of balls
+     */
+    int size() {
+        return mySize;
+    }
+
+    /**
+     * Returns the number of balls the store can hold before it has to grow.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return myLayout.capacity();
+    }
+
+    /**
+     * Returns the diameter of a ball added without one.
+     *
+     * @return the diameter in pixels
+     */
+    double getDefaultDiameter() {
+        return myDefaultDiameter;
+    }
+
+    /**
+     * Returns the diameter of the largest ball in the store, or 0 when it is empty.
+     * Broad phases use it to bound how far apart two colliding balls can be.
+     *
+     * @return the largest diameter in pixels
+     */
+    double getMaxDiameter() {
+        return myMaxDiameter;
+    }
+
+    /**
+     * Returns the diameter of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the diameter in pixels
+     */
+    double getDiameter(final int theIndex) {
+        return myLayout.getDiameter(theIndex);
+    }
+
+    /**
+     * Returns the x coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the x coordinate
+     */
+    double getX(final int theIndex) {
+        return myLayout.getX(theIndex);
+    }
+
+    /**
+     * Returns the y coordinate of the upper left corner of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the y coordinate
+     */
+    double getY(final int theIndex) {
+        return myLayout.getY(theIndex);
+    }
+
+    /**
+     * Returns the x coordinate of ball theIndex before the latest move.
+     *
+     * @param theIndex the index of the ball
+     * @return the previous x coordinate
+     */
+    double getPreviousX(final int theIndex) {
+        return myLayout.getPreviousX(theIndex);
+    }
+
+    /**
+     * Returns the y coordinate of ball theIndex before the latest move.
+     *
+     * @param theIndex the index of the ball
+     * @return the previous y coordinate
+     */
+    double getPreviousY(final int theIndex) {
+        return myLayout.getPreviousY(theIndex);
+    }
+
+    /**
+     * Returns the x coordinate of the center of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the x coordinate of the center
+     */
+    double getCenterX(final int theIndex) {
+        return myLayout.getX(theIndex) + myLayout.getDiameter(theIndex) / 2;
+    }
+
+    /**
+     * Returns the y coordinate of the center of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the y coordinate of the center
+     */
+    double getCenterY(final int theIndex) {
+        return myLayout.getY(theIndex) + myLayout.getDiameter(theIndex) / 2;
+    }
+
+    /**
+     * Gets the horizontal vector of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the horizontal vector
+     */
+    int getHorizontalMove(final int theIndex) {
+        return myLayout.getHorizontalMove(theIndex);
+    }
+
+    /**
+     * Sets the horizontal vector of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theHorizontalMove the horizontal vector must be a 1 or -1
+     * @throws IllegalArgumentException when theHorizontalMove is not 1 or -1
+     */
+    void setHorizontalMove(final int theIndex, final int theHorizontalMove) {
+        checkDirection(theHorizontalMove);
+        myLayout.setHorizontalMove(theIndex, theHorizontalMove);
+    }
+
+    /**
+     * Gets the vertical vector of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the vertical vector
+     */
+    int getVerticalMove(final int theIndex) {
+        return myLayout.getVerticalMove(theIndex);
+    }
+
+    /**
+     * Sets the vertical vector of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @param theVerticalMove the vertical vector must be a 1 or -1
+     * @throws IllegalArgumentException when theVerticalMove is not 1 or -1
+     */
+    void setVerticalMove(final int theIndex, final int theVerticalMove) {
+        checkDirection(theVerticalMove);
+        myLayout.setVerticalMove(theIndex, theVerticalMove);
+    }
+
+    /**
+     * Returns the palette index of the color of ball theIndex.
+     *
+     * @param theIndex the index of the ball
+     * @return the palette index
+     */
+    int getColorIndex(final int theIndex) {
+        return myLayout.getColorIndex(theIndex);
+    }
+
+    /**
+     * Returns the color at thePaletteIndex.
+     *
+     * @param thePaletteIndex an index returned by getColorIndex
+     * @return the color
+     */
+    Color getPaletteColor(final int thePaletteIndex) {
+        return myPalette[thePaletteIndex];
+    }
+
+    /**
+     * Returns the number of distinct colors in the palette.
+     *
+     * @return the number of colors
+     */
+    int getPaletteSize() {
+        return myColorCount;
+    }
+
+    /**
+     * Returns the kind of kernel that moves the balls.
+     *
+     * @return the kernel type
+     */
+    MoveKernelType getMoveKernel() {
+        return myKernelType;
+    }
+
+    /**
+     * Makes the balls move with a kernel of theType from now on. Every kernel moves the
+     * balls exactly the same way.
+     *
+     * @param theType the kernel type
+     * @throws IllegalStateException when theType is not available in this JVM
+     */
+    void setMoveKernel(final MoveKernelType theType) {
+        myKernel = theType.create();
+        myKernelType = theType;
+    }
+
+    /**
+     * Moves every ball one animation step, first changing the direction of any ball
+     * whose bounds are outside of a theWidth by theHeight area.
+     *
+     * @param theWidth the width of the area the balls bounce around in
+     * @param theHeight the height of the area the balls bounce around in
+     */
+    void move(final double theWidth, final double theHeight) {
+        myKernel.move(myLayout, mySize, theWidth, theHeight);
+        myMoveCount++;
+    }
+
+    /**
+     * Moves every ball theSteps animation steps in a straight line without checking the
+     * walls or the other balls. Only correct for steps in which no ball would change
+     * direction; the event driven simulation uses it to skip quiet ticks.
+     *
+     * @param theSteps the number of steps to move, at least 1
+     */
+    void coast(final long theSteps) {
+        for (int i = 0; i < mySize; i++) {
+            final int horizontal = myLayout.getHorizontalMove(i);
+            final int vertical = myLayout.getVerticalMove(i);
+            final double x = myLayout.getX(i) + theSteps * horizontal;
+            final double y = myLayout.getY(i) + theSteps * vertical;
+            myLayout.setX(i, x);
+            myLayout.setY(i, y);
+            myLayout.setPreviousX(i, x - horizontal);
+            myLayout.setPreviousY(i, y - vertical);
+        }
+        myMoveCount++;
+    }
+
+    /**
+     * Returns the number of times move or coast was called. Anything that keeps the
+     * positions of the balls from one call to the next can compare it to know when they
+     * went out of date.
+     *
+     * @return the number of moves
+     */
+    long getMoveCount() {
+        return myMoveCount;
+    }
+
+    /**
+     * Updates the horizontal move of ball theIndex to keep it on screen.
+     *
+     * @param theIndex the index of the ball
+     * @param theWidth the width of the area the ball bounces around in
+     */
+    void updateHorizontalMove(final int theIndex, final double theWidth) {
+        myLayout.setHorizontalMove(theIndex, ScalarMoveKernel.keepInside(
+                myLayout.getX(theIndex), myLayout.getHorizontalMove(theIndex),
+                myLayout.getDiameter(theIndex),
+                theWidth));
+    }
+
+    /**
+     * Updates the vertical move of ball theIndex to keep it on screen.
+     *
+     * @param theIndex the index of the ball
+     * @param theHeight the height of the area the ball bounces around in
+     */
+    void updateVerticalMove(final int theIndex, final double theHeight) {
+        myLayout.setVerticalMove(theIndex, ScalarMoveKernel.keepInside(
+                myLayout.getY(theIndex), myLayout.getVerticalMove(theIndex),
+                myLayout.getDiameter(theIndex),
+                theHeight));
+    }
+
+    /**
+     * Returns true when the distance between the centers of two balls is less than or
+     * equal to the sum of their radii. The squared distance is compared so no square
+     * root is taken; balls only ever sit on whole pixels, so this gives exactly the same
+     * answer as comparing the distance itself.
+     *
+     * @param theIndex the index of one ball
+     * @param theOtherIndex the index of the other ball
+     * @return true if the balls collide
+     */
+    boolean collide(final int theIndex, final int theOtherIndex) {
+        return overlaps(theIndex, myLayout.getX(theOtherIndex), myLayout.getY(theOtherIndex),
+                        myLayout.getDiameter(theOtherIndex));
+    }
+
+    /**
+     * Returns true when a ball theDiameter pixels across whose upper left corner is at
+     * theX and theY would collide with ball theIndex. The distance between the centers
+     * is worked out as the distance between the corners plus half the difference of the
+     * diameters, which is exact for balls on whole pixels.
+     *
+     * @param theIndex the index of a stored ball
+     * @param theX the x coordinate of the upper left corner of the other ball
+     * @param theY the y coordinate of the upper left corner of the other ball
+     * @param theDiameter the diameter of the other ball
+     * @return true if the balls collide
+     */
+    boolean overlaps(final int theIndex, final double theX, final double theY,
+                     final double theDiameter) {
+        final double diameter = myLayout.getDiameter(theIndex);
+        final double offset = (diameter - theDiameter) / 2;
+        final double dx = myLayout.getX(theIndex) - theX + offset;
+        final double dy = myLayout.getY(theIndex) - theY + offset;
+        final double reach = (diameter + theDiameter) / 2;
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+    /**
+     * Changes the direction of two colliding balls.
+     *
+     * @param theIndex the index of one of the colliding balls
+     * @param theOtherIndex the index of the other colliding ball
+     */
+    void bounce(final int theIndex, final int theOtherIndex) {
+        final int horizontal = myLayout.getHorizontalMove(theIndex);
+        final int vertical = myLayout.getVerticalMove(theIndex);
+        final int otherHorizontal = myLayout.getHorizontalMove(theOtherIndex);
+        final int otherVertical = myLayout.getVerticalMove(theOtherIndex);
+        if (horizontal == otherHorizontal) {
+            myLayout.setVerticalMove(theIndex, -vertical);
+            myLayout.setVerticalMove(theOtherIndex, -otherVertical);
+        } else if (vertical == otherVertical) {
+            myLayout.setHorizontalMove(theIndex, -horizontal);
+            myLayout.setHorizontalMove(theOtherIndex, -otherHorizontal);
+        } else {
+            myLayout.setHorizontalMove(theIndex, -horizontal);
+            myLayout.setVerticalMove(theIndex, -vertical);
+            myLayout.setHorizontalMove(theOtherIndex, -otherHorizontal);
+            myLayout.setVerticalMove(theOtherIndex, -otherVertical);
+        }
+    }
+
+    /**
+     * Moves the balls to new indices: the ball at index theOrder[k] moves to index k.
+     * The ids of the balls do not change. The records are moved along the cycles of the
+     * permutation, so each is copied about once, through one spare record.
+     *
+     * @param theOrder the current index of the ball for each new index; the first
+     *        size() entries must be a permutation of 0 to size() - 1
+     * @return the new index of each ball by its old index, valid until the next reorder
+     */
+    int[] reorder(final int[] theOrder) {
+        if (mySize == myLayout.capacity()) {
+            myLayout.resize(mySize + 1);
+        }
+        if (myNewIndex.length < mySize) {
+            myNewIndex = new int[myLayout.capacity()];
+            myPlaced = new boolean[myLayout.capacity()];
+        }
+        final int spare = mySize;
+        for (int k = 0; k < mySize; k++) {
+            myNewIndex[theOrder[k]] = k;
+            myPlaced[k] = theOrder[k] == k;
+        }
+        for (int start = 0; start < mySize; start++) {
+            if (!myPlaced[start]) {
+                myLayout.copy(start, spare);
+                int index = start;
+                while (theOrder[index] != start) {
+                    myLayout.copy(theOrder[index], index);
+                    myPlaced[index] = true;
+                    index = theOrder[index];
+                }
+                myLayout.copy(spare, index);
+                myPlaced[index] = true;
+            }
+        }
+        for (int k = 0; k < mySize; k++) {
+            myLayout.setIndexOf(myLayout.getId(k), k);
+        }
+        return myNewIndex;
+    }
+
+    /**
+     * Removes every ball and gives back the memory of the layout. The store is empty
+     * and cannot be added to afterwards. Closing a closed store does nothing.
+     */
+    @Override
+    public void close() {
+        if (!myClosed) {
+            myClosed = true;
+            mySize = 0;
+            myMaxDiameter = 0;
+            myMaxDiameterCount = 0;
+            myLayout.release();
+        }
+    }
+
+    /**
+     * Returns the palette index of theColor, adding it to the palette when needed.
+     *
+     * @param theColor the color to look up
+     * @return the palette index
+     * @throws IllegalArgumentException when the palette is full
+     */
+    private int colorIndex(final Color theColor) {
+        for (int i = 0; i < myColorCount; i++) {
+            if (myPalette[i].equals(theColor)) {
+                return i;
+            }
+        }
+        if (myColorCount == MAX_COLORS) {
+            throw new IllegalArgumentException("No more than " + MAX_COLORS
+                    + " colors can be used. Could not add: " + theColor);
+        }
+        if (myColorCount == myPalette.length) {
+            myPalette = Arrays.copyOf(myPalette, myColorCount * 2);
+        }
+        myPalette[myColorCount] = theColor;
+        myColorCount++;
+        return myColorCount - 1;
+    }
+
+    /** Looks through the balls for the largest diameter and counts the balls that have it. */
+    private void findMaxDiameter() {
+        myMaxDiameter = 0;
+        myMaxDiameterCount = 0;
+        for (int i = 0; i < mySize; i++) {
+            countDiameter(myLayout.getDiameter(i));
+        }
+    }
+
+    /**
+     * Raises the largest diameter to theDiameter when it is larger, and counts a ball of
+     * theDiameter when it is the largest.
+     *
+     * @param theDiameter the diameter of a ball in the store
+     */
+    private void countDiameter(final double theDiameter) {
+        if (theDiameter > myMaxDiameter) {
+            myMaxDiameter = theDiameter;
+            myMaxDiameterCount = 0;
+        }
+        if (theDiameter == myMaxDiameter) {
+            myMaxDiameterCount++;
+        }
+    }
+
+    /**
+     * Returns the id for a new ball: the id of the latest removed ball, or the next
+     * unused id when none is free. With no free ids the balls hold ids 0 to size() - 1,
+     * so the next unused id is size().
+     *
+     * @return the id
+     */
+    private int takeId() {
+        int result = mySize;
+        if (myFreeIdCount > 0) {
+            myFreeIdCount--;
+            result = myFreeIds[myFreeIdCount];
+        }
+        return result;
+    }
+
+    /**
+     * Returns theDiameter rounded to the nearest float.
+     *
+     * @param theDiameter the diameter to check
+     * @return the rounded diameter
+     * @throws IllegalArgumentException when theDiameter is not positive and finite
+     */
+    private static double roundDiameter(final double theDiameter) {
+        final float result = (float) theDiameter;
+        if (!(result > 0) || Float.isInfinite(result)) {
+            throw new IllegalArgumentException(
+                    "Diameter must be positive. Was: " + theDiameter);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that theMove is a legal direction.
+     *
+     * @param theMove the direction to check
+     * @throws IllegalArgumentException when theMove is not 1 or -1
+     */
+    private static void checkDirection(final int theMove) {
+        if (theMove != 1 && theMove != -1) {
+            throw new IllegalArgumentException(
+                    "Vector must be 1 or -1. Was: " + theMove);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * Finds the pairs of balls that collide during one animation step. An implementation
+ * must report every colliding pair at least once. Pairs may be reported in any order
+ * and may be reported more than once; the caller sorts them into nested loop order
+ * before responding to them so that every implementation produces the same result.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+interface BroadPhase {
+
+    /**
+     * Adds every pair of colliding balls to thePairs. Balls may have different
+     * diameters; BallStore.getMaxDiameter bounds how far apart two colliding balls are.
+     *
+     * @param theBalls the balls to check
+     * @param thePairs the list the colliding pairs are added to
+     */
+    void findCollisions(BallStore theBalls, CollisionPairs thePairs);
+
+    /**
+     * Returns true when a ball theDiameter pixels across whose upper left corner is at
+     * theX and theY would collide with any of theBalls as they are now. The balls may
+     * have been added, removed, moved or reordered since the latest findCollisions call.
+     *
+     * @param theBalls the balls to check
+     * @param theX the x coordinate of the upper left corner of the new ball
+     * @param theY the y coordinate of the upper left corner of the new ball
+     * @param theDiameter the diameter of the new ball
+     * @return true if the new ball would collide with a ball
+     */
+    default boolean overlapsAny(final BallStore theBalls, final double theX,
+                                final double theY, final double theDiameter) {
+        boolean result = false;
+        for (int i = 0; i < theBalls.size() && !result; i++) {
+            result = theBalls.overlaps(i, theX, theY, theDiameter);
+        }
+        return result;
+    }
+
+    /**
+     * Tells the broad phase that the balls were reordered, so any ball indices it keeps
+     * from one tick to the next can be updated: the ball that was at index i is now at
+     * index theNewIndex[i]. Balls added since the latest findCollisions were moved too.
+     *
+     * @param theNewIndex the new index of each ball by its old index
+     * @param theCount the number of balls, including any added since the latest
+     *                 findCollisions
+     */
+    default void renumber(final int[] theNewIndex, final int theCount) {
+        // most broad phases keep nothing between ticks
+    }
+
+    /** Releases any threads this broad phase holds. It must not be used afterward. */
+    default void shutdown() {
+        // most broad phases hold no threads
+    }
+}
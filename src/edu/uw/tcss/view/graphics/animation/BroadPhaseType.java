@@ -0,0 +1,68 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * The broad phase algorithms the bouncing balls example can use to find collisions.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+enum BroadPhaseType {
+
+    /** Test every pair of balls. */
+    BRUTE_FORCE,
+
+    /** Test only the balls in neighboring cells of a uniform spatial hash grid. */
+    UNIFORM_GRID,
+
+    /** Keep the balls sorted along each axis and test only balls that overlap along one. */
+    SWEEP_AND_PRUNE,
+
+    /** Test only the balls in nearby leaves of a quadtree that adapts to crowding. */
+    QUADTREE,
+
+    /** Test only the balls in neighboring cells of a grid level sized for each ball. */
+    HIERARCHICAL_GRID;
+
+    /**
+     * Creates a new single threaded broad phase of this type.
+     *
+     * @return a new broad phase
+     */
+    BroadPhase create() {
+        return create(1);
+    }
+
+    /**
+     * Creates a new broad phase of this type that searches with theParallelism threads
+     * where the type supports it. Types without a parallel version ignore theParallelism.
+     *
+     * @param theParallelism the number of threads to search with
+     * @return a new broad phase
+     * @throws IllegalArgumentException when theParallelism is not positive
+     */
+    BroadPhase create(final int theParallelism) {
+        if (theParallelism <= 0) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be positive. Was: " + theParallelism);
+        }
+        final double cellSize = LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+        return switch (this) {
+            case BRUTE_FORCE -> new BruteForceBroadPhase();
+            case UNIFORM_GRID -> {
+                if (theParallelism == 1) {
+                    yield new UniformGridBroadPhase(cellSize);
+                }
+                yield new ParallelGridBroadPhase(cellSize, theParallelism);
+            }
+            case SWEEP_AND_PRUNE -> new SweepAndPruneBroadPhase();
+            case QUADTREE -> new QuadtreeBroadPhase();
+            case HIERARCHICAL_GRID -> new HierarchicalGridBroadPhase(cellSize);
+        };
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * Checks every pair of balls against each other. This is the original nested loop and
+ * is O(n^2), so it is only useful for small numbers of balls and as the reference
+ * result the other broad phases are compared against.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class BruteForceBroadPhase implements BroadPhase {
+
+    @Override
+    public void findCollisions(final BallStore theBalls, final CollisionPairs thePairs) {
+        for (int i = 0; i < theBalls.size(); i++) {
+            for (int j = i + 1; j < theBalls.size(); j++) {
+                if (theBalls.collide(i, j)) {
+                    thePairs.add(i, j);
+                }
+            }
+        }
+    }
+}
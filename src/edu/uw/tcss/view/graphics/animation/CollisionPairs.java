@@ -0,0 +1,239 @@
+/*
+ * Collision pair storage for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of colliding ball pairs. Each pair (i, j) with i less than j
+ * is packed into a single long so that sorting the longs puts the pairs into the
+ * same order that the original nested i/j loop visited them.
+ *
+ * <p>The backing arrays are kept between ticks so a steady-state tick does not
+ * allocate.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class CollisionPairs {
+
+    /** The initial number of pairs the list can hold. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The number of bits in one radix digit. */
+    private static final int RADIX_BITS = 16;
+
+    /** The number of buckets used by one radix pass. */
+    private static final int RADIX_SIZE = 1 << RADIX_BITS;
+
+    /** The mask for a single radix digit. */
+    private static final long RADIX_MASK = RADIX_SIZE - 1;
+
+    /**
+     * Lists with fewer pairs than this are insertion sorted, because a radix pass costs
+     * at least RADIX_SIZE steps however few pairs there are.
+     */
+    private static final int SMALL_SORT = 256;
+
+    /** The number of bits in a long. */
+    private static final int KEY_BITS = 64;
+
+    /** The number of bits the first index is shifted by when packed. */
+    private static final int FIRST_SHIFT = 32;
+
+    /** The mask for the second index of a packed pair. */
+    private static final long SECOND_MASK = 0xFFFF_FFFFL;
+
+    /** The packed pairs. */
+    private long[] myPairs;
+
+    /** Scratch space used while sorting. */
+    private long[] myScratch;
+
+    /** Bucket counts used while sorting. */
+    private final int[] myCounts;
+
+    /** The number of pairs in the list. */
+    private int mySize;
+
+    /** Constructs an empty list of pairs. */
+    CollisionPairs() {
+        super();
+        myPairs = new long[INITIAL_CAPACITY];
+        myScratch = new long[INITIAL_CAPACITY];
+        myCounts = new int[RADIX_SIZE + 1];
+    }
+
+    /** Removes every pair from the list. */
+    void clear() {
+        mySize = 0;
+    }
+
+    /**
+     * Adds a pair to the list. The indices may be given in either order.
+     *
+     * @param theFirst the index of one ball
+     * @param theSecond the index of the other ball
+     */
+    void add(final int theFirst, final int theSecond) {
+        if (mySize == myPairs.length) {
+            myPairs = Arrays.copyOf(myPairs, mySize * 2);
+        }
+        myPairs[mySize] = pack(Math.min(theFirst, theSecond), Math.max(theFirst, theSecond));
+        mySize++;
+    }
+
+    /**
+     * Returns the number of pairs in the list.
+     *
+     * @return the number of pairs
+     */
+    int size() {
+        return mySize;
+    }
+
+    /**
+     * Returns the smaller index of the pair at theIndex.
+     *
+     * @param theIndex the position of the pair in this list
+     * @return the smaller ball index of the pair
+     */
+    int first(final int theIndex) {
+        return (int) (myPairs[theIndex] >>> FIRST_SHIFT);
+    }
+
+    /**
+     * Returns the larger index of the pair at theIndex.
+     *
+     * @param theIndex the position of the pair in this list
+     * @return the larger ball index of the pair
+     */
+    int second(final int theIndex) {
+        return (int) (myPairs[theIndex] & SECOND_MASK);
+    }
+
+    /**
+     * Replaces every pair of ball indices with the pair of ids of the same balls, so
+     * that sorting puts the pairs into the order of the ids, whatever the order the
+     * balls are stored in.
+     *
+     * @param theBalls the balls the indices refer to
+     */
+    void toIds(final BallStore theBalls) {
+        for (int i = 0; i < mySize; i++) {
+            final int first = theBalls.getId(first(i));
+            final int second = theBalls.getId(second(i));
+            myPairs[i] = pack(Math.min(first, second), Math.max(first, second));
+        }
+    }
+
+    /**
+     * Sorts the pairs into nested loop order (by first index, then by second index)
+     * and removes duplicates. Uses an LSD radix sort so the cost is linear in the
+     * number of pairs and no memory is allocated once the scratch space is large
+     * enough. Short lists are insertion sorted instead.
+     */
+    void sortUnique() {
+        if (mySize < 2) {
+            return;
+        }
+        if (mySize < SMALL_SORT) {
+            insertionSort();
+        } else {
+            if (myScratch.length < myPairs.length) {
+                myScratch = new long[myPairs.length];
+            }
+            for (int shift = 0; shift < KEY_BITS; shift += RADIX_BITS) {
+                radixPass(shift);
+            }
+        }
+        int unique = 0;
+        for (int i = 0; i < mySize; i++) {
+            if (unique == 0 || myPairs[unique - 1] != myPairs[i]) {
+                myPairs[unique] = myPairs[i];
+                unique++;
+            }
+        }
+        mySize = unique;
+    }
+
+    /** Sorts the pairs by insertion sort. */
+    private void insertionSort() {
+        for (int i = 1; i < mySize; i++) {
+            final long pair = myPairs[i];
+            int j = i - 1;
+            while (j >= 0 && myPairs[j] > pair) {
+                myPairs[j + 1] = myPairs[j];
+                j--;
+            }
+            myPairs[j + 1] = pair;
+        }
+    }
+
+    /**
+     * Returns true when this list holds exactly the same pairs, in the same order,
+     * as theOther.
+     *
+     * @param theOther the list to compare with
+     * @return true if both lists are identical
+     */
+    boolean sameAs(final CollisionPairs theOther) {
+        return Arrays.equals(myPairs, 0, mySize, theOther.myPairs, 0, theOther.mySize);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < mySize; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(first(i)).append(':').append(second(i));
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Performs one stable counting sort pass on the digit starting at theShift.
+     * The pass is skipped when every key has the same digit.
+     *
+     * @param theShift the bit position of the digit to sort on
+     */
+    private void radixPass(final int theShift) {
+        Arrays.fill(myCounts, 0);
+        for (int i = 0; i < mySize; i++) {
+            myCounts[(int) ((myPairs[i] >>> theShift) & RADIX_MASK) + 1]++;
+        }
+        for (int bucket = 1; bucket <= RADIX_SIZE; bucket++) {
+            if (myCounts[bucket] == mySize) {
+                return;
+            }
+        }
+        for (int bucket = 0; bucket < RADIX_SIZE; bucket++) {
+            myCounts[bucket + 1] += myCounts[bucket];
+        }
+        for (int i = 0; i < mySize; i++) {
+            final int bucket = (int) ((myPairs[i] >>> theShift) & RADIX_MASK);
+            myScratch[myCounts[bucket]] = myPairs[i];
+            myCounts[bucket]++;
+        }
+        final long[] sorted = myScratch;
+        myScratch = myPairs;
+        myPairs = sorted;
+    }
+
+    /**
+     * Packs two ball indices into one sortable key.
+     *
+     * @param theFirst the smaller index
+     * @param theSecond the larger index
+     * @return the packed key
+     */
+    private static long pack(final int theFirst, final int theSecond) {
+        return (long) theFirst << FIRST_SHIFT | theSecond;
+    }
+}
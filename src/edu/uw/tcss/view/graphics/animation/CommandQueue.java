@@ -0,0 +1,104 @@
+/*
+ * Passes commands to the simulation for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A multi-producer, single-consumer queue of BallCommands that lets any thread ask for
+ * balls to be added or removed without locking the simulation. The thread that steps
+ * the simulation drains the queue at the start of each tick and runs the commands in
+ * the order they were offered.
+ *
+ * <p>The queue is a linked list that starts with an empty node. Offering swaps the new
+ * node in as the tail in one atomic step and then links the old tail to it, so a
+ * producer never waits for another producer or for the consumer and never retries. The
+ * consumer follows the links from the head. A node whose link is not written yet looks
+ * like the end of the queue; the commands from there on are run by the next drain. A
+ * drain stops at the tail it saw when it started, so producers that keep offering
+ * cannot keep it running.
+ *
+ * <p>Any number of threads may offer. Only one thread may drain.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class CommandQueue {
+
+    /** The node offered last; swapped by the producers. */
+    private final AtomicReference<Node> myTail;
+
+    /** The node before the next command to run; only used by the draining thread. */
+    private Node myHead;
+
+    /** Constructs an empty queue. */
+    CommandQueue() {
+        super();
+        myHead = new Node(null);
+        myTail = new AtomicReference<>(myHead);
+    }
+
+    /**
+     * Adds theCommand to the end of the queue. May be called from any thread, and
+     * returns without waiting whatever the other threads are doing.
+     *
+     * @param theCommand the command to run
+     * @throws NullPointerException when theCommand is null
+     */
+    void offer(final BallCommand theCommand) {
+        final Node node = new Node(Objects.requireNonNull(theCommand));
+        final Node previous = myTail.getAndSet(node);
+        previous.myNext = node;
+    }
+
+    /**
+     * Runs the commands offered so far on theSimulation, oldest first, and removes them.
+     * A command that throws is removed as well. Draining an empty queue allocates
+     * nothing.
+     *
+     * @param theSimulation the simulation the commands change
+     * @return the number of commands run
+     */
+    int drain(final BallSimulation theSimulation) {
+        final Node last = myTail.get();
+        int result = 0;
+        Node next = myHead.myNext;
+        while (myHead != last && next != null) {
+            myHead = next;
+            final BallCommand command = next.myCommand;
+            // the node is the empty head now, so it lets go of its command
+            next.myCommand = null;
+            result++;
+            command.apply(theSimulation);
+            next = myHead.myNext;
+        }
+        return result;
+    }
+
+    /**
+     * One link of the queue.
+     */
+    private static final class Node {
+
+        /** The command, or null once it has been taken. */
+        private BallCommand myCommand;
+
+        /** The next node, or null while this is the tail or its link is not written. */
+        private volatile Node myNext;
+
+        /**
+         * Constructs an unlinked node.
+         *
+         * @param theCommand the command it holds
+         */
+        Node(final BallCommand theCommand) {
+            super();
+            myCommand = theCommand;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Partial repainting for the animation examples.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import javax.swing.JComponent;
+
+/**
+ * The part of a component that has to be repainted because something drawn on it moved.
+ * A panel adds the bounds a shape had before it moved and the bounds it has after, then
+ * asks for a repaint of just that part instead of calling repaint() for the whole panel.
+ *
+ * <p>Swing's RepaintManager merges all the areas asked for on one component into the
+ * rectangle that encloses them, so the region is kept as that enclosing rectangle too.
+ * When it would cover more than a threshold fraction of the component, the whole
+ * component is repainted instead; at that point there is little left to save and one
+ * plain repaint is simpler for Swing to handle.
+ *
+ * <p>The methods are synchronized so a simulation thread can add areas while the Event
+ * Dispatch Thread paints.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class DirtyRegion {
+
+    /** The default fraction of the component above which all of it is repainted. */
+    static final double DEFAULT_COVERAGE_THRESHOLD = 0.5;
+
+    /** The margin (in pixels) added around every area, for antialiased edges. */
+    private static final int MARGIN = 1;
+
+    /** The fraction of the component above which all of it is repainted. */
+    private final double myCoverageThreshold;
+
+    /** The smallest x coordinate in the region. */
+    private double myMinX = Double.POSITIVE_INFINITY;
+
+    /** The smallest y coordinate in the region. */
+    private double myMinY = Double.POSITIVE_INFINITY;
+
+    /** The largest x coordinate in the region. */
+    private double myMaxX = Double.NEGATIVE_INFINITY;
+
+    /** The largest y coordinate in the region. */
+    private double myMaxY = Double.NEGATIVE_INFINITY;
+
+    /** The number of repaints asked for of the whole component. */
+    private long myFullRepaints;
+
+    /** The number of repaints asked for of part of the component. */
+    private long myPartialRepaints;
+
+    /** Constructs an empty region with the default coverage threshold. */
+    DirtyRegion() {
+        this(DEFAULT_COVERAGE_THRESHOLD);
+    }
+
+    /**
+     * Constructs an empty region.
+     *
+     * @param theCoverageThreshold the fraction of the component, from 0 to 1, above
+     *                             which all of it is repainted
+     * @throws IllegalArgumentException when theCoverageThreshold is not from 0 to 1
+     */
+    DirtyRegion(final double theCoverageThreshold) {
+        super();
+        if (!(theCoverageThreshold >= 0 && theCoverageThreshold <= 1)) {
+            throw new IllegalArgumentException(
+                    "Coverage threshold must be from 0 to 1. Was: " + theCoverageThreshold);
+        }
+        myCoverageThreshold = theCoverageThreshold;
+    }
+
+    /**
+     * Adds a rectangle to the region.
+     *
+     * @param theX the x coordinate of the upper left corner
+     * @param theY the y coordinate of the upper left corner
+     * @param theWidth the width
+     * @param theHeight the height
+     */
+    synchronized void add(final double theX, final double theY, final double theWidth,
+                          final double theHeight) {
+        myMinX = Math.min(myMinX, theX);
+        myMinY = Math.min(myMinY, theY);
+        myMaxX = Math.max(myMaxX, theX + theWidth);
+        myMaxY = Math.max(myMaxY, theY + theHeight);
+    }
+
+    /**
+     * Returns true when nothing has been added since the last repaint.
+     *
+     * @return true when the region is empty
+     */
+    synchronized boolean isEmpty() {
+        return myMinX > myMaxX;
+    }
+
+    /**
+     * Asks theComponent to repaint the region, or all of itself when the region covers
+     * more than the coverage threshold, and empties the region. Does nothing when the
+     * region is empty.
+     *
+     * @param theComponent the component the region belongs to
+     */
+    synchronized void repaint(final JComponent theComponent) {
+        if (!isEmpty()) {
+            final int left = Math.max(0, (int) Math.floor(myMinX) - MARGIN);
+            final int top = Math.max(0, (int) Math.floor(myMinY) - MARGIN);
+            final int right = Math.min(theComponent.getWidth(),
+                                       (int) Math.ceil(myMaxX) + MARGIN);
+            final int bottom = Math.min(theComponent.getHeight(),
+                                        (int) Math.ceil(myMaxY) + MARGIN);
+            final double area = (double) theComponent.getWidth() * theComponent.getHeight();
+            if ((double) (right - left) * (bottom - top) > myCoverageThreshold * area) {
+                myFullRepaints++;
+                theComponent.repaint();
+            } else if (right > left && bottom > top) {
+                myPartialRepaints++;
+                theComponent.repaint(left, top, right - left, bottom - top);
+            }
+            myMinX = Double.POSITIVE_INFINITY;
+            myMinY = Double.POSITIVE_INFINITY;
+            myMaxX = Double.NEGATIVE_INFINITY;
+            myMaxY = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Returns the number of repaints asked for of the whole component.
+     *
+     * @return the number of full repaints
+     */
+    synchronized long getFullRepaints() {
+        return myFullRepaints;
+    }
+
+    /**
+     * Returns the number of repaints asked for of part of the component.
+     *
+     * @return the number of partial repaints
+     */
+    synchronized long getPartialRepaints() {
+        return myPartialRepaints;
+    }
+}
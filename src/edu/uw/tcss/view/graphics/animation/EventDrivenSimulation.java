@@ -0,0 +1,676 @@
+/*
+ * The simulation behind the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * Runs a BallSimulation by jumping from event to event instead of stepping every tick.
+ * Every ball moves exactly one pixel per tick along each axis, so the tick at which a
+ * ball next reaches a wall, and the tick at which two balls next touch, can be worked
+ * out exactly ahead of time. The predicted events wait in a priority queue, a binary heap
+ * of primitive arrays so that predicting allocates nothing once it has grown. All ticks
+ * before the earliest event are quiet ticks in which every ball simply moves, so they
+ * are skipped in one jump. The tick holding the event is run as a normal tick, which
+ * is why the result is exactly the same as stepping every tick.
+ *
+ * <p>When a normal tick changes a ball's direction or bounces it, the ball's version
+ * number goes up and its events are predicted again. Events carry the versions of
+ * their balls, so events made stale by a change are recognized and dropped when they
+ * reach the front of the queue. Pairs are only predicted HORIZON ticks ahead, and only
+ * for balls close enough to meet within that time. All events are predicted again
+ * every HORIZON ticks.
+ *
+ * <p>The prediction assumes every ball sits on whole pixels, which is true of every
+ * ball added by a click or a BallDistribution. Adding or removing balls or resizing
+ * the world between calls is allowed; other changes to the balls are not. Commands
+ * submitted to the simulation run at the start of the next advance. Like
+ * BallSimulation, this class is not thread safe.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class EventDrivenSimulation {
+
+    /** The number of ticks ahead that pair events are predicted. */
+    private static final int HORIZON = 64;
+
+    /** The tick of an event that never happens. */
+    private static final long NEVER = Long.MAX_VALUE;
+
+    /** The second ball of a wall event. */
+    private static final int WALL = -1;
+
+    /** The simulation being run. */
+    private final BallSimulation mySimulation;
+
+    /** The predicted events, earliest first. */
+    private final EventQueue myEvents = new EventQueue();
+
+    /** Finds the balls close enough to meet within HORIZON ticks. */
+    private final UniformGridBroadPhase myNearGrid;
+
+    /** The version of each ball; it goes up whenever the ball's events change. */
+    private int[] myVersion = new int[0];
+
+    /** The horizontal direction of each ball before the latest normal tick. */
+    private int[] myOldHorizontalMove = new int[0];
+
+    /** The vertical direction of each ball before the latest normal tick. */
+    private int[] myOldVerticalMove = new int[0];
+
+    /** True for each ball whose events must be predicted again. */
+    private boolean[] myTouched = new boolean[0];
+
+    /** The balls whose events must be predicted again. */
+    private int[] myTouchedList = new int[0];
+
+    /** The balls near the ball being predicted. */
+    private int[] myNear = new int[0];
+
+    /** The number of ticks run so far. */
+    private long myTick;
+
+    /** The number of ticks run as normal ticks so far. */
+    private long myNormalTicks;
+
+    /** The number of colliding pairs found so far. */
+    private long myCollisionCount;
+
+    /** The tick at which every event is predicted again. */
+    private long myHorizon;
+
+    /** The number of balls when the events were last all predicted. */
+    private int myPredictedBalls = -1;
+
+    /** The width of the world when the events were last all predicted. */
+    private double myPredictedWidth;
+
+    /** The height of the world when the events were last all predicted. */
+    private double myPredictedHeight;
+
+    /** The number of reorders of the balls when the events were last all predicted. */
+    private long myPredictedReorders;
+
+    /** The number of balls removed when the events were last all predicted. */
+    private long myPredictedRemovals;
+
+    /**
+     * Constructs an event driven runner for theSimulation.
+     *
+     * @param theSimulation the simulation to run
+     */
+    EventDrivenSimulation(final BallSimulation theSimulation) {
+        super();
+        mySimulation = theSimulation;
+        myNearGrid = new UniformGridBroadPhase(
+                theSimulation.getBalls().getDefaultDiameter() + 2 * HORIZON, 2 * HORIZON);
+    }
+
+    /**
+     * Returns the number of ticks run so far.
+     *
+     * @return the number of ticks
+     */
+    long getTick() {
+        return myTick;
+    }
+
+    /**
+     * Returns the number of ticks that held an event and were run as normal ticks.
+     *
+     * @return the number of normal ticks
+     */
+    long getNormalTicks() {
+        return myNormalTicks;
+    }
+
+    /**
+     * Returns the number of colliding pairs found so far.
+     *
+     * @return the number of collisions
+     */
+    long getCollisionCount() {
+        return myCollisionCount;
+    }
+
+    /**
+     * Runs the submitted commands, then theTicks ticks. The balls end up exactly where
+     * theTicks calls to BallSimulation.tick would leave them.
+     *
+     * @param theTicks the number of ticks to run
+     */
+    void advance(final long theTicks) {
+        mySimulation.applyCommands();
+        final long target = myTick + theTicks;
+        while (myTick < target) {
+            if (myTick >= myHorizon || isOutdated()) {
+                predictAll();
+            }
+            final long next = Math.min(Math.min(nextEventTick(), myHorizon), target);
+            if (next > myTick) {
+                mySimulation.getBalls().coast(next - myTick);
+                myTick = next;
+            } else {
+                runNormalTick();
+            }
+        }
+    }
+
+    /**
+     * Returns true when balls were added or removed, the world was resized or the balls
+     * were reordered since the events were last all predicted. Events refer to balls by
+     * index, so a reorder or a removal makes all of them stale.
+     *
+     * @return true if the events must all be predicted again
+     */
+    private boolean isOutdated() {
+        return mySimulation.getBalls().size() != myPredictedBalls
+                || mySimulation.getWidth() != myPredictedWidth
+                || mySimulation.getHeight() != myPredictedHeight
+                || mySimulation.getReorderCount() != myPredictedReorders
+                || mySimulation.getBalls().getRemovalCount() != myPredictedRemovals;
+    }
+
+    /**
+     * Returns the tick of the earliest event that is still valid, dropping stale events
+     * from the front of the queue.
+     *
+     * @return the tick of the next event, or NEVER
+     */
+    private long nextEventTick() {
+        while (!myEvents.isEmpty() && !isFirstValid()) {
+            myEvents.removeFirst();
+        }
+        long result = NEVER;
+        if (!myEvents.isEmpty()) {
+            result = myEvents.getTick();
+        }
+        return result;
+    }
+
+    /**
+     * Returns true when the earliest event is still ahead and neither of its balls has
+     * changed since it was predicted.
+     *
+     * @return true if the event is valid
+     */
+    private boolean isFirstValid() {
+        return myEvents.getTick() >= myTick
+                && myVersion[myEvents.getFirst()] == myEvents.getFirstVersion()
+                && (myEvents.getSecond() == WALL
+                    || myVersion[myEvents.getSecond()] == myEvents.getSecondVersion());
+    }
+
+    /** Throws every event away and predicts the next HORIZON ticks from scratch. */
+    private void predictAll() {
+        final BallStore balls = mySimulation.getBalls();
+        ensureCapacity(balls);
+        myEvents.clear();
+        myHorizon = myTick + HORIZON;
+        myPredictedBalls = balls.size();
+        myPredictedWidth = mySimulation.getWidth();
+        myPredictedHeight = mySimulation.getHeight();
+        myPredictedReorders = mySimulation.getReorderCount();
+        myPredictedRemovals = balls.getRemovalCount();
+        myNearGrid.rebuild(balls);
+        for (int i = 0; i < balls.size(); i++) {
+            myVersion[i]++;
+        }
+        for (int i = 0; i < balls.size(); i++) {
+            predictWall(balls, i);
+            final int near = myNearGrid.collectNear(balls, i, myNear);
+            for (int k = 0; k < near; k++) {
+                if (myNear[k] > i) {
+                    predictPair(balls, i, myNear[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the current tick as a normal tick, then predicts the events of every ball
+     * that changed direction or collided in it.
+     */
+    private void runNormalTick() {
+        final BallStore balls = mySimulation.getBalls();
+        for (int i = 0; i < balls.size(); i++) {
+            myOldHorizontalMove[i] = balls.getHorizontalMove(i);
+            myOldVerticalMove[i] = balls.getVerticalMove(i);
+        }
+        // a tick that reorders the balls outdates every event; advance predicts them all
+        myCollisionCount += mySimulation.tickWithoutCommands();
+        myTick++;
+        myNormalTicks++;
+
+        int touched = 0;
+        for (int i = 0; i < balls.size(); i++) {
+            if (balls.getHorizontalMove(i) != myOldHorizontalMove[i]
+                    || balls.getVerticalMove(i) != myOldVerticalMove[i]) {
+                touched = touch(i, touched);
+            }
+        }
+        // a ball bounced an even number of times keeps its direction but not its events
+        final CollisionPairs collisions = mySimulation.getCollisions();
+        for (int k = 0; k < collisions.size(); k++) {
+            touched = touch(balls.indexOf(collisions.first(k)), touched);
+            touched = touch(balls.indexOf(collisions.second(k)), touched);
+        }
+
+        predictTouched(balls, touched);
+    }
+
+    /**
+     * Drops the events of the first theTouched balls of myTouchedList and predicts new
+     * ones, then clears their marks.
+     *
+     * @param theBalls the balls
+     * @param theTouched the number of marked balls
+     */
+    private void predictTouched(final BallStore theBalls, final int theTouched) {
+        myNearGrid.rebuild(theBalls);
+        for (int t = 0; t < theTouched; t++) {
+            myVersion[myTouchedList[t]]++;
+        }
+        for (int t = 0; t < theTouched; t++) {
+            final int i = myTouchedList[t];
+            predictWall(theBalls, i);
+            final int near = myNearGrid.collectNear(theBalls, i, myNear);
+            for (int k = 0; k < near; k++) {
+                // a pair of touched balls is predicted once, by its lower ball
+                if (!myTouched[myNear[k]] || myNear[k] > i) {
+                    predictPair(theBalls, i, myNear[k]);
+                }
+            }
+        }
+        for (int t = 0; t < theTouched; t++) {
+            myTouched[myTouchedList[t]] = false;
+        }
+    }
+
+    /**
+     * Marks ball theIndex for prediction unless it is already marked.
+     *
+     * @param theIndex the index of the ball
+     * @param theTouched the number of balls marked so far
+     * @return the number of balls marked now
+     */
+    private int touch(final int theIndex, final int theTouched) {
+        int result = theTouched;
+        if (!myTouched[theIndex]) {
+            myTouched[theIndex] = true;
+            myTouchedList[result] = theIndex;
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Queues the next tick at which ball theIndex changes direction at a wall.
+     *
+     * @param theBalls the balls
+     * @param theIndex the index of the ball
+     */
+    private void predictWall(final BallStore theBalls, final int theIndex) {
+        final double diameter = theBalls.getDiameter(theIndex);
+        final long step = Math.min(
+                wallStep(theBalls.getX(theIndex), theBalls.getHorizontalMove(theIndex),
+                         mySimulation.getWidth(), diameter),
+                wallStep(theBalls.getY(theIndex), theBalls.getVerticalMove(theIndex),
+                         mySimulation.getHeight(), diameter));
+        myEvents.add(myTick + step, theIndex, WALL, myVersion[theIndex], 0);
+    }
+
+    /**
+     * Queues the next tick at which balls theFirst and theSecond touch, if they touch
+     * before the horizon.
+     *
+     * @param theBalls the balls
+     * @param theFirst the index of one ball
+     * @param theSecond the index of the other ball
+     */
+    private void predictPair(final BallStore theBalls, final int theFirst,
+                             final int theSecond) {
+        final double first = theBalls.getDiameter(theFirst);
+        final double second = theBalls.getDiameter(theSecond);
+        // the distance between the centers, worked out the way BallStore.overlaps does
+        final double offset = (first - second) / 2;
+        final long step = contactStep(
+                theBalls.getX(theFirst) - theBalls.getX(theSecond) + offset,
+                theBalls.getY(theFirst) - theBalls.getY(theSecond) + offset,
+                theBalls.getHorizontalMove(theFirst) - theBalls.getHorizontalMove(theSecond),
+                theBalls.getVerticalMove(theFirst) - theBalls.getVerticalMove(theSecond),
+                (first + second) / 2, myHorizon - myTick);
+        if (step != NEVER) {
+            // the balls are compared after the move, so contact after step moves is
+            // found by the tick step - 1 ticks from now
+            myEvents.add(myTick + step - 1, theFirst, theSecond, myVersion[theFirst],
+                         myVersion[theSecond]);
+        }
+    }
+
+    /**
+     * Returns how many ticks from now a ball at thePosition moving by theMove each tick
+     * changes direction at a wall. The walls are at 0 and theLimit.
+     *
+     * @param thePosition the ball's left or top edge
+     * @param theMove the ball's direction along the axis, 1 or -1
+     * @param theLimit the width or height of the world
+     * @param theDiameter the diameter of the ball
+     * @return the number of quiet ticks before the one that changes direction
+     */
+    static long wallStep(final double thePosition, final int theMove, final double theLimit,
+                         final double theDiameter) {
+        long step;
+        if (theMove < 0) {
+            step = (long) Math.floor(thePosition) + 1;
+        } else {
+            step = Math.max((long) Math.ceil(-thePosition),
+                            (long) Math.floor(theLimit - theDiameter - thePosition) + 1);
+        }
+        step = Math.max(0, step);
+        // the estimate is exact on whole pixels; settle it with the test the tick uses
+        while (step > 0 && turnsAt(thePosition, theMove, theLimit, theDiameter, step - 1)) {
+            step--;
+        }
+        while (!turnsAt(thePosition, theMove, theLimit, theDiameter, step)) {
+            step++;
+        }
+        return step;
+    }
+
+    /**
+     * Returns true when the wall test of a tick, BallStore.updateHorizontalMove or
+     * updateVerticalMove, changes the direction of the ball after theStep quiet ticks.
+     *
+     * @param thePosition the ball's left or top edge now
+     * @param theMove the ball's direction along the axis, 1 or -1
+     * @param theLimit the width or height of the world
+     * @param theDiameter the diameter of the ball
+     * @param theStep the number of quiet ticks
+     * @return true if the direction changes
+     */
+    private static boolean turnsAt(final double thePosition, final int theMove,
+                                   final double theLimit, final double theDiameter,
+                                   final long theStep) {
+        final double position = thePosition + theStep * theMove;
+        int move = theMove;
+        if (position < 0) {
+            move = LotsOfMovingShapesPanel.ANIMATION_STEP;
+        } else if (position + theDiameter > theLimit) {
+            move = -LotsOfMovingShapesPanel.ANIMATION_STEP;
+        }
+        return move != theMove;
+    }
+
+    /**
+     * Returns the fewest moves, at least 1 and at most theMaxStep, after which two balls
+     * touch, or NEVER. The centers of the balls are theDeltaX, theDeltaY apart and
+     * their distance changes by theVelocityX, theVelocityY each move.
+     *
+     * @param theDeltaX the horizontal distance between the centers
+     * @param theDeltaY the vertical distance between the centers
+     * @param theVelocityX the change in horizontal distance per move
+     * @param theVelocityY the change in vertical distance per move
+     * @param theDiameter the distance between the centers at contact, the sum of radii
+     * @param theMaxStep the most moves worth looking ahead
+     * @return the number of moves until the balls touch, or NEVER
+     */
+    static long contactStep(final double theDeltaX, final double theDeltaY,
+                            final double theVelocityX, final double theVelocityY,
+                            final double theDiameter, final long theMaxStep) {
+        // the squared distance after s moves is a s^2 + 2 b s + c + d^2
+        final double a = theVelocityX * theVelocityX + theVelocityY * theVelocityY;
+        final double b = theDeltaX * theVelocityX + theDeltaY * theVelocityY;
+        final double c = theDeltaX * theDeltaX + theDeltaY * theDeltaY
+                - theDiameter * theDiameter;
+        final double discriminant = b * b - a * c;
+        long step = 1;
+        double last = 1;
+        if (a > 0 && discriminant >= 0) {
+            final double root = Math.sqrt(discriminant);
+            step = Math.max(1, Math.min(theMaxStep, (long) Math.ceil((-b - root) / a)));
+            last = Math.min(theMaxStep, (-b + root) / a);
+        }
+        // the estimate is exact up to rounding; settle it with the test the tick uses
+        while (step > 1 && touches(theDeltaX, theDeltaY, theVelocityX, theVelocityY,
+                                   theDiameter, step - 1)) {
+            step--;
+        }
+        while (step < last && !touches(theDeltaX, theDeltaY, theVelocityX, theVelocityY,
+                                       theDiameter, step)) {
+            step++;
+        }
+        long result = NEVER;
+        if (step <= theMaxStep && touches(theDeltaX, theDeltaY, theVelocityX, theVelocityY,
+                                          theDiameter, step)) {
+            result = step;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true when the collision test of a tick, BallStore.collide, finds two balls
+     * touching after theStep moves.
+     *
+     * @param theDeltaX the horizontal distance between the centers now
+     * @param theDeltaY the vertical distance between the centers now
+     * @param theVelocityX the change in horizontal distance per move
+     * @param theVelocityY the change in vertical distance per move
+     * @param theDiameter the distance between the centers at contact, the sum of radii
+     * @param theStep the number of moves
+     * @return true if the balls touch
+     */
+    private static boolean touches(final double theDeltaX, final double theDeltaY,
+                                   final double theVelocityX, final double theVelocityY,
+                                   final double theDiameter, final long theStep) {
+        final double dx = theDeltaX + theStep * theVelocityX;
+        final double dy = theDeltaY + theStep * theVelocityY;
+        return dx * dx + dy * dy <= theDiameter * theDiameter;
+    }
+
+    /**
+     * Grows the per ball arrays to fit every ball.
+     *
+     * @param theBalls the balls
+     */
+    private void ensureCapacity(final BallStore theBalls) {
+        if (myVersion.length < theBalls.size()) {
+            final int capacity = theBalls.capacity();
+            myVersion = Arrays.copyOf(myVersion, capacity);
+            myOldHorizontalMove = new int[capacity];
+            myOldVerticalMove = new int[capacity];
+            myTouched = new boolean[capacity];
+            myTouchedList = new int[capacity];
+            myNear = new int[capacity];
+        }
+    }
+
+    /**
+     * The predicted wall hits and contacts between two balls, earliest first. An event
+     * is kept as five primitive fields in a binary heap of parallel arrays, so once the
+     * arrays have grown to fit the events, queueing and dropping events allocates
+     * nothing. Events of the same tick come out in no particular order.
+     */
+    private static final class EventQueue {
+
+        /** The initial number of events the queue can hold. */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /** The tick in which each event happens. */
+        private long[] myTicks = new long[INITIAL_CAPACITY];
+
+        /** The ball each event belongs to. */
+        private int[] myFirsts = new int[INITIAL_CAPACITY];
+
+        /** The other ball of each contact, or WALL. */
+        private int[] mySeconds = new int[INITIAL_CAPACITY];
+
+        /** The version of the first ball of each event when it was predicted. */
+        private int[] myFirstVersions = new int[INITIAL_CAPACITY];
+
+        /** The version of the second ball of each event when it was predicted. */
+        private int[] mySecondVersions = new int[INITIAL_CAPACITY];
+
+        /** The number of events in the queue. */
+        private int mySize;
+
+        /**
+         * Queues an event.
+         *
+         * @param theTick the tick in which the event happens
+         * @param theFirst the ball the event belongs to
+         * @param theSecond the other ball of a contact, or WALL
+         * @param theFirstVersion the version of the first ball
+         * @param theSecondVersion the version of the second ball
+         */
+        void add(final long theTick, final int theFirst, final int theSecond,
+                 final int theFirstVersion, final int theSecondVersion) {
+            if (mySize == myTicks.length) {
+                final int capacity = mySize * 2;
+                myTicks = Arrays.copyOf(myTicks, capacity);
+                myFirsts = Arrays.copyOf(myFirsts, capacity);
+                mySeconds = Arrays.copyOf(mySeconds, capacity);
+                myFirstVersions = Arrays.copyOf(myFirstVersions, capacity);
+                mySecondVersions = Arrays.copyOf(mySecondVersions, capacity);
+            }
+            set(mySize, theTick, theFirst, theSecond, theFirstVersion, theSecondVersion);
+            int child = mySize;
+            mySize++;
+            while (child > 0 && myTicks[(child - 1) / 2] > myTicks[child]) {
+                swap(child, (child - 1) / 2);
+                child = (child - 1) / 2;
+            }
+        }
+
+        /** Drops the earliest event. The queue must not be empty. */
+        void removeFirst() {
+            mySize--;
+            swap(0, mySize);
+            int parent = 0;
+            int child = earlierChild(parent);
+            while (child < mySize && myTicks[child] < myTicks[parent]) {
+                swap(parent, child);
+                parent = child;
+                child = earlierChild(parent);
+            }
+        }
+
+        /** Drops every event. */
+        void clear() {
+            mySize = 0;
+        }
+
+        /**
+         * Returns true when the queue holds no events.
+         *
+         * @return true if the queue is empty
+         */
+        boolean isEmpty() {
+            return mySize == 0;
+        }
+
+        /**
+         * Returns the tick in which the earliest event happens.
+         *
+         * @return the tick
+         */
+        long getTick() {
+            return myTicks[0];
+        }
+
+        /**
+         * Returns the ball the earliest event belongs to.
+         *
+         * @return the index of the ball
+         */
+        int getFirst() {
+            return myFirsts[0];
+        }
+
+        /**
+         * Returns the other ball of the earliest event.
+         *
+         * @return the index of the other ball, or WALL
+         */
+        int getSecond() {
+            return mySeconds[0];
+        }
+
+        /**
+         * Returns the version of the first ball of the earliest event when it was
+         * predicted.
+         *
+         * @return the version
+         */
+        int getFirstVersion() {
+            return myFirstVersions[0];
+        }
+
+        /**
+         * Returns the version of the second ball of the earliest event when it was
+         * predicted.
+         *
+         * @return the version
+         */
+        int getSecondVersion() {
+            return mySecondVersions[0];
+        }
+
+        /**
+         * Returns the child of theParent in the heap with the earlier event, or a place
+         * past the last event when theParent has no children.
+         *
+         * @param theParent a place in the heap
+         * @return the place of the earlier child
+         */
+        private int earlierChild(final int theParent) {
+            int result = 2 * theParent + 1;
+            if (result + 1 < mySize && myTicks[result + 1] < myTicks[result]) {
+                result++;
+            }
+            return result;
+        }
+
+        /**
+         * Swaps the events at two places of the heap.
+         *
+         * @param theOne one place
+         * @param theOther the other place
+         */
+        private void swap(final int theOne, final int theOther) {
+            final long tick = myTicks[theOne];
+            final int first = myFirsts[theOne];
+            final int second = mySeconds[theOne];
+            final int firstVersion = myFirstVersions[theOne];
+            final int secondVersion = mySecondVersions[theOne];
+            set(theOne, myTicks[theOther], myFirsts[theOther], mySeconds[theOther],
+                myFirstVersions[theOther], mySecondVersions[theOther]);
+            set(theOther, tick, first, second, firstVersion, secondVersion);
+        }
+
+        /**
+         * Writes an event to a place of the heap.
+         *
+         * @param thePlace the place
+         * @param theTick the tick in which the event happens
+         * @param theFirst the ball the event belongs to
+         * @param theSecond the other ball of a contact, or WALL
+         * @param theFirstVersion the version of the first ball
+         * @param theSecondVersion the version of the second ball
+         */
+        private void set(final int thePlace, final long theTick, final int theFirst,
+                         final int theSecond, final int theFirstVersion,
+                         final int theSecondVersion) {
+            myTicks[thePlace] = theTick;
+            myFirsts[thePlace] = theFirst;
+            mySeconds[thePlace] = theSecond;
+            myFirstVersions[thePlace] = theFirstVersion;
+            mySecondVersions[thePlace] = theSecondVersion;
+        }
+    }
+}
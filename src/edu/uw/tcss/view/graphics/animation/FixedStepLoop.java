@@ -0,0 +1,168 @@
+/*
+ * A fixed time step simulation loop for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs a simulation step at a fixed rate on its own thread. Elapsed real time is added
+ * to an accumulator and one step is taken for every full step period in it, so the
+ * simulation advances at the same rate no matter how often the thread is woken up.
+ * After each batch of steps a callback is run, usually to ask for a repaint.
+ *
+ * <p>Renderers call getAlpha to find how far real time has moved past the latest
+ * state, as a fraction of a step, and interpolate between the last two states.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class FixedStepLoop implements Runnable {
+
+    /** The most steps taken to catch up after a stall; the rest of the time is dropped. */
+    static final int MAX_CATCH_UP_STEPS = 25;
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /** Takes one simulation step. */
+    private final Runnable myStep;
+
+    /** Runs after each batch of steps. */
+    private final Runnable myAfterSteps;
+
+    /** The length of one step in nanoseconds. */
+    private final long myStepNanos;
+
+    /** Tells the real time in nanoseconds. */
+    private final LongSupplier myClock;
+
+    /** The thread running this loop, or null when stopped. */
+    private Thread myThread;
+
+    /** True while the loop should keep running. */
+    private volatile boolean myRunning;
+
+    /** The real time (from the clock) that the latest state corresponds to. */
+    private volatile long myStateTime;
+
+    /** The real time the loop last advanced at. Used only by the loop thread. */
+    private long myPrevious;
+
+    /** The real time not yet used up by steps. Used only by the loop thread. */
+    private long myAccumulator;
+
+    /**
+     * Constructs a loop that is not yet running.
+     *
+     * @param theStep takes one simulation step
+     * @param theStepMillis the length of one step in milliseconds
+     * @param theAfterSteps runs after each batch of steps
+     * @throws IllegalArgumentException when theStepMillis is not positive
+     */
+    FixedStepLoop(final Runnable theStep, final int theStepMillis,
+                  final Runnable theAfterSteps) {
+        this(theStep, theStepMillis, theAfterSteps, System::nanoTime);
+    }
+
+    /**
+     * Constructs a loop that is not yet running and reads the time from theClock.
+     *
+     * @param theStep takes one simulation step
+     * @param theStepMillis the length of one step in milliseconds
+     * @param theAfterSteps runs after each batch of steps
+     * @param theClock tells the real time in nanoseconds, like System.nanoTime
+     * @throws IllegalArgumentException when theStepMillis is not positive
+     */
+    FixedStepLoop(final Runnable theStep, final int theStepMillis,
+                  final Runnable theAfterSteps, final LongSupplier theClock) {
+        super();
+        if (theStepMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Step length must be positive. Was: " + theStepMillis);
+        }
+        myStep = theStep;
+        myAfterSteps = theAfterSteps;
+        myStepNanos = theStepMillis * NANOS_PER_MILLI;
+        myClock = theClock;
+    }
+
+    /** Starts the simulation thread. Does nothing if it is already running. */
+    synchronized void start() {
+        if (myThread == null) {
+            myRunning = true;
+            myThread = new Thread(this, "ball-simulation");
+            myThread.setDaemon(true);
+            myThread.start();
+        }
+    }
+
+    /** Stops the simulation thread and waits for it to finish its current step. */
+    synchronized void stop() {
+        if (myThread != null) {
+            myRunning = false;
+            LockSupport.unpark(myThread);
+            try {
+                myThread.join();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            myThread = null;
+        }
+    }
+
+    /**
+     * Returns how far real time has moved past the latest state, as a fraction of one
+     * step between 0 and 1. A renderer draws each ball at its previous position plus
+     * this fraction of the way to its current position.
+     *
+     * @return the interpolation factor
+     */
+    double getAlpha() {
+        final double alpha = (myClock.getAsLong() - myStateTime) / (double) myStepNanos;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    @Override
+    public void run() {
+        reset();
+        while (myRunning) {
+            LockSupport.parkNanos(advance());
+        }
+    }
+
+    /** Starts counting real time from now, with no time left over from before. */
+    void reset() {
+        myPrevious = myClock.getAsLong();
+        myAccumulator = 0;
+        myStateTime = myPrevious;
+    }
+
+    /**
+     * Adds the real time elapsed since the last call to the accumulator, takes one step
+     * for every full step period in it and runs the callback if any step was taken.
+     * The loop thread calls this each time it wakes up.
+     *
+     * @return the nanoseconds until the next step is due
+     */
+    long advance() {
+        final long now = myClock.getAsLong();
+        myAccumulator += Math.min(now - myPrevious, MAX_CATCH_UP_STEPS * myStepNanos);
+        myPrevious = now;
+        boolean stepped = false;
+        while (myAccumulator >= myStepNanos) {
+            myStep.run();
+            myAccumulator -= myStepNanos;
+            stepped = true;
+        }
+        myStateTime = now - myAccumulator;
+        if (stepped) {
+            myAfterSteps.run();
+        }
+        return myStepNanos - myAccumulator;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Frame pacing statistics for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * The time between the latest frames shown, kept in a fixed size ring so the numbers
+ * describe recent pacing rather than the whole run. The jitter is the standard
+ * deviation of the intervals; steady pacing has a jitter near zero whatever the rate.
+ *
+ * <p>The methods are synchronized so a render thread can record frames while another
+ * thread reads the statistics.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class FrameStats {
+
+    /** The default number of intervals kept. */
+    static final int DEFAULT_WINDOW = 120;
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** The number of milliseconds in a second. */
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    /** The latest intervals in nanoseconds, oldest overwritten first. */
+    private final long[] myIntervals;
+
+    /** Where the next interval is written in myIntervals. */
+    private int myNext;
+
+    /** The number of intervals in myIntervals, at most its length. */
+    private int myCount;
+
+    /** The number of frames recorded since construction. */
+    private long myFrames;
+
+    /** Constructs empty statistics that keep the default number of intervals. */
+    FrameStats() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Constructs empty statistics.
+     *
+     * @param theWindow the number of latest intervals to keep
+     * @throws IllegalArgumentException when theWindow is not positive
+     */
+    FrameStats(final int theWindow) {
+        super();
+        if (theWindow <= 0) {
+            throw new IllegalArgumentException("Window must be positive. Was: " + theWindow);
+        }
+        myIntervals = new long[theWindow];
+    }
+
+    /**
+     * Records a frame shown theIntervalNanos after the one before it.
+     *
+     * @param theIntervalNanos the time since the previous frame in nanoseconds
+     */
+    synchronized void record(final long theIntervalNanos) {
+        myIntervals[myNext] = theIntervalNanos;
+        myNext = (myNext + 1) % myIntervals.length;
+        myCount = Math.min(myCount + 1, myIntervals.length);
+        myFrames++;
+    }
+
+    /**
+     * Returns the number of frames recorded since construction.
+     *
+     * @return the number of frames
+     */
+    synchronized long getFrames() {
+        return myFrames;
+    }
+
+    /**
+     * Returns the mean of the latest intervals.
+     *
+     * @return the mean interval in milliseconds, or 0 before any frame
+     */
+    synchronized double getMeanMillis() {
+        long sum = 0;
+        for (int k = 0; k < myCount; k++) {
+            sum += myIntervals[k];
+        }
+        return sum / NANOS_PER_MILLI / Math.max(1, myCount);
+    }
+
+    /**
+     * Returns the standard deviation of the latest intervals.
+     *
+     * @return the jitter in milliseconds, or 0 before any frame
+     */
+    synchronized double getJitterMillis() {
+        final double mean = getMeanMillis();
+        double squares = 0;
+        for (int k = 0; k < myCount; k++) {
+            final double difference = myIntervals[k] / NANOS_PER_MILLI - mean;
+            squares += difference * difference;
+        }
+        return Math.sqrt(squares / Math.max(1, myCount));
+    }
+
+    /**
+     * Returns the longest of the latest intervals.
+     *
+     * @return the worst interval in milliseconds, or 0 before any frame
+     */
+    synchronized double getWorstMillis() {
+        long worst = 0;
+        for (int k = 0; k < myCount; k++) {
+            worst = Math.max(worst, myIntervals[k]);
+        }
+        return worst / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the frame rate the mean of the latest intervals gives.
+     *
+     * @return frames per second, or 0 before any frame
+     */
+    synchronized double getFramesPerSecond() {
+        double result = 0;
+        if (myCount > 0) {
+            result = MILLIS_PER_SECOND / getMeanMillis();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%.1f fps, %.2f ms +/- %.2f ms, worst %.2f ms",
+                             getFramesPerSecond(), getMeanMillis(), getJitterMillis(),
+                             getWorstMillis());
+    }
+}
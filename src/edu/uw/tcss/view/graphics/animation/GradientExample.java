@@ -10,7 +10,6 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.io.Serial;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
@@ -44,6 +43,9 @@ public class GradientExample extends JPanel {
     /** The animation step (in pixels). */
     public static final int ANIMATION_STEP = 1;
 
+    /** The square the gradient fills; nothing outside it changes between frames. */
+    private static final Rectangle GRADIENT_BOUNDS = new Rectangle(0, 0, 400, 400);
+
     /** A generated version ID for Serialization. */
     @Serial
     private static final long serialVersionUID = -6257548485239497170L;
@@ -93,7 +95,7 @@ public class GradientExample extends JPanel {
                 RenderingHints.VALUE_ANTIALIAS_ON);
 
 
-        final Shape s = new Rectangle2D.Double(0, 0, 400, 400);
+        final Shape s = GRADIENT_BOUNDS;
 
         final Point2D start = new Point2D.Double(myX + 100, myX + 100);
         final Point2D end = new Point2D.Double(myX + 200, myX + 200);
@@ -183,7 +185,7 @@ public class GradientExample extends JPanel {
             pointOnCircle(2.0, myAngle, myCenter);
             myAngle += 1;
 
-            repaint();
+            repaint(GRADIENT_BOUNDS);
         }
 
         public void pointOnCircle(double radius, double angleInDegrees, Point2D origin)
@@ -215,7 +217,7 @@ public class GradientExample extends JPanel {
             }
 
 
-            repaint();
+            repaint(GRADIENT_BOUNDS);
         }
     } // end of RadialGradiantChanger
 
@@ -0,0 +1,397 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical spatial hash grid for balls of many sizes. Level k is a grid whose
+ * cells are the base cell size times 2^k, and each ball is hashed into the cell that
+ * holds its center on the finest level whose cells are at least as wide as the ball. A
+ * small ball therefore shares its cells with small balls only, and a large ball does not
+ * make the cells large for everyone as it would in a UniformGridBroadPhase.
+ *
+ * <p>Two balls on the same level can only collide when their cells are neighbors, as in
+ * the uniform grid. Each pair of levels that hold balls is searched in one direction
+ * only, so each pair of balls is found once. Searching up, every ball of the finer level
+ * looks at the 3 x 3 block of cells around its center on the coarser level: those cells
+ * are at least as wide as either ball, so the block holds every ball of the level it can
+ * touch. Searching down, every ball of the coarser level looks at the cells of the finer
+ * level that lie within reach of it. The direction is picked each tick by counting the
+ * cells either way would visit, so a few large balls among many small ones search down
+ * and a few small balls among many large ones search up.
+ *
+ * <p>All levels share one hash table, keyed by level, column and row, which is rebuilt
+ * from scratch every tick with a counting sort and reuses its arrays between ticks.
+ * Between ticks it answers overlap queries for new balls from the cells around them on
+ * each level, so adding a burst of balls does not test each one against every ball.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class HierarchicalGridBroadPhase implements BroadPhase {
+
+    /** A large prime used to hash the column of a cell. */
+    private static final int COLUMN_PRIME = 73_856_093;
+
+    /** A large prime used to hash the row of a cell. */
+    private static final int ROW_PRIME = 19_349_663;
+
+    /** A large prime used to hash the level of a cell. */
+    private static final int LEVEL_PRIME = 83_492_791;
+
+    /** The number of cells in the 3 x 3 block around a cell. */
+    private static final int NEIGHBOR_CELLS = 9;
+
+    /** The number of levels; the coarsest level takes every ball too large for the rest. */
+    private static final int LEVELS = 32;
+
+    /** The side length of one cell of each level. */
+    private final double[] myLevelCellSize = new double[LEVELS];
+
+    /** The number of balls on each level. */
+    private final int[] myLevelCount = new int[LEVELS];
+
+    /** The levels that hold balls, finest first. */
+    private final int[] myUsedLevels = new int[LEVELS];
+
+    /** The number of levels that hold balls. */
+    private int myUsedLevelCount;
+
+    /** True for each finer and coarser level pair that is searched down from the coarser. */
+    private final boolean[][] mySearchDown = new boolean[LEVELS][LEVELS];
+
+    /** The level of each ball. */
+    private int[] myLevelOf;
+
+    /** The hash bucket of each ball. */
+    private int[] myBucketOf;
+
+    /** The index of the first entry of each bucket, plus an end marker. */
+    private int[] myBucketStart;
+
+    /** The ball indices sorted by bucket. */
+    private int[] myEntries;
+
+    /** The number of buckets minus one; the bucket count is a power of two. */
+    private int myBucketMask;
+
+    /** The number of balls in the grid; balls added since are not. */
+    private int myBuiltCount;
+
+    /** The removal count of the balls at the latest rebuild. */
+    private long myBuiltRemovals;
+
+    /** The move count of the balls at the latest rebuild. */
+    private long myBuiltMoves;
+
+    /** True when the balls were reordered since the latest rebuild. */
+    private boolean myReordered;
+
+    /**
+     * Constructs a hierarchical grid whose finest cells are theCellSize pixels square.
+     *
+     * @param theCellSize the side length of a cell of the finest level; about the size
+     *                    of the smallest balls works best
+     * @throws IllegalArgumentException when theCellSize is not positive
+     */
+    HierarchicalGridBroadPhase(final double theCellSize) {
+        super();
+        if (theCellSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Cell size must be positive. Was: " + theCellSize);
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            myLevelCellSize[level] = Math.scalb(theCellSize, level);
+        }
+        myLevelOf = new int[0];
+        myBucketOf = new int[0];
+        myBucketStart = new int[2];
+        myEntries = new int[0];
+    }
+
+    @Override
+    public void findCollisions(final BallStore theBalls, final CollisionPairs thePairs) {
+        rebuild(theBalls);
+        chooseDirections();
+        for (int i = 0; i < theBalls.size(); i++) {
+            final int own = myLevelOf[i];
+            for (int k = 0; k < myUsedLevelCount; k++) {
+                final int level = myUsedLevels[k];
+                if (level == own || level > own && !mySearchDown[own][level]) {
+                    searchBlock(theBalls, i, level, thePairs);
+                } else if (level < own && mySearchDown[level][own]) {
+                    searchReach(theBalls, i, level, thePairs);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean overlapsAny(final BallStore theBalls, final double theX,
+                               final double theY, final double theDiameter) {
+        if (isStale(theBalls)) {
+            // one rebuild serves every query until the balls change again
+            rebuild(theBalls);
+        }
+        boolean result = false;
+        for (int k = 0; k < myUsedLevelCount && !result; k++) {
+            result = overlapsLevel(theBalls, myUsedLevels[k], theX, theY, theDiameter);
+        }
+        // balls added since the latest rebuild are not in the grid yet
+        for (int i = myBuiltCount; i < theBalls.size() && !result; i++) {
+            result = theBalls.overlaps(i, theX, theY, theDiameter);
+        }
+        return result;
+    }
+
+    @Override
+    public void renumber(final int[] theNewIndex, final int theCount) {
+        myReordered = true;
+    }
+
+    /**
+     * Returns the level of a ball theDiameter pixels across: the finest level whose
+     * cells are at least that wide, or the coarsest level.
+     *
+     * @param theDiameter the diameter of a ball
+     * @return the level
+     */
+    private int levelOf(final double theDiameter) {
+        int result = 0;
+        while (result < LEVELS - 1 && myLevelCellSize[result] < theDiameter) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Decides for each pair of levels that hold balls whether the balls of the coarser
+     * level search down or the balls of the finer level search up, whichever visits
+     * fewer cells.
+     */
+    private void chooseDirections() {
+        for (int fine = 0; fine < myUsedLevelCount; fine++) {
+            for (int coarse = fine + 1; coarse < myUsedLevelCount; coarse++) {
+                final int fineLevel = myUsedLevels[fine];
+                final int coarseLevel = myUsedLevels[coarse];
+                final double side = Math.scalb(1.0, coarseLevel - fineLevel) + 2;
+                final double down = (double) myLevelCount[coarseLevel] * side * side;
+                final double up = (double) myLevelCount[fineLevel] * NEIGHBOR_CELLS;
+                mySearchDown[fineLevel][coarseLevel] = down < up;
+            }
+        }
+    }
+
+    /**
+     * Adds every pair of ball theIndex and a ball on theLevel in the 3 x 3 block of cells
+     * around it that collide to thePairs. On the ball's own level only higher numbered
+     * balls are tested, so each pair is found once.
+     *
+     * @param theBalls the balls in the grid
+     * @param theIndex the index of the ball to check
+     * @param theLevel the level searched, no finer than the ball's own
+     * @param thePairs the list the colliding pairs are added to
+     */
+    private void searchBlock(final BallStore theBalls, final int theIndex,
+                             final int theLevel, final CollisionPairs thePairs) {
+        final int column = cellOf(theBalls.getCenterX(theIndex), theLevel);
+        final int row = cellOf(theBalls.getCenterY(theIndex), theLevel);
+        for (int dc = -1; dc <= 1; dc++) {
+            for (int dr = -1; dr <= 1; dr++) {
+                searchCell(theBalls, theIndex, theLevel, column + dc, row + dr, thePairs);
+            }
+        }
+    }
+
+    /**
+     * Returns true when a ball theDiameter pixels across whose upper left corner is at
+     * theX and theY would collide with a ball on theLevel. Every cell of theLevel within
+     * reach of the new ball is searched, as in searchReach.
+     *
+     * @param theBalls the balls in the grid
+     * @param theLevel the level searched
+     * @param theX the x coordinate of the upper left corner of the new ball
+     * @param theY the y coordinate of the upper left corner of the new ball
+     * @param theDiameter the diameter of the new ball
+     * @return true if the new ball would collide with a ball on theLevel
+     */
+    private boolean overlapsLevel(final BallStore theBalls, final int theLevel,
+                                  final double theX, final double theY,
+                                  final double theDiameter) {
+        final double reach = (theDiameter + myLevelCellSize[theLevel]) / 2;
+        final double centerX = theX + theDiameter / 2;
+        final double centerY = theY + theDiameter / 2;
+        final int lastColumn = cellOf(centerX + reach, theLevel);
+        final int lastRow = cellOf(centerY + reach, theLevel);
+        boolean result = false;
+        for (int column = cellOf(centerX - reach, theLevel); column <= lastColumn && !result;
+                column++) {
+            for (int row = cellOf(centerY - reach, theLevel); row <= lastRow && !result;
+                    row++) {
+                final int bucket = bucketOf(theLevel, column, row);
+                for (int e = myBucketStart[bucket]; e < myBucketStart[bucket + 1]
+                        && !result; e++) {
+                    final int j = myEntries[e];
+                    result = myLevelOf[j] == theLevel
+                            && theBalls.overlaps(j, theX, theY, theDiameter);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds every pair of ball theIndex and a ball on theLevel that collide to thePairs,
+     * searching every cell of theLevel within reach of the ball. A ball on theLevel is
+     * at most a cell wide, so its center is within half the ball's diameter plus half a
+     * cell of the ball's center along each axis if they touch.
+     *
+     * @param theBalls the balls in the grid
+     * @param theIndex the index of the ball to check
+     * @param theLevel the level searched, finer than the ball's own
+     * @param thePairs the list the colliding pairs are added to
+     */
+    private void searchReach(final BallStore theBalls, final int theIndex,
+                             final int theLevel, final CollisionPairs thePairs) {
+        final double reach = (theBalls.getDiameter(theIndex) + myLevelCellSize[theLevel]) / 2;
+        final double centerX = theBalls.getCenterX(theIndex);
+        final double centerY = theBalls.getCenterY(theIndex);
+        final int lastColumn = cellOf(centerX + reach, theLevel);
+        final int lastRow = cellOf(centerY + reach, theLevel);
+        for (int column = cellOf(centerX - reach, theLevel); column <= lastColumn; column++) {
+            for (int row = cellOf(centerY - reach, theLevel); row <= lastRow; row++) {
+                searchCell(theBalls, theIndex, theLevel, column, row, thePairs);
+            }
+        }
+    }
+
+    /**
+     * Adds every pair of ball theIndex and a ball in the cell at theColumn and theRow of
+     * theLevel that collide to thePairs. On the ball's own level only higher numbered
+     * balls are tested.
+     *
+     * @param theBalls the balls in the grid
+     * @param theIndex the index of the ball to check
+     * @param theLevel the level of the cell
+     * @param theColumn the column of the cell
+     * @param theRow the row of the cell
+     * @param thePairs the list the colliding pairs are added to
+     */
+    private void searchCell(final BallStore theBalls, final int theIndex, final int theLevel,
+                            final int theColumn, final int theRow,
+                            final CollisionPairs thePairs) {
+        final boolean own = myLevelOf[theIndex] == theLevel;
+        final int bucket = bucketOf(theLevel, theColumn, theRow);
+        for (int e = myBucketStart[bucket]; e < myBucketStart[bucket + 1]; e++) {
+            final int j = myEntries[e];
+            // buckets are shared, so skip balls of other levels
+            if (myLevelOf[j] == theLevel && (!own || j > theIndex)
+                    && theBalls.collide(theIndex, j)) {
+                thePairs.add(theIndex, j);
+            }
+        }
+    }
+
+    /**
+     * Puts every ball on its level, hashes it into its bucket and sorts the ball
+     * indices by bucket.
+     *
+     * @param theBalls the balls to place in the grid
+     */
+    private void rebuild(final BallStore theBalls) {
+        final int count = theBalls.size();
+        ensureCapacity(theBalls);
+        Arrays.fill(myBucketStart, 0);
+        Arrays.fill(myLevelCount, 0);
+        for (int i = 0; i < count; i++) {
+            final int level = levelOf(theBalls.getDiameter(i));
+            final int bucket = bucketOf(level, cellOf(theBalls.getCenterX(i), level),
+                                        cellOf(theBalls.getCenterY(i), level));
+            myLevelOf[i] = level;
+            myLevelCount[level]++;
+            myBucketOf[i] = bucket;
+            myBucketStart[bucket]++;
+        }
+        // turn the counts into the end offset of each bucket
+        for (int bucket = 1; bucket <= myBucketMask; bucket++) {
+            myBucketStart[bucket] += myBucketStart[bucket - 1];
+        }
+        myBucketStart[myBucketMask + 1] = count;
+        // filling each bucket backward moves every end offset back to its start offset
+        for (int i = count - 1; i >= 0; i--) {
+            final int bucket = myBucketOf[i];
+            myBucketStart[bucket]--;
+            myEntries[myBucketStart[bucket]] = i;
+        }
+        myUsedLevelCount = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            if (myLevelCount[level] > 0) {
+                myUsedLevels[myUsedLevelCount] = level;
+                myUsedLevelCount++;
+            }
+        }
+        myBuiltCount = count;
+        myBuiltRemovals = theBalls.getRemovalCount();
+        myBuiltMoves = theBalls.getMoveCount();
+        myReordered = false;
+    }
+
+    /**
+     * Returns true when the grid no longer holds theBalls where they are now: they were
+     * moved, removed or reordered since the latest rebuild.
+     *
+     * @param theBalls the balls
+     * @return true if the grid must be rebuilt before it is searched
+     */
+    private boolean isStale(final BallStore theBalls) {
+        return myReordered || theBalls.size() < myBuiltCount
+                || theBalls.getRemovalCount() != myBuiltRemovals
+                || theBalls.getMoveCount() != myBuiltMoves;
+    }
+
+    /**
+     * Grows the arrays so that every ball fits, keeping about two buckets per ball.
+     *
+     * @param theBalls the balls
+     */
+    private void ensureCapacity(final BallStore theBalls) {
+        if (myEntries.length < theBalls.size()) {
+            final int capacity = theBalls.capacity();
+            myLevelOf = new int[capacity];
+            myBucketOf = new int[capacity];
+            myEntries = new int[capacity];
+            final int buckets = Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) * 2;
+            myBucketStart = new int[buckets + 1];
+            myBucketMask = buckets - 1;
+        }
+    }
+
+    /**
+     * Returns the grid coordinate of thePosition on theLevel.
+     *
+     * @param thePosition a pixel coordinate
+     * @param theLevel the level
+     * @return the row or column of the cell holding thePosition
+     */
+    private int cellOf(final double thePosition, final int theLevel) {
+        return (int) Math.floor(thePosition / myLevelCellSize[theLevel]);
+    }
+
+    /**
+     * Returns the hash bucket of the cell at theColumn and theRow of theLevel.
+     *
+     * @param theLevel the level
+     * @param theColumn the cell column
+     * @param theRow the cell row
+     * @return the bucket index
+     */
+    private int bucketOf(final int theLevel, final int theColumn, final int theRow) {
+        return (theColumn * COLUMN_PRIME ^ theRow * ROW_PRIME ^ theLevel * LEVEL_PRIME)
+                & myBucketMask;
+    }
+}
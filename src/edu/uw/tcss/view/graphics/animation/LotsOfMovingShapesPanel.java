@@ -6,19 +6,23 @@
 
 package edu.uw.tcss.view.graphics.animation;
 
+import java.awt.BorderLayout;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseEvent;
-import java.awt.geom.Ellipse2D;
 import java.io.Serial;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.Timer;
@@ -47,6 +51,15 @@ public final class LotsOfMovingShapesPanel extends JPanel {
     /** The side length (in pixels) of the bounding box of the shape. */
     public static final int BOUNDING_BOX_SIDE = 40;
 
+    /** The smallest diameter (in pixels) of a ball added by a click. */
+    public static final int MIN_CLICK_DIAMETER = BOUNDING_BOX_SIDE / 4;
+
+    /** The largest diameter (in pixels) of a ball added by a click. */
+    public static final int MAX_CLICK_DIAMETER = BOUNDING_BOX_SIDE * 3;
+
+    /** The number of balls a shift click tries to add. */
+    public static final int BURST_BALLS = 2_000;
+
     /** The preferred window size. */
     public static final Dimension PREFERRED_SIZE = new Dimension(800, 450);
 
@@ -58,7 +71,19 @@ public final class LotsOfMovingShapesPanel extends JPanel {
 
     /** The animation step (in pixels). */
     public static final int ANIMATION_STEP = 1;
+
+    /** The most frames drawn per second in ACTIVE_RENDERING mode. */
+    public static final int MAX_FRAMES_PER_SECOND = 120;
+
+    /** The number of frames between updates of the frame statistics shown. */
+    private static final int STATS_PERIOD = 60;
+
+    /** The position (in pixels) of the frame statistics from the upper left corner. */
+    private static final int STATS_INSET = 15;
     
+    /** The command line argument that turns on trails. */
+    private static final String TRAILS_ARGUMENT = "trails";
+
     /** The name says it all, Go Huskeys! */
     private static final String UW_PURPLE = "#4B2E83";
     
@@ -74,12 +99,56 @@ public final class LotsOfMovingShapesPanel extends JPanel {
 
     // Instance fields
     
-    /** The moving shapes. */
-    private final List<Ball> myMovingShapes;
+    /** The moving shapes and the rules they move by. */
+    private final BallSimulation mySimulation;
+
+    /** Draws the balls. */
+    private final BallRenderer myRenderer = new BallRenderer();
+
+    /** Hands copies of the balls from the stepping thread to the drawing thread. */
+    private final SnapshotExchange mySnapshots = new SnapshotExchange();
+
+    /** How the simulation is driven. */
+    private final SimulationMode myMode;
 
     /** The timer that controls the movement of the shape. */
     private final Timer myMoveTimer;
 
+    /** The simulation thread used in FIXED_STEP_THREAD mode. */
+    private final FixedStepLoop myStepLoop;
+
+    /** Advances the simulation from event to event in EVENT_DRIVEN mode. */
+    private final EventDrivenSimulation myEvents;
+
+    /** The part of the panel the balls were painted in or moved into since a repaint. */
+    private final DirtyRegion myDirtyRegion = new DirtyRegion();
+
+    /** The canvas drawn on in ACTIVE_RENDERING mode. */
+    private final Canvas myCanvas = new Canvas();
+
+    /** The render thread used in ACTIVE_RENDERING mode. */
+    private final ActiveRenderLoop myRenderLoop =
+            new ActiveRenderLoop(myCanvas, this::renderFrame, MAX_FRAMES_PER_SECOND);
+
+    /** Lowers the drawing quality when a frame takes longer than MOVE_DELAY to draw. */
+    private final RenderQualityGovernor myGovernor =
+            new RenderQualityGovernor(TimeUnit.MILLISECONDS.toNanos(MOVE_DELAY));
+
+    /** The render mode selected for full quality. */
+    private volatile RenderMode mySelectedMode = myRenderer.getMode();
+
+    /** The fading image the balls leave trails in while trails are on. */
+    private final TrailBuffer myTrails = new TrailBuffer(TrailBuffer.DEFAULT_FADE);
+
+    /** True to draw the balls with fading trails behind them. */
+    private volatile boolean myTrailsOn;
+
+    /** The frame statistics drawn in ACTIVE_RENDERING mode. */
+    private String myStatsText = "";
+
+    /** The copy of the balls being drawn; only used by the drawing thread. */
+    private BallSnapshot mySnapshot;
+
     // Constructor
 
     /**
@@ -88,45 +157,387 @@ public final class LotsOfMovingShapesPanel extends JPanel {
      * the right, and its color is blue.
      */
     public LotsOfMovingShapesPanel() {
+        this(SimulationMode.SWING_TIMER);
+    }
+
+    /**
+     * Constructs a new MovingShapePanel whose simulation is driven as theMode says.
+     *
+     * @param theMode how the simulation is driven
+     */
+    public LotsOfMovingShapesPanel(final SimulationMode theMode) {
         super(true); // use double buffering
 
-        myMovingShapes = new ArrayList<>();
+        myMode = theMode;
+        mySimulation = new BallSimulation(PREFERRED_SIZE.width, PREFERRED_SIZE.height);
         
-        myMovingShapes.add(new Ball(
-                new Ellipse2D.Double(0, 0, BOUNDING_BOX_SIDE, BOUNDING_BOX_SIDE)
-        ));
+        addFirstBall();
 
         myMoveTimer = new Timer(MOVE_DELAY, new MoveListener());
-        
-        addMouseListener(new MouseClickListener());
+        myStepLoop = new FixedStepLoop(this::step, MOVE_DELAY, this::afterSteps);
+        myEvents = new EventDrivenSimulation(mySimulation);
         
         // wait before the first timer event
         myMoveTimer.setInitialDelay(INITIAL_DELAY); 
 
+        setupListeners();
         setupAppearance();
     }
 
+    /**
+     * Adds the ball the animation starts with, in the upper left corner, and publishes it
+     * so it is drawn before the first step.
+     */
+    private void addFirstBall() {
+        mySimulation.getBalls().add(0, 0, ANIMATION_STEP, ANIMATION_STEP,
+                                    Color.decode(UW_PURPLE));
+        publish();
+    }
+
+    /**
+     * Adds the mouse and resize listeners. In ACTIVE_RENDERING mode the canvas covers the
+     * panel, so it is added and listened to as well.
+     */
+    private void setupListeners() {
+        addMouseListener(new MouseClickListener());
+        if (myMode == SimulationMode.ACTIVE_RENDERING) {
+            setLayout(new BorderLayout());
+            add(myCanvas, BorderLayout.CENTER);
+            myCanvas.addMouseListener(new MouseClickListener());
+        }
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(final ComponentEvent theEvent) {
+                mySimulation.setBounds(getWidth(), getHeight());
+            }
+        });
+    }
+
     /** Sets up the appearance of the panel and frame. */
     private void setupAppearance() {
         setBackground(Color.WHITE);
         setPreferredSize(PREFERRED_SIZE);
     }
 
-    /** Starts the timer. */
+    /** Starts the timer, or the simulation thread and the render thread if used. */
     private void start() {
-        myMoveTimer.start();
+        if (myMode == SimulationMode.FIXED_STEP_THREAD) {
+            myStepLoop.start();
+        } else if (myMode == SimulationMode.ACTIVE_RENDERING) {
+            myStepLoop.start();
+            myRenderLoop.start();
+        } else {
+            myMoveTimer.start();
+        }
+    }
+
+    /** Stops the timer and the simulation and render threads, whichever are running. */
+    private void stop() {
+        myMoveTimer.stop();
+        myRenderLoop.stop();
+        myStepLoop.stop();
+    }
+
+    /**
+     * Moves every ball one step, bounces the balls that collide and publishes a copy of
+     * the result for drawing. Runs on the Event Dispatch Thread in SWING_TIMER and
+     * EVENT_DRIVEN mode and on the simulation thread otherwise.
+     * Once the arrays have grown to fit the balls, a step allocates nothing.
+     */
+    void step() {
+        synchronized (mySimulation) {
+            if (myMode == SimulationMode.EVENT_DRIVEN) {
+                myEvents.advance(1);
+            } else {
+                mySimulation.tick();
+            }
+        }
+        publish();
+    }
+
+    /**
+     * Copies the balls into a snapshot and makes it the latest one to draw. Drawing
+     * never locks the simulation; it reads the latest published snapshot, which nothing
+     * writes to while it is drawn. Must be called on the thread that steps, and again
+     * whenever the balls were changed without a step.
+     */
+    void publish() {
+        synchronized (mySimulation) {
+            mySnapshots.getBack().capture(mySimulation.getBalls());
+        }
+        mySnapshots.publish();
+    }
+
+    /**
+     * Runs on the simulation thread after each batch of steps. The render thread draws
+     * on its own in ACTIVE_RENDERING mode; otherwise the moved balls are repainted.
+     */
+    private void afterSteps() {
+        if (myMode != SimulationMode.ACTIVE_RENDERING) {
+            repaintMoved();
+        }
+    }
+
+    /**
+     * Asks for a repaint of the area the balls were last painted in and the area between
+     * each ball's previous and current position, which holds every position the ball
+     * can be painted at until the next step. Falls back to repainting the whole panel
+     * when the balls are spread over most of it. When the governor drops a frame the
+     * area is kept for the next repaint. While trails are on every step fades the whole
+     * panel, so all of it is repainted.
+     */
+    void repaintMoved() {
+        if (myTrailsOn) {
+            if (myGovernor.shouldRepaint()) {
+                repaint();
+            }
+        } else {
+            addMoved();
+            if (myGovernor.shouldRepaint()) {
+                myDirtyRegion.repaint(this);
+            }
+        }
+    }
+
+    /**
+     * Adds the area between each ball's previous and current position to the dirty
+     * region.
+     */
+    private void addMoved() {
+        synchronized (mySimulation) {
+            final BallStore balls = mySimulation.getBalls();
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < balls.size(); i++) {
+                minX = Math.min(minX, Math.min(balls.getX(i), balls.getPreviousX(i)));
+                minY = Math.min(minY, Math.min(balls.getY(i), balls.getPreviousY(i)));
+                maxX = Math.max(maxX, Math.max(balls.getX(i), balls.getPreviousX(i)));
+                maxY = Math.max(maxY, Math.max(balls.getY(i), balls.getPreviousY(i)));
+            }
+            if (balls.size() > 0) {
+                final double side = balls.getMaxDiameter();
+                myDirtyRegion.add(minX, minY, maxX - minX + side, maxY - minY + side);
+            }
+        }
+    }
+
+    /**
+     * Returns the simulation this panel draws. Callers that use it while the panel
+     * is running must synchronize on it. Changes to the balls are drawn once the next
+     * step publishes them.
+     *
+     * @return the simulation
+     */
+    BallSimulation getSimulation() {
+        return mySimulation;
+    }
+
+    /**
+     * Selects the algorithm used to find colliding balls.
+     *
+     * @param theType the broad phase to use
+     */
+    void setBroadPhase(final BroadPhaseType theType) {
+        synchronized (mySimulation) {
+            mySimulation.setBroadPhase(theType);
+        }
+    }
+
+    /**
+     * Sets the number of threads used to find colliding balls. The result of every
+     * step is the same whatever the number of threads.
+     *
+     * @param theParallelism the number of threads; 1 searches on the stepping thread
+     * @throws IllegalArgumentException when theParallelism is not positive
+     */
+    void setParallelism(final int theParallelism) {
+        synchronized (mySimulation) {
+            mySimulation.setParallelism(theParallelism);
+        }
+    }
+
+    /**
+     * Turns comparison mode on or off. In comparison mode every step finds the
+     * collisions with both the selected broad phase and brute force, and throws
+     * an IllegalStateException if the two ever disagree.
+     *
+     * @param theCompare true to compare against brute force each step
+     */
+    void setCompareBroadPhases(final boolean theCompare) {
+        synchronized (mySimulation) {
+            mySimulation.setCompareBroadPhases(theCompare);
+        }
+    }
+
+    /**
+     * Selects how the balls are drawn at full quality. The governor may draw them more
+     * cheaply while frames take too long.
+     *
+     * @param theMode the render mode
+     * @throws NullPointerException when theMode is null
+     */
+    void setRenderMode(final RenderMode theMode) {
+        mySelectedMode = Objects.requireNonNull(theMode);
+    }
+
+    /**
+     * Sets how crowded the balls may get before they are drawn as a density map instead
+     * of one by one.
+     *
+     * @param theThreshold the number of balls covering an average pixel of the clip;
+     *                     Double.POSITIVE_INFINITY to draw crowded balls one by one
+     * @throws IllegalArgumentException when theThreshold is not positive
+     */
+    void setDetailThreshold(final double theThreshold) {
+        myRenderer.setDetailThreshold(theThreshold);
+    }
+
+    /**
+     * Turns the fading trails behind the balls on or off.
+     *
+     * @param theTrailsOn true to draw trails
+     */
+    void setTrails(final boolean theTrailsOn) {
+        myTrailsOn = theTrailsOn;
+    }
+
+    /**
+     * Returns the governor that picks the drawing quality, whose metrics tell the
+     * current quality and how often it changed.
+     *
+     * @return the quality governor
+     */
+    RenderQualityGovernor getQualityGovernor() {
+        return myGovernor;
+    }
+
+    /**
+     * Returns the snapshot the panel was last painted from, or null before the first
+     * paint. Only the painting thread may read it, and only until it paints again.
+     *
+     * @return the latest painted snapshot
+     */
+    BallSnapshot getPaintedSnapshot() {
+        return mySnapshot;
+    }
+
+    @Override
+    public void removeNotify() {
+        // the panel is leaving its window, so no thread may keep animating it
+        stop();
+        super.removeNotify();
     }
 
     @Override
     public void paintComponent(final Graphics theGraphics) {
         super.paintComponent(theGraphics);
-        final Graphics2D g2d = (Graphics2D) theGraphics;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                             RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        for (final Ball b : myMovingShapes) {
-            g2d.setPaint(b.myColor);
-            g2d.fill(b.getMyMovingShape());
+        // in ACTIVE_RENDERING mode the canvas covers the panel and the render thread
+        // draws the balls
+        if (myMode != SimulationMode.ACTIVE_RENDERING) {
+            drawBalls((Graphics2D) theGraphics);
+        }
+    }
+
+    /**
+     * Draws one frame in ACTIVE_RENDERING mode: the background, the balls and the
+     * frame statistics. Runs on the render thread.
+     *
+     * @param theGraphics the graphics of the canvas's back buffer
+     */
+    private void renderFrame(final Graphics2D theGraphics) {
+        theGraphics.setColor(getBackground());
+        theGraphics.fillRect(0, 0, myCanvas.getWidth(), myCanvas.getHeight());
+        drawBalls(theGraphics);
+        final FrameStats stats = myRenderLoop.getStats();
+        if (stats.getFrames() % STATS_PERIOD == 0) {
+            myStatsText = stats + " | " + myGovernor;
+        }
+        theGraphics.setColor(Color.BLACK);
+        theGraphics.drawString(myStatsText, STATS_INSET, STATS_INSET);
+    }
+
+    /**
+     * Draws the latest published balls, only those that reach into the clip when it does
+     * not cover the whole panel, at the quality the governor picks, and tells the
+     * governor how long it took.
+     *
+     * @param theGraphics the graphics to draw with
+     */
+    private void drawBalls(final Graphics2D theGraphics) {
+        final long start = System.nanoTime();
+        final RenderQuality quality = myGovernor.getQuality();
+        Object antialias = RenderingHints.VALUE_ANTIALIAS_OFF;
+        if (quality.isAntialiased()) {
+            antialias = RenderingHints.VALUE_ANTIALIAS_ON;
+        }
+        theGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialias);
+        myRenderer.setMode(quality.getMode(mySelectedMode));
+
+        double alpha = 1;
+        if (myMode == SimulationMode.FIXED_STEP_THREAD
+                || myMode == SimulationMode.ACTIVE_RENDERING) {
+            alpha = myStepLoop.getAlpha();
+        }
+        mySnapshot = mySnapshots.acquire();
+        if (myTrailsOn) {
+            // the trails fade once per step, however often the panel is painted
+            myTrails.update(getWidth(), getHeight(), mySnapshot.getMoveCount(),
+                            this::stampBalls);
+            myTrails.draw(theGraphics);
+            mySnapshot.interpolate(alpha);
+            myRenderer.paint(theGraphics, mySnapshot);
+        } else {
+            mySnapshot.interpolate(alpha);
+            myTrails.clear();
+            // a partial repaint only needs the balls that reach into the clip
+            final Rectangle clip = theGraphics.getClipBounds();
+            if (clip != null && !clip.contains(0, 0, getWidth(), getHeight())) {
+                mySnapshot.cull(clip.getX(), clip.getY(), clip.getWidth(),
+                                clip.getHeight());
+            }
+            myRenderer.paint(theGraphics, mySnapshot);
+        }
+        markPainted();
+        myGovernor.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Draws the balls of mySnapshot into the trails with the same hints as the panel,
+     * where they were before the latest step. The balls are painted where they are now
+     * on top of the trails, between the steps too.
+     *
+     * @param theGraphics the graphics of the trail image
+     */
+    private void stampBalls(final Graphics2D theGraphics) {
+        mySnapshot.interpolate(0);
+        Object antialias = RenderingHints.VALUE_ANTIALIAS_OFF;
+        if (myGovernor.getQuality().isAntialiased()) {
+            antialias = RenderingHints.VALUE_ANTIALIAS_ON;
+        }
+        theGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialias);
+        myRenderer.paint(theGraphics, mySnapshot);
+    }
+
+    /**
+     * Adds the area the balls of mySnapshot were painted in to the dirty region, so the
+     * next repaint erases them wherever they move.
+     */
+    private void markPainted() {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < mySnapshot.size(); i++) {
+            minX = Math.min(minX, mySnapshot.getX(i));
+            minY = Math.min(minY, mySnapshot.getY(i));
+            maxX = Math.max(maxX, mySnapshot.getX(i));
+            maxY = Math.max(maxY, mySnapshot.getY(i));
+        }
+        if (mySnapshot.size() > 0) {
+            final double side = mySnapshot.getMaxDiameter();
+            myDirtyRegion.add(minX, minY, maxX - minX + side, maxY - minY + side);
         }
     }
 
@@ -138,8 +549,32 @@ public final class LotsOfMovingShapesPanel extends JPanel {
      * event-dispatching thread.
      */
     public static void createAndShowGui() {
+        createAndShowGui(SimulationMode.SWING_TIMER);
+    }
+
+    /**
+     * Create the GUI with a simulation driven as theMode says, and show it.
+     * This method should be invoked from the event-dispatching thread.
+     *
+     * @param theMode how the simulation is driven
+     */
+    public static void createAndShowGui(final SimulationMode theMode) {
+        createAndShowGui(theMode, false);
+    }
+
+    /**
+     * Create the GUI with a simulation driven as theMode says, with or without trails
+     * behind the balls, and show it.
+     * This method should be invoked from the event-dispatching thread.
+     *
+     * @param theMode how the simulation is driven
+     * @param theTrails true to draw fading trails behind the balls
+     */
+    public static void createAndShowGui(final SimulationMode theMode,
+                                        final boolean theTrails) {
         final LotsOfMovingShapesPanel mainPanel =
-                new LotsOfMovingShapesPanel();
+                new LotsOfMovingShapesPanel(theMode);
+        mainPanel.setTrails(theTrails);
 
         // A size for the JFrame.
         //final Dimension frameSize = new Dimension(400, 400);
@@ -166,19 +601,27 @@ public final class LotsOfMovingShapesPanel extends JPanel {
     /**
      * Creates a MovingShapePanel in a frame and starts the animation.
      * 
-     * @param theArgs Command line parameters - ignored in this program
+     * @param theArgs Command line parameters - an optional SimulationMode name,
+     *                for example FIXED_STEP_THREAD or ACTIVE_RENDERING, SWING_TIMER
+     *                when missing, then optionally "trails" to draw fading trails
      */
     public static void main(final String[] theArgs) {
+        SimulationMode mode = SimulationMode.SWING_TIMER;
+        if (theArgs.length > 0) {
+            mode = SimulationMode.valueOf(theArgs[0]);
+        }
+        final SimulationMode selected = mode;
+        final boolean trails = theArgs.length > 1 && TRAILS_ARGUMENT.equals(theArgs[1]);
         //Schedule a job for the event dispatch thread:
         //creating and showing this application's GUI.
-        javax.swing.SwingUtilities.invokeLater(LotsOfMovingShapesPanel::createAndShowGui);
+        javax.swing.SwingUtilities.invokeLater(() -> createAndShowGui(selected, trails));
     }
 
     // *********** Inner Class Listener   *********************************
 
     /**
-     * A class that listens for timer events and moves the shape, checking for
-     * the window boundaries and changing direction as appropriate.
+     * A class that listens for timer events, moves the shapes and repaints the part of
+     * the panel they moved in.
      */
     private final class MoveListener implements ActionListener {
         
@@ -187,115 +630,63 @@ public final class LotsOfMovingShapesPanel extends JPanel {
             // we don't really care what the event is; we know this will only be
             // called by the timer
 
-
-            for (final Ball ball : myMovingShapes) {
-                // if the shape bounds touch the window bounds, we need to change
-                // direction
-                updateHorizontalMove(ball);
-                updateVerticalMove(ball);
-                
-                ball.getMyMovingShape().setFrame(
-                              ball.getMyMovingShape().getX() + ball.myHorizontalMove,
-                              ball.getMyMovingShape().getY() + ball.myVerticalMove,
-                                   BOUNDING_BOX_SIDE,
-                                   BOUNDING_BOX_SIDE);
-            }
-            
-            for (int i = 0; i < myMovingShapes.size(); i++) {
-                final Ball ball = myMovingShapes.get(i);
-                for (int j = i + 1; j < myMovingShapes.size();  j++) {
-                    final Ball otherBall = myMovingShapes.get(j);
-                    if (ball.collide(otherBall)) {
-                        if (ball.getMyHorizontalMove() == otherBall.getMyHorizontalMove()) {
-                            ball.setMyVerticalMove(-ball.getMyVerticalMove());
-                            otherBall.setMyVerticalMove(-otherBall.getMyVerticalMove());
-                        } else if (ball.getMyVerticalMove() == otherBall.getMyVerticalMove()) {
-                            ball.setMyHorizontalMove(-ball.getMyHorizontalMove()); 
-                            otherBall.setMyHorizontalMove(-otherBall.getMyHorizontalMove()); 
-                        } else {
-                            ball.setMyHorizontalMove(-ball.getMyHorizontalMove()); 
-                            ball.setMyVerticalMove(-ball.getMyVerticalMove());
-                            otherBall.setMyHorizontalMove(-otherBall.getMyHorizontalMove()); 
-                            otherBall.setMyVerticalMove(-otherBall.getMyVerticalMove());
-                        }
-                    }
-                    
-                }
-            }
-
-            repaint();
-        }
-
-        /** 
-         * Updates the horizontal move to keep the shape on screen. 
-         * @param theBall the object to update 
-         */
-        private void updateHorizontalMove(final Ball theBall) {
-            if (theBall.getMyMovingShape().getFrame().getMinX() < 0) {
-                // change direction
-                theBall.myHorizontalMove = ANIMATION_STEP;
-            } else if (theBall.getMyMovingShape().getFrame().getMaxX()
-                      > LotsOfMovingShapesPanel.this.getWidth()) {
-                // change direction
-                theBall.myHorizontalMove = -ANIMATION_STEP;
-            }
-        }
-
-        /** 
-         * Updates the vertical move to keep the shape on screen. 
-         * @param theBall the object to update 
-         */
-        private void updateVerticalMove(final Ball theBall) {
-            if (theBall.getMyMovingShape().getFrame().getMinY() < 0) {
-                // change direction
-                theBall.myVerticalMove = ANIMATION_STEP;
-            } else if (theBall.getMyMovingShape().getFrame().getMaxY()
-                     > LotsOfMovingShapesPanel.this.getHeight()) {
-                // change direction
-                theBall.myVerticalMove = -ANIMATION_STEP;
-            }
+            step();
+            repaintMoved();
         }
     } // end of MoveListener
     
     /**
      * A class that listens for mouse click events and adds new
-     * shapes to the panel when they happen. 
+     * shapes to the panel when they happen. A shift click adds a burst of
+     * BURST_BALLS balls around the mouse and a control click removes the
+     * balls under the mouse. Each click only submits a command to the
+     * simulation, so the click never waits for a tick, however many balls
+     * it adds.
      */
     class MouseClickListener extends MouseInputAdapter {
         
         @Override
         public void mouseClicked(final MouseEvent theEvent) {            
-            final int xDir = getRandomDirection();
-            final int yDir = getRandomDirection();
-            
-            final int centerX = theEvent.getX() - BOUNDING_BOX_SIDE / 2;
-            final int centerY = theEvent.getY() - BOUNDING_BOX_SIDE / 2;
-            final String color;
+            final int x = theEvent.getX();
+            final int y = theEvent.getY();
+            final Color color;
             
             if (theEvent.getButton() == MouseEvent.BUTTON1) {
-                color = UW_PURPLE;
+                color = Color.decode(UW_PURPLE);
             } else {
-                color = UW_GOLD;                
+                color = Color.decode(UW_GOLD);
             }
-            final Ball b = new Ball(
-                    new Ellipse2D.Double(centerX, centerY,
-                            BOUNDING_BOX_SIDE, BOUNDING_BOX_SIDE),
-                    xDir, yDir,
-                    Color.decode(color));
             
-            //look to see if this new ball is on top of an existing ball
-            boolean collide = false;
-            for (final Ball ball : myMovingShapes) {
-                if (b.collide(ball)) {
-                    collide = true;
-                    break;
-                }
-            }
-            if (!collide) {
-                myMovingShapes.add(b);
+            if (theEvent.isControlDown()) {
+                mySimulation.submit(theSimulation -> theSimulation.despawnAt(x, y));
+            } else if (theEvent.isShiftDown()) {
+                // the seed is picked here so the burst needs no shared Random
+                final long seed = RANDOM_GEN.nextLong();
+                mySimulation.submit(theSimulation -> theSimulation.spawnBurst(
+                        x, y, BURST_BALLS, color, new Random(seed)));
+            } else {
+                submitSpawn(x, y, color);
             }
         }
         
+        /**
+         * Submits one ball of a random diameter and direction centered on theX and
+         * theY.
+         *
+         * @param theX the x coordinate of the center of the ball
+         * @param theY the y coordinate of the center of the ball
+         * @param theColor the color of the ball
+         */
+        private void submitSpawn(final int theX, final int theY, final Color theColor) {
+            final int xDir = getRandomDirection();
+            final int yDir = getRandomDirection();
+            final int diameter = getRandomDiameter();
+            final int left = theX - diameter / 2;
+            final int top = theY - diameter / 2;
+            mySimulation.submit(theSimulation -> theSimulation.spawn(
+                    left, top, xDir, yDir, theColor, diameter));
+        }
+        
         /**
          * Provides a 1 or -1 randomly. 
          * 
@@ -308,70 +699,52 @@ public final class LotsOfMovingShapesPanel extends JPanel {
             } 
             return result;
         }
+
+        /**
+         * Provides a whole number of pixels from MIN_CLICK_DIAMETER to
+         * MAX_CLICK_DIAMETER, with small balls more likely than large ones.
+         *
+         * @return a diameter, randomly
+         */
+        private int getRandomDiameter() {
+            final double ratio = (double) MAX_CLICK_DIAMETER / MIN_CLICK_DIAMETER;
+            return (int) Math.round(MIN_CLICK_DIAMETER
+                    * Math.pow(ratio, RANDOM_GEN.nextDouble()));
+        }
     }
     
     /**
-     * A class that holds all needed fields for one ball to bounce. 
+     * A handle to one ball in a BallStore. The ball's fields live in the store's
+     * arrays; a Ball only remembers the ball's id, so it stays attached to the ball when
+     * the store reorders its balls.
      *
      */
     static class Ball {
         
-        /** The moving shape. */
-        private final Ellipse2D myMovingShape;
+        /** The store that holds this ball. */
+        private final BallStore myStore;
 
-        /** An integer that determines the horizontal movement at each animation step. */
-        private int myHorizontalMove;
-
-        /** An integer that determines the vertical movement at each animation step. */
-        private int myVerticalMove;
-        
-        /** A Color for the ball. */
-        private final Color myColor;
+        /** The id of this ball in the store, which survives reordering. */
+        private final int myId;
         
         /**
          * Initialize the fields.
          *
-         * @param theMovingShape the shape to move
+         * @param theStore the store that holds the ball
+         * @param theId the id of the ball in theStore
          */
-        Ball(final Ellipse2D theMovingShape) {
+        Ball(final BallStore theStore, final int theId) {
             super();
-            myMovingShape = theMovingShape;
-            myHorizontalMove = LotsOfMovingShapesPanel.ANIMATION_STEP;
-            myVerticalMove = LotsOfMovingShapesPanel.ANIMATION_STEP;
-            myColor = Color.decode(UW_PURPLE);
+            myStore = theStore;
+            myId = theId;
         }
-        
-        /**
-         * Initialize the fields. 
-         * 
-         * @param theMovingShape the shape to move
-         * @param theHorizontalMove the initial horizontal direction
-         * @param theVerticalMove the initial vertical direction
-         * @param theColor the color of this ball 
-         */
-        Ball(final Ellipse2D theMovingShape, final int theHorizontalMove,
-             final int theVerticalMove, final Color theColor) {
-            super();
-            myMovingShape = theMovingShape;
-            myHorizontalMove = theHorizontalMove;
-            myVerticalMove = theVerticalMove;
-            myColor = theColor;
-        }        
 
-        /**
-         * Returns the shape object that represents this ball. 
-         * @return the shape
-         */
-        private Ellipse2D getMyMovingShape() {
-            return myMovingShape;
-        }
-        
         /**
          * Gets the horizontal vector.
          * @return the horizontal vector
          */
         public int getMyHorizontalMove() {
-            return myHorizontalMove;
+            return myStore.getHorizontalMove(myStore.indexOf(myId));
         }
 
         /**
@@ -384,7 +757,7 @@ public final class LotsOfMovingShapesPanel extends JPanel {
                 throw new IllegalArgumentException(
                         "Horizontal Vector must be 1 or -1. Was: " + theHorizontalMove);
             }
-            myHorizontalMove = theHorizontalMove;
+            myStore.setHorizontalMove(myStore.indexOf(myId), theHorizontalMove);
         }
 
         /**
@@ -392,7 +765,7 @@ public final class LotsOfMovingShapesPanel extends JPanel {
          * @return the vertical vector
          */
         public int getMyVerticalMove() {
-            return myVerticalMove;
+            return myStore.getVerticalMove(myStore.indexOf(myId));
         }
 
         /**
@@ -405,23 +778,19 @@ public final class LotsOfMovingShapesPanel extends JPanel {
                 throw new IllegalArgumentException(
                         "Vertical Vector must be 1 or -1. Was: " + theVerticalMove);
             }
-            myVerticalMove = theVerticalMove;
+            myStore.setVerticalMove(myStore.indexOf(myId), theVerticalMove);
         }
         
         /**
-         * Returns true when the distance between this ball and theOtherBall is 
-         * less than or equal to the diameter of the ball. This works only because
-         * the balls have same size. 
+         * Returns true when the distance between the centers of this ball and
+         * theOtherBall is less than or equal to the sum of their radii.
          * 
          * @param theOtherBall the Ball object to check for collision with
          * @return true if the balls collide. 
          */
         public boolean collide(final Ball theOtherBall) {
-            final double distance = Math.hypot(
-                myMovingShape.getCenterX() - theOtherBall.myMovingShape.getCenterX(), 
-                myMovingShape.getCenterY() - theOtherBall.myMovingShape.getCenterY());       
-            return distance <= myMovingShape.getWidth();
-            
+            return myStore.collide(myStore.indexOf(myId),
+                                   theOtherBall.myStore.indexOf(theOtherBall.myId));
         }
     }
 
@@ -0,0 +1,163 @@
+/*
+ * Ball storage for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * Works out an order of the balls along a Z-order (Morton) curve. The world is cut into
+ * cells one ball wide, and the bits of a cell's column and row are interleaved into one
+ * code, so cells that are close on screen get codes that are close as well. Storing the
+ * balls in this order puts the balls a collision search visits together next to each
+ * other in memory.
+ *
+ * <p>The codes are sorted with an LSD radix sort into arrays that are kept from one call
+ * to the next, so working out an order allocates nothing once they have grown. Balls in
+ * the same cell keep their current relative order.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class MortonOrder {
+
+    /** The number of bits of a cell's column or row that go into a code. */
+    private static final int CELL_BITS = 16;
+
+    /** The largest column or row; balls further out share the last cell. */
+    private static final int MAX_CELL = (1 << CELL_BITS) - 1;
+
+    /** The number of bits the code is shifted by in a key; the index is below it. */
+    private static final int CODE_SHIFT = 32;
+
+    /** The number of bits in one radix digit. */
+    private static final int RADIX_BITS = 16;
+
+    /** The number of buckets used by one radix pass. */
+    private static final int RADIX_SIZE = 1 << RADIX_BITS;
+
+    /** The mask for a single radix digit. */
+    private static final long RADIX_MASK = RADIX_SIZE - 1;
+
+    /** The number of bits in a long. */
+    private static final int KEY_BITS = 64;
+
+    /** The masks that spread the bits of a 16 bit number to every other bit. */
+    private static final int[] SPREAD_MASKS = {0x00FF_00FF, 0x0F0F_0F0F, 0x3333_3333,
+                                               0x5555_5555};
+
+    /** The shifts that go with SPREAD_MASKS. */
+    private static final int[] SPREAD_SHIFTS = {8, 4, 2, 1};
+
+    /** Each ball's code in the high half and its index in the low half. */
+    private long[] myKeys = new long[0];
+
+    /** Scratch space for myKeys while sorting. */
+    private long[] myScratch = new long[0];
+
+    /** Bucket counts used while sorting. */
+    private final int[] myCounts = new int[RADIX_SIZE + 1];
+
+    /** The order worked out by the latest call. */
+    private int[] myOrder = new int[0];
+
+    /**
+     * Returns the current index of each ball in Z-order: the ball that should be at index
+     * k is the one at index result[k] now. The array is reused by the next call and may
+     * be longer than the number of balls.
+     *
+     * @param theBalls the balls
+     * @return the order
+     */
+    int[] order(final BallStore theBalls) {
+        final int count = theBalls.size();
+        if (myKeys.length < count) {
+            myKeys = new long[theBalls.capacity()];
+            myScratch = new long[theBalls.capacity()];
+            myOrder = new int[theBalls.capacity()];
+        }
+        final double diameter = theBalls.getDefaultDiameter();
+        for (int i = 0; i < count; i++) {
+            final int code = code(cell(theBalls.getCenterX(i), diameter),
+                                  cell(theBalls.getCenterY(i), diameter));
+            myKeys[i] = (long) code << CODE_SHIFT | i;
+        }
+        // the keys start in index order, so sorting only the code keeps ties in order
+        for (int shift = CODE_SHIFT; shift < KEY_BITS; shift += RADIX_BITS) {
+            radixPass(shift, count);
+        }
+        for (int k = 0; k < count; k++) {
+            myOrder[k] = (int) myKeys[k];
+        }
+        return myOrder;
+    }
+
+    /**
+     * Returns the Morton code of the cell at theColumn and theRow.
+     *
+     * @param theColumn the column, from 0 to MAX_CELL
+     * @param theRow the row, from 0 to MAX_CELL
+     * @return the code; the row's bits are the odd bits and the column's the even bits
+     */
+    static int code(final int theColumn, final int theRow) {
+        return spread(theColumn) | spread(theRow) << 1;
+    }
+
+    /**
+     * Returns the column or row of the cell that holds theCenter.
+     *
+     * @param theCenter the coordinate of the center of a ball
+     * @param theDiameter the diameter of a ball, which is the side of a cell
+     * @return the column or row, from 0 to MAX_CELL
+     */
+    private static int cell(final double theCenter, final double theDiameter) {
+        return (int) Math.max(0, Math.min(MAX_CELL, Math.floor(theCenter / theDiameter)));
+    }
+
+    /**
+     * Returns theValue with its 16 low bits moved to the even bits.
+     *
+     * @param theValue the value, from 0 to MAX_CELL
+     * @return the spread value
+     */
+    private static int spread(final int theValue) {
+        int result = theValue;
+        for (int step = 0; step < SPREAD_SHIFTS.length; step++) {
+            result = (result | result << SPREAD_SHIFTS[step]) & SPREAD_MASKS[step];
+        }
+        return result;
+    }
+
+    /**
+     * Performs one stable counting sort pass over the first theCount keys on the digit
+     * starting at theShift. The pass is skipped when every key has the same digit.
+     *
+     * @param theShift the bit position of the digit to sort on
+     * @param theCount the number of keys
+     */
+    private void radixPass(final int theShift, final int theCount) {
+        Arrays.fill(myCounts, 0);
+        for (int i = 0; i < theCount; i++) {
+            myCounts[(int) ((myKeys[i] >>> theShift) & RADIX_MASK) + 1]++;
+        }
+        for (int bucket = 1; bucket <= RADIX_SIZE; bucket++) {
+            if (myCounts[bucket] == theCount) {
+                return;
+            }
+        }
+        for (int bucket = 0; bucket < RADIX_SIZE; bucket++) {
+            myCounts[bucket + 1] += myCounts[bucket];
+        }
+        for (int i = 0; i < theCount; i++) {
+            final int bucket = (int) ((myKeys[i] >>> theShift) & RADIX_MASK);
+            myScratch[myCounts[bucket]] = myKeys[i];
+            myCounts[bucket]++;
+        }
+        final long[] sorted = myScratch;
+        myScratch = myKeys;
+        myKeys = sorted;
+    }
+}
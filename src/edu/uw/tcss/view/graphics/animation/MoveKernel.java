@@ -0,0 +1,31 @@
+/*
+ * The move step of the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * Moves every ball of a layout one animation step: a ball outside the left or top edge
+ * of the area turns toward it, a ball past the right or bottom edge turns back, and then
+ * every ball moves one pixel along each axis in its direction. Every kernel gives exactly
+ * the same result; they only differ in speed.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+interface MoveKernel {
+
+    /**
+     * Moves balls 0 to theSize - 1 of theLayout one animation step, saving each ball's
+     * position before the move as its previous position. Each ball turns at the far
+     * edges according to its own diameter.
+     *
+     * @param theLayout the fields of the balls
+     * @param theSize the number of balls
+     * @param theWidth the width of the area the balls bounce around in
+     * @param theHeight the height of the area the balls bounce around in
+     */
+    void move(BallLayout theLayout, int theSize, double theWidth, double theHeight);
+}
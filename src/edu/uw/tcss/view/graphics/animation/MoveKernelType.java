@@ -0,0 +1,82 @@
+/*
+ * The move step of the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * The kernels the bouncing balls example can move its balls with.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+enum MoveKernelType {
+
+    /** Move one ball at a time; works everywhere. */
+    SCALAR,
+
+    /**
+     * Move as many balls at a time as the CPU has double lanes, with the Vector API.
+     * Only available when the JVM was started with --add-modules jdk.incubator.vector.
+     */
+    VECTOR;
+
+    /** The module the VECTOR kernel is built on. */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The name of the VECTOR kernel class, which is loaded by name so nothing refers to
+     * the Vector API when the module is missing.
+     */
+    private static final String VECTOR_KERNEL =
+            MoveKernelType.class.getPackageName() + ".VectorMoveKernel";
+
+    /**
+     * Returns true when this kernel can be used in this JVM.
+     *
+     * @return true if create will succeed
+     */
+    boolean isAvailable() {
+        return this == SCALAR || ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Creates a new kernel of this type.
+     *
+     * @return a new kernel
+     * @throws IllegalStateException when this kernel is not available
+     */
+    MoveKernel create() {
+        if (!isAvailable()) {
+            throw new IllegalStateException(this + " needs the " + VECTOR_MODULE
+                    + " module; start the JVM with --add-modules " + VECTOR_MODULE);
+        }
+        MoveKernel result = new ScalarMoveKernel();
+        if (this == VECTOR) {
+            try {
+                final Class<? extends MoveKernel> kernel =
+                        Class.forName(VECTOR_KERNEL).asSubclass(MoveKernel.class);
+                result = kernel.getDeclaredConstructor().newInstance();
+            } catch (final ReflectiveOperationException exception) {
+                throw new IllegalStateException("Could not create " + VECTOR_KERNEL,
+                                                exception);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the fastest kernel that is available in this JVM.
+     *
+     * @return VECTOR when available, SCALAR otherwise
+     */
+    static MoveKernelType fastest() {
+        MoveKernelType result = SCALAR;
+        if (VECTOR.isAvailable()) {
+            result = VECTOR;
+        }
+        return result;
+    }
+}
@@ -58,6 +58,9 @@ public class MovingShapePanel extends JPanel {
     @Serial
     private static final long serialVersionUID = -6257548485239497170L;
 
+    /** The command line argument that turns on trails. */
+    private static final String TRAILS_ARGUMENT = "trails";
+
     // Instance fields
 
     /** The moving shape. */
@@ -66,6 +69,18 @@ public class MovingShapePanel extends JPanel {
     /** The timer that controls the movement of the shape. */
     private final Timer myMoveTimer;
 
+    /** The part of the panel the shape moved out of and into since the last repaint. */
+    private final DirtyRegion myDirtyRegion = new DirtyRegion();
+
+    /** The fading image the shape leaves a trail in while trails are on. */
+    private final TrailBuffer myTrail = new TrailBuffer(TrailBuffer.DEFAULT_FADE);
+
+    /** True to draw the shape with a fading trail behind it. */
+    private boolean myTrailOn;
+
+    /** The number of steps the shape has moved. */
+    private long mySteps;
+
     /** An integer that determines the horizontal movement at each animation step. */
     private int myHorizontalMove;
 
@@ -102,11 +117,65 @@ public class MovingShapePanel extends JPanel {
         setPreferredSize(PREFERRED_SIZE);
     }
 
+    /**
+     * Turns the fading trail behind the shape on or off. Must be called on the Event
+     * Dispatch Thread.
+     *
+     * @param theTrailOn true to draw a trail
+     */
+    void setTrail(final boolean theTrailOn) {
+        myTrailOn = theTrailOn;
+        if (!theTrailOn) {
+            myTrail.clear();
+        }
+        repaint();
+    }
+
     /** Starts the timer. */
     private void start() {
         myMoveTimer.start();
     }
 
+    /**
+     * Moves the shape one animation step, checking for the window boundaries and
+     * changing direction as appropriate. Runs once per timer event, so it allocates
+     * nothing: the shape's own bounds accessors are used instead of getFrame(), which
+     * builds a new Rectangle2D on every call.
+     */
+    void moveShape() {
+        // if the shape bounds touch the window bounds, we need to change
+        // direction
+        updateHorizontalMove();
+        updateVerticalMove();
+
+        myMovingShape.setFrame(myMovingShape.getX() + myHorizontalMove,
+                               myMovingShape.getY() + myVerticalMove,
+                               BOUNDING_BOX_SIDE,
+                               BOUNDING_BOX_SIDE);
+    }
+
+    /** Updates the horizontal move to keep the shape on screen. */
+    private void updateHorizontalMove() {
+        if (myMovingShape.getMinX() < 0) {
+            // change direction
+            myHorizontalMove = ANIMATION_STEP;
+        } else if (myMovingShape.getMaxX() > getWidth()) {
+            // change direction
+            myHorizontalMove = -ANIMATION_STEP;
+        }
+    }
+
+    /** Updates the vertical move to keep the shape on screen. */
+    private void updateVerticalMove() {
+        if (myMovingShape.getMinY() < 0) {
+            // change direction
+            myVerticalMove = ANIMATION_STEP;
+        } else if (myMovingShape.getMaxY() > getHeight()) {
+            // change direction
+            myVerticalMove = -ANIMATION_STEP;
+        }
+    }
+
     @Override
     public void paintComponent(final Graphics theGraphics) {
         super.paintComponent(theGraphics);
@@ -114,8 +183,29 @@ public class MovingShapePanel extends JPanel {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                              RenderingHints.VALUE_ANTIALIAS_ON);
         
-        g2d.setPaint(Color.BLUE);
-        g2d.fill(myMovingShape);
+        // the trail fades once per step, so it is updated even when the
+        // clip does not reach the shape; otherwise the shape is skipped then
+        if (myTrailOn) {
+            myTrail.update(getWidth(), getHeight(), mySteps, this::stampShape);
+            myTrail.draw(g2d);
+        } else if (g2d.hitClip((int) myMovingShape.getX() - 1,
+                               (int) myMovingShape.getY() - 1,
+                               BOUNDING_BOX_SIDE + 2, BOUNDING_BOX_SIDE + 2)) {
+            g2d.setPaint(Color.BLUE);
+            g2d.fill(myMovingShape);
+        }
+    }
+
+    /**
+     * Draws the shape where it is now into the trail.
+     *
+     * @param theGraphics the graphics of the trail image
+     */
+    private void stampShape(final Graphics2D theGraphics) {
+        theGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                     RenderingHints.VALUE_ANTIALIAS_ON);
+        theGraphics.setPaint(Color.BLUE);
+        theGraphics.fill(myMovingShape);
     }
 
     // ************* MAIN ************************************************
@@ -126,8 +216,19 @@ public class MovingShapePanel extends JPanel {
      * event-dispatching thread.
      */
     public static void createAndShowGui() {
+        createAndShowGui(false);
+    }
+
+    /**
+     * Create the GUI, with or without a trail behind the shape, and show it.
+     * This method should be invoked from the event-dispatching thread.
+     *
+     * @param theTrail true to draw a fading trail behind the shape
+     */
+    public static void createAndShowGui(final boolean theTrail) {
         final MovingShapePanel mainPanel =
                 new MovingShapePanel();
+        mainPanel.setTrail(theTrail);
 
         // A size for the JFrame.
         //final Dimension frameSize = new Dimension(400, 400);
@@ -154,20 +255,22 @@ public class MovingShapePanel extends JPanel {
     /**
      * Creates a MovingShapePanel in a frame and starts the animation.
      * 
-     * @param theArgs Command line parameters - ignored in this program
+     * @param theArgs Command line parameters - "trails" to draw a fading trail behind
+     *                the shape
      */
     public static void main(final String[] theArgs) {
+        final boolean trail = theArgs.length > 0 && TRAILS_ARGUMENT.equals(theArgs[0]);
         //Schedule a job for the event dispatch thread:
         //creating and showing this application's GUI.
-        javax.swing.SwingUtilities.invokeLater(MovingShapePanel::createAndShowGui);
+        javax.swing.SwingUtilities.invokeLater(() -> createAndShowGui(trail));
 
     }
 
     // *********** Inner Class Listener   *********************************
 
     /**
-     * A class that listens for timer events and moves the shape, checking for
-     * the window boundaries and changing direction as appropriate.
+     * A class that listens for timer events, moves the shape and repaints only the
+     * area the shape moved out of and into.
      */
     private final class MoveListener implements ActionListener {
         
@@ -176,40 +279,17 @@ public class MovingShapePanel extends JPanel {
             // we don't really care what the event is; we know this will only be
             // called by the timer
 
-            // if the shape bounds touch the window bounds, we need to change
-            // direction
-            updateHorizontalMove();
-            updateVerticalMove();
-
-            myMovingShape.setFrame(myMovingShape.getX() + myHorizontalMove,
-                                   myMovingShape.getY() + myVerticalMove,
-                                   BOUNDING_BOX_SIDE,
-                                   BOUNDING_BOX_SIDE);
-
-            repaint();
-        }
-
-        /** Updates the horizontal move to keep the shape on screen. */
-        private void updateHorizontalMove() {
-            if (myMovingShape.getFrame().getMinX() < 0) {
-                // change direction
-                myHorizontalMove = ANIMATION_STEP;
-            } else if (myMovingShape.getFrame().getMaxX()
-                      > MovingShapePanel.this.getWidth()) {
-                // change direction
-                myHorizontalMove = -ANIMATION_STEP;
-            }
-        }
-
-        /** Updates the vertical move to keep the shape on screen. */
-        private void updateVerticalMove() {
-            if (myMovingShape.getFrame().getMinY() < 0) {
-                // change direction
-                myVerticalMove = ANIMATION_STEP;
-            } else if (myMovingShape.getFrame().getMaxY()
-                     > MovingShapePanel.this.getHeight()) {
-                // change direction
-                myVerticalMove = -ANIMATION_STEP;
+            myDirtyRegion.add(myMovingShape.getX(), myMovingShape.getY(),
+                              BOUNDING_BOX_SIDE, BOUNDING_BOX_SIDE);
+            moveShape();
+            mySteps++;
+            myDirtyRegion.add(myMovingShape.getX(), myMovingShape.getY(),
+                              BOUNDING_BOX_SIDE, BOUNDING_BOX_SIDE);
+            if (myTrailOn) {
+                // the whole trail fades each step
+                repaint();
+            } else {
+                myDirtyRegion.repaint(MovingShapePanel.this);
             }
         }
     } // end of MoveListener
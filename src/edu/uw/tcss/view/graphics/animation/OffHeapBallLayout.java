@@ -0,0 +1,234 @@
+/*
+ * Ball storage for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Keeps the fields of the balls outside the Java heap, in a direct ByteBuffer of fixed
+ * size records: ball i is the RECORD_BYTES bytes starting at i * RECORD_BYTES. The
+ * garbage collector sees one small buffer object however many balls there are, so a
+ * world of millions of balls adds nothing for it to mark, copy or compact.
+ *
+ * <p>The native memory is given back when the buffer object is collected; release
+ * drops the layout's buffer so that can happen, and the layout cannot be used after.
+ * A record holds the current and previous position as doubles, the two directions and
+ * the color index as bytes, the id of the ball as an int, the diameter as a float, and
+ * the index of the ball whose id is the record's index as an int, padded so every double
+ * stays 8 byte aligned.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class OffHeapBallLayout implements BallLayout {
+
+    /** The number of bytes in the record of one ball. */
+    static final int RECORD_BYTES = 48;
+
+    /** The offset of the x coordinate in a record. */
+    private static final int X = 0;
+
+    /** The offset of the y coordinate in a record. */
+    private static final int Y = 8;
+
+    /** The offset of the previous x coordinate in a record. */
+    private static final int PREVIOUS_X = 16;
+
+    /** The offset of the previous y coordinate in a record. */
+    private static final int PREVIOUS_Y = 24;
+
+    /** The offset of the horizontal direction in a record. */
+    private static final int HORIZONTAL_MOVE = 32;
+
+    /** The offset of the vertical direction in a record. */
+    private static final int VERTICAL_MOVE = 33;
+
+    /** The offset of the palette index of the color in a record. */
+    private static final int COLOR_INDEX = 34;
+
+    /** The offset of the id in a record. */
+    private static final int ID = 36;
+
+    /** The offset of the diameter in a record. */
+    private static final int DIAMETER = 40;
+
+    /**
+     * The offset of the index of the ball whose id is the record's index. The fields of
+     * the ball itself all come before it.
+     */
+    private static final int INDEX_OF = 44;
+
+    /** The largest number of balls a buffer can hold. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_BYTES;
+
+    /** The mask that turns a stored color byte back into a palette index. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** The records of the balls, in native byte order. */
+    private ByteBuffer myRecords;
+
+    /**
+     * Constructs a layout with room for theCapacity balls.
+     *
+     * @param theCapacity the initial capacity
+     * @throws IllegalArgumentException when theCapacity is negative or more records than
+     *         a buffer can hold
+     */
+    OffHeapBallLayout(final int theCapacity) {
+        super();
+        myRecords = allocate(theCapacity);
+    }
+
+    @Override
+    public int capacity() {
+        return myRecords.capacity() / RECORD_BYTES;
+    }
+
+    /**
+     * {@inheritDoc} The new buffer is allocated before the old one is dropped, so both
+     * are in memory while the records are copied.
+     *
+     * @throws IllegalArgumentException when theCapacity is more records than a buffer
+     *         can hold
+     */
+    @Override
+    public void resize(final int theCapacity) {
+        final ByteBuffer records = allocate(theCapacity);
+        final int bytes = Math.min(records.capacity(), myRecords.capacity());
+        records.put(0, myRecords, 0, bytes);
+        myRecords = records;
+    }
+
+    @Override
+    public void release() {
+        myRecords = allocate(0);
+    }
+
+    @Override
+    public void copy(final int theFrom, final int theTo) {
+        // the fields of the ball are copied in one piece
+        myRecords.put(theTo * RECORD_BYTES, myRecords, theFrom * RECORD_BYTES, INDEX_OF);
+    }
+
+    @Override
+    public double getX(final int theIndex) {
+        return myRecords.getDouble(theIndex * RECORD_BYTES + X);
+    }
+
+    @Override
+    public void setX(final int theIndex, final double theX) {
+        myRecords.putDouble(theIndex * RECORD_BYTES + X, theX);
+    }
+
+    @Override
+    public double getY(final int theIndex) {
+        return myRecords.getDouble(theIndex * RECORD_BYTES + Y);
+    }
+
+    @Override
+    public void setY(final int theIndex, final double theY) {
+        myRecords.putDouble(theIndex * RECORD_BYTES + Y, theY);
+    }
+
+    @Override
+    public double getPreviousX(final int theIndex) {
+        return myRecords.getDouble(theIndex * RECORD_BYTES + PREVIOUS_X);
+    }
+
+    @Override
+    public void setPreviousX(final int theIndex, final double theX) {
+        myRecords.putDouble(theIndex * RECORD_BYTES + PREVIOUS_X, theX);
+    }
+
+    @Override
+    public double getPreviousY(final int theIndex) {
+        return myRecords.getDouble(theIndex * RECORD_BYTES + PREVIOUS_Y);
+    }
+
+    @Override
+    public void setPreviousY(final int theIndex, final double theY) {
+        myRecords.putDouble(theIndex * RECORD_BYTES + PREVIOUS_Y, theY);
+    }
+
+    @Override
+    public int getHorizontalMove(final int theIndex) {
+        return myRecords.get(theIndex * RECORD_BYTES + HORIZONTAL_MOVE);
+    }
+
+    @Override
+    public void setHorizontalMove(final int theIndex, final int theMove) {
+        myRecords.put(theIndex * RECORD_BYTES + HORIZONTAL_MOVE, (byte) theMove);
+    }
+
+    @Override
+    public int getVerticalMove(final int theIndex) {
+        return myRecords.get(theIndex * RECORD_BYTES + VERTICAL_MOVE);
+    }
+
+    @Override
+    public void setVerticalMove(final int theIndex, final int theMove) {
+        myRecords.put(theIndex * RECORD_BYTES + VERTICAL_MOVE, (byte) theMove);
+    }
+
+    @Override
+    public int getColorIndex(final int theIndex) {
+        return myRecords.get(theIndex * RECORD_BYTES + COLOR_INDEX) & BYTE_MASK;
+    }
+
+    @Override
+    public void setColorIndex(final int theIndex, final int theColorIndex) {
+        myRecords.put(theIndex * RECORD_BYTES + COLOR_INDEX, (byte) theColorIndex);
+    }
+
+    @Override
+    public double getDiameter(final int theIndex) {
+        return myRecords.getFloat(theIndex * RECORD_BYTES + DIAMETER);
+    }
+
+    @Override
+    public void setDiameter(final int theIndex, final double theDiameter) {
+        myRecords.putFloat(theIndex * RECORD_BYTES + DIAMETER, (float) theDiameter);
+    }
+
+    @Override
+    public int getId(final int theIndex) {
+        return myRecords.getInt(theIndex * RECORD_BYTES + ID);
+    }
+
+    @Override
+    public void setId(final int theIndex, final int theId) {
+        myRecords.putInt(theIndex * RECORD_BYTES + ID, theId);
+    }
+
+    @Override
+    public int getIndexOf(final int theId) {
+        return myRecords.getInt(theId * RECORD_BYTES + INDEX_OF);
+    }
+
+    @Override
+    public void setIndexOf(final int theId, final int theIndex) {
+        myRecords.putInt(theId * RECORD_BYTES + INDEX_OF, theIndex);
+    }
+
+    /**
+     * Allocates a direct buffer for theCapacity records in native byte order.
+     *
+     * @param theCapacity the number of records
+     * @return the buffer
+     * @throws IllegalArgumentException when theCapacity is negative or more records than
+     *         a buffer can hold
+     */
+    private static ByteBuffer allocate(final int theCapacity) {
+        if (theCapacity < 0 || theCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be from 0 to "
+                    + MAX_CAPACITY + ". Was: " + theCapacity);
+        }
+        final ByteBuffer result = ByteBuffer.allocateDirect(theCapacity * RECORD_BYTES);
+        return result.order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A uniform grid broad phase that searches for collisions on several threads. The world
+ * is cut into horizontal strips, each strip's balls are checked by a fork/join task, and
+ * every strip collects its pairs in its own list. The lists are appended in strip order
+ * afterward.
+ *
+ * <p>Only finding the pairs runs in parallel. The caller still sorts the pairs into
+ * nested loop order and bounces them one at a time, so a ball that is in several
+ * collisions has them resolved in the same order as the serial path. The result is
+ * bit-identical no matter how many threads are used.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class ParallelGridBroadPhase implements BroadPhase {
+
+    /** The number of strips per thread, so that an uneven strip does not stall the rest. */
+    private static final int STRIPS_PER_THREAD = 4;
+
+    /** The fewest balls worth splitting across threads. */
+    private static final int MIN_PARALLEL_BALLS = 1024;
+
+    /** The grid that the strips search. */
+    private final UniformGridBroadPhase myGrid;
+
+    /** The threads that search the strips. */
+    private final ForkJoinPool myPool;
+
+    /** The pairs found in each strip. */
+    private final CollisionPairs[] myStripPairs;
+
+    /** The strip of each ball. */
+    private int[] myStripOf = new int[0];
+
+    /** The index of the first entry of each strip, plus an end marker. */
+    private final int[] myStripStart;
+
+    /** The ball indices sorted by strip. */
+    private int[] myEntries = new int[0];
+
+    /**
+     * Constructs a parallel grid broad phase.
+     *
+     * @param theCellSize the smallest side length of a grid cell
+     * @param theParallelism the number of threads to search with
+     * @throws IllegalArgumentException when theCellSize or theParallelism is not positive
+     */
+    ParallelGridBroadPhase(final double theCellSize, final int theParallelism) {
+        super();
+        if (theParallelism <= 0) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be positive. Was: " + theParallelism);
+        }
+        myGrid = new UniformGridBroadPhase(theCellSize);
+        myPool = new ForkJoinPool(theParallelism);
+        myStripPairs = new CollisionPairs[theParallelism * STRIPS_PER_THREAD];
+        for (int strip = 0; strip < myStripPairs.length; strip++) {
+            myStripPairs[strip] = new CollisionPairs();
+        }
+        myStripStart = new int[myStripPairs.length + 1];
+    }
+
+    @Override
+    public void findCollisions(final BallStore theBalls, final CollisionPairs thePairs) {
+        myGrid.rebuild(theBalls);
+        if (theBalls.size() < MIN_PARALLEL_BALLS) {
+            for (int i = 0; i < theBalls.size(); i++) {
+                myGrid.findCollisions(theBalls, i, thePairs);
+            }
+        } else {
+            sortIntoStrips(theBalls);
+            myPool.invoke(new StripTask(theBalls, 0, myStripPairs.length));
+            for (final CollisionPairs strip : myStripPairs) {
+                for (int k = 0; k < strip.size(); k++) {
+                    thePairs.add(strip.first(k), strip.second(k));
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean overlapsAny(final BallStore theBalls, final double theX,
+                               final double theY, final double theDiameter) {
+        return myGrid.overlapsAny(theBalls, theX, theY, theDiameter);
+    }
+
+    @Override
+    public void renumber(final int[] theNewIndex, final int theCount) {
+        myGrid.renumber(theNewIndex, theCount);
+    }
+
+    @Override
+    public void shutdown() {
+        myPool.shutdown();
+    }
+
+    /**
+     * Cuts the area the balls cover into equal height strips and sorts the ball indices
+     * by the strip their center is in.
+     *
+     * @param theBalls the balls to sort
+     */
+    private void sortIntoStrips(final BallStore theBalls) {
+        final int count = theBalls.size();
+        if (myEntries.length < count) {
+            myStripOf = new int[theBalls.capacity()];
+            myEntries = new int[theBalls.capacity()];
+        }
+        double top = Double.POSITIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            top = Math.min(top, theBalls.getCenterY(i));
+            bottom = Math.max(bottom, theBalls.getCenterY(i));
+        }
+        final int strips = myStripPairs.length;
+        final double height = Math.max(1, bottom - top) / strips;
+        Arrays.fill(myStripStart, 0);
+        for (int i = 0; i < count; i++) {
+            final int strip =
+                    Math.min(strips - 1, (int) ((theBalls.getCenterY(i) - top) / height));
+            myStripOf[i] = strip;
+            myStripStart[strip + 1]++;
+        }
+        for (int strip = 0; strip < strips; strip++) {
+            myStripStart[strip + 1] += myStripStart[strip];
+        }
+        for (int i = 0; i < count; i++) {
+            myEntries[myStripStart[myStripOf[i]]] = i;
+            myStripStart[myStripOf[i]]++;
+        }
+        // filling moved each start offset to the next strip's start; shift them back
+        System.arraycopy(myStripStart, 0, myStripStart, 1, strips);
+        myStripStart[0] = 0;
+    }
+
+    /**
+     * A task that searches a range of strips, splitting the range in half until each
+     * task has a single strip.
+     */
+    private final class StripTask extends RecursiveAction {
+
+        /** A generated version ID for Serialization. */
+        @Serial
+        private static final long serialVersionUID = 3_305_417_295_001_118_211L;
+
+        /** The balls being searched. */
+        private final transient BallStore myBalls;
+
+        /** The first strip this task searches. */
+        private final int myFrom;
+
+        /** One past the last strip this task searches. */
+        private final int myTo;
+
+        /**
+         * Constructs a task for strips theFrom (inclusive) to theTo (exclusive).
+         *
+         * @param theBalls the balls being searched
+         * @param theFrom the first strip
+         * @param theTo one past the last strip
+         */
+        StripTask(final BallStore theBalls, final int theFrom, final int theTo) {
+            super();
+            myBalls = theBalls;
+            myFrom = theFrom;
+            myTo = theTo;
+        }
+
+        @Override
+        protected void compute() {
+            if (myTo - myFrom == 1) {
+                final CollisionPairs pairs = myStripPairs[myFrom];
+                pairs.clear();
+                for (int e = myStripStart[myFrom]; e < myStripStart[myFrom + 1]; e++) {
+                    myGrid.findCollisions(myBalls, myEntries[e], pairs);
+                }
+            } else {
+                final int middle = (myFrom + myTo) >>> 1;
+                invokeAll(new StripTask(myBalls, myFrom, middle),
+                          new StripTask(myBalls, middle, myTo));
+            }
+        }
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * A region quadtree broad phase. Each ball is kept in the leaf whose square holds its
+ * center. A leaf with more than SPLIT_THRESHOLD balls splits into four quadrants, and a
+ * node whose whole subtree holds no more than MERGE_THRESHOLD balls merges back into a
+ * single leaf. The gap between the two thresholds stops a node from splitting and
+ * merging over and over as balls cross its edges. Crowded areas, such as the spot where
+ * a user keeps clicking, get small leaves, and empty areas stay coarse.
+ *
+ * <p>The tree is kept from one tick to the next. A ball is only moved when its center
+ * leaves its leaf, which happens every few dozen ticks at one pixel per tick. The tree
+ * is rebuilt only when a ball leaves the root, balls are removed, or balls added since
+ * the latest tick are reordered along with the rest. Nodes come from a pool of four
+ * child blocks and each leaf chains its balls in a linked list stored in arrays, so a
+ * tick allocates nothing once the pool has grown.
+ *
+ * <p>The tree also answers point queries, so checking a new ball for overlaps costs a
+ * few leaves instead of a pass over every ball.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class QuadtreeBroadPhase implements BroadPhase {
+
+    /** A leaf splits into four when it holds more balls than this. */
+    private static final int SPLIT_THRESHOLD = 8;
+
+    /** A node merges back into a leaf when its subtree holds no more balls than this. */
+    private static final int MERGE_THRESHOLD = 4;
+
+    /** The number of children of a node that is not a leaf. */
+    private static final int CHILDREN = 4;
+
+    /** The index of the upper right child within a block. */
+    private static final int UPPER_RIGHT = 1;
+
+    /** The index of the lower left child within a block. */
+    private static final int LOWER_LEFT = 2;
+
+    /** The index of the lower right child within a block. */
+    private static final int LOWER_RIGHT = 3;
+
+    /** The number of child blocks the node pool starts with. */
+    private static final int INITIAL_BLOCKS = 16;
+
+    /** Marks a missing node or ball: a leaf's first child, the end of a list, etc. */
+    private static final int NONE = -1;
+
+    /** The root node. */
+    private static final int ROOT = 0;
+
+    /** The x coordinate of the upper left corner of each node. */
+    private double[] myNodeX = new double[1 + CHILDREN * INITIAL_BLOCKS];
+
+    /** The y coordinate of the upper left corner of each node. */
+    private double[] myNodeY = new double[myNodeX.length];
+
+    /** The side length of each node's square. */
+    private double[] myNodeSide = new double[myNodeX.length];
+
+    /** The first of the four children of each node, or NONE for a leaf. */
+    private int[] myFirstChild = new int[myNodeX.length];
+
+    /** The parent of each node, or NONE for the root. */
+    private int[] myParent = new int[myNodeX.length];
+
+    /** The number of balls in each node's subtree. */
+    private int[] myCount = new int[myNodeX.length];
+
+    /** The first ball in each leaf, or NONE. */
+    private int[] myHead = new int[myNodeX.length];
+
+    /** The number of nodes ever handed out by the pool. */
+    private int myNodeCount = 1;
+
+    /** The first block of the list of free child blocks, or NONE. */
+    private int myFreeBlock = NONE;
+
+    /** The leaf that holds each ball. */
+    private int[] myLeafOf = new int[0];
+
+    /** The next ball in the same leaf as each ball, or NONE. */
+    private int[] myNext = new int[0];
+
+    /** The previous ball in the same leaf as each ball, or NONE. */
+    private int[] myPrevious = new int[0];
+
+    /** The number of balls in the tree; balls 0 to myTracked - 1. */
+    private int myTracked;
+
+    /** The removal count of the balls when the tree was last brought up to date. */
+    private long myRemovals;
+
+    /** The move count of the balls when the tree was last brought up to date. */
+    private long myMoves;
+
+    /** True when balls were added and then reordered, so the tree must be rebuilt. */
+    private boolean myStale;
+
+    /** The balls that may be near the ball being checked. */
+    private int[] myCandidates = new int[0];
+
+    /** The nodes still to visit during a query. */
+    private int[] myStack = new int[myNodeX.length];
+
+    /** The nodes still to visit while walking the leaves. */
+    private int[] myLeafStack = new int[myNodeX.length];
+
+    /** The smallest side a node may be split to: the default diameter of a ball. */
+    private double myMinSide;
+
+    /** Constructs an empty tree. It is built from the balls on the first tick. */
+    QuadtreeBroadPhase() {
+        super();
+        setNode(ROOT, 0, 0, 0, NONE);
+    }
+
+    @Override
+    public void findCollisions(final BallStore theBalls, final CollisionPairs thePairs) {
+        update(theBalls);
+        // a ball whose center is in the leaf reaches at most this far past its edges
+        final double diameter = theBalls.getMaxDiameter();
+        // one search per leaf, shared by all of its balls, instead of one per ball
+        int top = 0;
+        myLeafStack[top++] = ROOT;
+        while (top > 0) {
+            final int node = myLeafStack[--top];
+            final int block = myFirstChild[node];
+            if (block != NONE) {
+                for (int child = block; child < block + CHILDREN; child++) {
+                    myLeafStack[top++] = child;
+                }
+            } else if (myHead[node] != NONE) {
+                final int candidates = collectCandidates(
+                        myNodeX[node] - diameter, myNodeY[node] - diameter,
+                        myNodeX[node] + myNodeSide[node] + diameter,
+                        myNodeY[node] + myNodeSide[node] + diameter);
+                collidePairs(theBalls, node, candidates, thePairs);
+            }
+        }
+    }
+
+    @Override
+    public boolean overlapsAny(final BallStore theBalls, final double theX,
+                               final double theY, final double theDiameter) {
+        if (myStale || theBalls.size() < myTracked
+                || theBalls.getRemovalCount() != myRemovals
+                || theBalls.getMoveCount() != myMoves) {
+            // the balls changed since the tree was updated; one update serves every
+            // query until they change again
+            update(theBalls);
+        }
+        final double radius = theDiameter / 2;
+        final double reach = (theDiameter + theBalls.getMaxDiameter()) / 2;
+        final int candidates = collectCandidates(theX + radius - reach,
+                                                 theY + radius - reach,
+                                                 theX + radius + reach,
+                                                 theY + radius + reach);
+        boolean result = false;
+        for (int c = 0; c < candidates && !result; c++) {
+            result = theBalls.overlaps(myCandidates[c], theX, theY, theDiameter);
+        }
+        // balls added since the latest tick are not in the tree yet
+        for (int i = myTracked; i < theBalls.size() && !result; i++) {
+            result = theBalls.overlaps(i, theX, theY, theDiameter);
+        }
+        return result;
+    }
+
+    @Override
+    public void renumber(final int[] theNewIndex, final int theCount) {
+        if (theCount != myTracked) {
+            // the balls not in the tree are no longer the ones from myTracked on
+            myStale = true;
+        }
+        if (!myStale) {
+            permute(myLeafOf, theNewIndex, false);
+            permute(myNext, theNewIndex, true);
+            permute(myPrevious, theNewIndex, true);
+            for (int node = 0; node < myNodeCount; node++) {
+                if (myHead[node] != NONE) {
+                    myHead[node] = theNewIndex[myHead[node]];
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the tree up to date with the balls' current positions. Balls that left
+     * their leaf are moved and balls added since the last update are inserted. A removed
+     * ball's index holds another ball now, which is moved like any ball that left its
+     * leaf.
+     *
+     * @param theBalls the balls
+     */
+    private void update(final BallStore theBalls) {
+        final int count = theBalls.size();
+        if (myLeafOf.length < count) {
+            myLeafOf = Arrays.copyOf(myLeafOf, theBalls.capacity());
+            myNext = Arrays.copyOf(myNext, theBalls.capacity());
+            myPrevious = Arrays.copyOf(myPrevious, theBalls.capacity());
+            myCandidates = new int[theBalls.capacity()];
+        }
+        if (myStale || count < myTracked || !rootHoldsAll(theBalls)) {
+            rebuild(theBalls);
+        } else {
+            for (int i = 0; i < myTracked; i++) {
+                if (!holds(myLeafOf[i], theBalls.getCenterX(i), theBalls.getCenterY(i))) {
+                    remove(i);
+                    insert(theBalls, i);
+                }
+            }
+            for (int i = myTracked; i < count; i++) {
+                insert(theBalls, i);
+            }
+            myTracked = count;
+        }
+        myRemovals = theBalls.getRemovalCount();
+        myMoves = theBalls.getMoveCount();
+    }
+
+    /**
+     * Moves the entry of each tracked ball in theValues to the ball's new index, using
+     * myCandidates as scratch space.
+     *
+     * @param theValues an array with one entry per ball
+     * @param theNewIndex the new index of each ball by its old index
+     * @param theHoldsBalls true when the entries are themselves ball indices, or NONE
+     */
+    private void permute(final int[] theValues, final int[] theNewIndex,
+                         final boolean theHoldsBalls) {
+        for (int i = 0; i < myTracked; i++) {
+            int value = theValues[i];
+            if (theHoldsBalls && value != NONE) {
+                value = theNewIndex[value];
+            }
+            myCandidates[theNewIndex[i]] = value;
+        }
+        System.arraycopy(myCandidates, 0, theValues, 0, myTracked);
+    }
+
+    /**
+     * Returns true when every ball's center is inside the root.
+     *
+     * @param theBalls the balls
+     * @return true if the root holds every ball
+     */
+    private boolean rootHoldsAll(final BallStore theBalls) {
+        boolean result = true;
+        for (int i = 0; i < theBalls.size() && result; i++) {
+            result = holds(ROOT, theBalls.getCenterX(i), theBalls.getCenterY(i));
+        }
+        return result;
+    }
+
+    /**
+     * Throws the tree away and builds a new one whose root is twice as wide as the area
+     * the balls cover, so the balls can spread out for a long time before the next
+     * rebuild.
+     *
+     * @param theBalls the balls
+     */
+    private void rebuild(final BallStore theBalls) {
+        myStale = false;
+        myMinSide = theBalls.getDefaultDiameter();
+        double left = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double top = Double.POSITIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < theBalls.size(); i++) {
+            left = Math.min(left, theBalls.getCenterX(i));
+            right = Math.max(right, theBalls.getCenterX(i));
+            top = Math.min(top, theBalls.getCenterY(i));
+            bottom = Math.max(bottom, theBalls.getCenterY(i));
+        }
+        if (theBalls.size() == 0) {
+            left = 0;
+            right = 0;
+            top = 0;
+            bottom = 0;
+        }
+        // a power of two side keeps every corner exact all the way down the tree
+        final double span = Math.max(myMinSide, Math.max(right - left, bottom - top));
+        final double side = Math.scalb(1.0, Math.getExponent(span) + 2);
+        setNode(ROOT, Math.floor((left + right - side) / 2),
+                Math.floor((top + bottom - side) / 2), side, NONE);
+        myNodeCount = 1;
+        myFreeBlock = NONE;
+        myTracked = theBalls.size();
+        for (int i = 0; i < myTracked; i++) {
+            insert(theBalls, i);
+        }
+    }
+
+    /**
+     * Adds ball theIndex to the leaf that holds its center, splitting the leaf if it
+     * becomes too crowded.
+     *
+     * @param theBalls the balls
+     * @param theIndex the index of the ball
+     */
+    private void insert(final BallStore theBalls, final int theIndex) {
+        final double centerX = theBalls.getCenterX(theIndex);
+        final double centerY = theBalls.getCenterY(theIndex);
+        int node = ROOT;
+        myCount[node]++;
+        while (myFirstChild[node] != NONE) {
+            node = childHolding(node, centerX, centerY);
+            myCount[node]++;
+        }
+        link(theIndex, node);
+        splitIfCrowded(theBalls, node);
+    }
+
+    /**
+     * Takes ball theIndex out of its leaf. If that leaves an ancestor with no more than
+     * MERGE_THRESHOLD balls, the highest such ancestor is merged back into one leaf.
+     *
+     * @param theIndex the index of the ball
+     */
+    private void remove(final int theIndex) {
+        final int leaf = myLeafOf[theIndex];
+        unlink(theIndex, leaf);
+        int merge = NONE;
+        for (int node = leaf; node != NONE; node = myParent[node]) {
+            myCount[node]--;
+            if (node != leaf && myCount[node] <= MERGE_THRESHOLD) {
+                merge = node;
+            }
+        }
+        if (merge != NONE) {
+            gatherInto(merge, merge);
+            myFirstChild[merge] = NONE;
+        }
+    }
+
+    /**
+     * Splits theLeaf into four children and hands its balls to them, when it holds more
+     * than SPLIT_THRESHOLD balls and its children would still be at least a ball wide.
+     * Children that are still crowded are split in turn.
+     *
+     * @param theBalls the balls
+     * @param theLeaf the leaf to check
+     */
+    private void splitIfCrowded(final BallStore theBalls, final int theLeaf) {
+        final double half = myNodeSide[theLeaf] / 2;
+        if (myCount[theLeaf] > SPLIT_THRESHOLD && half >= myMinSide) {
+            final int block = allocateBlock();
+            final double x = myNodeX[theLeaf];
+            final double y = myNodeY[theLeaf];
+            setNode(block, x, y, half, theLeaf);
+            setNode(block + UPPER_RIGHT, x + half, y, half, theLeaf);
+            setNode(block + LOWER_LEFT, x, y + half, half, theLeaf);
+            setNode(block + LOWER_RIGHT, x + half, y + half, half, theLeaf);
+            myFirstChild[theLeaf] = block;
+
+            int ball = myHead[theLeaf];
+            myHead[theLeaf] = NONE;
+            while (ball != NONE) {
+                final int next = myNext[ball];
+                final int child = childHolding(theLeaf, theBalls.getCenterX(ball),
+                                               theBalls.getCenterY(ball));
+                link(ball, child);
+                myCount[child]++;
+                ball = next;
+            }
+            for (int child = block; child < block + CHILDREN; child++) {
+                splitIfCrowded(theBalls, child);
+            }
+        }
+    }
+
+    /**
+     * Moves every ball below theNode into the list of theTarget and returns the child
+     * blocks below theNode to the pool.
+     *
+     * @param theTarget the node that becomes a leaf
+     * @param theNode the node whose descendants are gathered
+     */
+    private void gatherInto(final int theTarget, final int theNode) {
+        final int block = myFirstChild[theNode];
+        for (int child = block; child < block + CHILDREN; child++) {
+            if (myFirstChild[child] == NONE) {
+                int ball = myHead[child];
+                while (ball != NONE) {
+                    final int next = myNext[ball];
+                    link(ball, theTarget);
+                    ball = next;
+                }
+            } else {
+                gatherInto(theTarget, child);
+            }
+        }
+        myFirstChild[block] = myFreeBlock;
+        myFreeBlock = block;
+    }
+
+    /**
+     * Adds every pair of a ball in theLeaf and a higher numbered candidate that collide
+     * to thePairs.
+     *
+     * @param theBalls the balls
+     * @param theLeaf the leaf
+     * @param theCandidates the number of candidates in myCandidates
+     * @param thePairs the list the colliding pairs are added to
+     */
+    private void collidePairs(final BallStore theBalls, final int theLeaf,
+                              final int theCandidates, final CollisionPairs thePairs) {
+        for (int i = myHead[theLeaf]; i != NONE; i = myNext[i]) {
+            for (int c = 0; c < theCandidates; c++) {
+                final int j = myCandidates[c];
+                if (j > i && theBalls.collide(i, j)) {
+                    thePairs.add(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the balls in every leaf that touches the box from theLeft, theTop to
+     * theRight, theBottom into myCandidates.
+     *
+     * @param theLeft the left edge of the box
+     * @param theTop the top edge of the box
+     * @param theRight the right edge of the box
+     * @param theBottom the bottom edge of the box
+     * @return the number of candidates copied
+     */
+    private int collectCandidates(final double theLeft, final double theTop,
+                                  final double theRight, final double theBottom) {
+        int candidates = 0;
+        int top = 0;
+        myStack[top++] = ROOT;
+        while (top > 0) {
+            final int node = myStack[--top];
+            if (myNodeX[node] <= theRight && myNodeX[node] + myNodeSide[node] >= theLeft
+                    && myNodeY[node] <= theBottom
+                    && myNodeY[node] + myNodeSide[node] >= theTop) {
+                final int block = myFirstChild[node];
+                if (block == NONE) {
+                    for (int ball = myHead[node]; ball != NONE; ball = myNext[ball]) {
+                        myCandidates[candidates++] = ball;
+                    }
+                } else {
+                    for (int child = block; child < block + CHILDREN; child++) {
+                        myStack[top++] = child;
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the child of theNode whose square holds the point theX, theY.
+     *
+     * @param theNode a node that is not a leaf
+     * @param theX the x coordinate of the point
+     * @param theY the y coordinate of the point
+     * @return the child holding the point
+     */
+    private int childHolding(final int theNode, final double theX, final double theY) {
+        final double half = myNodeSide[theNode] / 2;
+        int child = myFirstChild[theNode];
+        if (theX >= myNodeX[theNode] + half) {
+            child += UPPER_RIGHT;
+        }
+        if (theY >= myNodeY[theNode] + half) {
+            child += LOWER_LEFT;
+        }
+        return child;
+    }
+
+    /**
+     * Returns true when the square of theNode holds the point theX, theY. The left and
+     * top edges belong to the square; the right and bottom edges do not.
+     *
+     * @param theNode the node
+     * @param theX the x coordinate of the point
+     * @param theY the y coordinate of the point
+     * @return true if the node holds the point
+     */
+    private boolean holds(final int theNode, final double theX, final double theY) {
+        return theX >= myNodeX[theNode] && theX < myNodeX[theNode] + myNodeSide[theNode]
+                && theY >= myNodeY[theNode] && theY < myNodeY[theNode] + myNodeSide[theNode];
+    }
+
+    /**
+     * Adds ball theIndex to the front of theLeaf's list.
+     *
+     * @param theIndex the index of the ball
+     * @param theLeaf the leaf
+     */
+    private void link(final int theIndex, final int theLeaf) {
+        myLeafOf[theIndex] = theLeaf;
+        myPrevious[theIndex] = NONE;
+        myNext[theIndex] = myHead[theLeaf];
+        if (myHead[theLeaf] != NONE) {
+            myPrevious[myHead[theLeaf]] = theIndex;
+        }
+        myHead[theLeaf] = theIndex;
+    }
+
+    /**
+     * Takes ball theIndex out of theLeaf's list.
+     *
+     * @param theIndex the index of the ball
+     * @param theLeaf the leaf that holds the ball
+     */
+    private void unlink(final int theIndex, final int theLeaf) {
+        if (myPrevious[theIndex] == NONE) {
+            myHead[theLeaf] = myNext[theIndex];
+        } else {
+            myNext[myPrevious[theIndex]] = myNext[theIndex];
+        }
+        if (myNext[theIndex] != NONE) {
+            myPrevious[myNext[theIndex]] = myPrevious[theIndex];
+        }
+    }
+
+    /**
+     * Sets up theNode as an empty leaf.
+     *
+     * @param theNode the node
+     * @param theX the x coordinate of its upper left corner
+     * @param theY the y coordinate of its upper left corner
+     * @param theSide its side length
+     * @param theParent its parent, or NONE for the root
+     */
+    private void setNode(final int theNode, final double theX, final double theY,
+                         final double theSide, final int theParent) {
+        myNodeX[theNode] = theX;
+        myNodeY[theNode] = theY;
+        myNodeSide[theNode] = theSide;
+        myParent[theNode] = theParent;
+        myFirstChild[theNode] = NONE;
+        myHead[theNode] = NONE;
+        myCount[theNode] = 0;
+    }
+
+    /**
+     * Takes a block of four nodes from the pool, growing the pool when it is empty.
+     *
+     * @return the first node of the block
+     */
+    private int allocateBlock() {
+        int block = myFreeBlock;
+        if (block == NONE) {
+            if (myNodeCount + CHILDREN > myNodeX.length) {
+                growNodes();
+            }
+            block = myNodeCount;
+            myNodeCount += CHILDREN;
+        } else {
+            myFreeBlock = myFirstChild[block];
+        }
+        return block;
+    }
+
+    /** Doubles the size of the node pool. */
+    private void growNodes() {
+        final int nodes = myNodeX.length * 2;
+        myNodeX = Arrays.copyOf(myNodeX, nodes);
+        myNodeY = Arrays.copyOf(myNodeY, nodes);
+        myNodeSide = Arrays.copyOf(myNodeSide, nodes);
+        myFirstChild = Arrays.copyOf(myFirstChild, nodes);
+        myParent = Arrays.copyOf(myParent, nodes);
+        myCount = Arrays.copyOf(myCount, nodes);
+        myHead = Arrays.copyOf(myHead, nodes);
+        myStack = new int[nodes];
+        myLeafStack = new int[nodes];
+    }
+}
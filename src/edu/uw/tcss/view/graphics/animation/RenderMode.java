@@ -0,0 +1,47 @@
+/*
+ * Rendering modes for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * The ways BallRenderer can draw the balls.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+enum RenderMode {
+
+    /**
+     * Fill each ball on its own, in the order the balls are stored. A ball always covers
+     * the balls stored before it.
+     */
+    PER_BALL,
+
+    /**
+     * Gather all the balls of one color into a single path and fill each path once. Far
+     * fewer fills per frame, but where balls of different colors overlap the later color
+     * in the palette is on top, whatever order the balls are stored in. Pays off where
+     * each fill has a high fixed cost, as on a hardware accelerated pipeline; in software
+     * the cost of blending the antialiased pixels dominates and batching gains nothing.
+     */
+    BATCHED,
+
+    /**
+     * Copy each ball from a pre-rendered image of a ball of its color, in the order the
+     * balls are stored. A ball is placed to a quarter of a device pixel.
+     * Drawing falls back to PER_BALL under a transform that rotates, shears or scales
+     * unevenly. The default.
+     */
+    SPRITES,
+
+    /**
+     * Compute each ball's antialiased coverage in software on several threads, each
+     * drawing its own strip of an image, and copy the image to the screen at once. Balls
+     * are drawn in the order they are stored. Falls back to PER_BALL under the same
+     * transforms as SPRITES.
+     */
+    TILED
+}
@@ -0,0 +1,57 @@
+/*
+ * Rendering quality levels for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * The levels of quality a RenderQualityGovernor steps through, from the best looking to
+ * the cheapest. Each level gives up a little more than the one before it.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+enum RenderQuality {
+
+    /** Draw with the selected RenderMode, antialiased. */
+    FULL,
+
+    /** Draw the antialiased sprites whatever RenderMode is selected. */
+    SPRITES,
+
+    /**
+     * Fill each ball without antialiasing, which in software costs about a fifth of an
+     * antialiased fill and less than copying a sprite.
+     */
+    ALIASED,
+
+    /** Draw as ALIASED, and repaint only every other time a repaint is asked for. */
+    HALF_RATE;
+
+    /**
+     * Returns the mode to draw with at this level.
+     *
+     * @param theSelected the mode selected for full quality
+     * @return the render mode
+     */
+    RenderMode getMode(final RenderMode theSelected) {
+        RenderMode result = theSelected;
+        if (this == SPRITES) {
+            result = RenderMode.SPRITES;
+        } else if (this != FULL) {
+            result = RenderMode.PER_BALL;
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the balls are antialiased at this level.
+     *
+     * @return true when antialiased
+     */
+    boolean isAntialiased() {
+        return compareTo(ALIASED) < 0;
+    }
+}
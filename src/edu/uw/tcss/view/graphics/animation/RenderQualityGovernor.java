@@ -0,0 +1,227 @@
+/*
+ * Adaptive rendering quality for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Steps the rendering quality down when drawing a frame takes longer than the frame
+ * budget and back up when there is room again. The time to draw each frame is smoothed
+ * with an exponentially weighted moving average, so one slow frame does not change the
+ * quality.
+ *
+ * <p>The quality steps down when the average is over the budget and steps up only when
+ * it is under half the budget, so a level that just fits does not flip back and forth.
+ * After each change the average is given SETTLE_FRAMES frames to catch up before the
+ * next. When stepping up proves too much and the quality has to step back down within
+ * twice that many frames, the level stepped up to waits twice as long before it is tried
+ * again, up to MAX_BACKOFF times SETTLE_FRAMES.
+ *
+ * <p>The methods are synchronized so the thread that draws can record frames while
+ * another thread reads the metrics.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class RenderQualityGovernor {
+
+    /** The number of frames after a change before the quality changes again. */
+    static final int SETTLE_FRAMES = 30;
+
+    /** The weight of the newest frame in the moving average. */
+    private static final double SMOOTHING = 0.1;
+
+    /** The part of the budget the average must be under to step the quality up. */
+    private static final double STEP_UP_FRACTION = 0.5;
+
+    /** The most times SETTLE_FRAMES a level waits before it is stepped up to again. */
+    private static final int MAX_BACKOFF = 32;
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** The quality levels from best to cheapest. */
+    private static final RenderQuality[] LEVELS = RenderQuality.values();
+
+    /** The time one frame may take to draw, in nanoseconds. */
+    private final long myBudgetNanos;
+
+    /** The number of frames each level waits before the quality steps up to it. */
+    private final int[] myUpgradeWait = new int[LEVELS.length];
+
+    /** The current quality. */
+    private RenderQuality myQuality = RenderQuality.FULL;
+
+    /** The moving average of the time to draw a frame, in nanoseconds. */
+    private double myAverageNanos;
+
+    /** The number of frames recorded since construction. */
+    private long myFrames;
+
+    /** The number of frames recorded since the latest change of quality. */
+    private int myFramesSinceChange;
+
+    /** True when the latest change of quality stepped up. */
+    private boolean mySteppedUp;
+
+    /** The number of times the quality stepped down. */
+    private long myDowngrades;
+
+    /** The number of times the quality stepped up. */
+    private long myUpgrades;
+
+    /** The number of repaints asked for since construction. */
+    private long myRepaints;
+
+    /** False to keep full quality however long frames take. */
+    private boolean myEnabled = true;
+
+    /**
+     * Constructs a governor that starts at full quality.
+     *
+     * @param theBudgetNanos the time one frame may take to draw, in nanoseconds
+     * @throws IllegalArgumentException when theBudgetNanos is not positive
+     */
+    RenderQualityGovernor(final long theBudgetNanos) {
+        super();
+        if (theBudgetNanos <= 0) {
+            throw new IllegalArgumentException(
+                    "Budget must be positive. Was: " + theBudgetNanos);
+        }
+        myBudgetNanos = theBudgetNanos;
+        Arrays.fill(myUpgradeWait, SETTLE_FRAMES);
+    }
+
+    /**
+     * Records that a frame took theFrameNanos to draw, and changes the quality when the
+     * average has stayed out of bounds long enough.
+     *
+     * @param theFrameNanos the time the frame took to draw, in nanoseconds
+     */
+    synchronized void record(final long theFrameNanos) {
+        if (myFrames == 0) {
+            myAverageNanos = theFrameNanos;
+        } else {
+            myAverageNanos += SMOOTHING * (theFrameNanos - myAverageNanos);
+        }
+        myFrames++;
+        myFramesSinceChange++;
+        if (myEnabled && myFramesSinceChange >= SETTLE_FRAMES) {
+            adjust();
+        }
+    }
+
+    /**
+     * Turns the governor on or off. While it is off the quality stays FULL and frames are
+     * only recorded, so a benchmark can measure the selected render mode as it is.
+     *
+     * @param theEnabled true to change the quality with the frame time
+     */
+    synchronized void setEnabled(final boolean theEnabled) {
+        myEnabled = theEnabled;
+        if (!theEnabled && myQuality != RenderQuality.FULL) {
+            change(RenderQuality.FULL, true);
+        }
+    }
+
+    /**
+     * Returns whether a repaint that is asked for now should be done. At HALF_RATE every
+     * other repaint is skipped; the caller keeps what it would have repainted for the
+     * next one.
+     *
+     * @return true to repaint
+     */
+    synchronized boolean shouldRepaint() {
+        myRepaints++;
+        return myQuality != RenderQuality.HALF_RATE || myRepaints % 2 == 0;
+    }
+
+    /**
+     * Returns the current quality.
+     *
+     * @return the quality to draw the next frame with
+     */
+    synchronized RenderQuality getQuality() {
+        return myQuality;
+    }
+
+    /**
+     * Returns the moving average of the time to draw a frame.
+     *
+     * @return the average in milliseconds, or 0 before any frame
+     */
+    synchronized double getAverageMillis() {
+        return myAverageNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the number of frames recorded since construction.
+     *
+     * @return the number of frames
+     */
+    synchronized long getFrames() {
+        return myFrames;
+    }
+
+    /**
+     * Returns the number of times the quality stepped down.
+     *
+     * @return the number of downgrades
+     */
+    synchronized long getDowngrades() {
+        return myDowngrades;
+    }
+
+    /**
+     * Returns the number of times the quality stepped up.
+     *
+     * @return the number of upgrades
+     */
+    synchronized long getUpgrades() {
+        return myUpgrades;
+    }
+
+    /**
+     * Steps the quality down when the average is over the budget, or up when it is well
+     * under the budget and the level above has waited long enough.
+     */
+    private void adjust() {
+        final int level = myQuality.ordinal();
+        if (myAverageNanos > myBudgetNanos && level < LEVELS.length - 1) {
+            if (mySteppedUp && myFramesSinceChange < 2 * SETTLE_FRAMES) {
+                // stepping up to this level was too much; wait longer before trying again
+                myUpgradeWait[level] =
+                        Math.min(myUpgradeWait[level] * 2, SETTLE_FRAMES * MAX_BACKOFF);
+            }
+            myDowngrades++;
+            change(LEVELS[level + 1], false);
+        } else if (myAverageNanos < myBudgetNanos * STEP_UP_FRACTION && level > 0
+                && myFramesSinceChange >= myUpgradeWait[level - 1]) {
+            myUpgrades++;
+            change(LEVELS[level - 1], true);
+        }
+    }
+
+    /**
+     * Changes the quality to theQuality.
+     *
+     * @param theQuality the new quality
+     * @param theSteppedUp true when theQuality is better than the current quality
+     */
+    private void change(final RenderQuality theQuality, final boolean theSteppedUp) {
+        myQuality = Objects.requireNonNull(theQuality);
+        myFramesSinceChange = 0;
+        mySteppedUp = theSteppedUp;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s, %.2f ms, %d down, %d up", myQuality, getAverageMillis(),
+                             myDowngrades, myUpgrades);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The move step of the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * Moves the balls one at a time through the accessors of any BallLayout. Each field is
+ * read once, which matters for layouts whose reads the JIT cannot cache.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class ScalarMoveKernel implements MoveKernel {
+
+    @Override
+    public void move(final BallLayout theLayout, final int theSize, final double theWidth,
+                     final double theHeight) {
+        moveRange(theLayout, 0, theSize, theWidth, theHeight);
+    }
+
+    /**
+     * Moves balls theFrom to theTo - 1 of theLayout one animation step.
+     *
+     * @param theLayout the fields of the balls
+     * @param theFrom the index of the first ball to move
+     * @param theTo one past the index of the last ball to move
+     * @param theWidth the width of the area the balls bounce around in
+     * @param theHeight the height of the area the balls bounce around in
+     */
+    void moveRange(final BallLayout theLayout, final int theFrom, final int theTo,
+                   final double theWidth, final double theHeight) {
+        for (int i = theFrom; i < theTo; i++) {
+            final double x = theLayout.getX(i);
+            final double y = theLayout.getY(i);
+            final double diameter = theLayout.getDiameter(i);
+            final int horizontal = keepInside(x, theLayout.getHorizontalMove(i), diameter,
+                                              theWidth);
+            final int vertical = keepInside(y, theLayout.getVerticalMove(i), diameter,
+                                            theHeight);
+            theLayout.setHorizontalMove(i, horizontal);
+            theLayout.setVerticalMove(i, vertical);
+            theLayout.setPreviousX(i, x);
+            theLayout.setPreviousY(i, y);
+            theLayout.setX(i, x + horizontal);
+            theLayout.setY(i, y + vertical);
+        }
+    }
+
+    /**
+     * Returns the direction along one axis that keeps a ball inside the area: toward
+     * the area when the ball is outside one of its edges, theMove otherwise.
+     *
+     * @param thePosition the coordinate of the upper left corner of the ball
+     * @param theMove the current direction, 1 or -1
+     * @param theDiameter the diameter of the ball
+     * @param theLimit the size of the area along the axis
+     * @return the new direction
+     */
+    static int keepInside(final double thePosition, final int theMove,
+                          final double theDiameter, final double theLimit) {
+        int result = theMove;
+        if (thePosition < 0) {
+            // change direction
+            result = LotsOfMovingShapesPanel.ANIMATION_STEP;
+        } else if (thePosition + theDiameter > theLimit) {
+            // change direction
+            result = -LotsOfMovingShapesPanel.ANIMATION_STEP;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Simulation modes for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+/**
+ * The ways the bouncing balls example can drive its simulation.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+public enum SimulationMode {
+
+    /**
+     * A javax.swing.Timer steps the simulation on the Event Dispatch Thread. Slow
+     * painting delays the simulation and a slow simulation delays input. The default.
+     */
+    SWING_TIMER,
+
+    /**
+     * A dedicated thread steps the simulation with a fixed time step. The Event Dispatch
+     * Thread only paints the latest state, interpolated between the last two steps.
+     */
+    FIXED_STEP_THREAD,
+
+    /**
+     * A javax.swing.Timer advances the simulation on the Event Dispatch Thread like
+     * SWING_TIMER, but ticks in which no ball reaches a wall or another ball only move
+     * the balls, without searching for collisions.
+     */
+    EVENT_DRIVEN,
+
+    /**
+     * A dedicated thread steps the simulation as in FIXED_STEP_THREAD, and a second
+     * thread draws frames straight into a BufferStrategy at a capped rate instead of
+     * asking Swing to repaint. Frame pacing statistics are drawn in the corner.
+     */
+    ACTIVE_RENDERING
+}
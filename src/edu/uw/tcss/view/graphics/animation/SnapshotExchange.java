@@ -0,0 +1,84 @@
+/*
+ * Hands ball snapshots from the simulation to the renderer for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes snapshots of the balls from the thread that steps the simulation to the thread
+ * that draws them without either one ever waiting for the other. The stepping thread
+ * fills the back snapshot and publishes it; the drawing thread acquires the latest
+ * published snapshot as its front snapshot and may keep reading it for as long as it
+ * likes, because nothing writes to it until the drawing thread acquires again.
+ *
+ * <p>Three snapshots are recycled rather than two: the back, the front, and a spare
+ * that holds the latest published snapshot until it is acquired. Publishing swaps the
+ * back with the spare and acquiring swaps the spare with the front, each in one atomic
+ * step, so the stepping thread always has a snapshot to fill even while the drawing
+ * thread is still drawing the previous one. A published snapshot that is never acquired
+ * is simply filled again by a later step.
+ *
+ * <p>Only one thread may publish and only one thread may acquire.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class SnapshotExchange {
+
+    /** The bit of the spare index that is set when the spare has not been acquired yet. */
+    private static final int FRESH = 4;
+
+    /** The bits of the spare index that hold the index of the snapshot. */
+    private static final int INDEX_MASK = 3;
+
+    /** The snapshots that are recycled. */
+    private final BallSnapshot[] mySnapshots = {
+        new BallSnapshot(), new BallSnapshot(), new BallSnapshot(),
+    };
+
+    /** The index of the spare snapshot, with FRESH set when it has not been acquired. */
+    private final AtomicInteger mySpare = new AtomicInteger(1);
+
+    /** The index of the back snapshot; only used by the publishing thread. */
+    private int myBack;
+
+    /** The index of the front snapshot; only used by the acquiring thread. */
+    private int myFront = 2;
+
+    /**
+     * Returns the snapshot the publishing thread fills before calling publish.
+     *
+     * @return the back snapshot
+     */
+    BallSnapshot getBack() {
+        return mySnapshots[myBack];
+    }
+
+    /**
+     * Makes the back snapshot the latest one and takes the spare as the new back
+     * snapshot. Everything written to the back snapshot before this call is seen by the
+     * thread that acquires it.
+     */
+    void publish() {
+        myBack = mySpare.getAndSet(myBack | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns the latest published snapshot, or the snapshot returned last time when
+     * nothing was published since. The snapshot is not written to until the next call,
+     * so the acquiring thread may change it, for example by culling it.
+     *
+     * @return the front snapshot
+     */
+    BallSnapshot acquire() {
+        // only this thread clears FRESH, so the spare is still fresh when swapped below
+        if ((mySpare.get() & FRESH) != 0) {
+            myFront = mySpare.getAndSet(myFront) & INDEX_MASK;
+        }
+        return mySnapshots[myFront];
+    }
+}
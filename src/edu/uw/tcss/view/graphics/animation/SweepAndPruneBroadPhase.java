@@ -0,0 +1,278 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * A sort and sweep broad phase. The balls are kept sorted by their left edge and by
+ * their top edge. A sweep along one of the two orders only tests a ball against the
+ * balls that follow it until their edges are more than its diameter apart.
+ *
+ * <p>A ball moves at most ANIMATION_STEP pixels per tick, so the orders barely change
+ * from one tick to the next. They are kept between ticks and repaired with an insertion
+ * sort, which is close to O(n) for an order that is almost sorted. Each tick sweeps the
+ * axis along which the balls are spread out the most. Balls piled up in a narrow band
+ * are therefore swept along the band instead of across it.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class SweepAndPruneBroadPhase implements BroadPhase {
+
+    /** The balls sorted by the x coordinate of their left edge. */
+    private final SortedAxis myHorizontal = new SortedAxis(true);
+
+    /** The balls sorted by the y coordinate of their top edge. */
+    private final SortedAxis myVertical = new SortedAxis(false);
+
+    @Override
+    public void findCollisions(final BallStore theBalls, final CollisionPairs thePairs) {
+        myHorizontal.update(theBalls);
+        myVertical.update(theBalls);
+        SortedAxis sweep = myHorizontal;
+        if (myVertical.getSpread() > myHorizontal.getSpread()) {
+            sweep = myVertical;
+        }
+        sweep.sweep(theBalls, thePairs);
+    }
+
+    @Override
+    public void renumber(final int[] theNewIndex, final int theCount) {
+        myHorizontal.renumber(theNewIndex, theCount);
+        myVertical.renumber(theNewIndex, theCount);
+    }
+
+    /** The balls sorted along one axis, kept from one tick to the next. */
+    private static final class SortedAxis {
+
+        /** True for the x axis, false for the y axis. */
+        private final boolean myIsHorizontal;
+
+        /** The ball indices in order of their edge along this axis. */
+        private int[] myOrder = new int[0];
+
+        /** The edge of each ball in myOrder, in the same order. */
+        private double[] myEdges = new double[0];
+
+        /** The edge along the other axis of each ball in myOrder, in the same order. */
+        private double[] myCrossEdges = new double[0];
+
+        /** Scratch space for myOrder while merge sorting. */
+        private int[] myScratchOrder = new int[0];
+
+        /** Scratch space for myEdges while merge sorting. */
+        private double[] myScratchEdges = new double[0];
+
+        /** Scratch space for myCrossEdges while merge sorting. */
+        private double[] myScratchCrossEdges = new double[0];
+
+        /** The number of balls in myOrder. */
+        private int mySize;
+
+        /** The variance of the edges at the latest update. */
+        private double mySpread;
+
+        /**
+         * Constructs an empty axis.
+         *
+         * @param theIsHorizontal true for the x axis, false for the y axis
+         */
+        SortedAxis(final boolean theIsHorizontal) {
+            super();
+            myIsHorizontal = theIsHorizontal;
+        }
+
+        /**
+         * Returns how spread out the balls are along this axis.
+         *
+         * @return the variance of the edges at the latest update
+         */
+        double getSpread() {
+            return mySpread;
+        }
+
+        /**
+         * Replaces every index in the order with the ball's new index. The order of
+         * the balls along the axis stays the same. Balls added since the last update
+         * no longer follow the order at its end, so then the order is dropped and
+         * the next update sorts every ball again.
+         *
+         * @param theNewIndex the new index of each ball by its old index
+         * @param theCount the number of balls
+         */
+        void renumber(final int[] theNewIndex, final int theCount) {
+            if (theCount != mySize) {
+                mySize = 0;
+            }
+            for (int k = 0; k < mySize; k++) {
+                myOrder[k] = theNewIndex[myOrder[k]];
+            }
+        }
+
+        /**
+         * Reads every ball's current edge and repairs the order with an insertion sort.
+         * Balls added since the last update start at the end of the order, which can
+         * be far from sorted, so after adding balls the order is merge sorted instead.
+         *
+         * @param theBalls the balls
+         */
+        void update(final BallStore theBalls) {
+            final int count = theBalls.size();
+            if (count < mySize) {
+                // balls were removed, so the old order refers to balls that are gone
+                mySize = 0;
+            }
+            if (myOrder.length < count) {
+                myOrder = Arrays.copyOf(myOrder, theBalls.capacity());
+                myEdges = Arrays.copyOf(myEdges, theBalls.capacity());
+                myCrossEdges = Arrays.copyOf(myCrossEdges, theBalls.capacity());
+                myScratchOrder = new int[theBalls.capacity()];
+                myScratchEdges = new double[theBalls.capacity()];
+                myScratchCrossEdges = new double[theBalls.capacity()];
+            }
+            final boolean added = count > mySize;
+            for (int k = mySize; k < count; k++) {
+                myOrder[k] = k;
+            }
+            mySize = count;
+
+            double sum = 0;
+            for (int k = 0; k < count; k++) {
+                myEdges[k] = edgeOf(theBalls, myOrder[k], myIsHorizontal);
+                myCrossEdges[k] = edgeOf(theBalls, myOrder[k], !myIsHorizontal);
+                sum += myEdges[k];
+            }
+            if (added) {
+                mergeSort();
+            } else {
+                insertionSort();
+            }
+
+            final double mean = sum / Math.max(1, count);
+            double squares = 0;
+            for (int k = 0; k < count; k++) {
+                squares += (myEdges[k] - mean) * (myEdges[k] - mean);
+            }
+            mySpread = squares / Math.max(1, count);
+        }
+
+        /**
+         * Adds every pair of balls that collide to thePairs, testing each ball only
+         * against the balls after it whose edges are no more than its own diameter away.
+         * Balls whose other edges are more than the largest diameter apart are skipped
+         * without looking them up in theBalls, so the inner loop reads memory in order.
+         *
+         * @param theBalls the balls
+         * @param thePairs the list the colliding pairs are added to
+         */
+        void sweep(final BallStore theBalls, final CollisionPairs thePairs) {
+            final double maxDiameter = theBalls.getMaxDiameter();
+            for (int k = 0; k < mySize; k++) {
+                final double reach = myEdges[k] + theBalls.getDiameter(myOrder[k]);
+                final double cross = myCrossEdges[k];
+                for (int m = k + 1; m < mySize && myEdges[m] <= reach; m++) {
+                    if (Math.abs(myCrossEdges[m] - cross) <= maxDiameter
+                            && theBalls.collide(myOrder[k], myOrder[m])) {
+                        thePairs.add(myOrder[k], myOrder[m]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sorts myEdges, and myOrder and myCrossEdges with it, by insertion sort. Each
+         * ball is only moved past the balls that overtook it since the last tick.
+         */
+        private void insertionSort() {
+            for (int k = 1; k < mySize; k++) {
+                final double edge = myEdges[k];
+                if (edge < myEdges[k - 1]) {
+                    final int ball = myOrder[k];
+                    final double crossEdge = myCrossEdges[k];
+                    int m = k - 1;
+                    while (m >= 0 && myEdges[m] > edge) {
+                        myEdges[m + 1] = myEdges[m];
+                        myOrder[m + 1] = myOrder[m];
+                        myCrossEdges[m + 1] = myCrossEdges[m];
+                        m--;
+                    }
+                    myEdges[m + 1] = edge;
+                    myOrder[m + 1] = ball;
+                    myCrossEdges[m + 1] = crossEdge;
+                }
+            }
+        }
+
+        /** Sorts myEdges, and myOrder and myCrossEdges with it, by bottom up merge sort. */
+        private void mergeSort() {
+            for (int width = 1; width < mySize; width *= 2) {
+                for (int low = 0; low < mySize; low += 2 * width) {
+                    merge(low, Math.min(low + width, mySize),
+                          Math.min(low + 2 * width, mySize));
+                }
+                swapScratch();
+            }
+        }
+
+        /**
+         * Merges the sorted runs theLow to theMiddle and theMiddle to theHigh of the
+         * arrays into the same positions of the scratch arrays.
+         *
+         * @param theLow the start of the first run
+         * @param theMiddle the end of the first run and start of the second
+         * @param theHigh the end of the second run
+         */
+        private void merge(final int theLow, final int theMiddle, final int theHigh) {
+            int first = theLow;
+            int second = theMiddle;
+            for (int k = theLow; k < theHigh; k++) {
+                int from = second;
+                if (second >= theHigh
+                        || first < theMiddle && myEdges[first] <= myEdges[second]) {
+                    from = first;
+                    first++;
+                } else {
+                    second++;
+                }
+                myScratchOrder[k] = myOrder[from];
+                myScratchEdges[k] = myEdges[from];
+                myScratchCrossEdges[k] = myCrossEdges[from];
+            }
+        }
+
+        /** Swaps the arrays with their scratch arrays after a merge pass. */
+        private void swapScratch() {
+            final int[] order = myOrder;
+            myOrder = myScratchOrder;
+            myScratchOrder = order;
+            final double[] edges = myEdges;
+            myEdges = myScratchEdges;
+            myScratchEdges = edges;
+            final double[] crossEdges = myCrossEdges;
+            myCrossEdges = myScratchCrossEdges;
+            myScratchCrossEdges = crossEdges;
+        }
+
+        /**
+         * Returns the left or top edge of ball theIndex.
+         *
+         * @param theBalls the balls
+         * @param theIndex the index of the ball
+         * @param theHorizontal true for the left edge, false for the top edge
+         * @return the left edge or the top edge
+         */
+        private static double edgeOf(final BallStore theBalls, final int theIndex,
+                                     final boolean theHorizontal) {
+            double result = theBalls.getY(theIndex);
+            if (theHorizontal) {
+                result = theBalls.getX(theIndex);
+            }
+            return result;
+        }
+    }
+}
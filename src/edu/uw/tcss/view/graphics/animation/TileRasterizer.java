@@ -0,0 +1,406 @@
+/*
+ * A parallel software rasterizer for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draws the balls of a BallSnapshot into the pixel array of an image on several threads.
+ * The image is cut into horizontal strips, and a fork/join task draws each strip from
+ * the balls that reach into it, so no two threads ever write the same pixel. A caller
+ * then copies the image to the screen with a single drawImage.
+ *
+ * <p>Each pixel row of a ball is sampled along eight lines, the way Java2D's
+ * antialiasing renderer samples a pixel, and the part of each line the circle covers
+ * is added up exactly. The coverage becomes the alpha with which the ball's color is
+ * blended over the pixel. The balls of a strip are drawn in index order, so overlapping
+ * balls come out as they do when Java2D draws them one by one.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class TileRasterizer {
+
+    /** The number of strips per thread, so that an uneven strip does not stall the rest. */
+    private static final int STRIPS_PER_THREAD = 4;
+
+    /** The number of lines each pixel row is sampled along. */
+    private static final int SAMPLES = 8;
+
+    /** The coverage one sample line adds to a pixel it crosses completely. */
+    private static final double SAMPLE_WEIGHT = 1.0 / SAMPLES;
+
+    /** The largest value of a color or alpha channel. */
+    private static final int OPAQUE = 255;
+
+    /** The number of bits the alpha channel is shifted by in a pixel. */
+    private static final int ALPHA_SHIFT = 24;
+
+    /** The number of bits the red channel is shifted by in a pixel. */
+    private static final int RED_SHIFT = 16;
+
+    /** The number of bits the green channel is shifted by in a pixel. */
+    private static final int GREEN_SHIFT = 8;
+
+    /** The mask that keeps the lowest channel of a pixel. */
+    private static final int CHANNEL_MASK = 0xFF;
+
+    /** Half a pixel. */
+    private static final double HALF = 0.5;
+
+    /** The threads that draw the strips. */
+    private final ForkJoinPool myPool;
+
+    /** The scratch space of each strip. */
+    private final Strip[] myStrips;
+
+    /** The image drawn into; it only grows, and a frame uses its upper left corner. */
+    private BufferedImage myImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+
+    /** The pixels of myImage. */
+    private int[] myPixels = pixelsOf(myImage);
+
+    /** The balls of the frame being drawn. */
+    private BallSnapshot mySnapshot;
+
+    /** The scale from user space to device space. */
+    private double myScale;
+
+    /** The x coordinate in image pixels of the user space origin. */
+    private double myOriginX;
+
+    /** The y coordinate in image pixels of the user space origin. */
+    private double myOriginY;
+
+    /** The width in pixels of the part of the image this frame uses. */
+    private int myWidth;
+
+    /** The height in pixels of the part of the image this frame uses. */
+    private int myHeight;
+
+    /**
+     * Constructs a rasterizer that draws with theParallelism threads.
+     *
+     * @param theParallelism the number of threads to draw with
+     * @throws IllegalArgumentException when theParallelism is not positive
+     */
+    TileRasterizer(final int theParallelism) {
+        super();
+        if (theParallelism <= 0) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be positive. Was: " + theParallelism);
+        }
+        myPool = new ForkJoinPool(theParallelism);
+        myStrips = new Strip[theParallelism * STRIPS_PER_THREAD];
+        for (int strip = 0; strip < myStrips.length; strip++) {
+            myStrips[strip] = new Strip();
+        }
+    }
+
+    /**
+     * Draws the balls of theSnapshot that reach into theRegion of device space onto a
+     * transparent image. Pixel (0, 0) of the image is the upper left corner of theRegion,
+     * and only the upper left theRegion.width by theRegion.height pixels of the image
+     * belong to this frame. The image is reused by the next call.
+     *
+     * @param theSnapshot the balls to draw, each at its own diameter
+     * @param theTransform the transform from user space to device space, which must only
+     *                     translate and scale uniformly
+     * @param theRegion the part of device space to draw
+     * @return the image
+     */
+    BufferedImage render(final BallSnapshot theSnapshot, final AffineTransform theTransform,
+                         final Rectangle theRegion) {
+        myWidth = Math.max(0, theRegion.width);
+        myHeight = Math.max(0, theRegion.height);
+        if (myImage.getWidth() < myWidth || myImage.getHeight() < myHeight) {
+            myImage = new BufferedImage(Math.max(myImage.getWidth(), myWidth),
+                                        Math.max(myImage.getHeight(), myHeight),
+                                        BufferedImage.TYPE_INT_ARGB_PRE);
+            myPixels = pixelsOf(myImage);
+        }
+        mySnapshot = theSnapshot;
+        myScale = theTransform.getScaleX();
+        myOriginX = theTransform.getTranslateX() - theRegion.x;
+        myOriginY = theTransform.getTranslateY() - theRegion.y;
+        for (final Strip strip : myStrips) {
+            strip.ensureCapacity(theSnapshot.capacity(), myWidth);
+        }
+        myPool.invoke(new StripTask(0, myStrips.length));
+        return myImage;
+    }
+
+    /**
+     * Clears the rows of strip theStrip and draws every ball that reaches into them.
+     *
+     * @param theStrip the index of the strip
+     */
+    private void drawStrip(final int theStrip) {
+        final int firstRow = myHeight * theStrip / myStrips.length;
+        final int endRow = myHeight * (theStrip + 1) / myStrips.length;
+        final int stride = myImage.getWidth();
+        for (int row = firstRow; row < endRow; row++) {
+            Arrays.fill(myPixels, row * stride, row * stride + myWidth, 0);
+        }
+        if (firstRow < endRow) {
+            final Strip strip = myStrips[theStrip];
+            final int count = mySnapshot.findRows(
+                    (firstRow - myOriginY) / myScale - mySnapshot.getMaxDiameter() - 1,
+                    (endRow - myOriginY) / myScale + 1, strip.myBalls);
+            for (int k = 0; k < count; k++) {
+                drawBall(strip, strip.myBalls[k], firstRow, endRow);
+            }
+        }
+    }
+
+    /**
+     * Draws the rows from theFirstRow up to theEndRow of ball theIndex.
+     *
+     * @param theStrip the scratch space of the strip
+     * @param theIndex the index of the ball in the snapshot
+     * @param theFirstRow the first row of the strip
+     * @param theEndRow one past the last row of the strip
+     */
+    private void drawBall(final Strip theStrip, final int theIndex, final int theFirstRow,
+                          final int theEndRow) {
+        final double radius = mySnapshot.getDiameter(theIndex) * myScale * HALF;
+        final double centerX = myOriginX + mySnapshot.getX(theIndex) * myScale + radius;
+        final double centerY = myOriginY + mySnapshot.getY(theIndex) * myScale + radius;
+        final int firstColumn = Math.max(0, (int) Math.floor(centerX - radius));
+        final int endColumn = Math.min(myWidth, (int) Math.ceil(centerX + radius));
+        final int firstRow = Math.max(theFirstRow, (int) Math.floor(centerY - radius));
+        final int endRow = Math.min(theEndRow, (int) Math.ceil(centerY + radius));
+        final int color =
+                mySnapshot.getPaletteColor(mySnapshot.getColorIndex(theIndex)).getRGB();
+        for (int row = firstRow; row < endRow && firstColumn < endColumn; row++) {
+            theStrip.cover(row, centerX, centerY, radius, firstColumn, endColumn);
+            blendRow(theStrip, color, row * myImage.getWidth(), firstColumn, endColumn);
+        }
+    }
+
+    /**
+     * Blends theColor over the pixels from theFirstColumn up to theEndColumn of a row,
+     * each with the coverage theStrip found for it. The pixels every sample line crosses
+     * are covered completely, so an opaque color simply replaces them.
+     *
+     * @param theStrip the scratch space holding the coverage of the row
+     * @param theColor the color of the ball, not premultiplied
+     * @param theRowStart the index in myPixels of the row's first pixel
+     * @param theFirstColumn the first column covered
+     * @param theEndColumn one past the last column covered
+     */
+    private void blendRow(final Strip theStrip, final int theColor, final int theRowStart,
+                          final int theFirstColumn, final int theEndColumn) {
+        final int colorAlpha = theColor >>> ALPHA_SHIFT;
+        int innerLeft = theStrip.myInnerLeft;
+        if (colorAlpha < OPAQUE || innerLeft == theStrip.myInnerRight) {
+            innerLeft = -1;
+        }
+        double full = 0;
+        int column = theFirstColumn;
+        while (column < theEndColumn) {
+            full += theStrip.myFull[column];
+            if (column == innerLeft) {
+                Arrays.fill(myPixels, theRowStart + column,
+                            theRowStart + theStrip.myInnerRight, theColor);
+                while (column + 1 < theStrip.myInnerRight) {
+                    column++;
+                    full += theStrip.myFull[column];
+                }
+            } else {
+                final double coverage = full + theStrip.myPartial[column];
+                blendPixel(theColor, (int) (coverage * colorAlpha + HALF),
+                           theRowStart + column);
+            }
+            column++;
+        }
+    }
+
+    /**
+     * Lays theColor with theAlpha over the pixel at theIndex of myPixels.
+     *
+     * @param theColor the color, not premultiplied
+     * @param theAlpha the alpha to lay it over with, from 0 to 255
+     * @param theIndex the index of the pixel in myPixels
+     */
+    private void blendPixel(final int theColor, final int theAlpha, final int theIndex) {
+        if (theAlpha >= OPAQUE) {
+            myPixels[theIndex] = theColor;
+        } else if (theAlpha > 0) {
+            myPixels[theIndex] = blend(theColor, theAlpha, myPixels[theIndex]);
+        }
+    }
+
+    /**
+     * Returns theColor with theAlpha laid over thePixel, both premultiplied.
+     *
+     * @param theColor the color, not premultiplied
+     * @param theAlpha the alpha to lay it over with, from 0 to 255
+     * @param thePixel the premultiplied pixel underneath
+     * @return the premultiplied result
+     */
+    private static int blend(final int theColor, final int theAlpha, final int thePixel) {
+        final int rest = OPAQUE - theAlpha;
+        int result = 0;
+        for (int shift = 0; shift < ALPHA_SHIFT; shift += GREEN_SHIFT) {
+            final int channel = ((theColor >>> shift & CHANNEL_MASK) * theAlpha
+                    + (thePixel >>> shift & CHANNEL_MASK) * rest + OPAQUE / 2) / OPAQUE;
+            result |= channel << shift;
+        }
+        final int alpha = theAlpha
+                + ((thePixel >>> ALPHA_SHIFT) * rest + OPAQUE / 2) / OPAQUE;
+        return result | alpha << ALPHA_SHIFT;
+    }
+
+    /**
+     * Returns the pixel array of theImage.
+     *
+     * @param theImage an image of type TYPE_INT_ARGB_PRE
+     * @return its pixels, one int per pixel, row by row
+     */
+    private static int[] pixelsOf(final BufferedImage theImage) {
+        return ((DataBufferInt) theImage.getRaster().getDataBuffer()).getData();
+    }
+
+    /** The scratch space of one strip. */
+    private static final class Strip {
+
+        /** The indices of the balls that reach into the strip. */
+        private int[] myBalls = new int[0];
+
+        /**
+         * The coverage added to every pixel from each column on, by sample lines that
+         * cross the pixels completely.
+         */
+        private double[] myFull = new double[0];
+
+        /** The coverage of each pixel by sample lines that end inside it. */
+        private double[] myPartial = new double[0];
+
+        /** The first column of the current row that every sample line crosses. */
+        private int myInnerLeft;
+
+        /** One past the last column of the current row that every sample line crosses. */
+        private int myInnerRight;
+
+        /**
+         * Grows the arrays to hold theBalls balls and a row theWidth pixels wide.
+         *
+         * @param theBalls the number of balls
+         * @param theWidth the width of a row
+         */
+        void ensureCapacity(final int theBalls, final int theWidth) {
+            if (myBalls.length < theBalls) {
+                myBalls = new int[theBalls];
+            }
+            if (myFull.length < theWidth + 1) {
+                myFull = new double[theWidth + 1];
+                myPartial = new double[theWidth + 1];
+            }
+        }
+
+        /**
+         * Finds how much of each pixel from theFirstColumn up to theEndColumn of theRow a
+         * circle covers. The result is left in myFull and myPartial, and the columns
+         * that every sample line crosses completely in myInnerLeft and myInnerRight.
+         *
+         * @param theRow the pixel row
+         * @param theCenterX the x coordinate of the circle's center
+         * @param theCenterY the y coordinate of the circle's center
+         * @param theRadius the radius of the circle
+         * @param theFirstColumn the first column to cover
+         * @param theEndColumn one past the last column to cover
+         */
+        void cover(final int theRow, final double theCenterX, final double theCenterY,
+                   final double theRadius, final int theFirstColumn,
+                   final int theEndColumn) {
+            Arrays.fill(myFull, theFirstColumn, theEndColumn + 1, 0);
+            Arrays.fill(myPartial, theFirstColumn, theEndColumn + 1, 0);
+            double innerLeft = theFirstColumn;
+            double innerRight = theEndColumn;
+            for (int sample = 0; sample < SAMPLES; sample++) {
+                final double dy = theRow + (sample + HALF) / SAMPLES - theCenterY;
+                final double halfWidth =
+                        Math.sqrt(Math.max(0, theRadius * theRadius - dy * dy));
+                final double left = Math.max(theFirstColumn, theCenterX - halfWidth);
+                final double right = Math.min(theEndColumn, theCenterX + halfWidth);
+                if (left < right) {
+                    addSpan(left, right);
+                }
+                innerLeft = Math.max(innerLeft, left);
+                innerRight = Math.min(innerRight, right);
+            }
+            myInnerLeft = (int) Math.ceil(innerLeft);
+            myInnerRight = Math.max(myInnerLeft, (int) Math.floor(innerRight));
+        }
+
+        /**
+         * Adds one sample line's coverage from theLeft to theRight.
+         *
+         * @param theLeft where the line enters the circle
+         * @param theRight where the line leaves the circle
+         */
+        private void addSpan(final double theLeft, final double theRight) {
+            final int leftPixel = (int) theLeft;
+            final int rightPixel = (int) theRight;
+            if (leftPixel == rightPixel) {
+                myPartial[leftPixel] += (theRight - theLeft) * SAMPLE_WEIGHT;
+            } else {
+                myPartial[leftPixel] += (leftPixel + 1 - theLeft) * SAMPLE_WEIGHT;
+                myPartial[rightPixel] += (theRight - rightPixel) * SAMPLE_WEIGHT;
+                myFull[leftPixel + 1] += SAMPLE_WEIGHT;
+                myFull[rightPixel] -= SAMPLE_WEIGHT;
+            }
+        }
+    }
+
+    /**
+     * A task that draws a range of strips, splitting the range in half until each task
+     * has a single strip.
+     */
+    private final class StripTask extends RecursiveAction {
+
+        /** A generated version ID for Serialization. */
+        @Serial
+        private static final long serialVersionUID = 7_305_016_224_910_337_582L;
+
+        /** The first strip this task draws. */
+        private final int myFrom;
+
+        /** One past the last strip this task draws. */
+        private final int myTo;
+
+        /**
+         * Constructs a task for strips theFrom (inclusive) to theTo (exclusive).
+         *
+         * @param theFrom the first strip
+         * @param theTo one past the last strip
+         */
+        StripTask(final int theFrom, final int theTo) {
+            super();
+            myFrom = theFrom;
+            myTo = theTo;
+        }
+
+        @Override
+        protected void compute() {
+            if (myTo - myFrom == 1) {
+                drawStrip(myFrom);
+            } else {
+                final int middle = (myFrom + myTo) >>> 1;
+                invokeAll(new StripTask(myFrom, middle), new StripTask(middle, myTo));
+            }
+        }
+    }
+}
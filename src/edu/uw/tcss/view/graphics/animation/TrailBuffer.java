@@ -0,0 +1,158 @@
+/*
+ * Motion trails for the animation examples.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.function.Consumer;
+
+/**
+ * An image that keeps what was drawn in earlier frames and fades it a little each frame,
+ * so moving shapes leave trails behind them. A frame fades the whole image once with a
+ * DST_OUT AlphaComposite and then draws the shapes where they are now, so the cost of a
+ * frame does not depend on how long the trails are.
+ *
+ * <p>A frame is a step of the animation, not a paint. The caller numbers the frames and
+ * the image only fades when the number changes, so extra paints, such as after the
+ * window is uncovered, and paints that Swing coalesces do not change how long the
+ * trails are.
+ *
+ * <p>The image has 8 bits of alpha, and fading a pixel whose alpha is already small
+ * rounds back to the same alpha, so faint ghosts would never fade out. Every
+ * CLEANUP_PERIOD frames the pixels too faint to fade any further are cleared.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class TrailBuffer {
+
+    /** The default fraction of its alpha a pixel loses each frame. */
+    static final double DEFAULT_FADE = 0.1;
+
+    /** The number of frames between clearing the pixels too faint to fade. */
+    static final int CLEANUP_PERIOD = 16;
+
+    /** The largest value of the alpha channel. */
+    private static final int OPAQUE = 255;
+
+    /** The number of bits the alpha channel is shifted by in a pixel. */
+    private static final int ALPHA_SHIFT = 24;
+
+    /** Half of one step of alpha. */
+    private static final double HALF = 0.5;
+
+    /** The composite that fades the image. */
+    private final AlphaComposite myFade;
+
+    /** The largest alpha that fading leaves unchanged. */
+    private final int myStuckAlpha;
+
+    /** The trails, premultiplied; null until the first frame. */
+    private BufferedImage myImage;
+
+    /** The number of frames drawn since construction. */
+    private long myFrames;
+
+    /** The number of the latest frame drawn. */
+    private long myFrame;
+
+    /**
+     * Constructs an empty buffer whose trails lose theFade of their alpha each frame.
+     *
+     * @param theFade the fraction of alpha lost per frame; larger gives shorter trails
+     * @throws IllegalArgumentException when theFade is not greater than 0 and at most 1
+     */
+    TrailBuffer(final double theFade) {
+        super();
+        if (!(theFade > 0 && theFade <= 1)) {
+            throw new IllegalArgumentException(
+                    "Fade must be greater than 0 and at most 1. Was: " + theFade);
+        }
+        myFade = AlphaComposite.getInstance(AlphaComposite.DST_OUT, (float) theFade);
+        // a pixel with alpha a keeps a when a * theFade rounds to nothing
+        myStuckAlpha = Math.min(OPAQUE, (int) Math.ceil(HALF / theFade));
+    }
+
+    /**
+     * Fades the trails once and lets theStamp draw frame theFrame over them, unless that
+     * frame is already drawn. The trails are dropped when the size changes, and the
+     * frame is then drawn on the empty image.
+     *
+     * @param theWidth the width of the area the trails cover
+     * @param theHeight the height of the area the trails cover
+     * @param theFrame the number of the animation step to draw
+     * @param theStamp draws the shapes where they are now, with the graphics of the image
+     */
+    void update(final int theWidth, final int theHeight, final long theFrame,
+                final Consumer<Graphics2D> theStamp) {
+        final boolean resized = myImage == null || myImage.getWidth() != theWidth
+                || myImage.getHeight() != theHeight;
+        if (resized) {
+            myImage = new BufferedImage(Math.max(1, theWidth), Math.max(1, theHeight),
+                                        BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        if (resized || theFrame != myFrame) {
+            myFrame = theFrame;
+            drawFrame(theStamp);
+        }
+    }
+
+    /**
+     * Draws the trails at the upper left corner of theGraphics.
+     *
+     * @param theGraphics the graphics to draw with
+     */
+    void draw(final Graphics2D theGraphics) {
+        if (myImage != null) {
+            theGraphics.drawImage(myImage, 0, 0, null);
+        }
+    }
+
+    /** Drops all trails; the next frame starts from a clear image. */
+    void clear() {
+        myImage = null;
+    }
+
+    /**
+     * Returns the image holding the trails.
+     *
+     * @return the image, or null before the first frame
+     */
+    BufferedImage getImage() {
+        return myImage;
+    }
+
+    /**
+     * Fades the trails once and lets theStamp draw the current frame over them.
+     *
+     * @param theStamp draws the shapes where they are now, with the graphics of the image
+     */
+    private void drawFrame(final Consumer<Graphics2D> theStamp) {
+        final Graphics2D graphics = myImage.createGraphics();
+        graphics.setComposite(myFade);
+        graphics.fillRect(0, 0, myImage.getWidth(), myImage.getHeight());
+        graphics.setComposite(AlphaComposite.SrcOver);
+        myFrames++;
+        if (myFrames % CLEANUP_PERIOD == 0) {
+            clearStuckPixels();
+        }
+        theStamp.accept(graphics);
+        graphics.dispose();
+    }
+
+    /** Clears the pixels whose alpha is too small to fade any further. */
+    private void clearStuckPixels() {
+        final int[] pixels = ((DataBufferInt) myImage.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i++) {
+            if (pixels[i] >>> ALPHA_SHIFT <= myStuckAlpha) {
+                pixels[i] = 0;
+            }
+        }
+    }
+}
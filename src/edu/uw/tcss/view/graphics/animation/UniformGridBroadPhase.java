@@ -0,0 +1,315 @@
+/*
+ * Broad-phase collision detection for the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import java.util.Arrays;
+
+/**
+ * A uniform spatial hash grid. Every ball is hashed into the square cell that holds its
+ * center. Because the cells are at least as wide as the largest ball, two balls can only
+ * collide when their cells are neighbors, so each ball is only tested against the balls
+ * in the 3 x 3 block of cells around it. A few large balls therefore make the cells
+ * large for every ball; HierarchicalGridBroadPhase handles mixed sizes better.
+ *
+ * <p>The grid is rebuilt from scratch every tick with a counting sort, which is O(n) and
+ * reuses its arrays between ticks. Between ticks it answers overlap queries for new
+ * balls from the cells around them, so adding a burst of balls does not test each one
+ * against every ball.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class UniformGridBroadPhase implements BroadPhase {
+
+    /** A large prime used to hash the column of a cell. */
+    private static final int COLUMN_PRIME = 73_856_093;
+
+    /** A large prime used to hash the row of a cell. */
+    private static final int ROW_PRIME = 19_349_663;
+
+    /** The number of cells in the 3 x 3 block around a cell. */
+    private static final int NEIGHBOR_CELLS = 9;
+
+    /** The smallest side length (in pixels) of one grid cell. */
+    private final double myMinCellSize;
+
+    /** How much wider than the largest ball a cell must be. */
+    private final double myMargin;
+
+    /** The side length (in pixels) of one grid cell since the latest rebuild. */
+    private double myCellSize;
+
+    /** The hash bucket of each ball. */
+    private int[] myBucketOf;
+
+    /** The index of the first entry of each bucket, plus an end marker. */
+    private int[] myBucketStart;
+
+    /** The ball indices sorted by bucket. */
+    private int[] myEntries;
+
+    /** The number of buckets minus one; the bucket count is a power of two. */
+    private int myBucketMask;
+
+    /** The buckets already searched by collectNear. */
+    private final int[] myVisitedBuckets = new int[NEIGHBOR_CELLS];
+
+    /** The number of balls in the grid; balls added since are not. */
+    private int myBuiltCount;
+
+    /** The removal count of the balls at the latest rebuild. */
+    private long myBuiltRemovals;
+
+    /** The move count of the balls at the latest rebuild. */
+    private long myBuiltMoves;
+
+    /** True when the balls were reordered since the latest rebuild. */
+    private boolean myReordered;
+
+    /**
+     * Constructs a grid whose cells are theCellSize pixels square, or as wide as the
+     * largest ball if that is wider.
+     *
+     * @param theCellSize the smallest side length of a cell
+     * @throws IllegalArgumentException when theCellSize is not positive
+     */
+    UniformGridBroadPhase(final double theCellSize) {
+        this(theCellSize, 0);
+    }
+
+    /**
+     * Constructs a grid whose cells are theCellSize pixels square, or theMargin pixels
+     * wider than the largest ball if that is wider. A margin makes the 3 x 3 block
+     * around a ball hold every ball that comes within theMargin pixels of touching it.
+     *
+     * @param theCellSize the smallest side length of a cell
+     * @param theMargin how much wider than the largest ball a cell must be
+     * @throws IllegalArgumentException when theCellSize is not positive or theMargin is
+     *         negative
+     */
+    UniformGridBroadPhase(final double theCellSize, final double theMargin) {
+        super();
+        if (theCellSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Cell size must be positive. Was: " + theCellSize);
+        }
+        if (theMargin < 0) {
+            throw new IllegalArgumentException(
+                    "Margin must not be negative. Was: " + theMargin);
+        }
+        myMinCellSize = theCellSize;
+        myMargin = theMargin;
+        myCellSize = theCellSize;
+        myBucketOf = new int[0];
+        myBucketStart = new int[2];
+        myEntries = new int[0];
+    }
+
+    @Override
+    public void findCollisions(final BallStore theBalls, final CollisionPairs thePairs) {
+        rebuild(theBalls);
+        for (int i = 0; i < theBalls.size(); i++) {
+            findCollisions(theBalls, i, thePairs);
+        }
+    }
+
+    @Override
+    public boolean overlapsAny(final BallStore theBalls, final double theX,
+                               final double theY, final double theDiameter) {
+        if (isStale(theBalls)) {
+            // one rebuild serves every query until the balls change again
+            rebuild(theBalls);
+        }
+        final double radius = theDiameter / 2;
+        // a ball in the grid is at most a cell wide, so its center is this close if it
+        // touches the new ball
+        final double reach = radius + myCellSize / 2;
+        final int lastColumn = cellOf(theX + radius + reach);
+        final int lastRow = cellOf(theY + radius + reach);
+        boolean result = false;
+        for (int column = cellOf(theX + radius - reach); column <= lastColumn && !result;
+                column++) {
+            for (int row = cellOf(theY + radius - reach); row <= lastRow && !result; row++) {
+                final int bucket = bucketOf(column, row);
+                for (int e = myBucketStart[bucket]; e < myBucketStart[bucket + 1]
+                        && !result; e++) {
+                    result = theBalls.overlaps(myEntries[e], theX, theY, theDiameter);
+                }
+            }
+        }
+        // balls added since the latest rebuild are not in the grid yet
+        for (int i = myBuiltCount; i < theBalls.size() && !result; i++) {
+            result = theBalls.overlaps(i, theX, theY, theDiameter);
+        }
+        return result;
+    }
+
+    @Override
+    public void renumber(final int[] theNewIndex, final int theCount) {
+        myReordered = true;
+    }
+
+    /**
+     * Adds every pair of ball theIndex and a higher numbered ball that collide to
+     * thePairs. The grid must have been rebuilt for theBalls first. This only reads the
+     * grid, so several threads may call it at once.
+     *
+     * @param theBalls the balls in the grid
+     * @param theIndex the index of the ball to check
+     * @param thePairs the list the colliding pairs are added to
+     */
+    void findCollisions(final BallStore theBalls, final int theIndex,
+                        final CollisionPairs thePairs) {
+        final int column = cellOf(theBalls.getCenterX(theIndex));
+        final int row = cellOf(theBalls.getCenterY(theIndex));
+        for (int dc = -1; dc <= 1; dc++) {
+            for (int dr = -1; dr <= 1; dr++) {
+                final int bucket = bucketOf(column + dc, row + dr);
+                for (int e = myBucketStart[bucket]; e < myBucketStart[bucket + 1]; e++) {
+                    final int j = myEntries[e];
+                    if (j > theIndex && theBalls.collide(theIndex, j)) {
+                        thePairs.add(theIndex, j);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies every ball other than theIndex in the 3 x 3 block of cells around ball
+     * theIndex into theNear, each ball once. The block may also hold balls from far away
+     * cells that share a bucket. The grid must have been rebuilt for theBalls first.
+     * Unlike the collision search this is not safe to call from several threads.
+     *
+     * @param theBalls the balls in the grid
+     * @param theIndex the index of the ball whose neighbors are wanted
+     * @param theNear the array the neighbors are copied into; must fit every ball
+     * @return the number of neighbors copied
+     */
+    int collectNear(final BallStore theBalls, final int theIndex, final int[] theNear) {
+        final int column = cellOf(theBalls.getCenterX(theIndex));
+        final int row = cellOf(theBalls.getCenterY(theIndex));
+        int visited = 0;
+        int count = 0;
+        for (int dc = -1; dc <= 1; dc++) {
+            for (int dr = -1; dr <= 1; dr++) {
+                final int bucket = bucketOf(column + dc, row + dr);
+                if (!contains(myVisitedBuckets, visited, bucket)) {
+                    myVisitedBuckets[visited] = bucket;
+                    visited++;
+                    for (int e = myBucketStart[bucket]; e < myBucketStart[bucket + 1]; e++) {
+                        if (myEntries[e] != theIndex) {
+                            theNear[count] = myEntries[e];
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true when the grid no longer holds theBalls where they are now: they were
+     * moved, removed or reordered since the latest rebuild.
+     *
+     * @param theBalls the balls
+     * @return true if the grid must be rebuilt before it is searched
+     */
+    private boolean isStale(final BallStore theBalls) {
+        return myReordered || theBalls.size() < myBuiltCount
+                || theBalls.getRemovalCount() != myBuiltRemovals
+                || theBalls.getMoveCount() != myBuiltMoves;
+    }
+
+    /**
+     * Returns true when theValue is among the first theCount elements of theArray.
+     *
+     * @param theArray the array to search
+     * @param theCount the number of elements to search
+     * @param theValue the value to look for
+     * @return true if the value was found
+     */
+    private static boolean contains(final int[] theArray, final int theCount,
+                                    final int theValue) {
+        boolean result = false;
+        for (int k = 0; k < theCount && !result; k++) {
+            result = theArray[k] == theValue;
+        }
+        return result;
+    }
+
+    /**
+     * Sizes the cells for the largest ball, hashes every ball into its bucket and sorts
+     * the ball indices by bucket.
+     *
+     * @param theBalls the balls to place in the grid
+     */
+    void rebuild(final BallStore theBalls) {
+        final int count = theBalls.size();
+        ensureCapacity(count);
+        myCellSize = Math.max(myMinCellSize, theBalls.getMaxDiameter() + myMargin);
+        Arrays.fill(myBucketStart, 0);
+        for (int i = 0; i < count; i++) {
+            final int bucket = bucketOf(cellOf(theBalls.getCenterX(i)),
+                                        cellOf(theBalls.getCenterY(i)));
+            myBucketOf[i] = bucket;
+            myBucketStart[bucket]++;
+        }
+        // turn the counts into the end offset of each bucket
+        for (int bucket = 1; bucket <= myBucketMask; bucket++) {
+            myBucketStart[bucket] += myBucketStart[bucket - 1];
+        }
+        myBucketStart[myBucketMask + 1] = count;
+        // filling each bucket backward moves every end offset back to its start offset
+        for (int i = count - 1; i >= 0; i--) {
+            final int bucket = myBucketOf[i];
+            myBucketStart[bucket]--;
+            myEntries[myBucketStart[bucket]] = i;
+        }
+        myBuiltCount = count;
+        myBuiltRemovals = theBalls.getRemovalCount();
+        myBuiltMoves = theBalls.getMoveCount();
+        myReordered = false;
+    }
+
+    /**
+     * Grows the arrays so that theCount balls fit, keeping about two buckets per ball.
+     *
+     * @param theCount the number of balls
+     */
+    private void ensureCapacity(final int theCount) {
+        if (myEntries.length < theCount) {
+            myBucketOf = new int[theCount];
+            myEntries = new int[theCount];
+            final int buckets = Integer.highestOneBit(Math.max(1, theCount) * 2 - 1) * 2;
+            myBucketStart = new int[buckets + 1];
+            myBucketMask = buckets - 1;
+        }
+    }
+
+    /**
+     * Returns the grid coordinate of thePosition.
+     *
+     * @param thePosition a pixel coordinate
+     * @return the row or column of the cell holding thePosition
+     */
+    private int cellOf(final double thePosition) {
+        return (int) Math.floor(thePosition / myCellSize);
+    }
+
+    /**
+     * Returns the hash bucket of the cell at theColumn and theRow.
+     *
+     * @param theColumn the cell column
+     * @param theRow the cell row
+     * @return the bucket index
+     */
+    private int bucketOf(final int theColumn, final int theRow) {
+        return (theColumn * COLUMN_PRIME ^ theRow * ROW_PRIME) & myBucketMask;
+    }
+}
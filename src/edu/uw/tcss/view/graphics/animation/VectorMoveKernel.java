@@ -0,0 +1,101 @@
+/*
+ * The move step of the bouncing balls example.
+ *
+ * TCSS 305
+ */
+
+package edu.uw.tcss.view.graphics.animation;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Moves the balls of an ArrayBallLayout with the Vector API, as many balls at a time as
+ * the CPU has double lanes. Each axis is handled on its own: a block of BLOCK directions
+ * is loaded as bytes and widened to doubles, the walls are found with lane compares, the
+ * positions are moved, and the new directions are narrowed back into one byte vector.
+ * The balls left over after the last whole block, and layouts that are not arrays, are
+ * moved by the scalar kernel.
+ *
+ * <p>This class uses the jdk.incubator.vector module, so it is only loaded through
+ * MoveKernelType.VECTOR, which checks the module is present first.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class VectorMoveKernel implements MoveKernel {
+
+    /** The double lanes the CPU works on best. */
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /** The directions of one block of balls, the smallest byte vector there is. */
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_64;
+
+    /** The number of balls in a block. */
+    private static final int BLOCK = BYTES.length();
+
+    /** The number of double vectors a block of directions widens into. */
+    private static final int PARTS = Math.max(1, BLOCK / DOUBLES.length());
+
+    /** Moves the balls the vectors do not cover. */
+    private final ScalarMoveKernel myScalar = new ScalarMoveKernel();
+
+    @Override
+    public void move(final BallLayout theLayout, final int theSize, final double theWidth,
+                     final double theHeight) {
+        int done = 0;
+        // a block must widen into whole double vectors
+        if (theLayout instanceof ArrayBallLayout && BLOCK % DOUBLES.length() == 0) {
+            final ArrayBallLayout arrays = (ArrayBallLayout) theLayout;
+            done = BYTES.loopBound(theSize);
+            for (int start = 0; start < done; start += BLOCK) {
+                moveAxis(arrays.getXArray(), arrays.getPreviousXArray(),
+                         arrays.getHorizontalMoveArray(), arrays.getDiameterArray(), start,
+                         theWidth);
+                moveAxis(arrays.getYArray(), arrays.getPreviousYArray(),
+                         arrays.getVerticalMoveArray(), arrays.getDiameterArray(), start,
+                         theHeight);
+            }
+        }
+        myScalar.moveRange(theLayout, done, theSize, theWidth, theHeight);
+    }
+
+    /**
+     * Moves the block of balls starting at theStart one step along one axis.
+     *
+     * @param thePositions the coordinate of each ball along the axis
+     * @param thePrevious receives the coordinate of each ball before the move
+     * @param theMoves the direction of each ball along the axis, 1 or -1
+     * @param theDiameters the diameter of each ball
+     * @param theStart the index of the first ball of the block
+     * @param theLimit the size of the area along the axis
+     */
+    private static void moveAxis(final double[] thePositions, final double[] thePrevious,
+                                 final byte[] theMoves, final double[] theDiameters,
+                                 final int theStart, final double theLimit) {
+        final ByteVector packed = ByteVector.fromArray(BYTES, theMoves, theStart);
+        ByteVector result = ByteVector.zero(BYTES);
+        for (int part = 0; part < PARTS; part++) {
+            final int offset = theStart + part * DOUBLES.length();
+            final DoubleVector position = DoubleVector.fromArray(DOUBLES, thePositions,
+                                                                 offset);
+            final DoubleVector diameter = DoubleVector.fromArray(DOUBLES, theDiameters,
+                                                                 offset);
+            final DoubleVector widened = (DoubleVector) packed.convertShape(
+                    VectorOperators.B2D, DOUBLES, part);
+            final DoubleVector turned = widened.blend(
+                    -LotsOfMovingShapesPanel.ANIMATION_STEP,
+                    position.add(diameter).compare(VectorOperators.GT, theLimit));
+            final DoubleVector move = turned.blend(LotsOfMovingShapesPanel.ANIMATION_STEP,
+                                                   position.compare(VectorOperators.LT, 0));
+            position.intoArray(thePrevious, offset);
+            position.add(move).intoArray(thePositions, offset);
+            // the narrowed lanes land in block part of the bytes and the rest are zero
+            result = result.or((ByteVector) move.convertShape(VectorOperators.D2B, BYTES,
+                                                              -part));
+        }
+        result.intoArray(theMoves, theStart);
+    }
+}
@@ -0,0 +1,153 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that the steady state animation tick allocates nothing, so a running animation
+ * does not feed the garbage collector. Allocation is measured per thread, so the timers
+ * and the JIT compiler running on other threads do not count.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class AllocationFreeTickTest {
+
+    /** The number of ticks measured. */
+    private static final int TICKS = 10_000;
+
+    /**
+     * The number of ticks run before measuring. A JIT compilation that finishes while
+     * measuring can allocate on the measured thread, so the warm up is long enough for
+     * even a tiny step to be fully compiled first.
+     */
+    private static final int WARMUP_TICKS = 3 * TICKS;
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 500;
+
+    /** The number of balls in a test world where most ticks are quiet. */
+    private static final int SPARSE_BALLS = 40;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 1000;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** Counts the bytes allocated by each thread. */
+    private com.sun.management.ThreadMXBean myThreads;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean()
+                           instanceof com.sun.management.ThreadMXBean,
+                   "this JVM cannot count allocated bytes");
+        myThreads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(myThreads.isThreadAllocatedMemorySupported(),
+                   "this JVM cannot count allocated bytes");
+        myThreads.setThreadAllocatedMemoryEnabled(true);
+        // the first call may allocate while it initializes
+        allocatedBytes();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BroadPhaseType.class)
+    void simulationTickAllocatesNothing(final BroadPhaseType theType) {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        simulation.setBroadPhase(theType);
+        BallDistribution.UNIFORM.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                                      new Random(SEED));
+        // let the reused arrays grow to their steady state size
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            simulation.tick();
+        }
+        final long before = allocatedBytes();
+        for (int tick = 0; tick < TICKS; tick++) {
+            simulation.tick();
+        }
+        assertEquals(0, allocatedBytes() - before, "bytes allocated by " + TICKS + " ticks");
+    }
+
+    @Test
+    void offHeapTickAllocatesNothing() {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE,
+                                                             new OffHeapBallLayout(BALLS));
+        BallDistribution.UNIFORM.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                                      new Random(SEED));
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            simulation.tick();
+        }
+        final long before = allocatedBytes();
+        for (int tick = 0; tick < TICKS; tick++) {
+            simulation.tick();
+        }
+        assertEquals(0, allocatedBytes() - before, "bytes allocated by " + TICKS + " ticks");
+        simulation.getBalls().close();
+    }
+
+    @Test
+    void lotsOfMovingShapesStepAllocatesNothing() {
+        assertStepsAllocateNothing(new LotsOfMovingShapesPanel(), BALLS);
+    }
+
+    @Test
+    void eventDrivenStepAllocatesNothing() {
+        // the event driven mode is meant for worlds where most ticks are quiet
+        assertStepsAllocateNothing(new LotsOfMovingShapesPanel(SimulationMode.EVENT_DRIVEN),
+                                   SPARSE_BALLS);
+    }
+
+    @Test
+    void movingShapeStepAllocatesNothing() {
+        final MovingShapePanel panel = new MovingShapePanel();
+        panel.setSize(MovingShapePanel.PREFERRED_SIZE);
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            panel.moveShape();
+        }
+        final long before = allocatedBytes();
+        for (int tick = 0; tick < TICKS; tick++) {
+            panel.moveShape();
+        }
+        assertEquals(0, allocatedBytes() - before, "bytes allocated by " + TICKS + " ticks");
+    }
+
+    /**
+     * Fills thePanel with theBalls balls and checks that stepping it allocates nothing
+     * once it has warmed up.
+     *
+     * @param thePanel the panel to step
+     * @param theBalls the number of balls
+     */
+    private void assertStepsAllocateNothing(final LotsOfMovingShapesPanel thePanel,
+                                            final int theBalls) {
+        BallDistribution.UNIFORM.fill(thePanel.getSimulation().getBalls(), theBalls,
+                                      LotsOfMovingShapesPanel.PREFERRED_SIZE.width,
+                                      LotsOfMovingShapesPanel.PREFERRED_SIZE.height,
+                                      new Random(SEED));
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            thePanel.step();
+        }
+        final long before = allocatedBytes();
+        for (int tick = 0; tick < TICKS; tick++) {
+            thePanel.step();
+        }
+        assertEquals(0, allocatedBytes() - before, "bytes allocated by " + TICKS + " ticks");
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far.
+     *
+     * @return the allocated bytes
+     */
+    private long allocatedBytes() {
+        return myThreads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+}
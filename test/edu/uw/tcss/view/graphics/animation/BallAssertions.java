@@ -0,0 +1,50 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Assertions shared by the tests that run the same world two ways and compare the
+ * results.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+final class BallAssertions {
+
+    /** Not meant to be constructed. */
+    private BallAssertions() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Checks that two stores hold bit for bit the same balls. The balls are matched by
+     * id, because the stores may have been reordered at different times, and the ids are
+     * read from the expected balls, because removed balls leave gaps in the ids.
+     *
+     * @param theExpected the reference balls
+     * @param theActual the balls that are checked
+     */
+    static void assertSameBalls(final BallStore theExpected, final BallStore theActual) {
+        assertEquals(theExpected.size(), theActual.size(), "number of balls");
+        for (int i = 0; i < theExpected.size(); i++) {
+            final int id = theExpected.getId(i);
+            final int actual = theActual.indexOf(id);
+            assertEquals(id, theActual.getId(actual), "ball " + id + " is missing");
+            assertEquals(theExpected.getX(i), theActual.getX(actual), "x of ball " + id);
+            assertEquals(theExpected.getY(i), theActual.getY(actual), "y of ball " + id);
+            assertEquals(theExpected.getPreviousX(i), theActual.getPreviousX(actual),
+                         "previous x of ball " + id);
+            assertEquals(theExpected.getPreviousY(i), theActual.getPreviousY(actual),
+                         "previous y of ball " + id);
+            assertEquals(theExpected.getHorizontalMove(i),
+                         theActual.getHorizontalMove(actual), "horizontal move of ball " + id);
+            assertEquals(theExpected.getVerticalMove(i), theActual.getVerticalMove(actual),
+                         "vertical move of ball " + id);
+            assertEquals(theExpected.getDiameter(i), theActual.getDiameter(actual),
+                         "diameter of ball " + id);
+            assertEquals(theExpected.getPaletteColor(theExpected.getColorIndex(i)),
+                         theActual.getPaletteColor(theActual.getColorIndex(actual)),
+                         "color of ball " + id);
+        }
+    }
+}
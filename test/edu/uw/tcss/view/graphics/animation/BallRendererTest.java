@@ -0,0 +1,233 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that batched and sprite rendering draw the same pixels as drawing each ball
+ * on its own, and that crowded balls are drawn as a density map.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class BallRendererTest {
+
+    /** The side length of the square test image. */
+    private static final int SIDE = 400;
+
+    /** The diameter of a ball. */
+    private static final int DIAMETER = LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The distance between the corners of neighboring balls, so no two overlap. */
+    private static final double SPACING = DIAMETER + 3.25;
+
+    /** The mask that keeps the lowest byte of a pixel. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** The number of balls piled up in the crowded test. */
+    private static final int CROWD = 5000;
+
+    /** The number of balls in the tests that are not crowded. */
+    private static final int SPARSE = 1000;
+
+    /** The diameter of the one large ball among smaller ones. */
+    private static final int LARGE_DIAMETER = 3 * DIAMETER;
+
+    /** The diameter of a ball too small to make out. */
+    private static final double TINY_DIAMETER = BallRenderer.MIN_DETAIL_DIAMETER / 2;
+
+    /** How far a channel of the density map may be from the mean of the colors. */
+    private static final int MIX_TOLERANCE = 24;
+
+    /** The colors the balls take turns using. */
+    private static final Color[] COLORS = {Color.RED, Color.BLUE, Color.decode("#4B2E83")};
+
+    @Test
+    void batchedMatchesPerBallForSeparateBalls() {
+        final BallStore balls = new BallStore(DIAMETER);
+        int count = 0;
+        for (double y = 0.5; y + DIAMETER < SIDE; y += SPACING) {
+            for (double x = 0.25; x + DIAMETER < SIDE; x += SPACING) {
+                balls.add(x, y, 1, -1, COLORS[count % COLORS.length]);
+                count++;
+            }
+        }
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(balls, 1);
+
+        assertArrayEquals(render(snapshot, RenderMode.PER_BALL),
+                          render(snapshot, RenderMode.BATCHED));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void spritesMatchPerBallAtWholePixels(final boolean theMixed) {
+        final BallStore balls = new BallStore(DIAMETER);
+        for (int y = 0; y + DIAMETER < SIDE; y += DIAMETER + 1) {
+            for (int x = 0; x + DIAMETER < SIDE; x += DIAMETER + 1) {
+                double diameter = DIAMETER;
+                if (theMixed) {
+                    // whole and fractional sizes, none larger than the spacing
+                    diameter = DIAMETER - (x + y) % DIAMETER / 2.0;
+                }
+                balls.add(x, y, 1, 1, COLORS[(x + y) % COLORS.length], diameter);
+            }
+        }
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(balls, 1);
+
+        final int[] expected = render(snapshot, RenderMode.PER_BALL);
+        final int[] actual = render(snapshot, RenderMode.SPRITES);
+        for (int i = 0; i < expected.length; i++) {
+            for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+                // blending the sprite can round differently from filling the shape
+                assertTrue(Math.abs((expected[i] >> shift & BYTE_MASK)
+                                    - (actual[i] >> shift & BYTE_MASK)) <= 1,
+                           "pixel " + i);
+            }
+        }
+    }
+
+    @Test
+    void crowdedBallsBecomeADensityMap() {
+        // red and blue balls piled up in the middle of the image, far above the threshold
+        final BallStore balls = new BallStore(DIAMETER);
+        final Random random = new Random(SIDE);
+        final int pile = SIDE / 4;
+        for (int i = 0; i < CROWD; i++) {
+            balls.add(pile + random.nextDouble() * pile, pile + random.nextDouble() * pile,
+                      1, 1, COLORS[i % 2]);
+        }
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(balls, 1);
+
+        final int[] map = render(snapshot, RenderMode.PER_BALL);
+        final int middle = SIDE / 2 * SIDE + SIDE / 2;
+        // the middle of the pile is the mean of red and blue, not the color of one ball
+        assertEquals(Color.WHITE.getRGB(), map[0]);
+        assertEquals(BYTE_MASK / 2, map[middle] >> Byte.SIZE * 2 & BYTE_MASK, MIX_TOLERANCE);
+        assertEquals(0, map[middle] >> Byte.SIZE & BYTE_MASK, MIX_TOLERANCE);
+        assertEquals(BYTE_MASK / 2, map[middle] & BYTE_MASK, MIX_TOLERANCE);
+
+        final BallRenderer renderer = new BallRenderer();
+        renderer.setMode(RenderMode.PER_BALL);
+        renderer.setDetailThreshold(Double.POSITIVE_INFINITY);
+        final int[] each = render(snapshot, renderer);
+        assertFalse(Arrays.equals(map, each));
+    }
+
+    @Test
+    void oneLargeBallDoesNotMakeTheRestCrowded() {
+        // far below the threshold, unless every ball is counted as large as the largest
+        final BallStore balls = new BallStore(DIAMETER);
+        final Random random = new Random(SIDE);
+        for (int i = 0; i < SPARSE; i++) {
+            balls.add(random.nextDouble() * (SIDE - DIAMETER),
+                      random.nextDouble() * (SIDE - DIAMETER), 1, 1, COLORS[i % 2]);
+        }
+        balls.add(0, 0, 1, 1, COLORS[2], LARGE_DIAMETER);
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(balls, 1);
+
+        assertArrayEquals(fillEach(snapshot), render(snapshot, RenderMode.PER_BALL));
+    }
+
+    @Test
+    void mostlyTinyBallsBecomeADensityMap() {
+        final BallStore balls = new BallStore(TINY_DIAMETER);
+        final Random random = new Random(SIDE);
+        for (int i = 0; i < SPARSE; i++) {
+            balls.add(random.nextDouble() * SIDE, random.nextDouble() * SIDE, 1, 1,
+                      COLORS[i % 2]);
+        }
+        // a few balls large enough to make out do not keep the rest from the density map
+        for (int i = 0; i < SPARSE / 10; i++) {
+            balls.add(random.nextDouble() * (SIDE - DIAMETER),
+                      random.nextDouble() * (SIDE - DIAMETER), 1, 1, COLORS[2], DIAMETER);
+        }
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(balls, 1);
+
+        assertFalse(Arrays.equals(fillEach(snapshot), render(snapshot, RenderMode.PER_BALL)));
+    }
+
+    @Test
+    void detailThresholdMustBePositive() {
+        final BallRenderer renderer = new BallRenderer();
+        assertThrows(IllegalArgumentException.class, () -> renderer.setDetailThreshold(0));
+        assertThrows(IllegalArgumentException.class,
+            () -> renderer.setDetailThreshold(Double.NaN));
+    }
+
+    /**
+     * Draws theSnapshot antialiased on a white image in theMode.
+     *
+     * @param theSnapshot the balls to draw
+     * @param theMode the render mode
+     * @return the pixels of the image
+     */
+    private static int[] render(final BallSnapshot theSnapshot, final RenderMode theMode) {
+        final BallRenderer renderer = new BallRenderer();
+        renderer.setMode(theMode);
+        return render(theSnapshot, renderer);
+    }
+
+    /**
+     * Fills every ball of theSnapshot antialiased as a circle on a white image, without
+     * a renderer.
+     *
+     * @param theSnapshot the balls to draw
+     * @return the pixels of the image
+     */
+    private static int[] fillEach(final BallSnapshot theSnapshot) {
+        final BufferedImage image = new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(Color.WHITE);
+        graphics.fillRect(0, 0, SIDE, SIDE);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                  RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int i = 0; i < theSnapshot.size(); i++) {
+            graphics.setPaint(theSnapshot.getPaletteColor(theSnapshot.getColorIndex(i)));
+            graphics.fill(new Ellipse2D.Double(theSnapshot.getX(i), theSnapshot.getY(i),
+                                               theSnapshot.getDiameter(i),
+                                               theSnapshot.getDiameter(i)));
+        }
+        graphics.dispose();
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Draws theSnapshot antialiased on a white image with theRenderer.
+     *
+     * @param theSnapshot the balls to draw
+     * @param theRenderer the renderer
+     * @return the pixels of the image
+     */
+    private static int[] render(final BallSnapshot theSnapshot,
+                                final BallRenderer theRenderer) {
+        final BufferedImage image = new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(Color.WHITE);
+        graphics.fillRect(0, 0, SIDE, SIDE);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                  RenderingHints.VALUE_ANTIALIAS_ON);
+        theRenderer.paint(graphics, theSnapshot);
+        graphics.dispose();
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,86 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that culling a snapshot against a rectangle keeps exactly the balls that reach
+ * into it, in index order, and that a snapshot describes the sizes of the balls it holds.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class BallSnapshotTest {
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 3000;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 2000;
+
+    /** The number of rectangles to cull against. */
+    private static final int QUERIES = 500;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @EnumSource(BallDistribution.class)
+    void cullKeepsExactlyTheBallsInTheRectangle(final BallDistribution theDistribution) {
+        final BallStore balls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE);
+        final Random random = new Random(SEED);
+        theDistribution.fill(balls, BALLS, WORLD_SIDE, WORLD_SIDE, random);
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(balls, 1);
+        assertEquals(BALLS, snapshot.getVisibleCount());
+
+        final double diameter = balls.getDefaultDiameter();
+        for (int query = 0; query < QUERIES; query++) {
+            final double x = random.nextInt(WORLD_SIDE) - diameter;
+            final double y = random.nextInt(WORLD_SIDE) - diameter;
+            final double width = random.nextInt(WORLD_SIDE / 2);
+            final double height = random.nextInt(WORLD_SIDE / 2);
+            snapshot.cull(x, y, width, height);
+
+            final int[] expected = IntStream.range(0, BALLS).filter(
+                i -> balls.getX(i) + diameter + 1 >= x && balls.getX(i) <= x + width + 1
+                        && balls.getY(i) + diameter + 1 >= y
+                        && balls.getY(i) <= y + height + 1).toArray();
+            final int[] actual = IntStream.range(0, snapshot.getVisibleCount())
+                    .map(snapshot::getVisible).toArray();
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void removingTheLargestBallShrinksTheLargestDiameter() {
+        final BallStore balls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE);
+        balls.add(0, 0, 1, 1, Color.RED, 40);
+        final int large = balls.add(100, 0, 1, 1, Color.RED, 120);
+        final int other = balls.getId(balls.add(300, 0, 1, 1, Color.RED, 120));
+        balls.add(500, 0, 1, 1, Color.RED, 40);
+        final BallSnapshot snapshot = new BallSnapshot();
+        balls.remove(large);
+        snapshot.capture(balls, 1);
+        assertEquals(120, balls.getMaxDiameter(), "one large ball is left");
+        assertEquals(120, snapshot.getMaxDiameter());
+
+        balls.remove(balls.indexOf(other));
+        snapshot.capture(balls, 1);
+        assertEquals(40, balls.getMaxDiameter());
+        assertEquals(40, snapshot.getMaxDiameter());
+
+        balls.remove(0);
+        balls.remove(0);
+        snapshot.capture(balls, 1);
+        assertEquals(0, balls.getMaxDiameter());
+        assertEquals(balls.getDefaultDiameter(), snapshot.getMaxDiameter());
+    }
+}
@@ -0,0 +1,85 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the sprite cache stays within its memory budget, drops the least recently
+ * used images first, keeps the images of each ball size apart and starts over when the
+ * scale changes.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class BallSpriteCacheTest {
+
+    /** The diameter of a ball. */
+    private static final int DIAMETER = LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The size of a ball at scale 1. */
+    private static final int SIZE = BallSpriteCache.sizeOf(DIAMETER);
+
+    /** The number of bytes one sprite takes at scale 1. */
+    private static final long SPRITE_BYTES = 4L * (DIAMETER + 1) * (DIAMETER + 1);
+
+    /** The number of sprites the budget of the test cache holds. */
+    private static final int SPRITES = 5;
+
+    @Test
+    void staysWithinBudgetAndDropsLeastRecentlyUsed() {
+        final BallSpriteCache cache = new BallSpriteCache(SPRITES * SPRITE_BYTES);
+        cache.setScale(1);
+        final BufferedImage first = cache.getSprite(null, new Color(0), SIZE, 0, 0);
+        for (int color = 1; color < 3 * SPRITES; color++) {
+            // keep the first sprite in use so it is never the least recently used
+            assertSame(first, cache.getSprite(null, new Color(0), SIZE, 0, 0));
+            cache.getSprite(null, new Color(color), SIZE,
+                            color % BallSpriteCache.SUBPIXEL_STEPS, 0);
+            assertTrue(cache.getBytes() <= SPRITES * SPRITE_BYTES);
+        }
+        assertEquals(SPRITES, cache.size());
+        assertSame(first, cache.getSprite(null, new Color(0), SIZE, 0, 0));
+        assertEquals(SPRITES, cache.size());
+    }
+
+    @Test
+    void eachSizeHasItsOwnSprites() {
+        final BallSpriteCache cache = new BallSpriteCache(BallSpriteCache.DEFAULT_BUDGET);
+        cache.setScale(1);
+        final BufferedImage sprite = cache.getSprite(null, Color.RED, SIZE, 1, 2);
+        final int larger = BallSpriteCache.sizeOf(3 * DIAMETER);
+        final BufferedImage large = cache.getSprite(null, Color.RED, larger, 1, 2);
+        assertNotSame(sprite, large);
+        assertEquals(DIAMETER + 1, sprite.getWidth());
+        assertEquals(3 * DIAMETER + 1, large.getWidth());
+        // a diameter less than half a step away rounds to the same size
+        assertEquals(SIZE, BallSpriteCache.sizeOf(DIAMETER + 0.1));
+        assertSame(sprite, cache.getSprite(null, Color.RED,
+                                           BallSpriteCache.sizeOf(DIAMETER + 0.1), 1, 2));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void changingScaleEmptiesCache() {
+        final BallSpriteCache cache = new BallSpriteCache(BallSpriteCache.DEFAULT_BUDGET);
+        cache.setScale(1);
+        final BufferedImage sprite = cache.getSprite(null, Color.RED, SIZE, 1, 2);
+        cache.setScale(1);
+        assertSame(sprite, cache.getSprite(null, Color.RED, SIZE, 1, 2));
+
+        cache.setScale(2);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        final BufferedImage scaled = cache.getSprite(null, Color.RED,
+                                                     BallSpriteCache.sizeOf(2 * DIAMETER),
+                                                     1, 2);
+        assertNotSame(sprite, scaled);
+        assertEquals(2 * DIAMETER + 1, scaled.getWidth());
+    }
+}
@@ -0,0 +1,194 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static edu.uw.tcss.view.graphics.animation.BallAssertions.assertSameBalls;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that commands submitted from any thread run once each, in order, at the start
+ * of the next tick, and that adding and removing balls through them keeps every broad
+ * phase and the event driven simulation exact.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class CommandQueueTest {
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 1000;
+
+    @Test
+    void commandsFromManyThreadsRunOnceInOrder() throws InterruptedException {
+        final int producers = 4;
+        final int commands = 20_000;
+        final CommandQueue queue = new CommandQueue();
+        final int[] next = new int[producers];
+        final boolean[] inOrder = {true};
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int c = 0; c < commands; c++) {
+                    final int command = c;
+                    queue.offer(theSimulation -> {
+                        inOrder[0] &= next[producer] == command;
+                        next[producer]++;
+                    });
+                }
+            });
+            threads[p].start();
+        }
+        int run = 0;
+        while (run < producers * commands) {
+            run += queue.drain(null);
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, queue.drain(null), "commands run twice");
+        assertTrue(inOrder[0], "a producer's commands ran out of order");
+        for (int p = 0; p < producers; p++) {
+            assertEquals(commands, next[p], "commands of producer " + p);
+        }
+    }
+
+    @Test
+    void commandsRunAtTheStartOfTheNextTick() {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        simulation.submit(theSimulation -> theSimulation.spawnBurst(
+                WORLD_SIDE / 2, WORLD_SIDE / 2, 100, Color.RED, new Random(SEED)));
+        assertEquals(0, simulation.getBalls().size());
+        simulation.tick();
+        final BallStore balls = simulation.getBalls();
+        assertTrue(balls.size() > 50, "only " + balls.size() + " balls were added");
+        for (int i = 0; i < balls.size(); i++) {
+            assertTrue(balls.getX(i) >= 0 && balls.getX(i) + balls.getDiameter(i)
+                    <= WORLD_SIDE, "ball " + i + " is outside the world");
+        }
+    }
+
+    @Test
+    void removedBallsGiveTheirIdsToNewBalls() {
+        final BallStore balls = new BallStore(10);
+        for (int i = 0; i < 5; i++) {
+            balls.add(20 * i, 0, 1, 1, Color.RED);
+        }
+        final LotsOfMovingShapesPanel.Ball last = balls.getBall(4);
+        balls.remove(1);
+        assertEquals(4, balls.size());
+        assertEquals(1, balls.indexOf(4), "the last ball fills the hole");
+        assertEquals(80, balls.getX(balls.indexOf(4)));
+        last.setMyHorizontalMove(-1);
+        assertEquals(-1, balls.getHorizontalMove(1), "the handle follows its ball");
+        final int index = balls.add(200, 0, 1, 1, Color.BLUE);
+        assertEquals(1, balls.getId(index), "the free id is reused");
+        assertEquals(index, balls.indexOf(1));
+        assertEquals(1, balls.getRemovalCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(BroadPhaseType.class)
+    void submittedBurstsAndRemovalsMatchEverywhere(final BroadPhaseType theType) {
+        final BallSimulation ticked = world();
+        final BallSimulation jumped = world();
+        ticked.setBroadPhase(theType);
+        ticked.setCompareBroadPhases(true);
+        jumped.setBroadPhase(BroadPhaseType.BRUTE_FORCE);
+        final EventDrivenSimulation events = new EventDrivenSimulation(jumped);
+        final Random random = new Random(SEED);
+        for (int round = 0; round < 6; round++) {
+            final long seed = random.nextLong();
+            final int x = random.nextInt(WORLD_SIDE);
+            final int y = random.nextInt(WORLD_SIDE);
+            // remove a few balls by clicking on them, then add a burst in the same tick
+            for (int k = 0; k < 20; k++) {
+                final int i = random.nextInt(ticked.getBalls().size());
+                final double centerX = ticked.getBalls().getCenterX(i);
+                final double centerY = ticked.getBalls().getCenterY(i);
+                final BallCommand remove = theSimulation ->
+                        theSimulation.despawnAt(centerX, centerY);
+                ticked.submit(remove);
+                jumped.submit(remove);
+            }
+            final BallCommand burst = theSimulation -> theSimulation.spawnBurst(
+                    x, y, 150, Color.RED, new Random(seed));
+            ticked.submit(burst);
+            jumped.submit(burst);
+            for (int tick = 0; tick < 300; tick++) {
+                ticked.tick();
+            }
+            events.advance(300);
+            assertSameBalls(ticked.getBalls(), jumped.getBalls());
+        }
+        ticked.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BroadPhaseType.class)
+    void overlapQueriesSeeEveryChange(final BroadPhaseType theType) {
+        final BallSimulation simulation = world();
+        simulation.setBroadPhase(theType);
+        final BroadPhase reference = BroadPhaseType.BRUTE_FORCE.create();
+        final BallStore balls = simulation.getBalls();
+        final Random random = new Random(SEED);
+        for (int round = 0; round < 5; round++) {
+            simulation.tick();
+            assertSameOverlaps(simulation, reference, random);
+            // moving without a tick, as the event driven simulation does
+            balls.coast(100);
+            assertSameOverlaps(simulation, reference, random);
+            simulation.spawnBurst(random.nextInt(WORLD_SIDE), random.nextInt(WORLD_SIDE), 50,
+                                  Color.RED, random);
+            assertSameOverlaps(simulation, reference, random);
+            simulation.despawnAt(balls.getCenterX(0), balls.getCenterY(0));
+            assertSameOverlaps(simulation, reference, random);
+            simulation.reorder();
+            assertSameOverlaps(simulation, reference, random);
+        }
+        simulation.shutdown();
+    }
+
+    /**
+     * Checks that the broad phase of theSimulation and theReference agree on whether
+     * balls of random sizes at random places would overlap a ball, by spawning them.
+     *
+     * @param theSimulation the simulation whose broad phase is checked
+     * @param theReference a brute force broad phase
+     * @param theRandom picks the places and sizes
+     */
+    private static void assertSameOverlaps(final BallSimulation theSimulation,
+                                           final BroadPhase theReference,
+                                           final Random theRandom) {
+        for (int query = 0; query < 200; query++) {
+            final int x = theRandom.nextInt(WORLD_SIDE);
+            final int y = theRandom.nextInt(WORLD_SIDE);
+            final int diameter = 5 + theRandom.nextInt(150);
+            final boolean free = !theReference.overlapsAny(theSimulation.getBalls(), x, y,
+                                                           diameter);
+            // spawning asks the broad phase, and adds the ball when there is room
+            assertEquals(free, theSimulation.spawn(x, y, 1, 1, Color.BLUE, diameter),
+                         "a ball " + diameter + " across at " + x + ", " + y);
+        }
+    }
+
+    /**
+     * Builds the same random world every time.
+     *
+     * @return the world
+     */
+    private static BallSimulation world() {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        BallDistribution.CLUSTERED.fill(simulation.getBalls(), 300, WORLD_SIDE, WORLD_SIDE,
+                                        new Random(SEED));
+        return simulation;
+    }
+}
@@ -0,0 +1,88 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JPanel;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a dirty region asks for a repaint of just the area that changed, and of
+ * the whole component once that area covers most of it.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class DirtyRegionTest {
+
+    /** The width of the test panel. */
+    private static final int PANEL_WIDTH = 800;
+
+    /** The height of the test panel. */
+    private static final int PANEL_HEIGHT = 450;
+
+    /** The side length of a shape. */
+    private static final int SIDE = LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    @Test
+    void repaintsOldAndNewBoundsOfAMovingShape() {
+        final RecordingPanel panel = new RecordingPanel();
+        final DirtyRegion region = new DirtyRegion();
+        region.add(100, 200, SIDE, SIDE);
+        region.add(101, 199, SIDE, SIDE);
+        region.repaint(panel);
+
+        // the union of both bounds with a pixel of margin for antialiasing
+        assertEquals(List.of(new Rectangle(99, 198, SIDE + 3, SIDE + 3)), panel.myRepaints);
+        assertTrue(region.isEmpty());
+        region.repaint(panel);
+        assertEquals(1, panel.myRepaints.size());
+        assertEquals(1, region.getPartialRepaints());
+    }
+
+    @Test
+    void repaintsEverythingAboveTheThreshold() {
+        final RecordingPanel panel = new RecordingPanel();
+        final DirtyRegion region = new DirtyRegion();
+        region.add(0, 0, SIDE, SIDE);
+        region.add(PANEL_WIDTH - SIDE, PANEL_HEIGHT - SIDE, SIDE, SIDE);
+        region.repaint(panel);
+
+        assertEquals(List.of(new Rectangle(0, 0, PANEL_WIDTH, PANEL_HEIGHT)), panel.myRepaints);
+        assertEquals(1, region.getFullRepaints());
+        assertEquals(0, region.getPartialRepaints());
+    }
+
+    /** A panel that records the areas it is asked to repaint instead of painting. */
+    private static final class RecordingPanel extends JPanel {
+
+        /** A generated version ID for Serialization. */
+        @Serial
+        private static final long serialVersionUID = -2817405937165287413L;
+
+        /** The areas asked for, in order. */
+        private final transient List<Rectangle> myRepaints = new ArrayList<>();
+
+        /** Constructs a panel the size of the test panel. */
+        RecordingPanel() {
+            super();
+            setSize(PANEL_WIDTH, PANEL_HEIGHT);
+        }
+
+        @Override
+        public void updateUI() {
+            // the panel never paints, so it needs no UI delegate; installing one would
+            // also ask for a repaint before myRepaints is initialized
+        }
+
+        @Override
+        public void repaint(final long theTime, final int theX, final int theY,
+                            final int theWidth, final int theHeight) {
+            myRepaints.add(new Rectangle(theX, theY, theWidth, theHeight));
+        }
+    }
+}
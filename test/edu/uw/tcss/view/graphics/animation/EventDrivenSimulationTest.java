@@ -0,0 +1,113 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static edu.uw.tcss.view.graphics.animation.BallAssertions.assertSameBalls;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks that jumping from event to event leaves every ball exactly where stepping
+ * every tick does.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class EventDrivenSimulationTest {
+
+    /** The seed for the random worlds so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @CsvSource({
+        "UNIFORM, 20, 800, 450, 20000",
+        "UNIFORM, 400, 1200, 900, 3000",
+        "CLUSTERED, 400, 1200, 900, 3000",
+        "BAND, 300, 1500, 1000, 3000"
+    })
+    void eventsMatchTicks(final BallDistribution theDistribution, final int theBalls,
+                          final int theWidth, final int theHeight, final int theTicks) {
+        final BallSimulation ticked = world(theDistribution, theBalls, theWidth, theHeight);
+        final BallSimulation jumped = world(theDistribution, theBalls, theWidth, theHeight);
+        for (int tick = 0; tick < theTicks; tick++) {
+            ticked.tick();
+        }
+        final EventDrivenSimulation events = new EventDrivenSimulation(jumped);
+        // advance in uneven chunks so that stopping between events is covered too
+        final Random chunks = new Random(SEED);
+        while (events.getTick() < theTicks) {
+            events.advance(Math.min(theTicks - events.getTick(), 1 + chunks.nextInt(500)));
+        }
+        assertSameBalls(ticked.getBalls(), jumped.getBalls());
+    }
+
+    @Test
+    void sparseWorldSkipsMostTicks() {
+        final int ticks = 100_000;
+        final BallSimulation simulation = world(BallDistribution.UNIFORM, 10, 4000, 4000);
+        final EventDrivenSimulation events = new EventDrivenSimulation(simulation);
+        events.advance(ticks);
+        assertTrue(events.getNormalTicks() * 100 < ticks,
+                   events.getNormalTicks() + " of " + ticks + " ticks were run in full");
+    }
+
+    @Test
+    void mixedSizesMatchTicks() {
+        final BallSimulation ticked = new BallSimulation(1200, 900);
+        final BallSimulation jumped = new BallSimulation(1200, 900);
+        BallDistribution.CLUSTERED.fill(ticked.getBalls(), 300, 1200, 900, 5, 150,
+                                        new Random(SEED));
+        BallDistribution.CLUSTERED.fill(jumped.getBalls(), 300, 1200, 900, 5, 150,
+                                        new Random(SEED));
+        for (int tick = 0; tick < 3000; tick++) {
+            ticked.tick();
+        }
+        new EventDrivenSimulation(jumped).advance(3000);
+        assertSameBalls(ticked.getBalls(), jumped.getBalls());
+    }
+
+    @Test
+    void addedBallsAndResizesAreFollowed() {
+        final BallSimulation ticked = world(BallDistribution.UNIFORM, 50, 900, 600);
+        final BallSimulation jumped = world(BallDistribution.UNIFORM, 50, 900, 600);
+        final EventDrivenSimulation events = new EventDrivenSimulation(jumped);
+        for (int round = 0; round < 4; round++) {
+            for (int tick = 0; tick < 700; tick++) {
+                ticked.tick();
+            }
+            events.advance(700);
+            BallDistribution.UNIFORM.fill(ticked.getBalls(), 10, 900, 600,
+                                          new Random(SEED + round));
+            BallDistribution.UNIFORM.fill(jumped.getBalls(), 10, 900, 600,
+                                          new Random(SEED + round));
+            ticked.setBounds(900 - 50 * round, 600 + 20 * round);
+            jumped.setBounds(900 - 50 * round, 600 + 20 * round);
+        }
+        events.advance(700);
+        for (int tick = 0; tick < 700; tick++) {
+            ticked.tick();
+        }
+        assertSameBalls(ticked.getBalls(), jumped.getBalls());
+    }
+
+    /**
+     * Builds the same random world every time it is called with the same arguments.
+     *
+     * @param theDistribution how the balls are scattered
+     * @param theBalls the number of balls
+     * @param theWidth the width of the world
+     * @param theHeight the height of the world
+     * @return the world
+     */
+    private static BallSimulation world(final BallDistribution theDistribution,
+                                        final int theBalls, final int theWidth,
+                                        final int theHeight) {
+        final BallSimulation simulation = new BallSimulation(theWidth, theHeight);
+        theDistribution.fill(simulation.getBalls(), theBalls, theWidth, theHeight,
+                             new Random(SEED));
+        return simulation;
+    }
+}
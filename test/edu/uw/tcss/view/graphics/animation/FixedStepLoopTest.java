@@ -0,0 +1,116 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the fixed time step loop against a fake clock that only moves when the test
+ * moves it, without starting the loop's thread.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class FixedStepLoopTest {
+
+    /** The length of one step in milliseconds. */
+    private static final int STEP_MILLIS = 10;
+
+    /** The length of one step in nanoseconds. */
+    private static final long STEP = STEP_MILLIS * 1_000_000L;
+
+    /** The allowed rounding error of the interpolation factor. */
+    private static final double DELTA = 1e-9;
+
+    /** The time the fake clock tells. */
+    private long myNow;
+
+    /** The number of steps taken. */
+    private int mySteps;
+
+    /** The number of times the callback after a batch of steps ran. */
+    private int myBatches;
+
+    /** The loop under test. */
+    private FixedStepLoop myLoop;
+
+    @BeforeEach
+    void setUp() {
+        myNow = 1_000 * STEP;
+        myLoop = new FixedStepLoop(() -> mySteps++, STEP_MILLIS, () -> myBatches++,
+                                   () -> myNow);
+        myLoop.reset();
+    }
+
+    @Test
+    void takesOneStepPerFullPeriod() {
+        myNow += STEP / 2;
+        assertEquals(STEP / 2, myLoop.advance());
+        assertEquals(0, mySteps);
+        assertEquals(0, myBatches);
+
+        myNow += STEP / 2;
+        assertEquals(STEP, myLoop.advance());
+        assertEquals(1, mySteps);
+        assertEquals(1, myBatches);
+
+        myNow += 3 * STEP + STEP / 4;
+        assertEquals(STEP - STEP / 4, myLoop.advance());
+        assertEquals(4, mySteps);
+        assertEquals(2, myBatches);
+    }
+
+    @Test
+    void leftoverTimeCarriesOver() {
+        for (int wake = 0; wake < 10; wake++) {
+            myNow += STEP * 3 / 4;
+            myLoop.advance();
+        }
+        // 7.5 periods have passed
+        assertEquals(7, mySteps);
+    }
+
+    @Test
+    void catchUpAfterAStallIsCapped() {
+        myNow += 1_000 * STEP;
+        myLoop.advance();
+        assertEquals(FixedStepLoop.MAX_CATCH_UP_STEPS, mySteps);
+        assertEquals(1, myBatches);
+
+        // the dropped time is not made up later
+        myNow += STEP;
+        myLoop.advance();
+        assertEquals(FixedStepLoop.MAX_CATCH_UP_STEPS + 1, mySteps);
+    }
+
+    @Test
+    void alphaIsTheFractionOfAStepPastTheLatestState() {
+        assertEquals(0, myLoop.getAlpha(), DELTA);
+        myNow += STEP / 4;
+        assertEquals(0.25, myLoop.getAlpha(), DELTA);
+
+        myNow += STEP + STEP / 4;
+        myLoop.advance();
+        assertEquals(1, mySteps);
+        // half a step is left over after the step
+        assertEquals(0.5, myLoop.getAlpha(), DELTA);
+        myNow += STEP / 4;
+        assertEquals(0.75, myLoop.getAlpha(), DELTA);
+    }
+
+    @Test
+    void alphaStaysBetweenZeroAndOne() {
+        myNow += 5 * STEP;
+        assertEquals(1, myLoop.getAlpha(), DELTA);
+        myNow -= 10 * STEP;
+        assertEquals(0, myLoop.getAlpha(), DELTA);
+    }
+
+    @Test
+    void stepMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new FixedStepLoop(() -> { }, 0, () -> { }));
+    }
+}
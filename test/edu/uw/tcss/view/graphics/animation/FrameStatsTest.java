@@ -0,0 +1,53 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the frame pacing statistics over a window of frame intervals.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class FrameStatsTest {
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final long MILLI = 1_000_000L;
+
+    /** The allowed rounding error of the statistics. */
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void steadyFramesHaveNoJitter() {
+        final FrameStats stats = new FrameStats();
+        for (int frame = 0; frame < 3 * FrameStats.DEFAULT_WINDOW; frame++) {
+            stats.record(10 * MILLI);
+        }
+        assertEquals(3 * FrameStats.DEFAULT_WINDOW, stats.getFrames());
+        assertEquals(10, stats.getMeanMillis(), DELTA);
+        assertEquals(0, stats.getJitterMillis(), DELTA);
+        assertEquals(100, stats.getFramesPerSecond(), DELTA);
+    }
+
+    @Test
+    void onlyTheLatestFramesCount() {
+        final FrameStats stats = new FrameStats(4);
+        // a stall that has left the window no longer counts
+        stats.record(500 * MILLI);
+        for (int frame = 0; frame < 4; frame++) {
+            stats.record((frame % 2 * 10 + 5) * MILLI);
+        }
+        assertEquals(10, stats.getMeanMillis(), DELTA);
+        assertEquals(5, stats.getJitterMillis(), DELTA);
+        assertEquals(15, stats.getWorstMillis(), DELTA);
+    }
+
+    @Test
+    void emptyStatsAreZero() {
+        final FrameStats stats = new FrameStats();
+        assertEquals(0, stats.getMeanMillis(), DELTA);
+        assertEquals(0, stats.getFramesPerSecond(), DELTA);
+        assertEquals(0, stats.getWorstMillis(), DELTA);
+    }
+}
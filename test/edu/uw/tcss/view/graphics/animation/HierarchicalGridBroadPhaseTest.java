@@ -0,0 +1,73 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that the hierarchical grid, and every other broad phase, finds exactly the
+ * pairs brute force finds when the balls range from a few pixels to many balls across.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class HierarchicalGridBroadPhaseTest {
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 800;
+
+    /** The number of ticks to run. */
+    private static final int TICKS = 200;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 1200;
+
+    /** The diameter of the smallest balls. */
+    private static final int MIN_DIAMETER = 5;
+
+    /** The diameter of the largest balls, well past the coarsest level a few use. */
+    private static final int MAX_DIAMETER = 300;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @EnumSource(BallDistribution.class)
+    void hierarchicalGridMatchesBruteForce(final BallDistribution theDistribution) {
+        assertMatchesBruteForce(BroadPhaseType.HIERARCHICAL_GRID, theDistribution);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BroadPhaseType.class)
+    void everyBroadPhaseHandlesMixedSizes(final BroadPhaseType theType) {
+        assertMatchesBruteForce(theType, BallDistribution.CLUSTERED);
+    }
+
+    /**
+     * Runs a world of mixed sizes with theType compared against brute force every tick,
+     * adding more balls halfway through.
+     *
+     * @param theType the broad phase to check
+     * @param theDistribution how the balls are scattered
+     */
+    private static void assertMatchesBruteForce(final BroadPhaseType theType,
+                                                final BallDistribution theDistribution) {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        simulation.setBroadPhase(theType);
+        simulation.setCompareBroadPhases(true);
+        theDistribution.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                             MIN_DIAMETER, MAX_DIAMETER, new Random(SEED));
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick == TICKS / 2) {
+                theDistribution.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                                     MIN_DIAMETER, MAX_DIAMETER, new Random(SEED + 1));
+            }
+            // throws IllegalStateException as soon as the two disagree
+            simulation.tick();
+        }
+        assertEquals(2 * BALLS, simulation.getBalls().size());
+        simulation.shutdown();
+    }
+}
@@ -0,0 +1,142 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static edu.uw.tcss.view.graphics.animation.BallAssertions.assertSameBalls;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that putting the balls into Z-order sorts them by cell, keeps Ball handles
+ * attached, and changes nothing about how the balls move, whatever the broad phase.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class MortonReorderTest {
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 600;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 900;
+
+    /** The number of ticks compared. */
+    private static final int TICKS = 400;
+
+    /** A short reorder interval, so the test reorders often. */
+    private static final int INTERVAL = 7;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    @Test
+    void reorderSortsTheBallsByMortonCode() {
+        final BallSimulation simulation = world(new ArrayBallLayout(0));
+        simulation.reorder();
+        final BallStore balls = simulation.getBalls();
+        long previous = -1;
+        for (int i = 0; i < balls.size(); i++) {
+            final long code = Integer.toUnsignedLong(MortonOrder.code(
+                    (int) (balls.getCenterX(i) / balls.getDefaultDiameter()),
+                    (int) (balls.getCenterY(i) / balls.getDefaultDiameter())));
+            assertTrue(code >= previous, "ball " + i + " is out of order");
+            previous = code;
+            assertEquals(i, balls.indexOf(balls.getId(i)));
+        }
+        assertEquals(1, simulation.getReorderCount());
+    }
+
+    @Test
+    void handlesFollowTheirBalls() {
+        final BallSimulation simulation = world(new ArrayBallLayout(0));
+        final BallStore balls = simulation.getBalls();
+        final LotsOfMovingShapesPanel.Ball handle = balls.getBall(0);
+        final double x = balls.getX(0);
+        final double y = balls.getY(0);
+        simulation.reorder();
+        final int index = balls.indexOf(0);
+        assertNotEquals(0, index, "the test ball did not move");
+        assertEquals(x, balls.getX(index));
+        assertEquals(y, balls.getY(index));
+        handle.setMyHorizontalMove(-balls.getHorizontalMove(index));
+        assertEquals(handle.getMyHorizontalMove(), balls.getHorizontalMove(index));
+    }
+
+    @ParameterizedTest
+    @EnumSource(BroadPhaseType.class)
+    void reorderingChangesNoTick(final BroadPhaseType theType) {
+        final BallSimulation plain = world(new ArrayBallLayout(0));
+        final BallSimulation reordered = world(new ArrayBallLayout(0));
+        plain.setReorderInterval(0);
+        reordered.setReorderInterval(INTERVAL);
+        plain.setBroadPhase(theType);
+        reordered.setBroadPhase(theType);
+        reordered.setCompareBroadPhases(true);
+        for (int tick = 0; tick < TICKS; tick++) {
+            assertEquals(plain.tick(), reordered.tick(), "collisions in tick " + tick);
+        }
+        assertSameBalls(plain.getBalls(), reordered.getBalls());
+        plain.shutdown();
+        reordered.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = BroadPhaseType.class, names = {"SWEEP_AND_PRUNE", "QUADTREE"})
+    void ballsAddedRightBeforeAReorderAreFound(final BroadPhaseType theType) {
+        final BallSimulation simulation = world(new ArrayBallLayout(0));
+        simulation.setReorderInterval(INTERVAL);
+        simulation.setBroadPhase(theType);
+        simulation.setCompareBroadPhases(true);
+        final Random random = new Random(SEED);
+        final int side = WORLD_SIDE - LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+        for (int tick = 0; tick < TICKS; tick++) {
+            // the next tick is a reorder tick, which runs before the new balls are found
+            if (tick % INTERVAL == INTERVAL - 1) {
+                simulation.spawn(random.nextInt(side), random.nextInt(side), 1, -1,
+                                 Color.RED);
+                final int x = random.nextInt(side);
+                final int y = random.nextInt(side);
+                simulation.submit(theSimulation -> theSimulation.spawn(x, y, -1, 1,
+                                                                       Color.BLUE));
+            }
+            simulation.tick();
+        }
+        assertTrue(simulation.getBalls().size() > BALLS, "no ball was added");
+        assertEquals(TICKS / INTERVAL, simulation.getReorderCount());
+        simulation.shutdown();
+    }
+
+    @Test
+    void offHeapReordersLikeArrays() {
+        final BallSimulation arrays = world(new ArrayBallLayout(0));
+        final BallSimulation offHeap = world(new OffHeapBallLayout(0));
+        offHeap.setReorderInterval(INTERVAL);
+        arrays.setReorderInterval(0);
+        for (int tick = 0; tick < TICKS; tick++) {
+            arrays.tick();
+            offHeap.tick();
+        }
+        assertSameBalls(arrays.getBalls(), offHeap.getBalls());
+        offHeap.getBalls().close();
+    }
+
+    /**
+     * Builds the same crowded random world every time, kept in theLayout.
+     *
+     * @param theLayout where the balls are kept
+     * @return the world
+     */
+    private static BallSimulation world(final BallLayout theLayout) {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE,
+                                                             theLayout);
+        BallDistribution.CLUSTERED.fill(simulation.getBalls(), BALLS, WORLD_SIDE,
+                                        WORLD_SIDE, new Random(SEED));
+        return simulation;
+    }
+}
@@ -0,0 +1,96 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Color;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that the vector kernel moves balls of many sizes exactly like the scalar
+ * kernel, on whole blocks, on the balls left over after them, and on layouts it cannot
+ * vectorize.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class MoveKernelTest {
+
+    /** The side length of the small test world, so balls hit the walls often. */
+    private static final int WORLD_SIDE = 40;
+
+    /** The number of steps compared. */
+    private static final int STEPS = 200;
+
+    /** The seed for the random balls so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 7, 8, 9, 15, 16, 17, 20, 1001})
+    void vectorMovesExactlyLikeScalar(final int theBalls) {
+        assumeTrue(MoveKernelType.VECTOR.isAvailable(), "jdk.incubator.vector is missing");
+        assertSameMoves(new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE),
+                        new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE), theBalls);
+    }
+
+    @Test
+    void vectorFallsBackToScalarOffTheHeap() {
+        assumeTrue(MoveKernelType.VECTOR.isAvailable(), "jdk.incubator.vector is missing");
+        final BallStore offHeap = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE,
+                                                new OffHeapBallLayout(0));
+        assertSameMoves(new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE), offHeap,
+                        WORLD_SIDE);
+        offHeap.close();
+    }
+
+    @Test
+    void scalarIsAlwaysAvailable() {
+        final BallStore balls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE);
+        balls.setMoveKernel(MoveKernelType.SCALAR);
+        assertEquals(MoveKernelType.SCALAR, balls.getMoveKernel());
+        assertTrue(MoveKernelType.SCALAR.isAvailable());
+    }
+
+    /**
+     * Fills both stores with the same random balls, some of them outside the world,
+     * moves theExpected with the scalar kernel and theActual with the vector kernel, and
+     * checks every field after every step.
+     *
+     * @param theExpected the store moved by the scalar kernel
+     * @param theActual the store moved by the vector kernel
+     * @param theBalls the number of balls
+     */
+    private static void assertSameMoves(final BallStore theExpected,
+                                        final BallStore theActual, final int theBalls) {
+        final Random random = new Random(SEED);
+        for (int i = 0; i < theBalls; i++) {
+            final double x = random.nextInt(WORLD_SIDE * 2) - WORLD_SIDE / 2;
+            final double y = random.nextInt(WORLD_SIDE * 2) - WORLD_SIDE / 2;
+            final int horizontal = random.nextBoolean() ? 1 : -1;
+            final int vertical = random.nextBoolean() ? 1 : -1;
+            final double diameter = 1 + random.nextInt(WORLD_SIDE);
+            theExpected.add(x, y, horizontal, vertical, Color.RED, diameter);
+            theActual.add(x, y, horizontal, vertical, Color.RED, diameter);
+        }
+        theExpected.setMoveKernel(MoveKernelType.SCALAR);
+        theActual.setMoveKernel(MoveKernelType.VECTOR);
+        for (int step = 0; step < STEPS; step++) {
+            theExpected.move(WORLD_SIDE, WORLD_SIDE);
+            theActual.move(WORLD_SIDE, WORLD_SIDE);
+            for (int i = 0; i < theBalls; i++) {
+                assertEquals(theExpected.getX(i), theActual.getX(i), "x of " + i);
+                assertEquals(theExpected.getY(i), theActual.getY(i), "y of " + i);
+                assertEquals(theExpected.getPreviousX(i), theActual.getPreviousX(i));
+                assertEquals(theExpected.getPreviousY(i), theActual.getPreviousY(i));
+                assertEquals(theExpected.getHorizontalMove(i),
+                             theActual.getHorizontalMove(i), "horizontal of " + i);
+                assertEquals(theExpected.getVerticalMove(i), theActual.getVerticalMove(i),
+                             "vertical of " + i);
+            }
+        }
+    }
+}
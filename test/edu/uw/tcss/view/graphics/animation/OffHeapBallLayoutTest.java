@@ -0,0 +1,94 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that a simulation kept off the heap moves, collides and is drawn exactly like
+ * one kept in arrays, and that closing a store gives its memory back.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class OffHeapBallLayoutTest {
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 2000;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 600;
+
+    /** The number of ticks compared. */
+    private static final int TICKS = 300;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @EnumSource(BallDistribution.class)
+    void offHeapTicksExactlyLikeArrays(final BallDistribution theDistribution) {
+        final BallSimulation arrays = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        final BallSimulation offHeap = new BallSimulation(WORLD_SIDE, WORLD_SIDE,
+                                                          new OffHeapBallLayout(0));
+        theDistribution.fill(arrays.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                             new Random(SEED));
+        theDistribution.fill(offHeap.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                             new Random(SEED));
+        for (int tick = 0; tick < TICKS; tick++) {
+            assertEquals(arrays.tick(), offHeap.tick(), "collisions in tick " + tick);
+        }
+        final BallStore expected = arrays.getBalls();
+        final BallStore actual = offHeap.getBalls();
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(actual, 1);
+        for (int i = 0; i < BALLS; i++) {
+            assertEquals(expected.getX(i), actual.getX(i));
+            assertEquals(expected.getY(i), actual.getY(i));
+            assertEquals(expected.getPreviousX(i), actual.getPreviousX(i));
+            assertEquals(expected.getPreviousY(i), actual.getPreviousY(i));
+            assertEquals(expected.getHorizontalMove(i), actual.getHorizontalMove(i));
+            assertEquals(expected.getVerticalMove(i), actual.getVerticalMove(i));
+            assertEquals(expected.getColorIndex(i), actual.getColorIndex(i));
+            assertEquals(expected.getX(i), snapshot.getX(i));
+        }
+        actual.close();
+    }
+
+    @Test
+    void layoutGrowsAndKeepsItsRecords() {
+        final OffHeapBallLayout layout = new OffHeapBallLayout(1);
+        final BallStore balls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE,
+                                              layout);
+        final Color[] colors = {Color.RED, Color.GREEN, Color.BLUE};
+        for (int i = 0; i < BALLS; i++) {
+            balls.add(i, -i, 1, -1, colors[i % colors.length]);
+        }
+        assertEquals(BALLS, balls.size());
+        for (int i = 0; i < BALLS; i++) {
+            assertEquals(i, balls.getX(i));
+            assertEquals(-i, balls.getPreviousY(i));
+            assertEquals(-1, balls.getVerticalMove(i));
+            assertEquals(colors[i % colors.length],
+                         balls.getPaletteColor(balls.getColorIndex(i)));
+        }
+    }
+
+    @Test
+    void closedStoreIsEmptyAndStaysClosed() {
+        final BallStore balls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE,
+                                              new OffHeapBallLayout(BALLS));
+        balls.add(0, 0, 1, 1, Color.RED);
+        balls.close();
+        assertEquals(0, balls.size());
+        assertEquals(0, balls.capacity());
+        balls.move(WORLD_SIDE, WORLD_SIDE);
+        balls.close();
+        assertThrows(IllegalStateException.class, () -> balls.add(0, 0, 1, 1, Color.RED));
+    }
+}
@@ -0,0 +1,87 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that searching for collisions on several threads gives exactly the same world
+ * as searching on one.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class ParallelGridBroadPhaseTest {
+
+    /** The number of balls in the test world; enough to use the parallel path. */
+    private static final int BALLS = 6000;
+
+    /** The number of ticks to run. */
+    private static final int TICKS = 150;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 2500;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 8})
+    void parallelWorldMatchesSerialWorld(final int theParallelism) {
+        final BallSimulation serial = randomWorld();
+        final BallSimulation parallel = randomWorld();
+        parallel.setParallelism(theParallelism);
+        try {
+            for (int tick = 0; tick < TICKS; tick++) {
+                serial.tick();
+                parallel.tick();
+            }
+        } finally {
+            parallel.shutdown();
+        }
+        final BallStore expected = serial.getBalls();
+        final BallStore actual = parallel.getBalls();
+        for (int i = 0; i < BALLS; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected.getX(i)),
+                         Double.doubleToRawLongBits(actual.getX(i)), "x of ball " + i);
+            assertEquals(Double.doubleToRawLongBits(expected.getY(i)),
+                         Double.doubleToRawLongBits(actual.getY(i)), "y of ball " + i);
+            assertEquals(expected.getHorizontalMove(i), actual.getHorizontalMove(i),
+                         "horizontal move of ball " + i);
+            assertEquals(expected.getVerticalMove(i), actual.getVerticalMove(i),
+                         "vertical move of ball " + i);
+        }
+    }
+
+    /**
+     * Builds the same crowded world every time it is called.
+     *
+     * @return a world of BALLS balls
+     */
+    private static BallSimulation randomWorld() {
+        final Random random = new Random(SEED);
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        for (int i = 0; i < BALLS; i++) {
+            simulation.getBalls().add(random.nextInt(WORLD_SIDE), random.nextInt(WORLD_SIDE),
+                                      direction(random), direction(random), Color.BLUE);
+        }
+        return simulation;
+    }
+
+    /**
+     * Returns 1 or -1 at random.
+     *
+     * @param theRandom the random number generator
+     * @return 1 or -1
+     */
+    private static int direction(final Random theRandom) {
+        int result = 1;
+        if (theRandom.nextBoolean()) {
+            result = -1;
+        }
+        return result;
+    }
+}
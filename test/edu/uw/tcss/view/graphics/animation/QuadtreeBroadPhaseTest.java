@@ -0,0 +1,78 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that the quadtree finds exactly the pairs brute force finds while it splits
+ * and merges, and that its point queries for balls of any size agree with checking
+ * every ball.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class QuadtreeBroadPhaseTest {
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 1500;
+
+    /** The number of ticks to run. */
+    private static final int TICKS = 300;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 1200;
+
+    /** The number of point queries to check. */
+    private static final int QUERIES = 5000;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @EnumSource(BallDistribution.class)
+    void quadtreeMatchesBruteForce(final BallDistribution theDistribution) {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        simulation.setBroadPhase(BroadPhaseType.QUADTREE);
+        simulation.setCompareBroadPhases(true);
+        theDistribution.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                             new Random(SEED));
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick == TICKS / 2) {
+                // balls added between ticks must be inserted into the tree
+                theDistribution.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                                     new Random(SEED + 1));
+            }
+            // throws IllegalStateException as soon as the two disagree
+            simulation.tick();
+        }
+        assertEquals(2 * BALLS, simulation.getBalls().size());
+    }
+
+    @Test
+    void pointQueriesMatchEveryBall() {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        final BallStore balls = simulation.getBalls();
+        final Random random = new Random(SEED);
+        BallDistribution.CLUSTERED.fill(balls, BALLS, WORLD_SIDE, WORLD_SIDE, random);
+        final BroadPhase quadtree = BroadPhaseType.QUADTREE.create();
+        final BroadPhase bruteForce = BroadPhaseType.BRUTE_FORCE.create();
+        quadtree.findCollisions(balls, new CollisionPairs());
+        // a ball added after the tree was built must still be found, even a large one
+        balls.add(WORLD_SIDE / 2, WORLD_SIDE / 2, 1, 1, Color.BLUE,
+                  LotsOfMovingShapesPanel.MAX_CLICK_DIAMETER);
+        for (int query = 0; query < QUERIES; query++) {
+            final double x = random.nextInt(WORLD_SIDE);
+            final double y = random.nextInt(WORLD_SIDE);
+            final double diameter = LotsOfMovingShapesPanel.MIN_CLICK_DIAMETER
+                    + random.nextInt(LotsOfMovingShapesPanel.MAX_CLICK_DIAMETER);
+            assertEquals(bruteForce.overlapsAny(balls, x, y, diameter),
+                         quadtree.overlapsAny(balls, x, y, diameter),
+                         "overlap at " + x + ", " + y);
+        }
+    }
+}
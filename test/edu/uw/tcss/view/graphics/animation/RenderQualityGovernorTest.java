@@ -0,0 +1,121 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the governor steps the quality down when frames are over budget, back up
+ * when there is headroom, and holds it in between.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class RenderQualityGovernorTest {
+
+    /** The frame budget used by the tests, in nanoseconds. */
+    private static final long BUDGET = 10_000_000L;
+
+    /** A frame time well over the budget. */
+    private static final long SLOW = 3 * BUDGET;
+
+    /** A frame time well under half the budget. */
+    private static final long FAST = BUDGET / 10;
+
+    /** A frame time over half the budget but under the budget. */
+    private static final long FITS = BUDGET * 3 / 4;
+
+    @Test
+    void slowFramesStepDownOneLevelAtATime() {
+        final RenderQualityGovernor governor = new RenderQualityGovernor(BUDGET);
+        record(governor, SLOW, RenderQualityGovernor.SETTLE_FRAMES - 1);
+        assertEquals(RenderQuality.FULL, governor.getQuality());
+        record(governor, SLOW, 1);
+        assertEquals(RenderQuality.SPRITES, governor.getQuality());
+        record(governor, SLOW, 10 * RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.HALF_RATE, governor.getQuality());
+        assertEquals(RenderQuality.values().length - 1, governor.getDowngrades());
+    }
+
+    @Test
+    void headroomStepsBackUp() {
+        final RenderQualityGovernor governor = new RenderQualityGovernor(BUDGET);
+        record(governor, SLOW, RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.SPRITES, governor.getQuality());
+        record(governor, FAST, 2 * RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.FULL, governor.getQuality());
+        assertEquals(1, governor.getUpgrades());
+    }
+
+    @Test
+    void framesThatFitHoldTheQuality() {
+        final RenderQualityGovernor governor = new RenderQualityGovernor(BUDGET);
+        record(governor, SLOW, RenderQualityGovernor.SETTLE_FRAMES);
+        record(governor, FITS, 10 * RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.SPRITES, governor.getQuality());
+        assertEquals(1, governor.getDowngrades());
+        assertEquals(0, governor.getUpgrades());
+    }
+
+    @Test
+    void failedUpgradeWaitsLongerNextTime() {
+        final RenderQualityGovernor governor = new RenderQualityGovernor(BUDGET);
+        record(governor, SLOW, RenderQualityGovernor.SETTLE_FRAMES);
+        record(governor, FAST, RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.FULL, governor.getQuality());
+        // full quality is still too slow, so the governor steps straight back down
+        record(governor, SLOW, RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.SPRITES, governor.getQuality());
+        record(governor, FAST, 2 * RenderQualityGovernor.SETTLE_FRAMES - 1);
+        assertEquals(RenderQuality.SPRITES, governor.getQuality());
+        record(governor, FAST, 1);
+        assertEquals(RenderQuality.FULL, governor.getQuality());
+    }
+
+    @Test
+    void halfRateSkipsEveryOtherRepaint() {
+        final RenderQualityGovernor governor = new RenderQualityGovernor(BUDGET);
+        assertTrue(governor.shouldRepaint());
+        assertTrue(governor.shouldRepaint());
+        record(governor, SLOW, 10 * RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.HALF_RATE, governor.getQuality());
+        final boolean first = governor.shouldRepaint();
+        assertEquals(!first, governor.shouldRepaint());
+    }
+
+    @Test
+    void disabledGovernorKeepsFullQuality() {
+        final RenderQualityGovernor governor = new RenderQualityGovernor(BUDGET);
+        record(governor, SLOW, RenderQualityGovernor.SETTLE_FRAMES);
+        governor.setEnabled(false);
+        assertEquals(RenderQuality.FULL, governor.getQuality());
+        record(governor, SLOW, 10 * RenderQualityGovernor.SETTLE_FRAMES);
+        assertEquals(RenderQuality.FULL, governor.getQuality());
+        assertFalse(governor.getAverageMillis() < BUDGET / 1e6);
+    }
+
+    @Test
+    void lowerLevelsAreCheaper() {
+        assertEquals(RenderMode.TILED, RenderQuality.FULL.getMode(RenderMode.TILED));
+        assertEquals(RenderMode.SPRITES, RenderQuality.SPRITES.getMode(RenderMode.TILED));
+        assertEquals(RenderMode.PER_BALL, RenderQuality.ALIASED.getMode(RenderMode.TILED));
+        assertTrue(RenderQuality.SPRITES.isAntialiased());
+        assertFalse(RenderQuality.HALF_RATE.isAntialiased());
+    }
+
+    /**
+     * Records theCount frames that each took theNanos.
+     *
+     * @param theGovernor the governor
+     * @param theNanos the time of each frame
+     * @param theCount the number of frames
+     */
+    private static void record(final RenderQualityGovernor theGovernor, final long theNanos,
+                               final int theCount) {
+        for (int frame = 0; frame < theCount; frame++) {
+            theGovernor.record(theNanos);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the drawing thread always sees a whole published snapshot while the
+ * simulation is stepped, spawned into and drawn at the same time.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class SnapshotExchangeTest {
+
+    /** The number of frames published by the stress tests. */
+    private static final int FRAMES = 20_000;
+
+    /** The number of frames between two balls added while publishing. */
+    private static final int FRAMES_PER_BALL = 50;
+
+    /** The number of steps taken while spawning and painting. */
+    private static final int STEPS = 2_000;
+
+    /** The most balls spawned while stepping and painting. */
+    private static final int SPAWNS = 500;
+
+    /** The number of balls the publishing test starts with. */
+    private static final int BALLS = 100;
+
+    /** A world so large that no ball reaches a wall during a test. */
+    private static final double HUGE = 1e9;
+
+    /** The longest a stress test may take, in seconds. */
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /** The seed for the random spawns so every run is the same. */
+    private static final long SEED = 305L;
+
+    @Test
+    void acquireKeepsTheFrontUntilSomethingIsPublished() {
+        final SnapshotExchange exchange = new SnapshotExchange();
+        final BallSnapshot first = exchange.getBack();
+        exchange.publish();
+        assertSame(first, exchange.acquire());
+        assertSame(first, exchange.acquire());
+        final BallSnapshot second = exchange.getBack();
+        exchange.publish();
+        final BallSnapshot third = exchange.getBack();
+        exchange.publish();
+        // the second snapshot was never acquired, so it is filled again
+        assertSame(second, exchange.getBack());
+        assertSame(third, exchange.acquire());
+    }
+
+    @Test
+    void publishedSnapshotsAreNeverTorn() throws Exception {
+        final SnapshotExchange exchange = new SnapshotExchange();
+        final AtomicBoolean done = new AtomicBoolean();
+        final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            // every ball moves right one step per frame, so all balls share an x
+            final BallStore balls = new BallStore(LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE);
+            for (int i = 0; i < BALLS; i++) {
+                balls.add(0, i, 1, 1, Color.BLUE);
+            }
+            for (int frame = 0; frame < FRAMES; frame++) {
+                balls.move(HUGE, HUGE);
+                if (frame % FRAMES_PER_BALL == 0) {
+                    balls.add(balls.getX(0), -1, 1, 1, Color.RED);
+                }
+                exchange.getBack().capture(balls);
+                exchange.publish();
+            }
+            done.set(true);
+        });
+        double latestX = 0;
+        int latestSize = 0;
+        int frames = 0;
+        while (!done.get() || frames == 0) {
+            final BallSnapshot snapshot = exchange.acquire();
+            snapshot.interpolate(1);
+            for (int i = 1; i < snapshot.size(); i++) {
+                assertEquals(snapshot.getX(0), snapshot.getX(i), "ball " + i);
+            }
+            assertTrue(snapshot.size() >= latestSize, "balls went missing");
+            if (snapshot.size() > 0) {
+                assertTrue(snapshot.getX(0) >= latestX, "went back in time");
+                latestX = snapshot.getX(0);
+            }
+            latestSize = snapshot.size();
+            frames++;
+        }
+        producer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        final BallSnapshot last = exchange.acquire();
+        last.interpolate(1);
+        assertEquals(FRAMES, last.getX(0));
+    }
+
+    @Test
+    void spawningSteppingAndPaintingAtOnceNeverFails() throws Exception {
+        final LotsOfMovingShapesPanel panel = new LotsOfMovingShapesPanel();
+        panel.setSize(LotsOfMovingShapesPanel.PREFERRED_SIZE);
+        final BallSimulation simulation = panel.getSimulation();
+        final BallStore balls = simulation.getBalls();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicInteger spawned = new AtomicInteger(1);
+        // the number of balls after each step, by move count; only the stepper changes
+        // the balls, since the spawner submits commands
+        final Map<Long, Integer> published = new ConcurrentHashMap<>();
+        published.put(balls.getMoveCount(), balls.size());
+        final CompletableFuture<Void> stepper = CompletableFuture.runAsync(() -> {
+            for (int step = 0; step < STEPS; step++) {
+                panel.step();
+                published.put(balls.getMoveCount(), balls.size());
+            }
+            done.set(true);
+        });
+        final CompletableFuture<Void> spawner = CompletableFuture.runAsync(() -> {
+            final Random random = new Random(SEED);
+            final int right = panel.getWidth() - LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+            final int bottom = panel.getHeight() - LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+            for (int attempt = 0; attempt < SPAWNS && !done.get(); attempt++) {
+                final int x = random.nextInt(right);
+                final int y = random.nextInt(bottom);
+                simulation.submit(theSimulation -> {
+                    if (theSimulation.spawn(x, y, 1, 1, Color.RED)) {
+                        spawned.incrementAndGet();
+                    }
+                });
+                Thread.yield();
+            }
+        });
+        final BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(),
+                                                      BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = image.createGraphics();
+        final Map<Long, Integer> painted = new HashMap<>();
+        while (!done.get() || painted.isEmpty()) {
+            panel.paintComponent(graphics);
+            final BallSnapshot snapshot = panel.getPaintedSnapshot();
+            final Integer size = painted.putIfAbsent(snapshot.getMoveCount(), snapshot.size());
+            if (size != null) {
+                assertEquals(size, snapshot.size(), "move " + snapshot.getMoveCount());
+            }
+        }
+        graphics.dispose();
+        stepper.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        spawner.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (final Map.Entry<Long, Integer> frame : painted.entrySet()) {
+            assertEquals(published.get(frame.getKey()), frame.getValue(),
+                         "balls painted after move " + frame.getKey());
+        }
+        // run the commands submitted after the last step
+        panel.step();
+        assertEquals(spawned.get(), balls.size());
+    }
+}
@@ -0,0 +1,49 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that sort and sweep finds exactly the pairs brute force finds, tick after tick,
+ * for evenly spread, clustered and banded worlds, including after balls are added.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class SweepAndPruneBroadPhaseTest {
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 1500;
+
+    /** The number of ticks to run. */
+    private static final int TICKS = 200;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 1200;
+
+    /** The seed for the random world so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @EnumSource(BallDistribution.class)
+    void sweepMatchesBruteForce(final BallDistribution theDistribution) {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        simulation.setBroadPhase(BroadPhaseType.SWEEP_AND_PRUNE);
+        simulation.setCompareBroadPhases(true);
+        theDistribution.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                             new Random(SEED));
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick == TICKS / 2) {
+                // balls added between ticks must join the kept orders
+                theDistribution.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE,
+                                     new Random(SEED + 1));
+            }
+            // throws IllegalStateException as soon as the two disagree
+            simulation.tick();
+        }
+        assertEquals(2 * BALLS, simulation.getBalls().size());
+    }
+}
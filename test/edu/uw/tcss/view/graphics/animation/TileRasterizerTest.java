@@ -0,0 +1,136 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Compares the images the tile rasterizer draws with the images Java2D draws for the
+ * same balls. Java2D flattens each circle into short straight lines and the rasterizer
+ * uses the true circle, so edge pixels differ slightly; the differences must stay small
+ * and rare.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class TileRasterizerTest {
+
+    /** The width of the test images. */
+    private static final int IMAGE_WIDTH = 800;
+
+    /** The height of the test images. */
+    private static final int IMAGE_HEIGHT = 450;
+
+    /** The number of balls drawn. */
+    private static final int BALLS = 300;
+
+    /** The diameter of a ball. */
+    private static final int DIAMETER = LotsOfMovingShapesPanel.BOUNDING_BOX_SIDE;
+
+    /** The diameter of the smallest ball when the balls differ in size. */
+    private static final int MIN_MIXED_DIAMETER = 10;
+
+    /** The diameter of the largest ball when the balls differ in size. */
+    private static final int MAX_MIXED_DIAMETER = 120;
+
+    /** The largest difference allowed in any channel of any pixel. */
+    private static final int MAX_DIFFERENCE = 32;
+
+    /** The difference above which a channel counts as noticeably different. */
+    private static final int NOTICEABLE = 4;
+
+    /** The largest fraction of channels allowed to be noticeably different. */
+    private static final double MAX_NOTICEABLE_FRACTION = 0.02;
+
+    /** The mask that keeps the lowest byte of a pixel. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** The number of color channels in a pixel. */
+    private static final int CHANNELS = 3;
+
+    /** The colors the balls take turns using, one of them translucent. */
+    private static final Color[] COLORS = {
+        Color.RED, Color.decode("#4B2E83"), Color.decode("#B7A57A"), new Color(0, 0, 255, 128),
+    };
+
+    /** The seed for the random balls so every run is the same. */
+    private static final long SEED = 305L;
+
+    @ParameterizedTest
+    @CsvSource({"1, false, false", "1, true, false", "0.5, false, false",
+                "1.5, true, false", "2, false, false", "1, false, true", "1.5, true, true"})
+    void matchesJava2dWithinTolerance(final double theScale, final boolean theClipped,
+                                      final boolean theMixed) {
+        final BallStore balls = new BallStore(DIAMETER);
+        final Random random = new Random(SEED);
+        for (int i = 0; i < BALLS; i++) {
+            int diameter = DIAMETER;
+            if (theMixed) {
+                diameter = MIN_MIXED_DIAMETER
+                        + random.nextInt(MAX_MIXED_DIAMETER - MIN_MIXED_DIAMETER + 1);
+            }
+            // some balls hang over the edges of the image
+            balls.add(random.nextDouble() * IMAGE_WIDTH - diameter / 2.0,
+                      random.nextDouble() * IMAGE_HEIGHT - diameter / 2.0, 1, 1,
+                      COLORS[i % COLORS.length], diameter);
+        }
+        final BallSnapshot snapshot = new BallSnapshot();
+        snapshot.capture(balls, 1);
+
+        final int[] expected = render(snapshot, RenderMode.PER_BALL, theScale, theClipped);
+        final int[] actual = render(snapshot, RenderMode.TILED, theScale, theClipped);
+        int noticeable = 0;
+        for (int i = 0; i < expected.length; i++) {
+            for (int shift = 0; shift < CHANNELS * Byte.SIZE; shift += Byte.SIZE) {
+                final int difference = Math.abs((expected[i] >> shift & BYTE_MASK)
+                                                - (actual[i] >> shift & BYTE_MASK));
+                assertTrue(difference <= MAX_DIFFERENCE, "pixel " + i + " off by " + difference);
+                if (difference > NOTICEABLE) {
+                    noticeable++;
+                }
+            }
+        }
+        assertTrue(noticeable <= MAX_NOTICEABLE_FRACTION * CHANNELS * expected.length,
+                   noticeable + " channels noticeably different");
+    }
+
+    /**
+     * Draws theSnapshot antialiased on a white image in theMode, shifted and scaled so
+     * the balls do not land on whole device pixels.
+     *
+     * @param theSnapshot the balls to draw
+     * @param theMode the render mode
+     * @param theScale the scale from user space to device space
+     * @param theClipped true to draw only into a rectangle in the middle of the image
+     * @return the pixels of the image
+     */
+    private static int[] render(final BallSnapshot theSnapshot, final RenderMode theMode,
+                                final double theScale, final boolean theClipped) {
+        final BufferedImage image =
+                new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(Color.WHITE);
+        graphics.fillRect(0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                  RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.translate(3, 5);
+        graphics.scale(theScale, theScale);
+        if (theClipped) {
+            graphics.clip(new Rectangle(IMAGE_WIDTH / 8, IMAGE_HEIGHT / 8,
+                                        IMAGE_WIDTH / 4, IMAGE_HEIGHT / 4));
+        }
+        final BallRenderer renderer = new BallRenderer();
+        renderer.setMode(theMode);
+        renderer.paint(graphics, theSnapshot);
+        graphics.dispose();
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,105 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the trails fade by the same fraction each frame, only once per frame, and
+ * fade out completely.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class TrailBufferTest {
+
+    /** The side length of the square trail image. */
+    private static final int SIDE = 8;
+
+    /** The number of bits the alpha channel is shifted by in a pixel. */
+    private static final int ALPHA_SHIFT = 24;
+
+    /** The largest value of the alpha channel. */
+    private static final int OPAQUE = 255;
+
+    @Test
+    void eachFrameFadesByTheSameFraction() {
+        final TrailBuffer trails = new TrailBuffer(TrailBuffer.DEFAULT_FADE);
+        stamp(trails);
+        double expected = OPAQUE;
+        for (int frame = 1; frame < TrailBuffer.CLEANUP_PERIOD; frame++) {
+            trails.update(SIDE, SIDE, frame, theGraphics -> { });
+            expected *= 1 - TrailBuffer.DEFAULT_FADE;
+            // each fade rounds to a whole step of alpha
+            assertEquals(expected, alpha(trails), frame);
+        }
+    }
+
+    @Test
+    void oldTrailsFadeOutCompletely() {
+        final TrailBuffer trails = new TrailBuffer(TrailBuffer.DEFAULT_FADE);
+        stamp(trails);
+        // 0.9 to the 60th is about 1 / 550, well below one step of alpha
+        for (int frame = 1; frame <= 60 + TrailBuffer.CLEANUP_PERIOD; frame++) {
+            trails.update(SIDE, SIDE, frame, theGraphics -> { });
+        }
+        assertEquals(0, alpha(trails));
+        assertEquals(0, trails.getImage().getRGB(0, 0));
+    }
+
+    @Test
+    void repaintingAFrameDoesNotFadeAgain() {
+        final TrailBuffer trails = new TrailBuffer(TrailBuffer.DEFAULT_FADE);
+        stamp(trails);
+        trails.update(SIDE, SIDE, 1, theGraphics -> { });
+        final int faded = alpha(trails);
+        for (int paint = 0; paint < 5; paint++) {
+            trails.update(SIDE, SIDE, 1, theGraphics -> { });
+        }
+        assertEquals(faded, alpha(trails));
+    }
+
+    @Test
+    void resizingDropsTheTrails() {
+        final TrailBuffer trails = new TrailBuffer(TrailBuffer.DEFAULT_FADE);
+        stamp(trails);
+        final Object before = trails.getImage();
+        // the frame is not new, but the resized image starts empty and is drawn
+        trails.update(SIDE * 2, SIDE, 0, theGraphics -> { });
+        assertNotSame(before, trails.getImage());
+        assertEquals(0, alpha(trails));
+        assertEquals(SIDE * 2, trails.getImage().getWidth());
+    }
+
+    @Test
+    void fadeMustBeAFraction() {
+        assertThrows(IllegalArgumentException.class, () -> new TrailBuffer(0));
+        assertThrows(IllegalArgumentException.class, () -> new TrailBuffer(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new TrailBuffer(Double.NaN));
+    }
+
+    /**
+     * Fills the whole trail image with an opaque color in frame 0.
+     *
+     * @param theTrails the trails
+     */
+    private static void stamp(final TrailBuffer theTrails) {
+        theTrails.update(SIDE, SIDE, 0, theGraphics -> {
+            theGraphics.setColor(Color.BLUE);
+            theGraphics.fillRect(0, 0, SIDE, SIDE);
+        });
+    }
+
+    /**
+     * Returns the alpha of the upper left pixel of the trails.
+     *
+     * @param theTrails the trails
+     * @return the alpha, from 0 to 255
+     */
+    private static int alpha(final TrailBuffer theTrails) {
+        return theTrails.getImage().getRGB(0, 0) >>> ALPHA_SHIFT;
+    }
+}
@@ -0,0 +1,89 @@
+package edu.uw.tcss.view.graphics.animation;
+
+import static edu.uw.tcss.view.graphics.animation.BallAssertions.assertSameBalls;
+
+import java.awt.Color;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Runs the same seeded worlds with the uniform grid and with brute force side by side
+ * and checks that the balls end up bit for bit the same.
+ *
+ * @author TCSS 305 Staff
+ * @version 1.0
+ */
+class UniformGridBroadPhaseTest {
+
+    /** The number of balls in the test world. */
+    private static final int BALLS = 800;
+
+    /** The number of larger balls added, which span several grid cells. */
+    private static final int LARGE_BALLS = 10;
+
+    /** The side length of the square test world. */
+    private static final int WORLD_SIDE = 1000;
+
+    /** The number of ticks between comparisons. */
+    private static final int TICKS = 100;
+
+    /** The number of times the worlds are compared. */
+    private static final int ROUNDS = 3;
+
+    /** The seeds of the worlds run. */
+    private static final long[] SEEDS = {305L, 42L, 2024L};
+
+    @ParameterizedTest
+    @EnumSource(BallDistribution.class)
+    void gridMatchesBruteForce(final BallDistribution theDistribution) {
+        for (final long seed : SEEDS) {
+            final BallSimulation grid = world(theDistribution, seed);
+            final BallSimulation bruteForce = world(theDistribution, seed);
+            grid.setBroadPhase(BroadPhaseType.UNIFORM_GRID);
+            bruteForce.setBroadPhase(BroadPhaseType.BRUTE_FORCE);
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int tick = 0; tick < TICKS; tick++) {
+                    grid.tick();
+                    bruteForce.tick();
+                }
+                assertSameBalls(bruteForce.getBalls(), grid.getBalls());
+            }
+        }
+    }
+
+    /**
+     * Creates a world filled with theDistribution from theSeed, plus a few balls larger
+     * than a grid cell.
+     *
+     * @param theDistribution how the balls are placed
+     * @param theSeed the seed for the random balls
+     * @return the new world
+     */
+    private static BallSimulation world(final BallDistribution theDistribution,
+                                        final long theSeed) {
+        final BallSimulation simulation = new BallSimulation(WORLD_SIDE, WORLD_SIDE);
+        final Random random = new Random(theSeed);
+        theDistribution.fill(simulation.getBalls(), BALLS, WORLD_SIDE, WORLD_SIDE, random);
+        for (int i = 0; i < LARGE_BALLS; i++) {
+            simulation.getBalls().add(random.nextInt(WORLD_SIDE), random.nextInt(WORLD_SIDE),
+                                      direction(random), direction(random),
+                                      Color.RED, LotsOfMovingShapesPanel.MAX_CLICK_DIAMETER);
+        }
+        return simulation;
+    }
+
+    /**
+     * Picks a random direction.
+     *
+     * @param theRandom the source of randomness
+     * @return 1 or -1
+     */
+    private static int direction(final Random theRandom) {
+        int direction = 1;
+        if (theRandom.nextBoolean()) {
+            direction = -1;
+        }
+        return direction;
+    }
+}